@@ -1,15 +1,139 @@
 import { spawn } from 'child_process';
-import ora from 'ora';
+import { readFileSync, realpathSync } from 'fs';
+import http from 'http';
+import { homedir } from 'os';
+import { join } from 'path';
+import ora, { Ora } from 'ora';
 
 /**
  * Executes the Java core application with the provided arguments.
+ *
+ * When an SMG daemon is running (`java -jar smg-core-1.0.0.jar daemon`), the run is
+ * sent to it: the JVM, its JIT and the parsed schemas are already resident, so the
+ * output starts in milliseconds. Otherwise a new Java process is started.
+ *
+ * The daemon only accepts requests carrying the token it writes to
+ * `~/.smg/daemon-<port>.token`, readable by its user only. It resolves relative paths
+ * (outputs, logs, caches) against its own working directory, so it is only used when
+ * it runs in the working directory of the CLI.
  */
 export class JavaExecutorService {
 
+    private static readonly EXIT_PREFIX = 'smg-exit: ';
+    private static readonly TOKEN_HEADER = 'X-SMG-Token';
+    private static readonly CWD_HEADER = 'X-SMG-Cwd';
+
     private javaProcessPath = 'java';
     private javaJarPath = '../core/target/smg-core-1.0.0.jar';
+    private daemonHost = '127.0.0.1';
+    private daemonPort = Number(process.env.SMG_DAEMON_PORT ?? 7437);
+    private daemonProbeTimeoutMs = 300;
+
+    public async execute(args: string[]): Promise<void> {
+        const token = this.readDaemonToken();
+        if (token && await this.isDaemonRunning(token)) {
+            return this.executeOnDaemon(args, token);
+        }
+        return this.executeProcess(args);
+    }
 
-    public execute(args: string[]): Promise<void> {
+    /**
+     * Reads the token of the daemon, or returns null when no daemon wrote one.
+     */
+    private readDaemonToken(): string | null {
+        try {
+            return readFileSync(join(homedir(), '.smg', `daemon-${this.daemonPort}.token`), 'utf8').trim();
+        } catch {
+            return null;
+        }
+    }
+
+    /**
+     * Checks whether a daemon answers on its port, accepts the token and runs in the
+     * working directory of the CLI.
+     */
+    private isDaemonRunning(token: string): Promise<boolean> {
+        return new Promise((resolve) => {
+            const request = http.get({
+                host: this.daemonHost,
+                port: this.daemonPort,
+                path: '/smg/status',
+                headers: { [JavaExecutorService.TOKEN_HEADER]: token },
+                timeout: this.daemonProbeTimeoutMs,
+            }, (response) => {
+                let body = '';
+                response.setEncoding('utf8');
+                response.on('data', (data: string) => body += data);
+                response.on('end', () => {
+                    try {
+                        resolve(response.statusCode === 200 && JSON.parse(body).cwd === realpathSync(process.cwd()));
+                    } catch {
+                        resolve(false);
+                    }
+                });
+            });
+            request.on('timeout', () => request.destroy());
+            request.on('error', () => resolve(false));
+        });
+    }
+
+    /**
+     * Sends the run to the daemon, which streams the output and ends it with the exit code.
+     */
+    private executeOnDaemon(args: string[], token: string): Promise<void> {
+        return new Promise((resolve, reject) => {
+            const spinner = ora('Generating synthetic data (SMG daemon)...').start();
+            const body = JSON.stringify(args);
+
+            const request = http.request({
+                host: this.daemonHost,
+                port: this.daemonPort,
+                path: '/smg/run',
+                method: 'POST',
+                headers: {
+                    'Content-Type': 'application/json',
+                    'Content-Length': Buffer.byteLength(body),
+                    [JavaExecutorService.TOKEN_HEADER]: token,
+                    [JavaExecutorService.CWD_HEADER]: process.cwd(),
+                },
+            }, (response) => {
+                response.setEncoding('utf8');
+                let pending = '';
+                let exitCode: number | null = null;
+
+                response.on('data', (data: string) => {
+                    pending += data;
+                    const lines = pending.split('\n');
+                    pending = lines.pop() ?? '';
+                    for (const line of lines) {
+                        if (line.startsWith(JavaExecutorService.EXIT_PREFIX)) {
+                            exitCode = Number(line.substring(JavaExecutorService.EXIT_PREFIX.length));
+                        } else if (line.trim()) {
+                            // Update spinner with the daemon's output
+                            spinner.text = line.trim();
+                        }
+                    }
+                });
+
+                response.on('end', () => {
+                    if (response.statusCode !== 200) {
+                        spinner.fail(`The SMG daemon rejected the run: ${pending.trim()}`);
+                        reject(new Error(`SMG daemon answered with status ${response.statusCode}`));
+                    } else {
+                        this.finish(spinner, exitCode, resolve, reject);
+                    }
+                });
+            });
+
+            request.on('error', (error) => {
+                spinner.fail('Lost the connection to the SMG daemon.');
+                reject(error);
+            });
+            request.end(body);
+        });
+    }
+
+    private executeProcess(args: string[]): Promise<void> {
         return new Promise((resolve, reject) => {
             const spinner = ora('Generating synthetic data...').start();
             const allArgs = ['-jar', this.javaJarPath, ...args];
@@ -28,15 +152,19 @@ export class JavaExecutorService {
             });
 
             child.on('close', (code) => {
-                if (code === 0) {
-                    spinner.succeed('Generation completed successfully!');
-                    console.log('Check the summary.log and error.log for details.');
-                    resolve();
-                } else {
-                    spinner.fail(`Generation failed with exit code ${code}.`);
-                    reject(new Error(`Java process exited with code ${code}`));
-                }
+                this.finish(spinner, code, resolve, reject);
             });
         });
     }
-}
\ No newline at end of file
+
+    private finish(spinner: Ora, code: number | null, resolve: (value: void) => void, reject: (error: Error) => void) {
+        if (code === 0) {
+            spinner.succeed('Generation completed successfully!');
+            console.log('Check the summary.log and error.log for details.');
+            resolve();
+        } else {
+            spinner.fail(`Generation failed with exit code ${code}.`);
+            reject(new Error(`Java process exited with code ${code}`));
+        }
+    }
+}
@@ -2,8 +2,18 @@ package com.smg;
 
 import com.smg.config.PropertyReader;
 import com.smg.config.SMGConfig;
+import com.smg.daemon.SmgDaemon;
+import com.smg.fileio.ExporterFactory;
+import com.smg.fileio.FanOutExporter;
+import com.smg.fileio.snapshot.SnapshotConverter;
 import com.smg.logging.ErrorLogger;
 import com.smg.logging.SummaryLogger;
+import com.smg.schemas.ir.LoadPlan;
+import com.smg.schemas.snapshot.SchemaSnapshotCache;
+import com.smg.schemas.snapshot.SqlSchemaCodec;
+import com.smg.schemas.source.DdlSchemaSource;
+import com.smg.schemas.source.JdbcSchemaSource;
+import com.smg.schemas.source.SchemaSource;
 import com.smg.sqlparser.domain.sql.Schema;
 import com.smg.sqlparser.parser.SQL99.SqlSchemaParser;
 import com.smg.sqlparser.services.SqlGeneratorService;
@@ -11,8 +21,12 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
-import java.io.InputStream;
-import java.nio.charset.StandardCharsets;
+import java.io.PrintStream;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.SQLException;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -29,17 +43,66 @@ import java.util.stream.Collectors;
  * 4. Load and prepare the database schema(s).
  * 5. Generate synthetic data based on the schema.
  * 6. Log summary or errors.
+ *
+ * A previously generated binary snapshot can be re-exported without generating
+ * the data again with:
+ * {@code convert <snapshot.smgs> <output>[,<output>...] [-option value...]}
+ * <p>
+ * To keep the JVM, its JIT and the parsed schemas resident between runs, start a
+ * {@link SmgDaemon} with {@code daemon [-port n]}; the CLI sends its runs to it when
+ * it is running.
  */
 public class SMGApplication {
 	
 	private static final Logger LOGGER = LoggerFactory.getLogger(SMGApplication.class);
 	private static final Integer ROWS_PER_TABLE = 10;
 	private static final String SCHEMA_RESOURCE = "models/hr/struct/HR_struct.sql";
+	private static final String CONVERT_COMMAND = "convert";
+	private static final String DAEMON_COMMAND = "daemon";
+	
+	/**
+	 * Provides the SQL generator of the schema of a run. A run of the command line parses
+	 * the schema every time, while a {@link SmgDaemon} keeps the generators resident.
+	 */
+	@FunctionalInterface
+	public interface GeneratorProvider {
+		
+		SqlGeneratorService get(SchemaSource source) throws Exception;
+		
+		/**
+		 * @return How the schema of the source was loaded, for the summary.
+		 */
+		default String describe(SchemaSource source) {
+			return source.describe();
+		}
+	}
 	
 	public static void main(String[] args) {
+		if (args.length > 0 && CONVERT_COMMAND.equals(args[0])) {
+			convertSnapshot(args, new ErrorLogger(), new SummaryLogger());
+			return;
+		}
+		if (args.length > 0 && DAEMON_COMMAND.equals(args[0])) {
+			SmgDaemon.main(Arrays.copyOfRange(args, 1, args.length));
+			return;
+		}
+		
+		if (!run(args, System.out, source -> new SqlGeneratorService(source.load()))) {
+			System.exit(1);
+		}
+	}
+	
+	/**
+	 * Runs one generation, as the command line does.
+	 *
+	 * @param args       The options of the run.
+	 * @param out        Receives the generated SQL.
+	 * @param generators Provides the SQL generator of the schema.
+	 * @return true if the run finished successfully.
+	 */
+	public static boolean run(String[] args, PrintStream out, GeneratorProvider generators) {
 		ErrorLogger errorLogger = new ErrorLogger();
 		SummaryLogger summaryLogger = new SummaryLogger();
-		
 		try {
 			// 1. Load default configuration
 			SMGConfig config = PropertyReader.loadDefaultConfig();
@@ -50,40 +113,139 @@ public class SMGApplication {
 			// 3. Validate config
 			validateConfig(config);
 			
-			// 4. Load schema from resources
-			Schema schema;
-			try (InputStream in = SMGApplication.class.getClassLoader().getResourceAsStream(SCHEMA_RESOURCE)) {
-				if (in == null) {
-					throw new IllegalStateException("Resource not found: " + SCHEMA_RESOURCE);
+			// 4. Load schema from resources, or from the database when one is configured
+			SchemaSource source = schemaSource(config);
+			SqlGeneratorService sqlgService = generators.get(source);
+			summaryLogger.logSchemaLoad(sqlgService.getSchema().getName(), generators.describe(source));
+			
+			if (config.isConnectTables()) {
+				Set<String> connected = sqlgService.connectTables(config.getTables());
+				if (connected.size() > config.getTables().size()) {
+					LOGGER.info("Tables added to connect the selection: {}", connected.stream().skip(config.getTables().size()).toList());
 				}
-				String schemaSql = new String(in.readAllBytes(), StandardCharsets.UTF_8);
-				schema = SqlSchemaParser.parseSchemaFromString(schemaSql, "HR");
+				config.setTables(connected);
 			}
-			
-			SqlGeneratorService sqlgService = new SqlGeneratorService(schema);
+			LoadPlan plan = sqlgService.getLoadPlan(config.getTables());
+			LOGGER.info("Tables are loaded in {} waves, with {} deferred and {} unresolved foreign keys.",
+				plan.getWaveCount(), plan.getDeferredForeignKeys().length, plan.getUnresolvedForeignKeys().length);
 			
 			// 5. Generate DDL
 			String ddl = sqlgService.generateCreateSql(config.getTables());
-			System.out.println("---------------------------CREATE SQL---------------------------");
-			System.out.println(ddl);
+			out.println("---------------------------CREATE SQL---------------------------");
+			out.println(ddl);
 			
 			// 6. Generate inserts
 			String insert = sqlgService.generateInsertSql(config.getTables(), ROWS_PER_TABLE);
-			System.out.println("---------------------------INSERT SQL---------------------------");
-			System.out.println(insert);
+			out.println("---------------------------INSERT SQL---------------------------");
+			out.println(insert);
 			
-			summaryLogger.logSummary("SMG process finished successfully.");
+			// 7. Write the pre-data, data and post-data sections
+			if (config.isSqlSections()) {
+				writeSqlSections(sqlgService, config, summaryLogger);
+			}
 			
+			summaryLogger.logSummary("SMG process finished successfully.");
+			return true;
+		
 		} catch (IllegalArgumentException e) {
 			LOGGER.error("Configuration validation failed.", e);
 			errorLogger.logError("Configuration validation failed: " + e.getMessage(), e);
-		} catch (IOException e) {
+		} catch (IOException | SQLException e) {
 			LOGGER.error("Failed to read schema resource.", e);
 			errorLogger.logError("Failed to read schema resource: " + e.getMessage(), e);
 		} catch (Exception e) {
 			errorLogger.logError("Unexpected error during the process.", e);
 			LOGGER.error("Application failed with unexpected error.", e);
 		}
+		return false;
+	}
+	
+	/**
+	 * Chooses where the schema is read from: the database of the configured JDBC URL,
+	 * or else the DDL of the model.
+	 */
+	private static SchemaSource schemaSource(SMGConfig config) {
+		String url = config.getSchemaJdbcUrl();
+		if (url != null && !url.isBlank()) {
+			String schemaPattern = config.getSchemaJdbcSchema();
+			schemaPattern = schemaPattern == null || schemaPattern.isBlank() ? null : schemaPattern;
+			return new JdbcSchemaSource(url, config.getSchemaJdbcUser(), config.getSchemaJdbcPassword(), schemaPattern,
+				schemaPattern != null ? schemaPattern : config.getModel(), config.getSchemaJdbcConnections());
+		}
+		return new DdlSchemaSource("HR", SCHEMA_RESOURCE, schemaCache(config));
+	}
+	
+	/**
+	 * Builds the snapshot cache of the parsed schema, disabled when no directory is configured.
+	 */
+	private static SchemaSnapshotCache<Schema> schemaCache(SMGConfig config) {
+		return new SchemaSnapshotCache<>(SchemaSnapshotCache.resolveDirectory(config.getSchemaCacheDir()), new SqlSchemaCodec(),
+			SchemaSnapshotCache.versionOf(SqlSchemaParser.class));
+	}
+	
+	/**
+	 * Writes the pre-data, data and post-data sections of the selection to three files
+	 * named after the schema output, e.g. {@code create-pre-data.sql} for {@code create.sql}.
+	 */
+	private static void writeSqlSections(SqlGeneratorService sqlgService, SMGConfig config, SummaryLogger summaryLogger) throws IOException {
+		String output = config.getSchemaOutput() == null || config.getSchemaOutput().isBlank() ? "schema.sql" : config.getSchemaOutput();
+		int dot = output.lastIndexOf('.');
+		String base = dot > output.lastIndexOf('/') && dot > output.lastIndexOf('\\') ? output.substring(0, dot) : output;
+		String extension = base.length() < output.length() ? output.substring(base.length()) : ".sql";
+		Charset charset = Charset.forName(config.getEncoding() != null ? config.getEncoding() : "UTF-8");
+		
+		Map<String, String> sections = new LinkedHashMap<>();
+		sections.put("pre-data", sqlgService.generatePreDataSql(config.getTables()));
+		sections.put("data", sqlgService.generateDataSql(config.getTables(), ROWS_PER_TABLE));
+		sections.put("post-data", sqlgService.generatePostDataSql(config.getTables()));
+		for (Map.Entry<String, String> section : sections.entrySet()) {
+			Path path = Paths.get(base + "-" + section.getKey() + extension);
+			Files.writeString(path, section.getValue() + "\n", charset);
+			summaryLogger.logFileGenerated(path.toString(), Files.size(path));
+		}
+	}
+	
+	/**
+	 * Runs the {@code convert} command: streams a binary snapshot into one or more
+	 * output files, whose formats are chosen by extension.
+	 *
+	 * @param args The full command line, starting with {@code convert}.
+	 */
+	private static void convertSnapshot(String[] args, ErrorLogger errorLogger, SummaryLogger summaryLogger) {
+		if (args.length < 3) {
+			LOGGER.error("Usage: convert <snapshot.smgs> <output>[,<output>...] [-option value...]");
+			return;
+		}
+		String snapshot = args[1];
+		SMGConfig config = PropertyReader.loadDefaultConfig();
+		parseAndApplyArgs(Arrays.copyOfRange(args, 3, args.length), config);
+		
+		FanOutExporter exporter = new FanOutExporter();
+		for (String output : ExporterFactory.splitOutputs(args[2])) {
+			try {
+				exporter.addSink(output, ExporterFactory.create(output, config));
+			} catch (IllegalArgumentException e) {
+				errorLogger.logError(e.getMessage(), e);
+				summaryLogger.logFailedFile(output, e.getMessage());
+			}
+		}
+		
+		try {
+			new SnapshotConverter().convert(Paths.get(snapshot), exporter, args[2]);
+		} catch (IOException e) {
+			LOGGER.error("Failed to convert snapshot '{}'.", snapshot, e);
+			errorLogger.logError("Failed to convert snapshot: " + snapshot, e);
+		}
+		
+		Map<String, Exception> failures = exporter.getFailures();
+		for (String output : exporter.getOutputFilePaths()) {
+			if (failures.containsKey(output)) {
+				summaryLogger.logFailedFile(output, failures.get(output).getMessage());
+			} else {
+				summaryLogger.logFileGenerated(output, Paths.get(output).toFile().length());
+			}
+		}
+		summaryLogger.logSummary("SMG snapshot conversion finished.");
 	}
 	
 	private static void parseAndApplyArgs(String[] args, SMGConfig config) {
@@ -94,15 +256,41 @@ public class SMGApplication {
 				switch (key) {
 					case "-model" -> config.setModel(value);
 					case "-tables" -> config.setTables(new HashSet<>(Arrays.asList(value.split(","))));
+					case "-connectTables" -> config.setConnectTables(Boolean.parseBoolean(value));
 					case "-diagram" -> config.setDiagramOutput(value);
 					case "-schemaOutput" -> config.setSchemaOutput(value);
+					case "-sqlSections" -> config.setSqlSections(Boolean.parseBoolean(value));
 					case "-dataOutput" -> config.setDataOutput(value);
+					case "-jsonPretty" -> config.setJsonPrettyPrint(Boolean.parseBoolean(value));
+					case "-csvDelimiter" -> config.setCsvDelimiter(value);
+					case "-csvNull" -> config.setCsvNullToken(value);
+					case "-csvHeader" -> config.setCsvHeader(Boolean.parseBoolean(value));
 					case "-syntheticGenerate" -> config.setSyntheticGenerate(parseSyntheticGenerate(value));
 					case "-encoding" -> config.setEncoding(value);
+					case "-schemaCacheDir" -> config.setSchemaCacheDir(value);
+					case "-jdbcUrl" -> config.setSchemaJdbcUrl(value);
+					case "-jdbcUser" -> config.setSchemaJdbcUser(value);
+					case "-jdbcPassword" -> config.setSchemaJdbcPassword(value);
+					case "-jdbcSchema" -> config.setSchemaJdbcSchema(value);
+					case "-jdbcConnections" -> config.setSchemaJdbcConnections(Integer.parseInt(value));
 					case "-errorFile" -> config.setErrorFile(value);
 					case "-summaryFile" -> config.setSummaryFile(value);
 					case "-mockConfig" -> config.setMockConfig(value);
 					case "-mockApiKey" -> config.setMockApiKey(value);
+					case "-mockEndpoint" -> config.setMockarooEndpoint(value);
+					case "-mockConcurrency" -> config.setMockarooConcurrency(Integer.parseInt(value));
+					case "-mockRate" -> config.setMockarooRequestsPerSecond(Double.parseDouble(value));
+					case "-mockBurst" -> config.setMockarooBurst(Integer.parseInt(value));
+					case "-mockMaxRows" -> config.setMockarooMaxRowsPerRequest(Integer.parseInt(value));
+					case "-mockRetries" -> config.setMockarooRetries(Integer.parseInt(value));
+					case "-mockFormat" -> config.setMockarooFormat(value);
+					case "-mockGzip" -> config.setMockarooGzip(Boolean.parseBoolean(value));
+					case "-mockCacheDir" -> config.setMockarooCacheDir(value);
+					case "-mockSeed" -> config.setMockarooSeed(value);
+					case "-mockTimeout" -> config.setMockarooTimeoutSeconds(Integer.parseInt(value));
+					case "-mockLatencyBudget" -> config.setMockarooLatencyBudgetMillis(Integer.parseInt(value));
+					case "-mockFallback" -> config.setMockarooFallback(Boolean.parseBoolean(value));
+					case "-mockHybrid" -> config.setMockarooHybrid(Boolean.parseBoolean(value));
 					default -> LOGGER.warn("Unknown CLI argument: {}", key);
 				}
 			} else {
@@ -50,17 +50,49 @@ public class PropertyReader {
 					.map(String::trim)
 					.collect(Collectors.toSet()))
 				.ifPresent(config::setTables);
+			config.setConnectTables(Boolean.parseBoolean(properties.getProperty("model.tables.connect", "false")));
 
 			config.setDiagramOutput(properties.getProperty("model.diagram"));
 			config.setSchemaOutput(properties.getProperty("output.schema"));
+			config.setSqlSections(Boolean.parseBoolean(properties.getProperty("output.schema.sections", "false")));
 			config.setDataOutput(properties.getProperty("output.data"));
+			config.setJsonPrettyPrint(Boolean.parseBoolean(properties.getProperty("output.json.pretty", "false")));
+			config.setCsvDelimiter(properties.getProperty("output.csv.delimiter", ","));
+			config.setCsvNullToken(properties.getProperty("output.csv.null", ""));
+			config.setCsvHeader(Boolean.parseBoolean(properties.getProperty("output.csv.header", "true")));
 
 			// Note: syntheticGenerate is expected to be handled by the CLI parser
 
 			// Use getProperty with default values to ensure non-null results
 			config.setEncoding(properties.getProperty("config.encoding", "UTF-8"));
+			config.setSchemaCacheDir(properties.getProperty("schema.cache.dir"));
+			config.setSchemaJdbcUrl(properties.getProperty("schema.jdbc.url"));
+			config.setSchemaJdbcUser(properties.getProperty("schema.jdbc.user"));
+			config.setSchemaJdbcPassword(properties.getProperty("schema.jdbc.password"));
+			config.setSchemaJdbcSchema(properties.getProperty("schema.jdbc.schema"));
+			config.setSchemaJdbcConnections(parseInt(properties, "schema.jdbc.connections", config.getSchemaJdbcConnections()));
+			config.setDaemonPort(parseInt(properties, "daemon.port", config.getDaemonPort()));
 			config.setMockConfig(properties.getProperty("config.mock"));
 			config.setMockApiKey(properties.getProperty("config.apikey_mockaroo"));
+			config.setMockarooEndpoint(properties.getProperty("mockaroo.endpoint", config.getMockarooEndpoint()));
+			config.setMockarooConcurrency(parseInt(properties, "mockaroo.concurrency", config.getMockarooConcurrency()));
+			config.setMockarooRequestsPerSecond(parseDouble(properties, "mockaroo.rate", config.getMockarooRequestsPerSecond()));
+			config.setMockarooBurst(parseInt(properties, "mockaroo.burst", config.getMockarooBurst()));
+			config.setMockarooMaxRowsPerRequest(parseInt(properties, "mockaroo.maxRowsPerRequest", config.getMockarooMaxRowsPerRequest()));
+			config.setMockarooRetries(parseInt(properties, "mockaroo.retries", config.getMockarooRetries()));
+			config.setMockarooFormat(properties.getProperty("mockaroo.format", config.getMockarooFormat()));
+			config.setMockarooGzip(Boolean.parseBoolean(properties.getProperty("mockaroo.gzip", "true")));
+			config.setMockarooCacheDir(properties.getProperty("mockaroo.cache.dir"));
+			config.setMockarooCacheMaxSizeMb(parseInt(properties, "mockaroo.cache.maxSizeMb", config.getMockarooCacheMaxSizeMb()));
+			config.setMockarooCacheTtlHours(parseInt(properties, "mockaroo.cache.ttlHours", config.getMockarooCacheTtlHours()));
+			config.setMockarooSeed(properties.getProperty("mockaroo.seed", config.getMockarooSeed()));
+			config.setMockarooTimeoutSeconds(parseInt(properties, "mockaroo.timeoutSeconds", config.getMockarooTimeoutSeconds()));
+			config.setMockarooBackoffMillis(parseInt(properties, "mockaroo.backoffMillis", config.getMockarooBackoffMillis()));
+			config.setMockarooCircuitFailures(parseInt(properties, "mockaroo.circuit.failures", config.getMockarooCircuitFailures()));
+			config.setMockarooCircuitOpenSeconds(parseInt(properties, "mockaroo.circuit.openSeconds", config.getMockarooCircuitOpenSeconds()));
+			config.setMockarooLatencyBudgetMillis(parseInt(properties, "mockaroo.latencyBudgetMillis", config.getMockarooLatencyBudgetMillis()));
+			config.setMockarooFallback(Boolean.parseBoolean(properties.getProperty("mockaroo.fallback", "true")));
+			config.setMockarooHybrid(Boolean.parseBoolean(properties.getProperty("mockaroo.hybrid", "true")));
 			config.setErrorFile(properties.getProperty("error.file", "logErrorSmg.log"));
 			config.setSummaryFile(properties.getProperty("summary.file", "summarySmg.log"));
 
@@ -70,4 +102,36 @@ public class PropertyReader {
 
 		return config;
 	}
+
+	/**
+	 * Reads an integer property, keeping the default value if it is missing or invalid.
+	 */
+	private static int parseInt(Properties properties, String key, int defaultValue) {
+		String value = properties.getProperty(key);
+		if (value == null || value.isBlank()) {
+			return defaultValue;
+		}
+		try {
+			return Integer.parseInt(value.trim());
+		} catch (NumberFormatException e) {
+			LOGGER.warn("Invalid value for property {}: {}. Using {}", key, value, defaultValue);
+			return defaultValue;
+		}
+	}
+
+	/**
+	 * Reads a decimal property, keeping the default value if it is missing or invalid.
+	 */
+	private static double parseDouble(Properties properties, String key, double defaultValue) {
+		String value = properties.getProperty(key);
+		if (value == null || value.isBlank()) {
+			return defaultValue;
+		}
+		try {
+			return Double.parseDouble(value.trim());
+		} catch (NumberFormatException e) {
+			LOGGER.warn("Invalid value for property {}: {}. Using {}", key, value, defaultValue);
+			return defaultValue;
+		}
+	}
 }
\ No newline at end of file
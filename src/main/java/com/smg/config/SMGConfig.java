@@ -14,13 +14,45 @@ import java.util.Set;
 public class SMGConfig {
 	private String model;
 	private Set<String> tables;
+	private boolean connectTables;
 	private String diagramOutput;
 	private String schemaOutput;
+	private boolean sqlSections;
 	private String dataOutput;
+	private boolean jsonPrettyPrint;
+	private String csvDelimiter = ",";
+	private String csvNullToken = "";
+	private boolean csvHeader = true;
 	private Map<String, Integer> syntheticGenerate;
 	private String encoding;
 	private String errorFile;
 	private String summaryFile;
+	private String schemaCacheDir;
+	private String schemaJdbcUrl;
+	private String schemaJdbcUser;
+	private String schemaJdbcPassword;
+	private String schemaJdbcSchema;
+	private int schemaJdbcConnections = 4;
+	private int daemonPort = 7437;
 	private String mockConfig;
 	private String mockApiKey;
+	private String mockarooEndpoint = "https://api.mockaroo.com/api/generate.json";
+	private int mockarooConcurrency = 4;
+	private double mockarooRequestsPerSecond;
+	private int mockarooBurst = 4;
+	private int mockarooMaxRowsPerRequest = 1000;
+	private int mockarooRetries = 2;
+	private String mockarooFormat = "json";
+	private boolean mockarooGzip = true;
+	private String mockarooCacheDir;
+	private int mockarooCacheMaxSizeMb = 512;
+	private int mockarooCacheTtlHours = 168;
+	private String mockarooSeed = "";
+	private int mockarooTimeoutSeconds = 60;
+	private int mockarooBackoffMillis = 500;
+	private int mockarooCircuitFailures = 5;
+	private int mockarooCircuitOpenSeconds = 30;
+	private int mockarooLatencyBudgetMillis;
+	private boolean mockarooFallback = true;
+	private boolean mockarooHybrid = true;
 }
\ No newline at end of file
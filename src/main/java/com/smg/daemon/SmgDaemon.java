@@ -0,0 +1,395 @@
+package com.smg.daemon;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.smg.SMGApplication;
+import com.smg.config.PropertyReader;
+import com.smg.schemas.source.SchemaSource;
+import com.smg.sqlparser.services.SqlGeneratorService;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Long-running SMG server that keeps the JVM, its JIT and the parsed schemas resident,
+ * so that a run skips the JVM start, the warm-up and the schema parse, and starts
+ * writing its output within milliseconds.
+ * <p>
+ * The server listens on the loopback interface only and answers:
+ * <ul>
+ *   <li>{@code GET /smg/status}: the state of the daemon, as JSON.</li>
+ *   <li>{@code POST /smg/run}: a run, with the options of the command line as a JSON
+ *       array of strings in the body. The generated SQL is streamed back as text while
+ *       it is written, followed by a last line {@value #EXIT_PREFIX}{@code 0} on success
+ *       or {@code 1} on failure.</li>
+ *   <li>{@code POST /smg/reload}: forgets the resident schemas, as after a change of the
+ *       database the schemas are read from.</li>
+ *   <li>{@code POST /smg/shutdown}: stops the daemon.</li>
+ * </ul>
+ * Runs are served one at a time, since they share the working directory, the log files
+ * and the resident generators; the others wait for their turn.
+ * <p>
+ * Every request must carry the {@value #TOKEN_HEADER} header with the token the daemon
+ * writes, readable by its user only, to {@code ~/.smg/daemon-<port>.token} when it
+ * starts; other local users cannot read it. Requests with an {@code Origin} header are
+ * refused, as only a web page sends one, and a run must be sent as
+ * {@code application/json}, which a page cannot post to another site without asking first.
+ * <p>
+ * The relative paths of a run (its outputs, the summary and error logs, the caches) are
+ * resolved against the working directory of the daemon, so a run must send the
+ * {@value #CWD_HEADER} header with its own working directory, and is refused when it is
+ * another one. {@code GET /smg/status} tells the directory of the daemon.
+ * <p>
+ * Start it with {@code java -jar smg-core.jar daemon [-port n]}.
+ */
+public class SmgDaemon implements AutoCloseable {
+	
+	private static final Logger LOGGER = LoggerFactory.getLogger(SmgDaemon.class);
+	private static final String CONTEXT = "/smg/";
+	public static final String EXIT_PREFIX = "smg-exit: ";
+	public static final String TOKEN_HEADER = "X-SMG-Token";
+	public static final String CWD_HEADER = "X-SMG-Cwd";
+	private static final int TOKEN_BYTES = 32;
+	
+	private final HttpServer server;
+	private final ExecutorService executor;
+	private final ObjectMapper objectMapper = new ObjectMapper();
+	private final ResidentGenerators generators = new ResidentGenerators();
+	private final Object runLock = new Object();
+	private final AtomicLong runs = new AtomicLong();
+	private final CountDownLatch stopped = new CountDownLatch(1);
+	private final byte[] token;
+	private final Path tokenFile;
+	private final Path workingDirectory;
+	
+	/**
+	 * Creates the daemon, binds it to a port of the loopback interface and writes its
+	 * token to {@code ~/.smg}.
+	 *
+	 * @param port The port, or 0 for any free port.
+	 * @throws IOException if the port cannot be bound or the token cannot be written.
+	 */
+	public SmgDaemon(int port) throws IOException {
+		this(port, defaultTokenDirectory());
+	}
+	
+	/**
+	 * Creates the daemon, binds it to a port of the loopback interface and writes its
+	 * token to a directory.
+	 *
+	 * @param port The port, or 0 for any free port.
+	 * @param tokenDirectory The directory of the token file.
+	 * @throws IOException if the port cannot be bound or the token cannot be written.
+	 */
+	public SmgDaemon(int port, Path tokenDirectory) throws IOException {
+		this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+		this.workingDirectory = Paths.get("").toRealPath();
+		byte[] random = new byte[TOKEN_BYTES];
+		new SecureRandom().nextBytes(random);
+		this.token = Base64.getUrlEncoder().withoutPadding().encode(random);
+		this.tokenFile = tokenFile(tokenDirectory, server.getAddress().getPort());
+		try {
+			writeToken(tokenFile, token);
+		} catch (IOException e) {
+			server.stop(0);
+			throw e;
+		}
+		this.executor = Executors.newCachedThreadPool(runnable -> {
+			Thread thread = new Thread(runnable, "smg-daemon");
+			thread.setDaemon(true);
+			return thread;
+		});
+		server.setExecutor(executor);
+		server.createContext(CONTEXT, this::handle);
+	}
+	
+	public static void main(String[] args) {
+		int port = PropertyReader.loadDefaultConfig().getDaemonPort();
+		for (int i = 0; i + 1 < args.length; i += 2) {
+			switch (args[i]) {
+				case "-port" -> port = Integer.parseInt(args[i + 1]);
+				default -> LOGGER.warn("Unknown argument: {}", args[i]);
+			}
+		}
+		try (SmgDaemon daemon = new SmgDaemon(port)) {
+			daemon.start();
+			Runtime.getRuntime().addShutdownHook(new Thread(daemon::close));
+			LOGGER.info("SMG daemon listening on {}", daemon.getUrl());
+			daemon.awaitShutdown();
+		} catch (IOException e) {
+			LOGGER.error("Failed to start the SMG daemon on port {}.", port, e);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+	
+	public void start() {
+		server.start();
+	}
+	
+	/**
+	 * Waits until the daemon is asked to shut down, or closed.
+	 *
+	 * @throws InterruptedException if the thread is interrupted while waiting.
+	 */
+	public void awaitShutdown() throws InterruptedException {
+		stopped.await();
+	}
+	
+	/**
+	 * Stops the server at once, dropping the runs being served.
+	 */
+	@Override
+	public synchronized void close() {
+		if (stopped.getCount() > 0) {
+			stopped.countDown();
+			server.stop(0);
+			executor.shutdownNow();
+			try {
+				Files.deleteIfExists(tokenFile);
+			} catch (IOException e) {
+				LOGGER.warn("Could not delete the daemon token {}: {}", tokenFile, e.getMessage());
+			}
+		}
+	}
+	
+	/**
+	 * @return The base URL of the daemon, e.g. {@code http://127.0.0.1:7437/smg/}.
+	 */
+	public String getUrl() {
+		return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort() + CONTEXT;
+	}
+	
+	public int getPort() {
+		return server.getAddress().getPort();
+	}
+	
+	public long getRuns() {
+		return runs.get();
+	}
+	
+	/**
+	 * @return The file holding the token the requests must carry.
+	 */
+	public Path getTokenFile() {
+		return tokenFile;
+	}
+	
+	/**
+	 * @return {@code ~/.smg}, where the daemon writes its token by default.
+	 */
+	public static Path defaultTokenDirectory() {
+		return Paths.get(System.getProperty("user.home"), ".smg");
+	}
+	
+	/**
+	 * @return The token file of the daemon listening on a port.
+	 */
+	public static Path tokenFile(Path tokenDirectory, int port) {
+		return tokenDirectory.resolve("daemon-" + port + ".token");
+	}
+	
+	/**
+	 * Writes the token to a new file only its owner can read, in a directory only its owner
+	 * can list, where the file system supports POSIX permissions.
+	 */
+	private static void writeToken(Path file, byte[] token) throws IOException {
+		boolean posix = FileSystems.getDefault().supportedFileAttributeViews().contains("posix");
+		Path directory = file.toAbsolutePath().getParent();
+		if (!Files.isDirectory(directory)) {
+			if (posix) {
+				Files.createDirectories(directory, PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rwx------")));
+			} else {
+				Files.createDirectories(directory);
+			}
+		}
+		// A token left by a daemon that did not stop cleanly is replaced, never reused
+		Files.deleteIfExists(file);
+		if (posix) {
+			Files.createFile(file, PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")));
+		} else {
+			Files.createFile(file);
+		}
+		Files.write(file, token);
+	}
+	
+	private void handle(HttpExchange exchange) throws IOException {
+		try (exchange) {
+			if (exchange.getRequestHeaders().containsKey("Origin")) {
+				sendText(exchange, 403, "Requests from web pages are not accepted.");
+				return;
+			}
+			if (!hasToken(exchange)) {
+				sendText(exchange, 401, "Missing or wrong " + TOKEN_HEADER + " header.");
+				return;
+			}
+			String resource = exchange.getRequestURI().getPath().substring(CONTEXT.length());
+			boolean post = "POST".equalsIgnoreCase(exchange.getRequestMethod());
+			switch (resource) {
+				case "status" -> sendStatus(exchange);
+				case "run" -> {
+					if (post) run(exchange);
+					else sendText(exchange, 405, "Only POST is supported.");
+				}
+				case "reload" -> {
+					if (!post) {
+						sendText(exchange, 405, "Only POST is supported.");
+						return;
+					}
+					synchronized (runLock) {
+						generators.clear();
+					}
+					sendText(exchange, 200, "Resident schemas dropped.");
+				}
+				case "shutdown" -> {
+					if (!post) {
+						sendText(exchange, 405, "Only POST is supported.");
+						return;
+					}
+					sendText(exchange, 200, "Shutting down.");
+					LOGGER.info("SMG daemon shutting down.");
+					// Stopped from another thread, so that this exchange completes first
+					new Thread(this::close, "smg-daemon-shutdown").start();
+				}
+				default -> sendText(exchange, 404, "Unknown resource: " + resource);
+			}
+		}
+	}
+	
+	private boolean hasToken(HttpExchange exchange) {
+		String sent = exchange.getRequestHeaders().getFirst(TOKEN_HEADER);
+		return sent != null && MessageDigest.isEqual(token, sent.getBytes(StandardCharsets.US_ASCII));
+	}
+	
+	/**
+	 * @return true if a directory sent by a client is the working directory of the daemon.
+	 */
+	private boolean isWorkingDirectory(String directory) {
+		if (directory == null || directory.isBlank()) {
+			return false;
+		}
+		try {
+			return workingDirectory.equals(Paths.get(directory).toRealPath());
+		} catch (IOException | InvalidPathException e) {
+			return false;
+		}
+	}
+	
+	/**
+	 * Runs a generation and streams its output, flushed line by line.
+	 */
+	private void run(HttpExchange exchange) throws IOException {
+		String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+		if (contentType == null || !contentType.split(";")[0].trim().equalsIgnoreCase("application/json")) {
+			sendText(exchange, 415, "The body must be sent as application/json.");
+			return;
+		}
+		if (!isWorkingDirectory(exchange.getRequestHeaders().getFirst(CWD_HEADER))) {
+			sendText(exchange, 409, "The daemon runs in " + workingDirectory
+				+ "; send the run from there, or start a daemon in your working directory.");
+			return;
+		}
+		String[] args;
+		try {
+			args = objectMapper.readValue(exchange.getRequestBody(), String[].class);
+		} catch (IOException e) {
+			sendText(exchange, 400, "The body must be a JSON array of the options of the run.");
+			return;
+		}
+		exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=UTF-8");
+		exchange.sendResponseHeaders(200, 0);
+		PrintStream out = new PrintStream(exchange.getResponseBody(), true, StandardCharsets.UTF_8);
+		boolean succeeded;
+		synchronized (runLock) {
+			long start = System.nanoTime();
+			runs.incrementAndGet();
+			succeeded = SMGApplication.run(args, out, generators);
+			LOGGER.info("Run {} {} in {} ms.", runs.get(), succeeded ? "finished" : "failed", (System.nanoTime() - start) / 1_000_000);
+		}
+		out.println(EXIT_PREFIX + (succeeded ? 0 : 1));
+		out.flush();
+	}
+	
+	private void sendStatus(HttpExchange exchange) throws IOException {
+		Map<String, Object> status = new LinkedHashMap<>();
+		status.put("status", "running");
+		status.put("pid", ProcessHandle.current().pid());
+		status.put("cwd", workingDirectory.toString());
+		status.put("runs", runs.get());
+		status.put("schemas", generators.size());
+		byte[] body = objectMapper.writeValueAsBytes(status);
+		exchange.getResponseHeaders().set("Content-Type", "application/json");
+		exchange.sendResponseHeaders(200, body.length);
+		exchange.getResponseBody().write(body);
+	}
+	
+	private void sendText(HttpExchange exchange, int statusCode, String message) throws IOException {
+		byte[] body = (message + "\n").getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=UTF-8");
+		exchange.sendResponseHeaders(statusCode, body.length);
+		exchange.getResponseBody().write(body);
+	}
+	
+	/**
+	 * Keeps the SQL generator of every schema loaded, with its schema IR, projections, load
+	 * plans and graph, keyed by {@link SchemaSource#getKey()}. Only used under the run lock.
+	 */
+	private static class ResidentGenerators implements SMGApplication.GeneratorProvider {
+		
+		private final Map<String, Resident> residents = new ConcurrentHashMap<>();
+		private boolean reused;
+		
+		@Override
+		public SqlGeneratorService get(SchemaSource source) throws Exception {
+			Resident resident = residents.get(source.getKey());
+			reused = resident != null;
+			if (resident == null) {
+				resident = new Resident(new SqlGeneratorService(source.load()), source.describe());
+				residents.put(source.getKey(), resident);
+			}
+			return resident.generator();
+		}
+		
+		@Override
+		public String describe(SchemaSource source) {
+			Resident resident = residents.get(source.getKey());
+			if (resident == null) {
+				return source.describe();
+			}
+			return reused ? "resident in the daemon, " + resident.description() : resident.description();
+		}
+		
+		int size() {
+			return residents.size();
+		}
+		
+		void clear() {
+			residents.clear();
+		}
+	}
+	
+	private record Resident(SqlGeneratorService generator, String description) {
+	}
+}
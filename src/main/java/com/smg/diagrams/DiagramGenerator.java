@@ -1,9 +1,8 @@
 package com.smg.diagrams;
 
 import com.smg.schemas.entities.Schema;
-import com.smg.schemas.entities.Table;
-import com.smg.schemas.entities.Column;
-import com.smg.schemas.entities.ForeignKey;
+import com.smg.schemas.ir.SchemaIR;
+import com.smg.schemas.ir.SchemaProjection;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -26,29 +25,59 @@ public class DiagramGenerator {
 	 * @throws IOException if there is an error writing the file.
 	 */
 	public void generateMermaidDiagram(Schema schema, String outputFilePath) throws IOException {
+		generateMermaidDiagram(SchemaIR.of(schema), outputFilePath);
+	}
+	
+	/**
+	 * Generates a Mermaid ERD diagram from a schema and writes it to a file.
+	 *
+	 * @param schema The schema to visualize.
+	 * @param outputFilePath The path of the output file (.mmd).
+	 * @throws IOException if there is an error writing the file.
+	 */
+	public void generateMermaidDiagram(SchemaIR schema, String outputFilePath) throws IOException {
+		generateMermaidDiagram(schema.projectAll(), outputFilePath);
+	}
+	
+	/**
+	 * Generates a Mermaid ERD diagram of a table selection and writes it to a file. Only the
+	 * columns and relationships the selection keeps are drawn, as in its generated DDL.
+	 *
+	 * @param projection The projection of the selected tables.
+	 * @param outputFilePath The path of the output file (.mmd).
+	 * @throws IOException if there is an error writing the file.
+	 */
+	public void generateMermaidDiagram(SchemaProjection projection, String outputFilePath) throws IOException {
+		SchemaIR schema = projection.getSchema();
 		LOGGER.info("Generating Mermaid ERD for schema '{}' to file: {}", schema.getName(), outputFilePath);
 		
 		try (FileWriter writer = new FileWriter(outputFilePath)) {
 			writer.write("erDiagram\n");
 			
-			for (Table table : schema.getTables()) {
-				writer.write("  " + table.getName() + " {\n");
-				for (Column column : table.getColumns()) {
-					writer.write("    " + column.getDataType() + " " + column.getName() + "\n");
+			for (int i = 0; i < projection.getTableCount(); i++) {
+				int table = projection.getTable(i);
+				writer.write("  " + schema.getTableName(table) + " {\n");
+				for (int column = schema.getFirstColumn(table); column < schema.getColumnEnd(table); column++) {
+					if (projection.isColumnKept(column)) {
+						writer.write("    " + schema.getColumnType(column) + " " + schema.getColumnName(column) + "\n");
+					}
 				}
 				writer.write("  }\n");
 			}
 			writer.write("\n");
 			
-			for (Table table : schema.getTables()) {
-				for (ForeignKey fk : table.getForeignKeys()) {
-					writer.write(String.format("  %s ||--o{ %s : \"%s\"\n",
-						table.getName(),
-						fk.getReferencedTable(),
-						fk.getName()));
+			for (int i = 0; i < projection.getTableCount(); i++) {
+				int table = projection.getTable(i);
+				for (int fk = schema.getFirstForeignKey(table); fk < schema.getForeignKeyEnd(table); fk++) {
+					if (projection.isForeignKeyKept(fk)) {
+						writer.write(String.format("  %s ||--o{ %s : \"%s\"\n",
+							schema.getTableName(table),
+							schema.getForeignKeyTargetTableName(fk),
+							schema.getForeignKeyName(fk)));
+					}
 				}
 			}
 		}
 		LOGGER.info("Mermaid ERD generated successfully.");
 	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,90 @@
+package com.smg.fileio;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+/**
+ * Adapts a whole-table {@link IExporter} to the {@link IBatchExporter} contract.
+ * The batches of a table are collected into a JSON array, and the array is handed
+ * to the wrapped exporter when the table ends. This is used for formats that
+ * cannot be written incrementally, such as XLSX, so they can still take part in
+ * a batch-based export.
+ */
+public class BufferedExporterAdapter implements IBatchExporter {
+	
+	private final IExporter exporter;
+	private final ObjectMapper objectMapper = new ObjectMapper();
+	
+	private String outputFilePath;
+	private TableLayout currentLayout;
+	private ArrayNode currentRows;
+	
+	public BufferedExporterAdapter(IExporter exporter) {
+		this.exporter = exporter;
+	}
+	
+	@Override
+	public void open(String outputFilePath) throws IOException {
+		// The wrapped exporters append to the file, so start from an empty one
+		Files.deleteIfExists(Paths.get(outputFilePath));
+		this.outputFilePath = outputFilePath;
+	}
+	
+	@Override
+	public void beginTable(TableLayout layout) {
+		currentLayout = layout;
+		currentRows = objectMapper.createArrayNode();
+	}
+	
+	@Override
+	public void writeBatch(RowBatch batch) {
+		int columnCount = currentLayout.getColumnCount();
+		for (int row = 0; row < batch.size(); row++) {
+			ObjectNode rowNode = currentRows.addObject();
+			for (int col = 0; col < columnCount; col++) {
+				putValue(rowNode, currentLayout.getColumnName(col), batch.get(row, col));
+			}
+		}
+	}
+	
+	@Override
+	public void endTable() throws IOException {
+		try {
+			exporter.export(outputFilePath, currentLayout.getTableName(), objectMapper.writeValueAsString(currentRows));
+		} finally {
+			currentLayout = null;
+			currentRows = null;
+		}
+	}
+	
+	@Override
+	public void close() {
+		currentRows = null;
+	}
+	
+	private void putValue(ObjectNode rowNode, String field, Object value) {
+		if (value == null) {
+			rowNode.putNull(field);
+		} else if (value instanceof String s) {
+			rowNode.put(field, s);
+		} else if (value instanceof Long l) {
+			rowNode.put(field, l);
+		} else if (value instanceof Integer i) {
+			rowNode.put(field, i);
+		} else if (value instanceof Double d) {
+			rowNode.put(field, d);
+		} else if (value instanceof BigDecimal bd) {
+			rowNode.put(field, bd);
+		} else if (value instanceof Boolean b) {
+			rowNode.put(field, b);
+		} else {
+			rowNode.put(field, value.toString());
+		}
+	}
+}
@@ -0,0 +1,52 @@
+package com.smg.fileio;
+
+/**
+ * The value families a generated column can hold. Exporters use the kind of each
+ * column to decide how its values are written (quoted, numeric, boolean...)
+ * without having to inspect every single value.
+ */
+public enum ColumnKind {
+	TEXT,
+	INTEGER,
+	DECIMAL,
+	BOOLEAN,
+	DATE;
+	
+	/**
+	 * Infers the column kind from a SQL data type such as {@code VARCHAR2(30)},
+	 * {@code NUMBER(8,2)} or {@code DATE}. Unknown types are treated as text.
+	 *
+	 * @param sqlDataType The SQL data type, with or without length/precision.
+	 * @return The matching column kind.
+	 */
+	public static ColumnKind fromSqlType(String sqlDataType) {
+		if (sqlDataType == null) {
+			return TEXT;
+		}
+		String lowerCaseType = sqlDataType.toLowerCase();
+		
+		if (lowerCaseType.contains("char") || lowerCaseType.contains("clob")
+			|| lowerCaseType.contains("text") || lowerCaseType.contains("interval")) {
+			return TEXT;
+		} else if (lowerCaseType.contains("int") || lowerCaseType.contains("long")) {
+			return INTEGER;
+		} else if (lowerCaseType.contains("number") || lowerCaseType.contains("numeric")
+			|| lowerCaseType.contains("decimal") || lowerCaseType.contains("float")
+			|| lowerCaseType.contains("double") || lowerCaseType.contains("real")) {
+			// NUMBER(p) and NUMBER(p,0) only hold integers
+			return lowerCaseType.matches(".*\\(\\s*\\d+\\s*(,\\s*0\\s*)?\\).*") ? INTEGER : DECIMAL;
+		} else if (lowerCaseType.contains("bool") || lowerCaseType.equals("bit")) {
+			return BOOLEAN;
+		} else if (lowerCaseType.contains("date") || lowerCaseType.contains("time")) {
+			return DATE;
+		}
+		return TEXT;
+	}
+	
+	/**
+	 * @return true if values of this kind are written as bare numbers.
+	 */
+	public boolean isNumeric() {
+		return this == INTEGER || this == DECIMAL;
+	}
+}
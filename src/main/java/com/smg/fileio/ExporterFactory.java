@@ -0,0 +1,92 @@
+package com.smg.fileio;
+
+import com.smg.config.SMGConfig;
+import com.smg.fileio.exporters.FastCSVExporter;
+import com.smg.fileio.exporters.StreamingJSONExporter;
+import com.smg.fileio.exporters.StreamingSQLExporter;
+import com.smg.fileio.exporters.XLSXExporter;
+import com.smg.fileio.snapshot.SnapshotWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * ExporterFactory creates the batch exporter for an output file based on its
+ * extension, applying the format options of the configuration.
+ */
+public final class ExporterFactory {
+	
+	private static final Logger LOGGER = LoggerFactory.getLogger(ExporterFactory.class);
+	
+	private ExporterFactory() {
+	}
+	
+	/**
+	 * Creates the exporter for an output file.
+	 *
+	 * @param outputFilePath The output file; its extension selects the format.
+	 * @param config The configuration with the format options.
+	 * @return The exporter for the file format.
+	 * @throws IllegalArgumentException if the format is not supported.
+	 */
+	public static IBatchExporter create(String outputFilePath, SMGConfig config) {
+		String fileExtension = getFileExtension(outputFilePath);
+		return switch (fileExtension.toLowerCase()) {
+			case "sql" -> new StreamingSQLExporter(getCharset(config.getEncoding()));
+			case "json" -> new StreamingJSONExporter(StreamingJSONExporter.Mode.TABLE_ARRAYS, config.isJsonPrettyPrint());
+			case "ndjson" -> new StreamingJSONExporter(StreamingJSONExporter.Mode.NDJSON, false);
+			case "csv" -> new FastCSVExporter(parseDelimiter(config.getCsvDelimiter()), config.getCsvNullToken(),
+				config.isCsvHeader(), getCharset(config.getEncoding()));
+			case "xlsx" -> new BufferedExporterAdapter(new XLSXExporter());
+			case SnapshotWriter.EXTENSION -> new SnapshotWriter();
+			default -> throw new IllegalArgumentException("Unsupported output format: " + fileExtension);
+		};
+	}
+	
+	/**
+	 * Splits a comma-separated list of output files.
+	 *
+	 * @param dataOutputs The output files, separated by commas. May be null.
+	 * @return The distinct, trimmed, non-empty file names.
+	 */
+	public static List<String> splitOutputs(String dataOutputs) {
+		if (dataOutputs == null) {
+			return List.of();
+		}
+		return Arrays.stream(dataOutputs.split(","))
+			.map(String::trim)
+			.filter(s -> !s.isEmpty())
+			.distinct()
+			.toList();
+	}
+	
+	private static char parseDelimiter(String delimiter) {
+		if (delimiter == null || delimiter.isEmpty()) {
+			return ',';
+		}
+		if (delimiter.equals("\\t") || delimiter.equalsIgnoreCase("tab")) {
+			return '\t';
+		}
+		return delimiter.charAt(0);
+	}
+	
+	private static Charset getCharset(String encoding) {
+		try {
+			return encoding == null || encoding.isEmpty() ? StandardCharsets.UTF_8 : Charset.forName(encoding);
+		} catch (IllegalArgumentException e) {
+			LOGGER.warn("Invalid encoding '{}' specified. Falling back to UTF-8.", encoding);
+			return StandardCharsets.UTF_8;
+		}
+	}
+	
+	private static String getFileExtension(String filename) {
+		if (filename == null || filename.lastIndexOf('.') == -1) {
+			return "";
+		}
+		return filename.substring(filename.lastIndexOf('.') + 1);
+	}
+}
@@ -0,0 +1,231 @@
+package com.smg.fileio;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * FanOutExporter tees every table and row batch to several output sinks, so one
+ * generation run can produce SQL, CSV, XLSX... at the same time and the cost of
+ * generating the data (and of the Mockaroo calls) is paid only once.
+ * <p>
+ * Each sink runs on its own thread and is fed through its own bounded queue. A slow
+ * sink only blocks the producer once its own queue is full, and never delays the
+ * other sinks while they have room. A sink that fails is closed and skipped from
+ * then on; the others keep going. The failures can be read with {@link #getFailures()}
+ * once the exporter is closed.
+ * <p>
+ * Because batches are shared between threads, they must not be modified after
+ * being passed to {@link #writeBatch(RowBatch)}.
+ */
+public class FanOutExporter implements IBatchExporter {
+	
+	private static final Logger LOGGER = LoggerFactory.getLogger(FanOutExporter.class);
+	private static final int DEFAULT_QUEUE_CAPACITY = 16;
+	
+	private final List<Sink> sinks = new ArrayList<>();
+	private final int queueCapacity;
+	
+	public FanOutExporter() {
+		this(DEFAULT_QUEUE_CAPACITY);
+	}
+	
+	/**
+	 * @param queueCapacity The number of pending operations each sink may buffer
+	 *                      before the producer has to wait for it.
+	 */
+	public FanOutExporter(int queueCapacity) {
+		this.queueCapacity = queueCapacity;
+	}
+	
+	/**
+	 * Registers an output sink. Must be called before {@link #open(String)}.
+	 *
+	 * @param outputFilePath The file the sink writes to.
+	 * @param exporter The exporter that writes the file.
+	 */
+	public void addSink(String outputFilePath, IBatchExporter exporter) {
+		sinks.add(new Sink(outputFilePath, exporter, queueCapacity));
+	}
+	
+	/**
+	 * @return The output files of the registered sinks, in registration order.
+	 */
+	public List<String> getOutputFilePaths() {
+		return sinks.stream().map(sink -> sink.outputFilePath).toList();
+	}
+	
+	/**
+	 * Opens every sink on its own output file and starts its writer thread.
+	 *
+	 * @param outputFilePath Ignored; each sink uses the path it was registered with.
+	 * @throws IOException if every sink failed to open.
+	 */
+	@Override
+	public void open(String outputFilePath) throws IOException {
+		for (Sink sink : sinks) {
+			sink.start();
+		}
+		submitToAll(sink -> sink.exporter.open(sink.outputFilePath));
+	}
+	
+	@Override
+	public void beginTable(TableLayout layout) throws IOException {
+		submitToAll(sink -> sink.exporter.beginTable(layout));
+	}
+	
+	@Override
+	public void writeBatch(RowBatch batch) throws IOException {
+		submitToAll(sink -> sink.exporter.writeBatch(batch));
+	}
+	
+	@Override
+	public void endTable() throws IOException {
+		submitToAll(sink -> sink.exporter.endTable());
+	}
+	
+	/**
+	 * Closes every sink and waits for all of them to finish writing.
+	 *
+	 * @throws IOException if every sink failed.
+	 */
+	@Override
+	public void close() throws IOException {
+		for (Sink sink : sinks) {
+			sink.submit(Sink.CLOSE);
+		}
+		for (Sink sink : sinks) {
+			sink.join();
+		}
+		throwIfAllFailed();
+	}
+	
+	/**
+	 * @return The sinks that failed, by output file, with the error that stopped them.
+	 */
+	public Map<String, Exception> getFailures() {
+		Map<String, Exception> failures = new LinkedHashMap<>();
+		for (Sink sink : sinks) {
+			if (sink.failure != null) {
+				failures.put(sink.outputFilePath, sink.failure);
+			}
+		}
+		return failures;
+	}
+	
+	private void submitToAll(Task task) throws IOException {
+		for (Sink sink : sinks) {
+			sink.submit(task);
+		}
+		throwIfAllFailed();
+	}
+	
+	private void throwIfAllFailed() throws IOException {
+		if (sinks.isEmpty() || sinks.stream().anyMatch(sink -> sink.failure == null)) {
+			return;
+		}
+		Exception first = sinks.get(0).failure;
+		throw first instanceof IOException io ? io : new IOException("All output sinks failed.", first);
+	}
+	
+	/**
+	 * An operation to run against one sink.
+	 */
+	@FunctionalInterface
+	private interface Task {
+		void run(Sink sink) throws IOException;
+	}
+	
+	/**
+	 * One output: an exporter, the queue of operations still to apply to it and
+	 * the thread applying them.
+	 */
+	private static final class Sink implements Runnable {
+		
+		private static final Task CLOSE = sink -> sink.exporter.close();
+		
+		private final String outputFilePath;
+		private final IBatchExporter exporter;
+		private final BlockingQueue<Task> queue;
+		private Thread thread;
+		private volatile Exception failure;
+		
+		Sink(String outputFilePath, IBatchExporter exporter, int queueCapacity) {
+			this.outputFilePath = outputFilePath;
+			this.exporter = exporter;
+			this.queue = new ArrayBlockingQueue<>(queueCapacity);
+		}
+		
+		void start() {
+			thread = new Thread(this, "smg-sink-" + outputFilePath);
+			thread.setDaemon(true);
+			thread.start();
+		}
+		
+		void submit(Task task) throws IOException {
+			if (failure != null && !thread.isAlive()) {
+				return;
+			}
+			// A failed worker only drains the queue, so this does not block for long; it must
+			// not drop the task either, as the worker only stops on CLOSE
+			try {
+				queue.put(task);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException("Interrupted while writing to " + outputFilePath);
+			}
+		}
+		
+		void join() throws IOException {
+			try {
+				thread.join();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException("Interrupted while closing " + outputFilePath);
+			}
+		}
+		
+		@Override
+		public void run() {
+			while (true) {
+				Task task;
+				try {
+					task = queue.take();
+				} catch (InterruptedException e) {
+					failure = e;
+					return;
+				}
+				if (failure == null) {
+					try {
+						task.run(this);
+					} catch (IOException | RuntimeException e) {
+						LOGGER.error("Output sink '{}' failed and will be skipped: {}", outputFilePath, e.getMessage());
+						failure = e;
+						if (task != CLOSE) {
+							closeQuietly();
+						}
+					}
+				}
+				if (task == CLOSE) {
+					return;
+				}
+			}
+		}
+		
+		private void closeQuietly() {
+			try {
+				exporter.close();
+			} catch (IOException | RuntimeException e) {
+				LOGGER.warn("Failed to close output sink '{}': {}", outputFilePath, e.getMessage());
+			}
+		}
+	}
+}
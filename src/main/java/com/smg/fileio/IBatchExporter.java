@@ -0,0 +1,55 @@
+package com.smg.fileio;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * An interface for exporters that write generated rows incrementally, batch by
+ * batch, instead of receiving a whole table as a single JSON string like
+ * {@link IExporter}. One exporter instance writes one output file, which may
+ * contain several tables.
+ * <p>
+ * Call order: {@code open}, then for each table {@code beginTable},
+ * {@code writeBatch}* and {@code endTable}, and finally {@code close}.
+ */
+public interface IBatchExporter extends Closeable {
+	
+	/**
+	 * Opens the output file, truncating it if it already exists.
+	 *
+	 * @param outputFilePath The full path of the output file.
+	 * @throws IOException if the file cannot be opened.
+	 */
+	void open(String outputFilePath) throws IOException;
+	
+	/**
+	 * Starts the section of the output that belongs to a table.
+	 *
+	 * @param layout The name and columns of the table.
+	 * @throws IOException if an I/O error occurs.
+	 */
+	void beginTable(TableLayout layout) throws IOException;
+	
+	/**
+	 * Writes a batch of rows of the current table.
+	 *
+	 * @param batch The rows to write.
+	 * @throws IOException if an I/O error occurs.
+	 */
+	void writeBatch(RowBatch batch) throws IOException;
+	
+	/**
+	 * Ends the section of the current table.
+	 *
+	 * @throws IOException if an I/O error occurs.
+	 */
+	void endTable() throws IOException;
+	
+	/**
+	 * Completes the document and releases the output file.
+	 *
+	 * @throws IOException if an I/O error occurs.
+	 */
+	@Override
+	void close() throws IOException;
+}
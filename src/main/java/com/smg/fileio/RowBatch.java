@@ -0,0 +1,110 @@
+package com.smg.fileio;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A fixed-capacity block of generated rows for one table. Values are stored
+ * row-major as plain Java objects: {@link String}, {@link Long}, {@link Double},
+ * {@link java.math.BigDecimal}, {@link Boolean} or {@code null}.
+ * <p>
+ * Batches are the unit handed to an {@link IBatchExporter}. Once a batch has
+ * been passed to an exporter it must not be modified anymore.
+ */
+public final class RowBatch {
+	
+	/** Default number of rows per batch used by the generators. */
+	public static final int DEFAULT_CAPACITY = 1024;
+	
+	private final TableLayout layout;
+	private final Object[][] rows;
+	private int size;
+	
+	public RowBatch(TableLayout layout, int capacity) {
+		this.layout = layout;
+		this.rows = new Object[capacity][];
+	}
+	
+	/**
+	 * Appends a row to the batch.
+	 *
+	 * @param values The row values, in the column order of the layout.
+	 * @throws IllegalStateException if the batch is already full.
+	 */
+	public void addRow(Object[] values) {
+		if (isFull()) {
+			throw new IllegalStateException("Row batch for table '" + layout.getTableName() + "' is full.");
+		}
+		rows[size++] = values;
+	}
+	
+	public TableLayout getLayout() {
+		return layout;
+	}
+	
+	public int size() {
+		return size;
+	}
+	
+	public boolean isEmpty() {
+		return size == 0;
+	}
+	
+	public boolean isFull() {
+		return size == rows.length;
+	}
+	
+	public Object get(int row, int column) {
+		return rows[row][column];
+	}
+	
+	/**
+	 * Splits a JSON array of row objects (as returned by Mockaroo) into batches.
+	 * Values are looked up by column name, so the field order of the JSON objects
+	 * does not matter.
+	 *
+	 * @param layout The layout of the table the rows belong to.
+	 * @param data The JSON array of row objects.
+	 * @param capacity The maximum number of rows per batch.
+	 * @return The batches, in the order of the input rows.
+	 */
+	public static List<RowBatch> partition(TableLayout layout, ArrayNode data, int capacity) {
+		List<RowBatch> batches = new ArrayList<>();
+		RowBatch current = new RowBatch(layout, capacity);
+		for (JsonNode row : data) {
+			if (current.isFull()) {
+				batches.add(current);
+				current = new RowBatch(layout, capacity);
+			}
+			Object[] values = new Object[layout.getColumnCount()];
+			for (int col = 0; col < values.length; col++) {
+				values[col] = toValue(row.get(layout.getColumnName(col)));
+			}
+			current.addRow(values);
+		}
+		if (!current.isEmpty()) {
+			batches.add(current);
+		}
+		return batches;
+	}
+	
+	private static Object toValue(JsonNode node) {
+		if (node == null || node.isNull()) {
+			return null;
+		} else if (node.isTextual()) {
+			return node.textValue();
+		} else if (node.isIntegralNumber() && node.canConvertToLong()) {
+			return node.longValue();
+		} else if (node.isBigDecimal() || node.isBigInteger()) {
+			return node.decimalValue();
+		} else if (node.isNumber()) {
+			return node.doubleValue();
+		} else if (node.isBoolean()) {
+			return node.booleanValue();
+		}
+		return node.toString();
+	}
+}
@@ -0,0 +1,17 @@
+package com.smg.fileio;
+
+import java.io.IOException;
+
+/**
+ * Receives row batches as they are produced, e.g. by a snapshot reader or a
+ * response parser. {@link IBatchExporter#writeBatch(RowBatch)} is the usual target.
+ */
+@FunctionalInterface
+public interface RowBatchConsumer {
+	
+	/**
+	 * @param batch The next batch of rows. It must not be modified afterwards.
+	 * @throws IOException if the batch cannot be processed.
+	 */
+	void accept(RowBatch batch) throws IOException;
+}
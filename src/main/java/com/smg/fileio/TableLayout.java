@@ -0,0 +1,46 @@
+package com.smg.fileio;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Describes the shape of the rows of one table: its name and the ordered
+ * names and kinds of its columns. A layout is shared by every {@link RowBatch}
+ * of the same table, so per-column work (escaping names, choosing encoders)
+ * can be done once per table instead of once per row.
+ */
+public final class TableLayout {
+	
+	private final String tableName;
+	private final String[] columnNames;
+	private final ColumnKind[] columnKinds;
+	
+	public TableLayout(String tableName, String[] columnNames, ColumnKind[] columnKinds) {
+		if (columnNames.length != columnKinds.length) {
+			throw new IllegalArgumentException("Column names and kinds must have the same length for table: " + tableName);
+		}
+		this.tableName = tableName;
+		this.columnNames = columnNames.clone();
+		this.columnKinds = columnKinds.clone();
+	}
+	
+	public String getTableName() {
+		return tableName;
+	}
+	
+	public int getColumnCount() {
+		return columnNames.length;
+	}
+	
+	public String getColumnName(int column) {
+		return columnNames[column];
+	}
+	
+	public ColumnKind getColumnKind(int column) {
+		return columnKinds[column];
+	}
+	
+	public List<String> getColumnNames() {
+		return Arrays.asList(columnNames.clone());
+	}
+}
@@ -0,0 +1,175 @@
+package com.smg.fileio.exporters;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.core.util.MinimalPrettyPrinter;
+import com.smg.fileio.IBatchExporter;
+import com.smg.fileio.RowBatch;
+import com.smg.fileio.TableLayout;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+/**
+ * StreamingJSONExporter writes generated rows straight to the output file through
+ * a Jackson {@link JsonGenerator}, so memory use does not grow with the number of
+ * rows and the file is valid JSON no matter how many tables are written to it.
+ * <p>
+ * Two layouts are supported:
+ * <ul>
+ *   <li>{@link Mode#TABLE_ARRAYS}: one enclosing object with one array per table,
+ *   e.g. {@code {"regions":[{...},{...}],"countries":[...]}}</li>
+ *   <li>{@link Mode#NDJSON}: one row object per line. Each object starts with a
+ *   {@code "_table"} field so rows of several tables can share a file.</li>
+ * </ul>
+ */
+public class StreamingJSONExporter implements IBatchExporter {
+	
+	private static final Logger LOGGER = LoggerFactory.getLogger(StreamingJSONExporter.class);
+	private static final SerializedString TABLE_FIELD = new SerializedString("_table");
+	private static final int OUTPUT_BUFFER_SIZE = 64 * 1024;
+	
+	/**
+	 * The document layout written by the exporter.
+	 */
+	public enum Mode {
+		NDJSON,
+		TABLE_ARRAYS
+	}
+	
+	private final JsonFactory jsonFactory = new JsonFactory();
+	private final Mode mode;
+	private final boolean prettyPrint;
+	
+	private JsonGenerator generator;
+	private TableLayout currentLayout;
+	private SerializedString currentTableName;
+	private SerializedString[] currentFieldNames;
+	private long currentRows;
+	
+	/**
+	 * Creates an exporter that writes one array per table, without pretty-printing.
+	 */
+	public StreamingJSONExporter() {
+		this(Mode.TABLE_ARRAYS, false);
+	}
+	
+	/**
+	 * @param mode The document layout to write.
+	 * @param prettyPrint Whether to indent the output. Ignored in NDJSON mode,
+	 *                    where every row must stay on its own line.
+	 */
+	public StreamingJSONExporter(Mode mode, boolean prettyPrint) {
+		this.mode = mode;
+		this.prettyPrint = prettyPrint && mode != Mode.NDJSON;
+	}
+	
+	@Override
+	public void open(String outputFilePath) throws IOException {
+		LOGGER.info("Opening {} JSON output file: {}", mode, outputFilePath);
+		BufferedOutputStream out = new BufferedOutputStream(new FileOutputStream(outputFilePath), OUTPUT_BUFFER_SIZE);
+		generator = jsonFactory.createGenerator(out, JsonEncoding.UTF8);
+		
+		if (mode == Mode.NDJSON) {
+			generator.setPrettyPrinter(new MinimalPrettyPrinter("\n"));
+		} else {
+			if (prettyPrint) {
+				generator.useDefaultPrettyPrinter();
+			}
+			generator.writeStartObject();
+		}
+	}
+	
+	@Override
+	public void beginTable(TableLayout layout) throws IOException {
+		currentLayout = layout;
+		currentTableName = new SerializedString(layout.getTableName());
+		currentFieldNames = new SerializedString[layout.getColumnCount()];
+		for (int col = 0; col < currentFieldNames.length; col++) {
+			currentFieldNames[col] = new SerializedString(layout.getColumnName(col));
+		}
+		currentRows = 0;
+		
+		if (mode == Mode.TABLE_ARRAYS) {
+			generator.writeFieldName(currentTableName);
+			generator.writeStartArray();
+		}
+	}
+	
+	@Override
+	public void writeBatch(RowBatch batch) throws IOException {
+		int columnCount = currentFieldNames.length;
+		for (int row = 0; row < batch.size(); row++) {
+			generator.writeStartObject();
+			if (mode == Mode.NDJSON) {
+				generator.writeFieldName(TABLE_FIELD);
+				generator.writeString(currentTableName);
+			}
+			for (int col = 0; col < columnCount; col++) {
+				generator.writeFieldName(currentFieldNames[col]);
+				writeValue(batch.get(row, col));
+			}
+			generator.writeEndObject();
+		}
+		currentRows += batch.size();
+	}
+	
+	@Override
+	public void endTable() throws IOException {
+		if (mode == Mode.TABLE_ARRAYS) {
+			generator.writeEndArray();
+		}
+		generator.flush();
+		LOGGER.info("Successfully exported {} rows for table '{}' to JSON.", currentRows, currentLayout.getTableName());
+		currentLayout = null;
+	}
+	
+	@Override
+	public void close() throws IOException {
+		if (generator == null) {
+			return;
+		}
+		try {
+			if (mode == Mode.TABLE_ARRAYS) {
+				if (currentLayout != null) {
+					// A table was left open by a failed export; keep the document well-formed
+					generator.writeEndArray();
+				}
+				generator.writeEndObject();
+			}
+			generator.writeRaw('\n');
+		} finally {
+			generator.close();
+			generator = null;
+		}
+	}
+	
+	private void writeValue(Object value) throws IOException {
+		if (value == null) {
+			generator.writeNull();
+		} else if (value instanceof String s) {
+			generator.writeString(s);
+		} else if (value instanceof Long l) {
+			generator.writeNumber(l);
+		} else if (value instanceof Integer i) {
+			generator.writeNumber(i);
+		} else if (value instanceof Double d) {
+			generator.writeNumber(d);
+		} else if (value instanceof BigDecimal bd) {
+			generator.writeNumber(bd);
+		} else if (value instanceof BigInteger bi) {
+			generator.writeNumber(bi);
+		} else if (value instanceof Boolean b) {
+			generator.writeBoolean(b);
+		} else {
+			generator.writeString(value.toString());
+		}
+	}
+}
@@ -0,0 +1,137 @@
+package com.smg.fileio.exporters;
+
+import com.smg.fileio.ColumnKind;
+import com.smg.fileio.IBatchExporter;
+import com.smg.fileio.RowBatch;
+import com.smg.fileio.TableLayout;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.Charset;
+
+/**
+ * StreamingSQLExporter writes row batches to a SQL file as one {@code INSERT}
+ * statement per row, straight from the batches, so memory use does not grow with
+ * the number of rows. The statements are the ones {@link SQLExporter} writes.
+ * <p>
+ * As in {@link CSVEncoder}, a quoting plan is chosen once per column when a table
+ * starts: numbers and booleans are written bare, and so is text holding a plain
+ * number or boolean token in a numeric or boolean column. Any other text is written
+ * as a string literal, with its single quotes doubled.
+ */
+public class StreamingSQLExporter implements IBatchExporter {
+	
+	private static final Logger LOGGER = LoggerFactory.getLogger(StreamingSQLExporter.class);
+	private static final int OUTPUT_BUFFER_SIZE = 64 * 1024;
+	
+	private final Charset charset;
+	
+	private Writer writer;
+	private String currentTable;
+	private String currentInsert;
+	/** Per-column plan of the current table: true if text holding a plain token is written bare. */
+	private boolean[] bareColumns;
+	private long currentRows;
+	
+	/**
+	 * @param charset The character encoding of the output file.
+	 */
+	public StreamingSQLExporter(Charset charset) {
+		this.charset = charset;
+	}
+	
+	@Override
+	public void open(String outputFilePath) throws IOException {
+		LOGGER.info("Opening SQL output file: {}", outputFilePath);
+		writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(outputFilePath), charset), OUTPUT_BUFFER_SIZE);
+	}
+	
+	@Override
+	public void beginTable(TableLayout layout) {
+		int columnCount = layout.getColumnCount();
+		currentTable = layout.getTableName();
+		currentInsert = "INSERT INTO " + currentTable + " (" + String.join(", ", layout.getColumnNames()) + ") VALUES (";
+		bareColumns = new boolean[columnCount];
+		for (int col = 0; col < columnCount; col++) {
+			ColumnKind kind = layout.getColumnKind(col);
+			bareColumns[col] = kind.isNumeric() || kind == ColumnKind.BOOLEAN;
+		}
+		currentRows = 0;
+	}
+	
+	@Override
+	public void writeBatch(RowBatch batch) throws IOException {
+		int columnCount = bareColumns.length;
+		for (int row = 0; row < batch.size(); row++) {
+			writer.write(currentInsert);
+			for (int col = 0; col < columnCount; col++) {
+				if (col > 0) {
+					writer.write(", ");
+				}
+				writeValue(batch.get(row, col), bareColumns[col]);
+			}
+			writer.write(");\n");
+		}
+		currentRows += batch.size();
+	}
+	
+	@Override
+	public void endTable() throws IOException {
+		writer.flush();
+		if (currentRows == 0) {
+			LOGGER.warn("No data to export for table '{}'.", currentTable);
+		} else {
+			LOGGER.info("Successfully exported {} rows for table '{}' to SQL.", currentRows, currentTable);
+		}
+	}
+	
+	@Override
+	public void close() throws IOException {
+		if (writer == null) {
+			return;
+		}
+		try {
+			writer.flush();
+		} finally {
+			writer.close();
+			writer = null;
+		}
+	}
+	
+	private void writeValue(Object value, boolean bareColumn) throws IOException {
+		if (value == null) {
+			writer.write("NULL");
+		} else if (value instanceof Double d && !Double.isFinite(d)) {
+			// NaN and infinities have no numeric literal
+			writeString(d.toString());
+		} else if (value instanceof BigDecimal bd) {
+			writer.write(bd.toPlainString());
+		} else if (value instanceof Number || value instanceof Boolean) {
+			writer.write(value.toString());
+		} else if (bareColumn && CSVEncoder.isPlainToken(value.toString())) {
+			// Numbers that arrived as text (e.g. from a CSV response) are still numbers
+			writer.write(value.toString());
+		} else {
+			writeString(value.toString());
+		}
+	}
+	
+	private void writeString(String value) throws IOException {
+		writer.write('\'');
+		int start = 0;
+		for (int i = value.indexOf('\''); i >= 0; i = value.indexOf('\'', i + 1)) {
+			// Copy up to and including the quote, then double it
+			writer.write(value, start, i + 1 - start);
+			writer.write('\'');
+			start = i + 1;
+		}
+		writer.write(value, start, value.length() - start);
+		writer.write('\'');
+	}
+}
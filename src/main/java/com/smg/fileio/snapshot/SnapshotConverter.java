@@ -0,0 +1,46 @@
+package com.smg.fileio.snapshot;
+
+import com.smg.fileio.IBatchExporter;
+import com.smg.fileio.TableLayout;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * SnapshotConverter streams a binary snapshot into any batch exporter, so a
+ * generated dataset can be re-exported to another format without generating it
+ * again (and without new Mockaroo calls).
+ */
+public class SnapshotConverter {
+	
+	private static final Logger LOGGER = LoggerFactory.getLogger(SnapshotConverter.class);
+	
+	/**
+	 * Writes every table of a snapshot to an exporter.
+	 *
+	 * @param snapshotPath The snapshot file to read.
+	 * @param exporter The exporter to write to.
+	 * @param outputFilePath The path passed to {@link IBatchExporter#open(String)}.
+	 * @return The total number of rows converted.
+	 * @throws IOException if the snapshot cannot be read or the output cannot be written.
+	 */
+	public long convert(Path snapshotPath, IBatchExporter exporter, String outputFilePath) throws IOException {
+		long totalRows = 0;
+		try (SnapshotReader reader = SnapshotReader.open(snapshotPath);
+			 IBatchExporter output = exporter) {
+			output.open(outputFilePath);
+			List<TableLayout> tables = reader.getTables();
+			for (int table = 0; table < tables.size(); table++) {
+				output.beginTable(tables.get(table));
+				reader.readTable(table, output::writeBatch);
+				output.endTable();
+				totalRows += reader.getRowCount(table);
+			}
+		}
+		LOGGER.info("Converted {} rows from snapshot '{}' to '{}'.", totalRows, snapshotPath, outputFilePath);
+		return totalRows;
+	}
+}
@@ -0,0 +1,40 @@
+package com.smg.fileio.snapshot;
+
+/**
+ * Constants of the SMG binary snapshot format ({@code .smgs}).
+ * <p>
+ * Layout (all numbers little-endian):
+ * <pre>
+ * header   : int MAGIC, int VERSION
+ * segments : for each table, its blocks one after the other
+ *            block : int rowCount, then for each column a typed column block:
+ *                    byte tag, null bitmap ((rowCount + 7) / 8 bytes), payload
+ *                    LONG    : rowCount longs
+ *                    DOUBLE  : rowCount doubles
+ *                    BOOLEAN : rowCount bytes
+ *                    TEXT / DECIMAL : (rowCount + 1) int offsets, then UTF-8 bytes
+ *                    NULL    : no payload (every value is null)
+ * footer   : int tableCount, then for each table:
+ *            name, int columnCount, (name, byte kind) per column,
+ *            int blockCount, (long offset, int length, int rowCount) per block
+ * trailer  : long footerOffset, int MAGIC
+ * </pre>
+ * Strings in the footer are written as an int byte length followed by UTF-8 bytes.
+ */
+final class SnapshotFormat {
+	
+	static final int MAGIC = 0x534D4753; // "SMGS"
+	static final int VERSION = 1;
+	static final int HEADER_SIZE = 8;
+	static final int TRAILER_SIZE = 12;
+	
+	static final byte TAG_NULL = 0;
+	static final byte TAG_LONG = 1;
+	static final byte TAG_DOUBLE = 2;
+	static final byte TAG_BOOLEAN = 3;
+	static final byte TAG_TEXT = 4;
+	static final byte TAG_DECIMAL = 5;
+	
+	private SnapshotFormat() {
+	}
+}
@@ -0,0 +1,281 @@
+package com.smg.fileio.snapshot;
+
+import com.smg.fileio.ColumnKind;
+import com.smg.fileio.RowBatch;
+import com.smg.fileio.RowBatchConsumer;
+import com.smg.fileio.TableLayout;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static com.smg.fileio.snapshot.SnapshotFormat.*;
+
+/**
+ * SnapshotReader reads an SMG binary snapshot ({@code .smgs}) through memory maps.
+ * <p>
+ * Opening a snapshot only reads the footer index. Table data is mapped in windows of
+ * up to {@value #WINDOW_SIZE} bytes (files larger than 2 GB are supported) and
+ * decoded block by block into {@link RowBatch} objects, so reading a table is
+ * limited by the disk and the page cache, not by data generation.
+ * <p>
+ * A truncated or corrupted snapshot is refused with an {@link IOException}, when it is
+ * opened (header, trailer, footer or block locations) or when the damaged block is read.
+ */
+public class SnapshotReader implements Closeable {
+	
+	private static final int WINDOW_SIZE = 256 << 20;
+	
+	private final FileChannel channel;
+	private final long fileSize;
+	private final List<TableIndex> tables;
+	
+	private MappedByteBuffer window;
+	private long windowStart;
+	private long windowEnd;
+	
+	private SnapshotReader(FileChannel channel, long fileSize, List<TableIndex> tables) {
+		this.channel = channel;
+		this.fileSize = fileSize;
+		this.tables = tables;
+	}
+	
+	/**
+	 * Opens a snapshot file and reads its index.
+	 *
+	 * @param path The snapshot file.
+	 * @return The reader. It must be closed after use.
+	 * @throws IOException if the file cannot be read or is not a valid snapshot.
+	 */
+	public static SnapshotReader open(Path path) throws IOException {
+		FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+		try {
+			long fileSize = channel.size();
+			if (fileSize < HEADER_SIZE + TRAILER_SIZE) {
+				throw new IOException("Not an SMG snapshot (file too small): " + path);
+			}
+			
+			ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+			if (header.getInt() != MAGIC) {
+				throw new IOException("Not an SMG snapshot (bad magic number): " + path);
+			}
+			int version = header.getInt();
+			if (version != VERSION) {
+				throw new IOException("Unsupported SMG snapshot version " + version + ": " + path);
+			}
+			
+			ByteBuffer trailer = channel.map(FileChannel.MapMode.READ_ONLY, fileSize - TRAILER_SIZE, TRAILER_SIZE)
+				.order(ByteOrder.LITTLE_ENDIAN);
+			long footerOffset = trailer.getLong();
+			if (trailer.getInt() != MAGIC || footerOffset < HEADER_SIZE || footerOffset > fileSize - TRAILER_SIZE) {
+				throw new IOException("Corrupted SMG snapshot (bad trailer), was the export interrupted? " + path);
+			}
+			
+			ByteBuffer footer = channel.map(FileChannel.MapMode.READ_ONLY, footerOffset, fileSize - TRAILER_SIZE - footerOffset)
+				.order(ByteOrder.LITTLE_ENDIAN);
+			List<TableIndex> tables;
+			try {
+				tables = readIndex(footer, footerOffset);
+			} catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e) {
+				throw new IOException("Corrupted SMG snapshot (bad footer): " + path, e);
+			}
+			return new SnapshotReader(channel, fileSize, tables);
+		} catch (IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+	}
+	
+	/**
+	 * @return The layouts of the tables in the snapshot, in the order they were written.
+	 */
+	public List<TableLayout> getTables() {
+		return tables.stream().map(table -> table.layout).toList();
+	}
+	
+	/**
+	 * @param table The index of the table, as in {@link #getTables()}.
+	 * @return The number of rows stored for the table.
+	 */
+	public long getRowCount(int table) {
+		long rows = 0;
+		for (int count : tables.get(table).rows) {
+			rows += count;
+		}
+		return rows;
+	}
+	
+	/**
+	 * Decodes every block of a table, in order, and hands each one to the consumer.
+	 *
+	 * @param table The index of the table, as in {@link #getTables()}.
+	 * @param consumer The receiver of the decoded batches.
+	 * @throws IOException if the file cannot be read or the consumer fails.
+	 */
+	public void readTable(int table, RowBatchConsumer consumer) throws IOException {
+		TableIndex index = tables.get(table);
+		for (int block = 0; block < index.offsets.length; block++) {
+			ByteBuffer data = slice(index.offsets[block], index.lengths[block]);
+			RowBatch batch;
+			try {
+				batch = decodeBlock(index.layout, data, index.rows[block]);
+			} catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e) {
+				throw new IOException("Corrupted SMG snapshot: block " + block + " of table '"
+					+ index.layout.getTableName() + "' cannot be decoded.", e);
+			}
+			consumer.accept(batch);
+		}
+	}
+	
+	@Override
+	public void close() throws IOException {
+		window = null;
+		channel.close();
+	}
+	
+	/**
+	 * Returns a little-endian view of a file region, remapping the window if needed.
+	 */
+	private ByteBuffer slice(long offset, int length) throws IOException {
+		if (offset < windowStart || offset + length > windowEnd || window == null) {
+			long size = Math.min(Math.max(WINDOW_SIZE, length), fileSize - offset);
+			window = channel.map(FileChannel.MapMode.READ_ONLY, offset, size);
+			windowStart = offset;
+			windowEnd = offset + size;
+		}
+		int start = (int) (offset - windowStart);
+		return window.slice(start, length).order(ByteOrder.LITTLE_ENDIAN);
+	}
+	
+	private static RowBatch decodeBlock(TableLayout layout, ByteBuffer data, int expectedRows) throws IOException {
+		int rows = data.getInt();
+		if (rows != expectedRows) {
+			throw new IllegalArgumentException(rows + " rows in a block of " + expectedRows);
+		}
+		int columns = layout.getColumnCount();
+		Object[][] values = new Object[rows][columns];
+		
+		for (int col = 0; col < columns; col++) {
+			byte tag = data.get();
+			byte[] nulls = new byte[(rows + 7) / 8];
+			data.get(nulls);
+			
+			switch (tag) {
+				case TAG_NULL -> {
+					// Every value is already null
+				}
+				case TAG_LONG -> {
+					for (int row = 0; row < rows; row++) {
+						long value = data.getLong();
+						values[row][col] = isNull(nulls, row) ? null : value;
+					}
+				}
+				case TAG_DOUBLE -> {
+					for (int row = 0; row < rows; row++) {
+						double value = data.getDouble();
+						values[row][col] = isNull(nulls, row) ? null : value;
+					}
+				}
+				case TAG_BOOLEAN -> {
+					for (int row = 0; row < rows; row++) {
+						byte value = data.get();
+						values[row][col] = isNull(nulls, row) ? null : value != 0;
+					}
+				}
+				case TAG_TEXT, TAG_DECIMAL -> {
+					int[] offsets = new int[rows + 1];
+					for (int i = 0; i <= rows; i++) {
+						offsets[i] = data.getInt();
+					}
+					byte[] bytes = new byte[checkCount(offsets[rows], data.remaining())];
+					data.get(bytes);
+					for (int row = 0; row < rows; row++) {
+						if (!isNull(nulls, row)) {
+							String text = new String(bytes, offsets[row], offsets[row + 1] - offsets[row], StandardCharsets.UTF_8);
+							values[row][col] = tag == TAG_DECIMAL ? new BigDecimal(text) : text;
+						}
+					}
+				}
+				default -> throw new IOException("Corrupted SMG snapshot: unknown column tag " + tag
+					+ " in table '" + layout.getTableName() + "'.");
+			}
+		}
+		
+		RowBatch batch = new RowBatch(layout, rows);
+		for (Object[] row : values) {
+			batch.addRow(row);
+		}
+		return batch;
+	}
+	
+	/**
+	 * Checks a count read from the file before anything is allocated for it: every
+	 * element takes at least one of the remaining bytes.
+	 */
+	private static int checkCount(int count, int remaining) {
+		if (count < 0 || count > remaining) {
+			throw new IllegalArgumentException("Invalid count " + count + " with " + remaining + " bytes left");
+		}
+		return count;
+	}
+	
+	private static boolean isNull(byte[] nulls, int row) {
+		return (nulls[row >>> 3] & (1 << (row & 7))) != 0;
+	}
+	
+	/**
+	 * Reads the footer, checking that every block lies between the header and the footer.
+	 */
+	private static List<TableIndex> readIndex(ByteBuffer footer, long footerOffset) {
+		int tableCount = checkCount(footer.getInt(), footer.remaining());
+		List<TableIndex> tables = new ArrayList<>(tableCount);
+		for (int t = 0; t < tableCount; t++) {
+			String tableName = getString(footer);
+			int columnCount = checkCount(footer.getInt(), footer.remaining());
+			String[] names = new String[columnCount];
+			ColumnKind[] kinds = new ColumnKind[columnCount];
+			for (int col = 0; col < columnCount; col++) {
+				names[col] = getString(footer);
+				kinds[col] = ColumnKind.values()[footer.get()];
+			}
+			int blockCount = checkCount(footer.getInt(), footer.remaining());
+			long[] offsets = new long[blockCount];
+			int[] lengths = new int[blockCount];
+			int[] rows = new int[blockCount];
+			for (int block = 0; block < blockCount; block++) {
+				offsets[block] = footer.getLong();
+				lengths[block] = footer.getInt();
+				rows[block] = footer.getInt();
+				if (offsets[block] < HEADER_SIZE || lengths[block] < 4 || rows[block] < 0
+					|| offsets[block] + lengths[block] > footerOffset) {
+					throw new IllegalArgumentException("Block " + block + " of table '" + tableName + "' is outside of the data");
+				}
+			}
+			tables.add(new TableIndex(new TableLayout(tableName, names, kinds), offsets, lengths, rows));
+		}
+		return Collections.unmodifiableList(tables);
+	}
+	
+	private static String getString(ByteBuffer buffer) {
+		byte[] bytes = new byte[checkCount(buffer.getInt(), buffer.remaining())];
+		buffer.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+	
+	/**
+	 * The footer entry of a table.
+	 */
+	private record TableIndex(TableLayout layout, long[] offsets, int[] lengths, int[] rows) {
+	}
+}
@@ -0,0 +1,299 @@
+package com.smg.fileio.snapshot;
+
+import com.smg.fileio.IBatchExporter;
+import com.smg.fileio.RowBatch;
+import com.smg.fileio.TableLayout;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.smg.fileio.snapshot.SnapshotFormat.*;
+
+/**
+ * SnapshotWriter stores generated data in the SMG binary snapshot format
+ * ({@code .smgs}, see {@link SnapshotFormat}). Each row batch becomes one block of
+ * typed, column-major data, so writing costs little more than copying the values,
+ * and a {@link SnapshotReader} can later re-export the dataset to any format
+ * without generating it again.
+ */
+public class SnapshotWriter implements IBatchExporter {
+	
+	/** File extension of snapshot files. */
+	public static final String EXTENSION = "smgs";
+	
+	private static final Logger LOGGER = LoggerFactory.getLogger(SnapshotWriter.class);
+	private static final int BUFFER_SIZE = 1 << 20;
+	private static final long MAX_EXACT_DOUBLE = 1L << 53;
+	
+	private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+	private final List<TableEntry> tables = new ArrayList<>();
+	
+	private FileChannel channel;
+	private long flushedBytes;
+	private TableEntry currentTable;
+	
+	@Override
+	public void open(String outputFilePath) throws IOException {
+		LOGGER.info("Opening snapshot output file: {}", outputFilePath);
+		channel = FileChannel.open(Paths.get(outputFilePath),
+			StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+		flushedBytes = 0;
+		tables.clear();
+		ensureCapacity(HEADER_SIZE);
+		buffer.putInt(MAGIC);
+		buffer.putInt(VERSION);
+	}
+	
+	@Override
+	public void beginTable(TableLayout layout) {
+		currentTable = new TableEntry(layout);
+	}
+	
+	@Override
+	public void writeBatch(RowBatch batch) throws IOException {
+		if (batch.isEmpty()) {
+			return;
+		}
+		long offset = position();
+		int rows = batch.size();
+		ensureCapacity(4);
+		buffer.putInt(rows);
+		for (int col = 0; col < currentTable.layout.getColumnCount(); col++) {
+			writeColumn(batch, col);
+		}
+		currentTable.addBlock(offset, (int) (position() - offset), rows);
+	}
+	
+	@Override
+	public void endTable() {
+		tables.add(currentTable);
+		LOGGER.info("Successfully exported {} rows for table '{}' to snapshot.",
+			currentTable.rowCount, currentTable.layout.getTableName());
+		currentTable = null;
+	}
+	
+	@Override
+	public void close() throws IOException {
+		if (channel == null) {
+			return;
+		}
+		try {
+			long footerOffset = position();
+			ensureCapacity(4);
+			buffer.putInt(tables.size());
+			for (TableEntry table : tables) {
+				TableLayout layout = table.layout;
+				putString(layout.getTableName());
+				ensureCapacity(4);
+				buffer.putInt(layout.getColumnCount());
+				for (int col = 0; col < layout.getColumnCount(); col++) {
+					putString(layout.getColumnName(col));
+					ensureCapacity(1);
+					buffer.put((byte) layout.getColumnKind(col).ordinal());
+				}
+				ensureCapacity(4);
+				buffer.putInt(table.blockCount);
+				for (int block = 0; block < table.blockCount; block++) {
+					ensureCapacity(16);
+					buffer.putLong(table.offsets[block]);
+					buffer.putInt(table.lengths[block]);
+					buffer.putInt(table.rows[block]);
+				}
+			}
+			ensureCapacity(TRAILER_SIZE);
+			buffer.putLong(footerOffset);
+			buffer.putInt(MAGIC);
+			flushBuffer();
+		} finally {
+			channel.close();
+			channel = null;
+		}
+	}
+	
+	/**
+	 * Writes one column of a batch as a typed column block.
+	 */
+	private void writeColumn(RowBatch batch, int col) throws IOException {
+		int rows = batch.size();
+		byte tag = chooseTag(batch, col);
+		
+		ensureCapacity(1 + (rows + 7) / 8);
+		buffer.put(tag);
+		for (int base = 0; base < rows; base += 8) {
+			int bits = 0;
+			for (int bit = 0; bit < 8 && base + bit < rows; bit++) {
+				if (batch.get(base + bit, col) == null) {
+					bits |= 1 << bit;
+				}
+			}
+			buffer.put((byte) bits);
+		}
+		
+		switch (tag) {
+			case TAG_LONG -> {
+				for (int row = 0; row < rows; row++) {
+					Object value = batch.get(row, col);
+					ensureCapacity(8);
+					buffer.putLong(value == null ? 0L : ((Number) value).longValue());
+				}
+			}
+			case TAG_DOUBLE -> {
+				for (int row = 0; row < rows; row++) {
+					Object value = batch.get(row, col);
+					ensureCapacity(8);
+					buffer.putDouble(value == null ? 0d : ((Number) value).doubleValue());
+				}
+			}
+			case TAG_BOOLEAN -> {
+				for (int row = 0; row < rows; row++) {
+					ensureCapacity(1);
+					buffer.put(Boolean.TRUE.equals(batch.get(row, col)) ? (byte) 1 : (byte) 0);
+				}
+			}
+			case TAG_TEXT, TAG_DECIMAL -> writeTextColumn(batch, col, tag == TAG_DECIMAL);
+			default -> {
+				// TAG_NULL: the bitmap says it all
+			}
+		}
+	}
+	
+	private void writeTextColumn(RowBatch batch, int col, boolean decimal) throws IOException {
+		int rows = batch.size();
+		byte[][] encoded = new byte[rows][];
+		for (int row = 0; row < rows; row++) {
+			Object value = batch.get(row, col);
+			if (value != null) {
+				String text = decimal ? ((BigDecimal) value).toString() : value.toString();
+				encoded[row] = text.getBytes(StandardCharsets.UTF_8);
+			}
+		}
+		int offset = 0;
+		ensureCapacity(4);
+		buffer.putInt(0);
+		for (byte[] bytes : encoded) {
+			offset += bytes == null ? 0 : bytes.length;
+			ensureCapacity(4);
+			buffer.putInt(offset);
+		}
+		for (byte[] bytes : encoded) {
+			if (bytes != null) {
+				putBytes(bytes);
+			}
+		}
+	}
+	
+	/**
+	 * Picks the most compact tag that restores every value of the column exactly.
+	 * Mixed longs and doubles (as in Mockaroo decimal columns) are stored as doubles
+	 * when the longs are exactly representable; anything else falls back to text.
+	 */
+	private byte chooseTag(RowBatch batch, int col) {
+		boolean allLong = true;
+		boolean allNumber = true;
+		boolean allBoolean = true;
+		boolean allDecimal = true;
+		boolean anyValue = false;
+		for (int row = 0; row < batch.size(); row++) {
+			Object value = batch.get(row, col);
+			if (value == null) {
+				continue;
+			}
+			anyValue = true;
+			boolean isLong = value instanceof Long || value instanceof Integer;
+			allLong &= isLong;
+			allNumber &= value instanceof Double
+				|| (isLong && Math.abs(((Number) value).longValue()) <= MAX_EXACT_DOUBLE);
+			allBoolean &= value instanceof Boolean;
+			allDecimal &= value instanceof BigDecimal;
+		}
+		if (!anyValue) {
+			return TAG_NULL;
+		} else if (allLong) {
+			return TAG_LONG;
+		} else if (allNumber) {
+			return TAG_DOUBLE;
+		} else if (allBoolean) {
+			return TAG_BOOLEAN;
+		} else if (allDecimal) {
+			return TAG_DECIMAL;
+		}
+		return TAG_TEXT;
+	}
+	
+	private void putString(String value) throws IOException {
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		ensureCapacity(4);
+		buffer.putInt(bytes.length);
+		putBytes(bytes);
+	}
+	
+	private void putBytes(byte[] bytes) throws IOException {
+		int written = 0;
+		while (written < bytes.length) {
+			if (!buffer.hasRemaining()) {
+				flushBuffer();
+			}
+			int length = Math.min(buffer.remaining(), bytes.length - written);
+			buffer.put(bytes, written, length);
+			written += length;
+		}
+	}
+	
+	private long position() {
+		return flushedBytes + buffer.position();
+	}
+	
+	private void ensureCapacity(int bytes) throws IOException {
+		if (buffer.remaining() < bytes) {
+			flushBuffer();
+		}
+	}
+	
+	private void flushBuffer() throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			flushedBytes += channel.write(buffer);
+		}
+		buffer.clear();
+	}
+	
+	/**
+	 * The index entry of a table: its layout and the location of its blocks.
+	 */
+	private static final class TableEntry {
+		private final TableLayout layout;
+		private long[] offsets = new long[16];
+		private int[] lengths = new int[16];
+		private int[] rows = new int[16];
+		private int blockCount;
+		private long rowCount;
+		
+		TableEntry(TableLayout layout) {
+			this.layout = layout;
+		}
+		
+		void addBlock(long offset, int length, int rowCount) {
+			if (blockCount == offsets.length) {
+				offsets = Arrays.copyOf(offsets, blockCount * 2);
+				lengths = Arrays.copyOf(lengths, blockCount * 2);
+				rows = Arrays.copyOf(rows, blockCount * 2);
+			}
+			offsets[blockCount] = offset;
+			lengths[blockCount] = length;
+			rows[blockCount] = rowCount;
+			blockCount++;
+			this.rowCount += rowCount;
+		}
+	}
+}
@@ -0,0 +1,17 @@
+package com.smg.generation;
+
+/**
+ * Where the values of a generated column come from.
+ */
+public enum ColumnSource {
+	/** Realistic values from the Mockaroo API (names, emails, addresses, free text). */
+	MOCKAROO,
+	/** Random values of the column kind, made in-process. */
+	LOCAL,
+	/** The 1-based position of the row in its table, which keeps a surrogate key unique. */
+	ROW_NUMBER,
+	/** A row number of the referenced table, so a foreign key points at a generated row. */
+	REFERENCE,
+	/** A short code or flag of uppercase letters, as long as the column allows. */
+	CODE
+}
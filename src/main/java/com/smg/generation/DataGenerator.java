@@ -1,52 +1,96 @@
 package com.smg.generation;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.smg.config.SMGConfig;
-import com.smg.fileio.IExporter;
-import com.smg.fileio.exporters.*;
+import com.smg.fileio.ColumnKind;
+import com.smg.fileio.ExporterFactory;
+import com.smg.fileio.FanOutExporter;
+import com.smg.fileio.RowBatch;
+import com.smg.fileio.TableLayout;
 import com.smg.logging.ErrorLogger;
 import com.smg.logging.SummaryLogger;
 import com.smg.mockaroo.MockarooClient;
-import com.smg.mockaroo.MockarooSchemaGenerator;
 import com.smg.schemas.entities.Schema;
-import com.smg.schemas.entities.Table;
+import com.smg.schemas.ir.SchemaIR;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
 
 /**
  * DataGenerator is the main orchestrator for generating synthetic data.
  * It uses the cleaned schema, communicates with the Mockaroo API, and
  * exports the data in the specified formats.
+ * <p>
+ * The data output may list several files separated by commas (e.g.
+ * {@code data.sql,data.csv,data.xlsx}). The data is generated once and every
+ * row batch is written to all of them in parallel.
+ * <p>
+ * Large tables are fetched in chunks of at most {@code mockaroo.maxRowsPerRequest}
+ * rows. The Mockaroo requests of several chunks and tables run concurrently (within
+ * the concurrency and rate limits of the client), while the rows are still written
+ * in schema and chunk order, each chunk as soon as it and the ones before it arrived.
+ * <p>
+ * Only the columns that need realistic values are fetched from Mockaroo; the
+ * {@link HybridGenerationPlanner} keeps keys, numbers, dates and flags local, and
+ * they are merged into the received rows as they stream in.
+ * <p>
+ * When Mockaroo cannot deliver a chunk (its circuit is open, it is too slow, or the
+ * chunk still fails after the retries), the missing rows are made by the
+ * {@link LocalRowGenerator} so the job still completes. Where the rows of each table
+ * came from is recorded in the summary.
  */
 public class DataGenerator {
 	
 	private static final Logger LOGGER = LoggerFactory.getLogger(DataGenerator.class);
+	// Chunks fetched ahead of the one being exported, per concurrent request
+	private static final int FETCH_AHEAD_FACTOR = 2;
+	// Batches of a chunk held ahead of the exporter, past which its reader waits
+	private static final int QUEUED_BATCHES = 16;
+	// Marks the end of the batches of a chunk in its queue
+	private static final RowBatch END_OF_CHUNK = new RowBatch(new TableLayout("", new String[0], new ColumnKind[0]), 0);
 	
 	private final SMGConfig config;
 	private final ErrorLogger errorLogger;
 	private final SummaryLogger summaryLogger;
-	private final MockarooClient mockarooClient;
-	private final MockarooSchemaGenerator mockarooSchemaGenerator;
-	private final ObjectMapper objectMapper;
+	private final LocalRowGenerator localRowGenerator;
 	
 	public DataGenerator(SMGConfig config, ErrorLogger errorLogger, SummaryLogger summaryLogger) {
 		this.config = config;
 		this.errorLogger = errorLogger;
 		this.summaryLogger = summaryLogger;
-		this.mockarooClient = new MockarooClient(config.getMockApiKey(), errorLogger);
-		this.mockarooSchemaGenerator = new MockarooSchemaGenerator();
-		this.objectMapper = new ObjectMapper();
+		this.localRowGenerator = new LocalRowGenerator(config.getMockarooSeed());
 	}
 	
 	/**
-	 * Generates synthetic data for each table in the cleaned schema and exports it.
+	 * Generates synthetic data for each table in the cleaned schema and exports it
+	 * to every data output file.
 	 *
 	 * @param cleanedSchema The schema object with only the selected tables.
 	 */
 	public void generate(Schema cleanedSchema) {
+		generate(SchemaIR.of(cleanedSchema));
+	}
+	
+	/**
+	 * Generates synthetic data for each table of a schema and exports it to every data
+	 * output file. The schema is read in place by the planner of every table.
+	 *
+	 * @param cleanedSchema The schema with only the selected tables.
+	 */
+	public void generate(SchemaIR cleanedSchema) {
 		if (config.getSyntheticGenerate() == null || config.getSyntheticGenerate().isEmpty()) {
 			LOGGER.warn("No tables specified for synthetic data generation. Process will not generate data.");
 			return;
@@ -57,62 +101,316 @@ public class DataGenerator {
 			// Logic for schema export would go here, calling a dedicated Exporter.
 		}
 		
-		// Generate and export data for each table
-		for (Table table : cleanedSchema.getTables()) {
-			String tableName = table.getName();
-			int rowCount = config.getSyntheticGenerate().getOrDefault(tableName, 100);
-			
+		FanOutExporter exporter = new FanOutExporter();
+		for (String dataOutput : ExporterFactory.splitOutputs(config.getDataOutput())) {
 			try {
-				// Step 1: Generate Mockaroo schema JSON
-				ArrayNode mockarooSchema = mockarooSchemaGenerator.generateSchema(table, rowCount);
-				
-				// Step 2: Fetch synthetic data from Mockaroo.
-				// The method now returns an ArrayNode.
-				ArrayNode mockDataArray = mockarooClient.generateData(mockarooSchema);
-				
-				// Step 3: Serialize the ArrayNode to a JSON string for export.
-				String mockDataJson = objectMapper.writerWithDefaultPrettyPrinter().writeValueAsString(mockDataArray);
-				
-				// Step 4: Export the data in the specified format
-				exportData(tableName, mockDataJson);
+				exporter.addSink(dataOutput, ExporterFactory.create(dataOutput, config));
+			} catch (IllegalArgumentException e) {
+				errorLogger.logError(e.getMessage(), e);
+				summaryLogger.logFailedFile(dataOutput, e.getMessage());
+			}
+		}
+		if (exporter.getOutputFilePaths().isEmpty()) {
+			LOGGER.warn("No valid data output specified. Process will not generate data.");
+			return;
+		}
+		
+		// The client only serves this run; closing it stops its dispatcher and reader threads
+		try (MockarooClient mockarooClient = new MockarooClient(config, errorLogger)) {
+			export(cleanedSchema, exporter, mockarooClient);
+			logOutputs(exporter);
+			summaryLogger.logTransfer("Mockaroo (" + mockarooClient.getFormat() + (mockarooClient.isGzip() ? ", gzip" : "") + ")",
+				mockarooClient.getBytesOnWire(), mockarooClient.getBytesDecoded());
+			if (mockarooClient.getCache() != null) {
+				summaryLogger.logCacheStats("Mockaroo responses", mockarooClient.getCache().getHits(), mockarooClient.getCache().getMisses());
+			}
+		}
+	}
+	
+	/**
+	 * Fetches the chunks of every table and exports them, in schema order, to every data
+	 * output. The exporter is closed once the last table is written.
+	 *
+	 * @param cleanedSchema The schema with only the selected tables.
+	 * @param exporter The data outputs.
+	 * @param mockarooClient The client fetching the remote columns.
+	 */
+	private void export(SchemaIR cleanedSchema, FanOutExporter exporter, MockarooClient mockarooClient) {
+		List<Chunk> chunks = planChunks(cleanedSchema);
+		Deque<PendingChunk> pending = new ArrayDeque<>();
+		int fetchAhead = Math.max(1, config.getMockarooConcurrency()) * FETCH_AHEAD_FACTOR;
+		int next = 0;
+		boolean tableOpen = false;
+		// Rows of the current table received from Mockaroo and generated locally
+		long remoteRows = 0;
+		long localRows = 0;
+		try (exporter) {
+			exporter.open(config.getDataOutput());
+			
+			// Keep a window of chunks being fetched concurrently, and export them in schema order
+			while (next < chunks.size() || !pending.isEmpty()) {
+				while (next < chunks.size() && pending.size() < fetchAhead) {
+					pending.add(fetchChunk(chunks.get(next++), mockarooClient));
+				}
+				PendingChunk pendingChunk = pending.poll();
+				Chunk chunk = pendingChunk.chunk();
+				TableLayout layout = chunk.plan().getLayout();
 				
-				summaryLogger.logFileGenerated(config.getDataOutput(), mockDataJson.length());
-			} catch (IOException | InterruptedException e) {
-				String errorMessage = "Failed to generate data for table: " + tableName;
-				errorLogger.logError(errorMessage, e);
-				summaryLogger.logFailedFile(config.getDataOutput(), errorMessage);
+				// Step 3: Export the data, batch by batch, to every output, while the chunk is
+				// still being received. A table is only started once one of its chunks delivers
+				// rows or completes, so a table whose chunks all fail is skipped
+				RowBatch batch;
+				int chunkRows = 0;
+				while ((batch = pendingChunk.batches().take()) != END_OF_CHUNK) {
+					if (!tableOpen) {
+						exporter.beginTable(layout);
+						tableOpen = true;
+					}
+					exporter.writeBatch(batch);
+					chunkRows += batch.size();
+				}
+				remoteRows += chunkRows;
+				boolean complete = awaitChunk(pendingChunk, exporter.getOutputFilePaths());
+				if (!chunk.plan().hasRemoteColumns() || (!complete && config.isMockarooFallback())) {
+					// Make the rows Mockaroo did not deliver, after the ones it did
+					if (!tableOpen) {
+						exporter.beginTable(layout);
+						tableOpen = true;
+					}
+					localRows += localRowGenerator.generate(chunk.plan(), chunk.firstRow() + chunkRows,
+						chunk.rowCount() - chunkRows, RowBatch.DEFAULT_CAPACITY, exporter::writeBatch);
+				} else if (complete && !tableOpen) {
+					exporter.beginTable(layout);
+					tableOpen = true;
+				}
+				if (chunk.last()) {
+					if (tableOpen) {
+						exporter.endTable();
+						tableOpen = false;
+					}
+					logTableSource(chunk.plan(), remoteRows, localRows);
+					remoteRows = 0;
+					localRows = 0;
+				}
 			}
+		} catch (IOException e) {
+			String errorMessage = "Failed to write data output: " + config.getDataOutput();
+			errorLogger.logError(errorMessage, e);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			errorLogger.logError("Data generation interrupted.", e);
+		} finally {
+			pending.forEach(pendingChunk -> {
+				pendingChunk.rowCount().cancel(true);
+				pendingChunk.batches().discard();
+			});
 		}
 	}
 	
 	/**
-	 * Exports the generated data to the specified output format.
+	 * Splits the rows of every table into chunks no larger than the number of rows
+	 * Mockaroo returns per request. The chunks are listed in table and row order,
+	 * which is also the order they are written in.
 	 *
-	 * @param tableName The name of the table the data belongs to.
-	 * @param mockDataJson The JSON string containing the generated data.
-	 * @throws IOException if there is an error writing the file.
+	 * @param schema The tables to generate data for.
+	 * @return The chunks of every table.
 	 */
-	private void exportData(String tableName, String mockDataJson) throws IOException {
-		String dataOutput = config.getDataOutput();
-		String fileExtension = getFileExtension(dataOutput);
-		
-		IExporter exporter;
-		switch (fileExtension.toLowerCase()) {
-			case "sql" -> exporter = new SQLExporter();
-			case "json" -> exporter = new JSONExporter();
-			case "csv" -> exporter = new CSVExporter();
-			case "xlsx" -> exporter = new XLSXExporter();
-			default -> throw new IllegalArgumentException("Unsupported output format: " + fileExtension);
+	List<Chunk> planChunks(SchemaIR schema) {
+		int maxRowsPerRequest = Math.max(1, config.getMockarooMaxRowsPerRequest());
+		Map<String, Integer> rowCounts = new HashMap<>();
+		for (int table = 0; table < schema.getTableCount(); table++) {
+			rowCounts.put(schema.getTableName(table), config.getSyntheticGenerate().getOrDefault(schema.getTableName(table), 100));
+		}
+		HybridGenerationPlanner planner = new HybridGenerationPlanner(rowCounts);
+		List<Chunk> chunks = new ArrayList<>();
+		for (int table = 0; table < schema.getTableCount(); table++) {
+			int rowCount = rowCounts.get(schema.getTableName(table));
+			
+			// Step 1: Decide which columns to fetch from Mockaroo; the plan is shared by all the chunks of the table
+			GenerationPlan plan = config.isMockarooHybrid() ? planner.plan(schema, table) : planner.planRemote(schema, table);
+			
+			int firstRow = 0;
+			int index = 0;
+			do {
+				int chunkRows = Math.min(maxRowsPerRequest, rowCount - firstRow);
+				boolean last = firstRow + chunkRows >= rowCount;
+				chunks.add(new Chunk(plan, index++, firstRow, chunkRows, last));
+				firstRow += chunkRows;
+			} while (firstRow < rowCount);
+		}
+		return chunks;
+	}
+	
+	/**
+	 * Starts fetching the synthetic data of a chunk from Mockaroo. The rows are completed
+	 * with the local columns and queued as they are parsed: the chunk being exported is
+	 * streamed through its queue, while the chunks after it are held there as row
+	 * batches until their turn comes. The queue is bounded, so a chunk fetched ahead
+	 * stops being read once it holds {@link #QUEUED_BATCHES} batches. A chunk without
+	 * remote columns is not fetched; its rows are generated when it is exported.
+	 *
+	 * @param chunk The rows to generate.
+	 * @param mockarooClient The client fetching the remote columns.
+	 * @return The chunk with its pending data.
+	 */
+	private PendingChunk fetchChunk(Chunk chunk, MockarooClient mockarooClient) {
+		ChunkQueue batches = new ChunkQueue();
+		GenerationPlan plan = chunk.plan();
+		if (!plan.hasRemoteColumns()) {
+			batches.end();
+			return new PendingChunk(chunk, batches, CompletableFuture.completedFuture(0));
 		}
 		
-		// The exporter now receives the serialized JSON string.
-		exporter.export(dataOutput, tableName, mockDataJson);
+		// Step 2: Queue the request; the client runs it once the concurrency and rate limits allow
+		CompletableFuture<Integer> rowCount = mockarooClient.generateDataAsync(plan.getMockarooSchema(), chunk.rowCount(),
+			chunk.index(), plan.getRemoteLayout(), localRowGenerator.merging(plan, chunk.firstRow(), batches::put));
+		rowCount.whenComplete((rows, error) -> batches.end());
+		return new PendingChunk(chunk, batches, rowCount);
 	}
 	
-	private String getFileExtension(String filename) {
-		if (filename == null || filename.lastIndexOf('.') == -1) {
-			return "";
+	/**
+	 * Waits for the outcome of a chunk whose rows have all been exported. A chunk that
+	 * still fails after the client retries is logged; unless the local fallback is
+	 * enabled it is also reported as a failure of every data output, as they all miss
+	 * its rows, and skipped. The other chunks of the table are kept.
+	 *
+	 * @param pendingChunk The chunk and its pending data.
+	 * @param dataOutputs The data output files.
+	 * @return true if all the rows of the chunk were generated.
+	 * @throws InterruptedException if the thread is interrupted while waiting for the data.
+	 */
+	private boolean awaitChunk(PendingChunk pendingChunk, List<String> dataOutputs) throws InterruptedException {
+		Chunk chunk = pendingChunk.chunk();
+		try {
+			MockarooClient.await(pendingChunk.rowCount());
+			return true;
+		} catch (IOException e) {
+			String errorMessage = chunk.firstRow() == 0 && chunk.last()
+				? "Failed to generate data for table: " + chunk.plan().getLayout().getTableName()
+				: "Failed to generate rows " + (chunk.firstRow() + 1) + "-" + (chunk.firstRow() + chunk.rowCount())
+					+ " of table: " + chunk.plan().getLayout().getTableName();
+			if (config.isMockarooFallback()) {
+				LOGGER.warn("{}, generating them locally: {}", errorMessage, e.getMessage());
+				errorLogger.logError(errorMessage + "; generated locally instead.", e);
+			} else {
+				errorLogger.logError(errorMessage, e);
+				for (String dataOutput : dataOutputs) {
+					summaryLogger.logFailedFile(dataOutput, errorMessage);
+				}
+			}
+			return false;
+		}
+	}
+	
+	/**
+	 * Records in the summary where the rows of a table came from.
+	 *
+	 * @param plan The generation plan of the table.
+	 * @param remoteRows The number of rows received from Mockaroo.
+	 * @param localRows The number of rows generated entirely locally.
+	 */
+	private void logTableSource(GenerationPlan plan, long remoteRows, long localRows) {
+		TableLayout layout = plan.getLayout();
+		String source;
+		if (!plan.hasRemoteColumns()) {
+			source = localRows + " rows from the local generator (no column needs Mockaroo)";
+		} else {
+			int remoteColumns = plan.getRemoteLayout().getColumnCount();
+			String columns = remoteColumns == layout.getColumnCount()
+				? ""
+				: " (" + remoteColumns + " of " + layout.getColumnCount() + " columns, the others generated locally)";
+			if (localRows == 0) {
+				source = remoteRows + " rows from Mockaroo" + columns;
+			} else if (remoteRows == 0) {
+				source = localRows + " rows from the local generator";
+			} else {
+				source = remoteRows + " rows from Mockaroo" + columns + ", " + localRows + " rows from the local generator";
+			}
+		}
+		summaryLogger.logTableSource(layout.getTableName(), source);
+	}
+	
+	/**
+	 * Records the outcome of every data output in the summary.
+	 *
+	 * @param exporter The closed exporter.
+	 */
+	private void logOutputs(FanOutExporter exporter) {
+		Map<String, Exception> failures = exporter.getFailures();
+		for (String dataOutput : exporter.getOutputFilePaths()) {
+			Exception failure = failures.get(dataOutput);
+			if (failure != null) {
+				errorLogger.logError("Failed to write data output: " + dataOutput, failure);
+				summaryLogger.logFailedFile(dataOutput, failure.getMessage());
+				continue;
+			}
+			try {
+				summaryLogger.logFileGenerated(dataOutput, Files.size(Paths.get(dataOutput)));
+			} catch (IOException e) {
+				summaryLogger.logFileGenerated(dataOutput, 0);
+			}
+		}
+	}
+	
+	/**
+	 * A range of rows of a table fetched with one Mockaroo request.
+	 */
+	record Chunk(GenerationPlan plan, int index, int firstRow, int rowCount, boolean last) {
+	}
+	
+	/**
+	 * A chunk whose data is being fetched: the batches received so far, followed by
+	 * {@link #END_OF_CHUNK} once the request is over, and the number of rows received.
+	 */
+	private record PendingChunk(Chunk chunk, ChunkQueue batches, CompletableFuture<Integer> rowCount) {
+	}
+	
+	/**
+	 * The batches of a chunk on their way to the exporter. The reader of the response
+	 * waits while {@link #QUEUED_BATCHES} batches are queued; one more slot is kept for
+	 * {@link #END_OF_CHUNK}, so the end of the chunk is marked at once from whatever
+	 * thread completes the request.
+	 */
+	private static final class ChunkQueue {
+		
+		private final BlockingQueue<RowBatch> batches = new ArrayBlockingQueue<>(QUEUED_BATCHES + 1);
+		private final Semaphore free = new Semaphore(QUEUED_BATCHES);
+		private volatile boolean discarded;
+		
+		private void put(RowBatch batch) throws IOException {
+			try {
+				free.acquire();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException("Interrupted while queueing the rows of a chunk.");
+			}
+			if (discarded) {
+				free.release();
+				return;
+			}
+			batches.add(batch);
+		}
+		
+		private void end() {
+			batches.add(END_OF_CHUNK);
+		}
+		
+		private RowBatch take() throws InterruptedException {
+			RowBatch batch = batches.take();
+			if (batch != END_OF_CHUNK) {
+				free.release();
+			}
+			return batch;
+		}
+		
+		/**
+		 * Drops the queued batches of a chunk that will not be exported, and the ones
+		 * still arriving, so its reader does not wait for room.
+		 */
+		private void discard() {
+			discarded = true;
+			batches.clear();
+			free.release(QUEUED_BATCHES);
 		}
-		return filename.substring(filename.lastIndexOf('.') + 1);
 	}
 }
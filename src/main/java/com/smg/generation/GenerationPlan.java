@@ -0,0 +1,111 @@
+package com.smg.generation;
+
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.smg.fileio.ColumnKind;
+import com.smg.fileio.TableLayout;
+
+/**
+ * How the rows of one table are generated: the source of every column and, for the
+ * columns sent to Mockaroo, the request schema and the layout of the response rows.
+ * <p>
+ * Plans are made by the {@link HybridGenerationPlanner}. The remote columns of a row
+ * come from Mockaroo, the others are made by the {@link LocalRowGenerator} and merged
+ * into the same row as the response is streamed.
+ */
+public final class GenerationPlan {
+	
+	private final TableLayout layout;
+	private final ColumnSource[] sources;
+	private final long[] bounds;
+	private final int[] keyRadixes;
+	private final TableLayout remoteLayout;
+	private final int[] remoteColumns;
+	private final ArrayNode mockarooSchema;
+	
+	/**
+	 * @param layout The layout of the full rows of the table.
+	 * @param sources The source of every column of the layout.
+	 * @param bounds For the {@link ColumnSource#REFERENCE} columns, the number of rows of the referenced table;
+	 *               for the {@link ColumnSource#CODE} columns, their length.
+	 * @param keyRadixes For the {@link ColumnSource#ROW_NUMBER} and {@link ColumnSource#REFERENCE} columns,
+	 *                   the radix the row numbers are written in when the key is text.
+	 * @param mockarooSchema The Mockaroo schema of the {@link ColumnSource#MOCKAROO} columns, in column order.
+	 */
+	GenerationPlan(TableLayout layout, ColumnSource[] sources, long[] bounds, int[] keyRadixes, ArrayNode mockarooSchema) {
+		this.layout = layout;
+		this.sources = sources.clone();
+		this.bounds = bounds.clone();
+		this.keyRadixes = keyRadixes.clone();
+		this.mockarooSchema = mockarooSchema;
+		
+		int remoteCount = 0;
+		for (ColumnSource source : sources) {
+			if (source == ColumnSource.MOCKAROO) {
+				remoteCount++;
+			}
+		}
+		this.remoteColumns = new int[remoteCount];
+		String[] remoteNames = new String[remoteCount];
+		ColumnKind[] remoteKinds = new ColumnKind[remoteCount];
+		for (int col = 0, remote = 0; col < sources.length; col++) {
+			if (sources[col] == ColumnSource.MOCKAROO) {
+				remoteColumns[remote] = col;
+				remoteNames[remote] = layout.getColumnName(col);
+				remoteKinds[remote] = layout.getColumnKind(col);
+				remote++;
+			}
+		}
+		this.remoteLayout = remoteCount == 0 ? null : new TableLayout(layout.getTableName(), remoteNames, remoteKinds);
+	}
+	
+	public TableLayout getLayout() {
+		return layout;
+	}
+	
+	public ColumnSource getSource(int column) {
+		return sources[column];
+	}
+	
+	/**
+	 * @return The number of rows of the referenced table for a reference, the length for a code.
+	 */
+	public long getBound(int column) {
+		return bounds[column];
+	}
+	
+	/**
+	 * @return The radix of the row numbers of a text key or reference, 10 or 36.
+	 */
+	public int getKeyRadix(int column) {
+		return keyRadixes[column];
+	}
+	
+	/**
+	 * @return true if at least one column is fetched from Mockaroo.
+	 */
+	public boolean hasRemoteColumns() {
+		return remoteLayout != null;
+	}
+	
+	/**
+	 * @return The layout of the rows returned by Mockaroo, or null if no column is fetched from it.
+	 */
+	public TableLayout getRemoteLayout() {
+		return remoteLayout;
+	}
+	
+	/**
+	 * @param remoteColumn The index of a column in the remote layout.
+	 * @return The index of the same column in the full layout.
+	 */
+	public int getRemoteColumn(int remoteColumn) {
+		return remoteColumns[remoteColumn];
+	}
+	
+	/**
+	 * @return The Mockaroo schema of the remote columns, or null if there are none.
+	 */
+	public ArrayNode getMockarooSchema() {
+		return mockarooSchema;
+	}
+}
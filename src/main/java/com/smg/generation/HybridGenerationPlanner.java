@@ -0,0 +1,279 @@
+package com.smg.generation;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.smg.fileio.ColumnKind;
+import com.smg.fileio.TableLayout;
+import com.smg.mockaroo.MockarooSchemaGenerator;
+import com.smg.schemas.entities.Schema;
+import com.smg.schemas.entities.Table;
+import com.smg.schemas.ir.SchemaIR;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * HybridGenerationPlanner decides, column by column, whether the values of a table
+ * are worth a Mockaroo call.
+ * <p>
+ * Only the text columns that need realistic semantics are sent to Mockaroo: names,
+ * emails, phones, addresses and free text, each with the Mockaroo type that fits its
+ * name. Everything else is generated in-process at no cost: the surrogate key gets the
+ * row number, foreign keys get a row number of the referenced table, and numeric,
+ * date, boolean and short code columns get random values of their kind. The payload,
+ * the API cost and the response size shrink with every column kept local, and a table
+ * without any semantic column makes no call at all.
+ * <p>
+ * Row numbers are written so that they fit the declared length of the key, in base 36
+ * for a text key too short for decimal. A key whose rows cannot fit at all is left to
+ * Mockaroo, as when the hybrid generation is disabled.
+ */
+public class HybridGenerationPlanner {
+	
+	// Text columns this short hold codes and flags rather than text worth a Mockaroo call
+	private static final int MAX_CODE_LENGTH = 3;
+	private static final int CHARS_PER_WORD = 8;
+	private static final int MAX_WORDS = 10;
+	
+	private final ObjectMapper objectMapper = new ObjectMapper();
+	private final MockarooSchemaGenerator mockarooSchemaGenerator = new MockarooSchemaGenerator();
+	private final Map<String, Integer> rowCounts = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+	
+	/**
+	 * @param rowCounts The number of rows generated for every table, used to keep foreign keys within range.
+	 */
+	public HybridGenerationPlanner(Map<String, Integer> rowCounts) {
+		this.rowCounts.putAll(rowCounts);
+	}
+	
+	/**
+	 * Plans the generation of a table, sending only its semantic columns to Mockaroo.
+	 *
+	 * @param table The table to plan.
+	 * @return The plan of the table.
+	 */
+	public GenerationPlan plan(Table table) {
+		return plan(SchemaIR.of(singleTable(table)), 0);
+	}
+	
+	/**
+	 * Plans the generation of a table of a schema, sending only its semantic columns to Mockaroo.
+	 *
+	 * @param schema The schema of the table.
+	 * @param table The id of the table to plan.
+	 * @return The plan of the table.
+	 */
+	public GenerationPlan plan(SchemaIR schema, int table) {
+		TableLayout layout = toLayout(schema, table);
+		int columnCount = layout.getColumnCount();
+		int firstColumn = schema.getFirstColumn(table);
+		int keyColumn = surrogateKey(schema, table);
+		ColumnSource[] sources = new ColumnSource[columnCount];
+		long[] bounds = new long[columnCount];
+		int[] keyRadixes = new int[columnCount];
+		ArrayNode mockarooSchema = objectMapper.createArrayNode();
+		
+		for (int col = 0; col < columnCount; col++) {
+			int column = firstColumn + col;
+			ColumnKind kind = layout.getColumnKind(col);
+			int length = schema.getColumnLength(column);
+			
+			int foreignKey = schema.getColumnForeignKey(column);
+			if (foreignKey != SchemaIR.NOT_FOUND) {
+				// A reference to a table that is not generated, or whose keys do not fit, cannot be kept in range
+				Integer referencedRows = rowCounts.get(schema.getForeignKeyTargetTableName(foreignKey));
+				// The values are written like the key they point at
+				int target = targetColumn(schema, foreignKey, column);
+				ColumnKind keyKind = target == SchemaIR.NOT_FOUND ? kind : schema.getColumnKind(target);
+				int keyLength = target == SchemaIR.NOT_FOUND ? length : schema.getColumnLength(target);
+				int radix = referencedRows == null ? 0 : keyRadix(keyKind, keyLength, referencedRows);
+				sources[col] = radix > 0 ? ColumnSource.REFERENCE : ColumnSource.LOCAL;
+				bounds[col] = radix > 0 ? referencedRows : 0;
+				keyRadixes[col] = radix;
+			} else if (column == keyColumn) {
+				int radix = keyRadix(kind, length, rowCounts.getOrDefault(schema.getTableName(table), 0));
+				sources[col] = radix > 0 ? ColumnSource.ROW_NUMBER : ColumnSource.MOCKAROO;
+				keyRadixes[col] = radix;
+				if (radix == 0) {
+					// The row numbers do not fit the key, so its values are left to Mockaroo
+					mockarooSchema.add(mockarooSchemaGenerator.generateSchema(schema, table).get(col));
+				}
+			} else if (kind == ColumnKind.TEXT && isCode(length)) {
+				sources[col] = ColumnSource.CODE;
+				bounds[col] = length;
+			} else if (kind == ColumnKind.TEXT) {
+				sources[col] = ColumnSource.MOCKAROO;
+				mockarooSchema.add(toMockarooField(schema.getColumnName(column), length));
+			} else {
+				sources[col] = ColumnSource.LOCAL;
+			}
+		}
+		return new GenerationPlan(layout, sources, bounds, keyRadixes, mockarooSchema.isEmpty() ? null : mockarooSchema);
+	}
+	
+	/**
+	 * Plans the generation of a table with every column sent to Mockaroo, as when the
+	 * hybrid generation is disabled.
+	 *
+	 * @param table The table to plan.
+	 * @return The plan of the table.
+	 */
+	public GenerationPlan planRemote(Table table) {
+		return planRemote(SchemaIR.of(singleTable(table)), 0);
+	}
+	
+	/**
+	 * Plans the generation of a table of a schema with every column sent to Mockaroo, as
+	 * when the hybrid generation is disabled.
+	 *
+	 * @param schema The schema of the table.
+	 * @param table The id of the table to plan.
+	 * @return The plan of the table.
+	 */
+	public GenerationPlan planRemote(SchemaIR schema, int table) {
+		TableLayout layout = toLayout(schema, table);
+		ColumnSource[] sources = new ColumnSource[layout.getColumnCount()];
+		Arrays.fill(sources, ColumnSource.MOCKAROO);
+		return new GenerationPlan(layout, sources, new long[sources.length], new int[sources.length], mockarooSchemaGenerator.generateSchema(schema, table));
+	}
+	
+	/**
+	 * Picks the Mockaroo type of a semantic text column from its name. The options of the
+	 * type are written next to it, as the API expects.
+	 */
+	private ObjectNode toMockarooField(String columnName, int length) {
+		String name = columnName.toUpperCase(Locale.ROOT);
+		ObjectNode field = objectMapper.createObjectNode();
+		field.put("name", columnName);
+		if (name.contains("EMAIL")) {
+			field.put("type", "Email Address");
+		} else if (name.contains("FIRST_NAME") || name.contains("FIRSTNAME") || name.contains("GIVEN_NAME")) {
+			field.put("type", "First Name");
+		} else if (name.contains("LAST_NAME") || name.contains("LASTNAME") || name.contains("SURNAME")) {
+			field.put("type", "Last Name");
+		} else if (name.contains("COMPANY")) {
+			field.put("type", "Company Name");
+		} else if (name.equals("NAME") || name.contains("FULL_NAME")) {
+			field.put("type", "Full Name");
+		} else if (name.contains("PHONE")) {
+			field.put("type", "Phone");
+		} else if (name.contains("STREET") || name.contains("ADDRESS")) {
+			field.put("type", "Street Address");
+		} else if (name.contains("CITY")) {
+			field.put("type", "City");
+		} else if (name.contains("STATE") || name.contains("PROVINCE")) {
+			field.put("type", "State");
+		} else if (name.contains("COUNTRY")) {
+			field.put("type", "Country");
+		} else if (name.contains("POSTAL") || name.contains("ZIP")) {
+			field.put("type", "Postal Code");
+		} else if (name.contains("JOB_TITLE") || name.equals("TITLE")) {
+			field.put("type", "Job Title");
+		} else if (name.contains("DESCRIPTION") || name.contains("COMMENT") || name.contains("NOTE")) {
+			field.put("type", "Sentences");
+			field.put("min", 1).put("max", 3);
+		} else {
+			// Free text, sized to the column
+			int maxWords = length > 0 ? Math.max(1, Math.min(MAX_WORDS, length / CHARS_PER_WORD)) : 3;
+			field.put("type", "Words");
+			field.put("min", 1).put("max", maxWords);
+		}
+		return field;
+	}
+	
+	/**
+	 * Picks the surrogate key of a table: its primary key when it is declared on a single
+	 * column, else its first key-like column ({@code ID} or {@code *_ID}) that is not a
+	 * foreign key.
+	 *
+	 * @return The id of the column, or {@link SchemaIR#NOT_FOUND} if the table has none.
+	 */
+	private static int surrogateKey(SchemaIR schema, int table) {
+		if (schema.getPrimaryKeyColumnCount(table) > 0) {
+			return schema.getPrimaryKeyColumnCount(table) == 1 ? schema.getPrimaryKeyColumn(table, 0) : SchemaIR.NOT_FOUND;
+		}
+		for (int column = schema.getFirstColumn(table); column < schema.getColumnEnd(table); column++) {
+			if (!schema.isForeignKey(column) && isKeyName(schema.getColumnName(column).toUpperCase(Locale.ROOT))) {
+				return column;
+			}
+		}
+		return SchemaIR.NOT_FOUND;
+	}
+	
+	/**
+	 * @return The column of the referenced table matched by a column of a foreign key,
+	 *         or {@link SchemaIR#NOT_FOUND} if that table is not in the schema.
+	 */
+	private static int targetColumn(SchemaIR schema, int foreignKey, int column) {
+		for (int i = 0; i < schema.getForeignKeyColumnCount(foreignKey); i++) {
+			if (schema.getForeignKeySourceColumn(foreignKey, i) == column) {
+				return schema.getForeignKeyTargetColumn(foreignKey, i);
+			}
+		}
+		return SchemaIR.NOT_FOUND;
+	}
+	
+	/**
+	 * Picks the radix the row numbers of a key are written in, so that the largest one
+	 * fits the declared length of the column: decimal, or base 36 for a text column too
+	 * short for decimal. A key and the foreign keys that reference it get the same radix,
+	 * as it only depends on the key column and the number of rows of its table.
+	 *
+	 * @param kind The kind of the key column.
+	 * @param length The declared length of the key column, or -1 if it has none.
+	 * @param rows The number of rows of the table of the key.
+	 * @return 10 or 36, or 0 if the row numbers do not fit the column.
+	 */
+	static int keyRadix(ColumnKind kind, int length, long rows) {
+		if (length <= 0 || kind == ColumnKind.DATE || kind == ColumnKind.BOOLEAN || fits(rows, 10, length)) {
+			return 10;
+		}
+		return kind == ColumnKind.TEXT && fits(rows, 36, length) ? 36 : 0;
+	}
+	
+	private static boolean fits(long rows, int radix, int length) {
+		long capacity = 1;
+		for (int i = 0; i < length && capacity <= rows; i++) {
+			capacity *= radix;
+		}
+		return rows < capacity;
+	}
+	
+	private static boolean isKeyName(String name) {
+		return name.equals("ID") || name.endsWith("_ID");
+	}
+	
+	private static boolean isCode(int length) {
+		return length > 0 && length <= MAX_CODE_LENGTH;
+	}
+	
+	/**
+	 * Wraps a single table in a schema, to plan it on its own.
+	 */
+	private static Schema singleTable(Table table) {
+		Schema schema = new Schema(table.getName());
+		schema.addTable(table);
+		return schema;
+	}
+	
+	/**
+	 * Builds the export layout of a table from its column definitions.
+	 *
+	 * @param schema The schema of the table.
+	 * @param table The id of the table to describe.
+	 * @return The layout with the column names and inferred column kinds.
+	 */
+	private static TableLayout toLayout(SchemaIR schema, int table) {
+		int firstColumn = schema.getFirstColumn(table);
+		String[] names = new String[schema.getTableColumnCount(table)];
+		ColumnKind[] kinds = new ColumnKind[names.length];
+		for (int i = 0; i < names.length; i++) {
+			names[i] = schema.getColumnName(firstColumn + i);
+			kinds[i] = schema.getColumnKind(firstColumn + i);
+		}
+		return new TableLayout(schema.getTableName(table), names, kinds);
+	}
+}
@@ -0,0 +1,192 @@
+package com.smg.generation;
+
+import com.smg.fileio.ColumnKind;
+import com.smg.fileio.RowBatch;
+import com.smg.fileio.RowBatchConsumer;
+import com.smg.fileio.TableLayout;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+/**
+ * In-process generator of synthetic rows. It makes the columns a {@link GenerationPlan}
+ * keeps local, merging them into the rows received from Mockaroo, and whole rows when
+ * Mockaroo cannot deliver the data in time (its circuit is open, or a chunk still fails
+ * after the retries).
+ * <p>
+ * The values follow the Mockaroo types the schema generator asks for, so rows made
+ * locally fit next to the rows received from the API: words for text columns, numbers
+ * between 1 and 100 for numeric ones, and dates in the default Mockaroo format
+ * ({@code MM/dd/yyyy}). The data is less realistic, but it is produced at memory speed.
+ * Surrogate keys get the row number and foreign keys a row number of the referenced
+ * table, as the plan says, in the radix the plan picked for text keys.
+ * <p>
+ * The values only depend on the seed, the table and the position of the rows, so the
+ * same run produces the same fallback data.
+ */
+public class LocalRowGenerator {
+	
+	private static final String[] WORDS = {
+		"alpha", "amber", "anchor", "apple", "arrow", "atlas", "autumn", "breeze", "bridge", "canyon",
+		"cedar", "cloud", "comet", "coral", "crystal", "delta", "desert", "ember", "falcon", "forest",
+		"garden", "glacier", "harbor", "horizon", "island", "jade", "lagoon", "lantern", "maple", "meadow",
+		"mist", "north", "ocean", "orbit", "pebble", "pine", "prairie", "quartz", "river", "saddle",
+		"shadow", "silver", "spring", "stone", "summit", "thunder", "timber", "valley", "willow", "zephyr"
+	};
+	private static final int MAX_WORDS = 3;
+	private static final long MIN_NUMBER = 1;
+	private static final long MAX_NUMBER = 100;
+	private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("MM/dd/yyyy");
+	private static final long FIRST_DAY = LocalDate.of(2000, 1, 1).toEpochDay();
+	private static final long LAST_DAY = LocalDate.of(2030, 12, 31).toEpochDay();
+	
+	private final long seed;
+	
+	/**
+	 * @param seed The seed of the run; an empty or null seed is valid.
+	 */
+	public LocalRowGenerator(String seed) {
+		this.seed = seed == null ? 0 : seed.hashCode();
+	}
+	
+	/**
+	 * Generates a range of rows of a table and hands them to a consumer batch by batch.
+	 * The columns the plan sends to Mockaroo are generated locally as well.
+	 *
+	 * @param plan The generation plan of the table.
+	 * @param firstRow The position of the first row within the table.
+	 * @param rowCount The number of rows to generate.
+	 * @param batchCapacity The maximum number of rows per batch.
+	 * @param consumer The receiver of the row batches.
+	 * @return The number of rows generated.
+	 * @throws IOException if the consumer fails.
+	 */
+	public int generate(GenerationPlan plan, int firstRow, int rowCount, int batchCapacity, RowBatchConsumer consumer)
+		throws IOException {
+		TableLayout layout = plan.getLayout();
+		SplittableRandom random = randomFor(layout, firstRow);
+		RowBatch batch = new RowBatch(layout, batchCapacity);
+		for (int row = 0; row < rowCount; row++) {
+			Object[] values = new Object[layout.getColumnCount()];
+			fillLocalColumns(plan, values, firstRow + row + 1L, random, true);
+			batch.addRow(values);
+			if (batch.isFull()) {
+				consumer.accept(batch);
+				batch = new RowBatch(layout, batchCapacity);
+			}
+		}
+		if (!batch.isEmpty()) {
+			consumer.accept(batch);
+		}
+		return rowCount;
+	}
+	
+	/**
+	 * Wraps a consumer of full rows into a consumer of the rows returned by Mockaroo for
+	 * the remote columns of a plan. Each received row is completed with the local columns
+	 * and passed on in a batch of the full layout, in the order it was received.
+	 *
+	 * @param plan The generation plan of the table.
+	 * @param firstRow The position within the table of the first row that will be received.
+	 * @param consumer The receiver of the full rows.
+	 * @return The receiver of the Mockaroo rows.
+	 */
+	public RowBatchConsumer merging(GenerationPlan plan, int firstRow, RowBatchConsumer consumer) {
+		SplittableRandom random = randomFor(plan.getLayout(), firstRow);
+		long[] nextRowNumber = {firstRow + 1L};
+		return remoteBatch -> {
+			TableLayout layout = plan.getLayout();
+			RowBatch batch = new RowBatch(layout, Math.max(1, remoteBatch.size()));
+			for (int row = 0; row < remoteBatch.size(); row++) {
+				Object[] values = new Object[layout.getColumnCount()];
+				for (int remote = 0; remote < plan.getRemoteLayout().getColumnCount(); remote++) {
+					values[plan.getRemoteColumn(remote)] = remoteBatch.get(row, remote);
+				}
+				fillLocalColumns(plan, values, nextRowNumber[0]++, random, false);
+				batch.addRow(values);
+			}
+			consumer.accept(batch);
+		};
+	}
+	
+	private SplittableRandom randomFor(TableLayout layout, int firstRow) {
+		return new SplittableRandom(seed * 31 + layout.getTableName().hashCode() * 31L + firstRow);
+	}
+	
+	/**
+	 * Fills the values of the local columns of a row.
+	 *
+	 * @param rowNumber The 1-based position of the row within its table.
+	 * @param includeRemote Whether to also fill the columns the plan sends to Mockaroo.
+	 */
+	private void fillLocalColumns(GenerationPlan plan, Object[] values, long rowNumber, SplittableRandom random,
+								  boolean includeRemote) {
+		TableLayout layout = plan.getLayout();
+		for (int col = 0; col < values.length; col++) {
+			ColumnKind kind = layout.getColumnKind(col);
+			switch (plan.getSource(col)) {
+				case ROW_NUMBER:
+					values[col] = toKey(rowNumber, kind, plan.getKeyRadix(col), random);
+					break;
+				case REFERENCE:
+					long bound = plan.getBound(col);
+					values[col] = bound <= 0 ? null : toKey(random.nextLong(1, bound + 1), kind, plan.getKeyRadix(col), random);
+					break;
+				case CODE:
+					values[col] = nextCode((int) plan.getBound(col), random);
+					break;
+				case MOCKAROO:
+					if (includeRemote) {
+						values[col] = nextValue(kind, random);
+					}
+					break;
+				default:
+					values[col] = nextValue(kind, random);
+			}
+		}
+	}
+	
+	private Object toKey(long rowNumber, ColumnKind kind, int radix, SplittableRandom random) {
+		if (kind.isNumeric()) {
+			return rowNumber;
+		} else if (kind == ColumnKind.TEXT) {
+			return Long.toString(rowNumber, radix).toUpperCase(Locale.ROOT);
+		}
+		return nextValue(kind, random);
+	}
+	
+	private Object nextValue(ColumnKind kind, SplittableRandom random) {
+		switch (kind) {
+			case INTEGER:
+				return random.nextLong(MIN_NUMBER, MAX_NUMBER + 1);
+			case DECIMAL:
+				return random.nextLong(MIN_NUMBER * 100, MAX_NUMBER * 100 + 1) / 100.0;
+			case BOOLEAN:
+				return random.nextBoolean();
+			case DATE:
+				return LocalDate.ofEpochDay(random.nextLong(FIRST_DAY, LAST_DAY + 1)).format(DATE_FORMAT);
+			default:
+				return nextWords(random);
+		}
+	}
+	
+	private String nextCode(int length, SplittableRandom random) {
+		char[] code = new char[Math.max(1, length)];
+		for (int i = 0; i < code.length; i++) {
+			code[i] = (char) ('A' + random.nextInt(26));
+		}
+		return new String(code);
+	}
+	
+	private String nextWords(SplittableRandom random) {
+		int count = random.nextInt(1, MAX_WORDS + 1);
+		StringBuilder words = new StringBuilder(WORDS[random.nextInt(WORDS.length)]);
+		for (int i = 1; i < count; i++) {
+			words.append(' ').append(WORDS[random.nextInt(WORDS.length)]);
+		}
+		return words.toString();
+	}
+}
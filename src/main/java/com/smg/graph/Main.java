@@ -9,6 +9,8 @@ import com.smg.graph.domain.*;
  * This class demonstrates the use of breadth-first search (BFS)
  * to compute shortest paths, connected components, and the farthest
  * extremes (diameter) within subsets of selected nodes.
+ * The searches run on a {@link CsrGraph}, over node ids; the methods taking a
+ * {@link Graph} convert it first and map the ids back to nodes.
  * The sample {@code main} method shows how to build a disconnected graph,
  * select specific nodes, and compute paths through those nodes.
  */
@@ -80,25 +82,43 @@ public class Main {
 	 * @return the path as a list of nodes, or {@code null} if no path exists
 	 */
 	public static List<Node> findPathThroughSelected(Graph graph, Set<Node> extremes, Set<Node> selectedNodes) {
-		if (extremes.size() < 2) return new ArrayList<>(extremes);
+		CsrGraph csr = CsrGraph.of(graph);
+		return toNodes(csr, findPathThroughSelected(csr, toIds(csr, extremes), toIds(csr, selectedNodes)));
+	}
+	
+	/**
+	 * Finds a path between two extreme nodes, ensuring that all selected nodes
+	 * are included in the path if possible.
+	 *
+	 * @param graph    the input graph
+	 * @param extremes the ids of the extreme nodes (usually two nodes)
+	 * @param selected the ids of the nodes that must be included in the path
+	 * @return the ids of the nodes of the path, or {@code null} if no path exists
+	 */
+	public static int[] findPathThroughSelected(CsrGraph graph, int[] extremes, int[] selected) {
+		if (extremes.length < 2) return extremes.clone();
 		
-		Iterator<Node> it = extremes.iterator();
-		Node start = it.next();
-		Node end = it.next();
+		int start = extremes[0];
+		int end = extremes[1];
+		BfsScratch scratch = new BfsScratch(graph.getNodeCount());
 		
-		List<Node> path = bfsShortestPath(graph, start, end);
+		int[] path = bfsShortestPath(graph, start, end, scratch);
+		if (path == null) return null;
+		boolean[] onPath = new boolean[graph.getNodeCount()];
+		mark(onPath, path, true);
 		
-		for (Node sel : selectedNodes) {
-			assert path != null;
-			if (!path.contains(sel)) {
-				List<Node> extraPath1 = bfsShortestPath(graph, start, sel);
-				List<Node> extraPath2 = bfsShortestPath(graph, sel, end);
+		for (int sel : selected) {
+			if (!onPath[sel]) {
+				int[] extraPath1 = bfsShortestPath(graph, start, sel, scratch);
+				int[] extraPath2 = bfsShortestPath(graph, sel, end, scratch);
 				
 				if (extraPath1 != null && extraPath2 != null) {
 					// Merge two sub-paths to ensure 'sel' is included
-					List<Node> combined = new ArrayList<>(extraPath1);
-					combined.addAll(extraPath2.subList(1, extraPath2.size()));
+					int[] combined = Arrays.copyOf(extraPath1, extraPath1.length + extraPath2.length - 1);
+					System.arraycopy(extraPath2, 1, combined, extraPath1.length, extraPath2.length - 1);
+					mark(onPath, path, false);
 					path = combined;
+					mark(onPath, path, true);
 				}
 			}
 		}
@@ -106,6 +126,199 @@ public class Main {
 		return path;
 	}
 	
+	/**
+	 * Finds the nodes that keep the selected nodes connected: the selected nodes and the
+	 * fewest intermediate nodes that join them, within each connected component.
+	 *
+	 * @param graph         the input graph
+	 * @param selectedNodes nodes that must be connected
+	 * @return the nodes of the connecting subgraph, selected ones included
+	 * @see #findConnectingSubgraph(CsrGraph, int[])
+	 */
+	public static Set<Node> findConnectingSubgraph(Graph graph, Set<Node> selectedNodes) {
+		CsrGraph csr = CsrGraph.of(graph);
+		return new HashSet<>(toNodes(csr, findConnectingSubgraph(csr, toIds(csr, selectedNodes))));
+	}
+	
+	/**
+	 * Finds the nodes that keep the selected nodes connected: the selected nodes and the
+	 * fewest intermediate nodes that join them, within each connected component.
+	 * <p>
+	 * This is Mehlhorn's approximation of the Steiner tree, within twice the optimum:
+	 * <ol>
+	 *   <li>A BFS from all the selected nodes at once gives each node its nearest selected
+	 *       node, its distance and its parent toward it.</li>
+	 *   <li>Every edge between the regions of two selected nodes joins them by a path of
+	 *       the two distances plus one; the shortest of these edges are taken in order of
+	 *       length, skipping those between already joined nodes, as in Kruskal's algorithm.</li>
+	 *   <li>The paths of the taken edges are followed back to their selected nodes, then the
+	 *       intermediate nodes left as leaves of a spanning tree of the result are removed.</li>
+	 * </ol>
+	 * Every step is linear in the size of the graph, so schemas of tens of thousands of
+	 * tables are answered in milliseconds. Selected nodes in different components stay
+	 * apart, each component being connected on its own.
+	 *
+	 * @param graph    the input graph
+	 * @param selected the ids of the nodes that must be connected
+	 * @return the ids of the nodes of the connecting subgraph, selected ones included, in ascending order
+	 */
+	public static int[] findConnectingSubgraph(CsrGraph graph, int[] selected) {
+		int nodeCount = graph.getNodeCount();
+		int[] region = new int[nodeCount];
+		int[] dist = new int[nodeCount];
+		int[] parent = new int[nodeCount];
+		int[] queue = new int[nodeCount];
+		Arrays.fill(region, -1);
+		int head = 0;
+		int tail = 0;
+		
+		// 1. BFS from every selected node, regions are numbered by their selected node
+		int terminalCount = 0;
+		for (int node : selected) {
+			if (region[node] == -1) {
+				region[node] = terminalCount++;
+				dist[node] = 0;
+				parent[node] = -1;
+				queue[tail++] = node;
+			}
+		}
+		int[] terminals = Arrays.copyOf(queue, terminalCount);
+		while (head < tail) {
+			int curr = queue[head++];
+			for (int i = graph.getFirstNeighbor(curr); i < graph.getNeighborEnd(curr); i++) {
+				int neigh = graph.getNeighbor(i);
+				if (region[neigh] == -1) {
+					region[neigh] = region[curr];
+					dist[neigh] = dist[curr] + 1;
+					parent[neigh] = curr;
+					queue[tail++] = neigh;
+				}
+			}
+		}
+		
+		// 2. Edges between regions, bucketed by the length of the path they stand for
+		int[] bucketStart = new int[2 * nodeCount + 2];
+		int crossingCount = 0;
+		for (int u = 0; u < nodeCount; u++) {
+			if (region[u] == -1) continue;
+			for (int i = graph.getFirstNeighbor(u); i < graph.getNeighborEnd(u); i++) {
+				int v = graph.getNeighbor(i);
+				if (u < v && region[v] != region[u]) {
+					bucketStart[dist[u] + dist[v] + 2]++;
+					crossingCount++;
+				}
+			}
+		}
+		for (int length = 1; length < bucketStart.length; length++) {
+			bucketStart[length] += bucketStart[length - 1];
+		}
+		int[] crossingU = new int[crossingCount];
+		int[] crossingV = new int[crossingCount];
+		for (int u = 0; u < nodeCount; u++) {
+			if (region[u] == -1) continue;
+			for (int i = graph.getFirstNeighbor(u); i < graph.getNeighborEnd(u); i++) {
+				int v = graph.getNeighbor(i);
+				if (u < v && region[v] != region[u]) {
+					int at = bucketStart[dist[u] + dist[v] + 1]++;
+					crossingU[at] = u;
+					crossingV[at] = v;
+				}
+			}
+		}
+		
+		// Kruskal over the selected nodes, then the paths of the taken edges back to them
+		int[] joined = new int[terminalCount];
+		for (int t = 0; t < terminalCount; t++) {
+			joined[t] = t;
+		}
+		boolean[] inTree = new boolean[nodeCount];
+		for (int terminal : terminals) {
+			inTree[terminal] = true;
+		}
+		int components = terminalCount;
+		for (int e = 0; e < crossingCount && components > 1; e++) {
+			int a = find(joined, region[crossingU[e]]);
+			int b = find(joined, region[crossingV[e]]);
+			if (a != b) {
+				joined[a] = b;
+				components--;
+				markPathToTerminal(crossingU[e], parent, inTree);
+				markPathToTerminal(crossingV[e], parent, inTree);
+			}
+		}
+		
+		// 3. Remove the intermediate leaves of a spanning tree of the result
+		int[] treeParent = parent;
+		int[] degree = dist;
+		Arrays.fill(degree, 0);
+		boolean[] reached = new boolean[nodeCount];
+		head = 0;
+		tail = 0;
+		for (int terminal : terminals) {
+			if (reached[terminal]) continue;
+			reached[terminal] = true;
+			treeParent[terminal] = -1;
+			queue[tail++] = terminal;
+			while (head < tail) {
+				int curr = queue[head++];
+				for (int i = graph.getFirstNeighbor(curr); i < graph.getNeighborEnd(curr); i++) {
+					int neigh = graph.getNeighbor(i);
+					if (inTree[neigh] && !reached[neigh]) {
+						reached[neigh] = true;
+						treeParent[neigh] = curr;
+						degree[curr]++;
+						degree[neigh]++;
+						queue[tail++] = neigh;
+					}
+				}
+			}
+		}
+		boolean[] isTerminal = new boolean[nodeCount];
+		for (int terminal : terminals) {
+			isTerminal[terminal] = true;
+		}
+		int leafCount = 0;
+		for (int i = 0; i < tail; i++) {
+			int node = queue[i];
+			if (!isTerminal[node] && degree[node] <= 1) {
+				queue[leafCount++] = node;
+			}
+		}
+		for (int i = 0; i < leafCount; i++) {
+			int leaf = queue[i];
+			inTree[leaf] = false;
+			int up = treeParent[leaf];
+			if (up != -1 && --degree[up] == 1 && !isTerminal[up]) {
+				queue[leafCount++] = up;
+			}
+		}
+		
+		int size = 0;
+		for (int node = 0; node < nodeCount; node++) {
+			if (inTree[node]) size++;
+		}
+		int[] subgraph = new int[size];
+		for (int node = 0, i = 0; node < nodeCount; node++) {
+			if (inTree[node]) subgraph[i++] = node;
+		}
+		return subgraph;
+	}
+	
+	private static void markPathToTerminal(int node, int[] parent, boolean[] inTree) {
+		for (int at = node; at != -1 && !inTree[at]; at = parent[at]) {
+			inTree[at] = true;
+		}
+	}
+	
+	/** Finds the representative of a set of joined selected nodes, halving the path to it **/
+	private static int find(int[] joined, int t) {
+		while (joined[t] != t) {
+			joined[t] = joined[joined[t]];
+			t = joined[t];
+		}
+		return t;
+	}
+	
 	/**
 	 * Computes the shortest path between two nodes using BFS.
 	 *
@@ -115,33 +328,60 @@ public class Main {
 	 * @return the shortest path as a list of nodes, or {@code null} if no path exists
 	 */
 	public static List<Node> bfsShortestPath(Graph graph, Node start, Node end) {
-		Map<Node, Node> parent = new HashMap<>();
-		Queue<Node> queue = new LinkedList<>();
-		Set<Node> visited = new HashSet<>();
+		CsrGraph csr = CsrGraph.of(graph);
+		int from = csr.findNode(start.getName());
+		int to = csr.findNode(end.getName());
+		if (from == CsrGraph.NOT_FOUND || to == CsrGraph.NOT_FOUND) {
+			return start.equals(end) ? new ArrayList<>(List.of(start)) : null;
+		}
+		return toNodes(csr, bfsShortestPath(csr, from, to));
+	}
+	
+	/**
+	 * Computes the shortest path between two nodes using BFS.
+	 *
+	 * @param graph the input graph
+	 * @param start the id of the starting node
+	 * @param end   the id of the target node
+	 * @return the ids of the nodes of the shortest path, or {@code null} if no path exists
+	 */
+	public static int[] bfsShortestPath(CsrGraph graph, int start, int end) {
+		return bfsShortestPath(graph, start, end, new BfsScratch(graph.getNodeCount()));
+	}
+	
+	private static int[] bfsShortestPath(CsrGraph graph, int start, int end, BfsScratch scratch) {
+		int[] dist = scratch.dist;
+		int[] parent = scratch.parent;
+		int[] queue = scratch.queue;
+		int head = 0;
+		int tail = 0;
 		
-		queue.add(start);
-		visited.add(start);
-		parent.put(start, null);
+		queue[tail++] = start;
+		dist[start] = 0;
+		parent[start] = -1;
 		
-		while (!queue.isEmpty()) {
-			Node curr = queue.poll();
-			if (curr.equals(end)) {
+		int[] path = null;
+		while (head < tail) {
+			int curr = queue[head++];
+			if (curr == end) {
 				// Reconstruct path from end to start
-				List<Node> path = new LinkedList<>();
-				for (Node at = end; at != null; at = parent.get(at)) {
-					path.add(0, at);
+				path = new int[dist[end] + 1];
+				for (int at = end, i = path.length - 1; at != -1; at = parent[at], i--) {
+					path[i] = at;
 				}
-				return path;
+				break;
 			}
-			for (Node neigh : graph.getAdjacencyList().getOrDefault(curr, List.of())) {
-				if (!visited.contains(neigh)) {
-					visited.add(neigh);
-					parent.put(neigh, curr);
-					queue.add(neigh);
+			for (int i = graph.getFirstNeighbor(curr); i < graph.getNeighborEnd(curr); i++) {
+				int neigh = graph.getNeighbor(i);
+				if (dist[neigh] < 0) {
+					dist[neigh] = dist[curr] + 1;
+					parent[neigh] = curr;
+					queue[tail++] = neigh;
 				}
 			}
 		}
-		return null;
+		scratch.reset(tail);
+		return path;
 	}
 	
 	/**
@@ -154,40 +394,84 @@ public class Main {
 	 *         for a connected component
 	 */
 	public static List<Set<Node>> findFarthestExtremesByComponent(Graph graph, Set<Node> selectedNodes) {
+		CsrGraph csr = CsrGraph.of(graph);
 		List<Set<Node>> result = new ArrayList<>();
-		Set<Node> visited = new HashSet<>();
-		Map<Node, List<Node>> adj = graph.getAdjacencyList();
+		for (int[] extremes : findFarthestExtremesByComponent(csr, toIds(csr, selectedNodes))) {
+			result.add(new HashSet<>(toNodes(csr, extremes)));
+		}
+		return result;
+	}
+	
+	/**
+	 * Identifies the farthest extremes within each connected component
+	 * that contains selected nodes.
+	 * <p>
+	 * The components are labeled by a single union-find pass over the edges, and the
+	 * extremes of all the components share one {@link MultiSourceBfs}.
+	 *
+	 * @param graph    the input graph
+	 * @param selected the ids of the nodes of interest
+	 * @return the ids of the one or two extreme nodes of each connected component,
+	 *         in the order the components are first selected
+	 */
+	public static List<int[]> findFarthestExtremesByComponent(CsrGraph graph, int[] selected) {
+		int[] component = connectedComponents(graph);
 		
-		for (Node start : selectedNodes) {
-			if (!visited.contains(start)) {
-				Set<Node> component = new HashSet<>();
-				Queue<Node> queue = new LinkedList<>();
-				queue.add(start);
-				visited.add(start);
-				
-				// BFS to gather connected component
-				while (!queue.isEmpty()) {
-					Node curr = queue.poll();
-					if (selectedNodes.contains(curr)) {
-						component.add(curr);
-					}
-					for (Node neigh : adj.getOrDefault(curr, List.of())) {
-						if (!visited.contains(neigh)) {
-							visited.add(neigh);
-							queue.add(neigh);
-						}
+		// Selected nodes grouped by component, in selection order
+		int[] groupOf = new int[graph.getNodeCount()];
+		Arrays.fill(groupOf, -1);
+		boolean[] taken = new boolean[graph.getNodeCount()];
+		List<int[]> groups = new ArrayList<>();
+		int[] groupSizes = new int[selected.length];
+		for (int node : selected) {
+			if (taken[node]) continue;
+			taken[node] = true;
+			int label = component[node];
+			if (groupOf[label] == -1) {
+				groupOf[label] = groups.size();
+				groups.add(new int[selected.length]);
+			}
+			int group = groupOf[label];
+			groups.get(group)[groupSizes[group]++] = node;
+		}
+		
+		List<int[]> result = new ArrayList<>();
+		MultiSourceBfs bfs = new MultiSourceBfs(graph);
+		for (int group = 0; group < groups.size(); group++) {
+			int[] members = Arrays.copyOf(groups.get(group), groupSizes[group]);
+			result.add(members.length == 1 ? members : findFarthestExtremes(bfs, members));
+		}
+		return result;
+	}
+	
+	/**
+	 * Labels the connected components of a graph by union-find over its edges.
+	 *
+	 * @param graph the input graph
+	 * @return for each node, the id of a node of its component, the same for the whole component
+	 */
+	public static int[] connectedComponents(CsrGraph graph) {
+		int[] root = new int[graph.getNodeCount()];
+		for (int node = 0; node < root.length; node++) {
+			root[node] = node;
+		}
+		for (int node = 0; node < root.length; node++) {
+			for (int i = graph.getFirstNeighbor(node); i < graph.getNeighborEnd(node); i++) {
+				int neighbor = graph.getNeighbor(i);
+				if (node < neighbor) {
+					int a = find(root, node);
+					int b = find(root, neighbor);
+					if (a != b) {
+						// The larger id as root keeps the trees shallow when nodes are met in order
+						root[Math.min(a, b)] = Math.max(a, b);
 					}
 				}
-				
-				// For each component, identify extreme nodes
-				if (component.size() == 1) {
-					result.add(component);
-				} else if (!component.isEmpty()) {
-					result.add(findFarthestExtremes(graph, component));
-				}
 			}
 		}
-		return result;
+		for (int node = 0; node < root.length; node++) {
+			root[node] = find(root, node);
+		}
+		return root;
 	}
 	
 	/**
@@ -198,47 +482,40 @@ public class Main {
 	 * @return a set containing the two farthest nodes, or empty if none found
 	 */
 	public static Set<Node> findFarthestExtremes(Graph graph, Set<Node> selectedNodes) {
-		Map<Node, List<Node>> adj = graph.getAdjacencyList();
-		Node farthestA = null;
-		Node farthestB = null;
-		int maxDistance = -1;
-		
-		for (Node start : selectedNodes) {
-			Map<Node, Integer> dist = new HashMap<>();
-			Queue<Node> queue = new LinkedList<>();
-			dist.put(start, 0);
-			queue.add(start);
-			
-			// BFS from 'start'
-			while (!queue.isEmpty()) {
-				Node curr = queue.poll();
-				for (Node neigh : adj.getOrDefault(curr, List.of())) {
-					if (!dist.containsKey(neigh)) {
-						dist.put(neigh, dist.get(curr) + 1);
-						queue.add(neigh);
-					}
-				}
-			}
-			
-			// Update farthest pair if needed
-			for (Node target : selectedNodes) {
-				if (!target.equals(start) && dist.containsKey(target)) {
-					int d = dist.get(target);
-					if (d > maxDistance) {
-						maxDistance = d;
-						farthestA = start;
-						farthestB = target;
-					}
-				}
+		CsrGraph csr = CsrGraph.of(graph);
+		return new HashSet<>(toNodes(csr, findFarthestExtremes(csr, toIds(csr, selectedNodes))));
+	}
+	
+	/**
+	 * Finds the two farthest nodes (in terms of BFS distance) among the selected nodes.
+	 * Of several pairs at the same distance, the first in selection order is returned.
+	 *
+	 * @param graph    the input graph
+	 * @param selected the ids of the nodes to analyze
+	 * @return the ids of the two farthest nodes, or an empty array if none found
+	 */
+	public static int[] findFarthestExtremes(CsrGraph graph, int[] selected) {
+		return findFarthestExtremes(new MultiSourceBfs(graph), selected);
+	}
+	
+	/**
+	 * Finds the two farthest selected nodes with a BFS from all of them at once, 64 per word.
+	 */
+	private static int[] findFarthestExtremes(MultiSourceBfs bfs, int[] selected) {
+		// The farthest pair: distance, then positions of both nodes in the selection
+		int[] best = {-1, -1, -1};
+		bfs.run(selected, selected, (target, firstSource, sources, distance) -> {
+			// A node is not its own extreme
+			if (distance == 0) return;
+			int source = firstSource + Long.numberOfTrailingZeros(sources);
+			if (distance > best[0] || distance == best[0]
+				&& (source < best[1] || source == best[1] && target < best[2])) {
+				best[0] = distance;
+				best[1] = source;
+				best[2] = target;
 			}
-		}
-		
-		Set<Node> extremes = new HashSet<>();
-		if (farthestA != null) {
-			extremes.add(farthestA);
-			extremes.add(farthestB);
-		}
-		return extremes;
+		});
+		return best[0] == -1 ? new int[0] : new int[]{selected[best[1]], selected[best[2]]};
 	}
 	
 	/**
@@ -248,20 +525,74 @@ public class Main {
 	 * @param args program arguments (not used)
 	 */
 	public static void main(String[] args) {
-		Graph graph = buildDisconnectedGraph();
+		CsrGraph graph = CsrGraph.of(buildDisconnectedGraph());
+		
+		int r = graph.findNode("R");
+		int l = graph.findNode("L");
+		int e = graph.findNode("E");
+		int jh = graph.findNode("JH");
 		
-		Node r = graph.getNodeByName("R");
-		Node l = graph.getNodeByName("L");
-		Node e = graph.getNodeByName("E");
-		Node jh = graph.getNodeByName("JH");
+		int[] selected = {r, l, e, jh};
 		
-		Set<Node> selected = Set.of(r, l, e, jh);
+		List<int[]> extremesByComponent = findFarthestExtremesByComponent(graph, selected);
 		
-		List<Set<Node>> extremesByComponent = findFarthestExtremesByComponent(graph, selected);
+		for (int[] extremes : extremesByComponent) {
+			int[] pathComponent = findPathThroughSelected(graph, extremes, selected);
+			for (int node : pathComponent) {
+				System.out.print(graph.getName(node) + " ");
+			}
+		}
+		System.out.println();
 		
-		for (Set<Node> extremes : extremesByComponent) {
-			List<Node> pathComponent = findPathThroughSelected(graph, extremes, selected);
-			pathComponent.forEach(node -> System.out.print(node.getName() + " "));
+		for (int node : findConnectingSubgraph(graph, selected)) {
+			System.out.print(graph.getName(node) + " ");
+		}
+	}
+	
+	private static int[] toIds(CsrGraph graph, Collection<Node> nodes) {
+		return nodes.stream()
+			.mapToInt(node -> graph.findNode(node.getName()))
+			.filter(id -> id != CsrGraph.NOT_FOUND)
+			.toArray();
+	}
+	
+	private static List<Node> toNodes(CsrGraph graph, int[] ids) {
+		if (ids == null) return null;
+		List<Node> nodes = new ArrayList<>(ids.length);
+		for (int id : ids) {
+			nodes.add(new Node(graph.getName(id)));
+		}
+		return nodes;
+	}
+	
+	private static void mark(boolean[] marks, int[] nodes, boolean value) {
+		for (int node : nodes) {
+			marks[node] = value;
+		}
+	}
+	
+	/**
+	 * Arrays of a BFS, reused between the searches of a call. Only the entries of the
+	 * visited nodes are reset after a search, so a search costs what it visits.
+	 */
+	private static final class BfsScratch {
+		
+		private final int[] dist;
+		private final int[] parent;
+		private final int[] queue;
+		
+		private BfsScratch(int nodeCount) {
+			this.dist = new int[nodeCount];
+			this.parent = new int[nodeCount];
+			this.queue = new int[nodeCount];
+			Arrays.fill(dist, -1);
+		}
+		
+		/** Clears the distances of the first {@code visited} nodes of the queue **/
+		private void reset(int visited) {
+			for (int i = 0; i < visited; i++) {
+				dist[queue[i]] = -1;
+			}
 		}
 	}
 }
@@ -0,0 +1,173 @@
+package com.smg.graph;
+
+import com.smg.graph.domain.CsrGraph;
+
+import java.util.Arrays;
+
+/**
+ * Breadth-first search from many sources at once over a {@link CsrGraph}, 64 sources
+ * per machine word.
+ * <p>
+ * Sources are taken in batches of 64, each given a bit of a {@code long}. Every node
+ * keeps the bits of the sources that have reached it and of those that reached it at
+ * the last level, and a level is advanced by or-ing the frontier bits of each node into
+ * its neighbors. A batch walks the graph once instead of once per source, so the
+ * distances from {@code k} sources cost about {@code k / 64} searches. The arrays are
+ * allocated once per instance and only the entries of the reached nodes are reset, so an
+ * instance can be reused for many small searches, as for the components of a selection.
+ * An instance is not thread-safe.
+ */
+public class MultiSourceBfs {
+	
+	/**
+	 * Receives the targets as they are reached.
+	 */
+	@FunctionalInterface
+	public interface Visitor {
+		
+		/**
+		 * @param target      the position of the target in the targets of the search
+		 * @param firstSource the position, in the sources of the search, of the source of bit 0 of {@code sources}
+		 * @param sources     the bits of the sources of the batch that reach the target at this distance
+		 * @param distance    the distance from these sources to the target
+		 */
+		void reached(int target, int firstSource, long sources, int distance);
+	}
+	
+	private final CsrGraph graph;
+	private final long[] seen;
+	private final long[] frontier;
+	private final long[] next;
+	private final int[] targetIndex;
+	private final int[] active;
+	private final int[] nextActive;
+	private final int[] reached;
+	
+	public MultiSourceBfs(CsrGraph graph) {
+		int nodeCount = graph.getNodeCount();
+		this.graph = graph;
+		this.seen = new long[nodeCount];
+		this.frontier = new long[nodeCount];
+		this.next = new long[nodeCount];
+		this.targetIndex = new int[nodeCount];
+		this.active = new int[nodeCount];
+		this.nextActive = new int[nodeCount];
+		this.reached = new int[nodeCount];
+		Arrays.fill(targetIndex, -1);
+	}
+	
+	/**
+	 * Searches from every source and reports every target each source reaches, with its
+	 * distance. A target is reported once per batch and distance, in increasing distance,
+	 * sources included at distance 0.
+	 *
+	 * @param sources the ids of the source nodes
+	 * @param targets the ids of the target nodes; a node given twice is reported at its first position
+	 * @param visitor receives the reached targets
+	 */
+	public void run(int[] sources, int[] targets, Visitor visitor) {
+		for (int i = targets.length - 1; i >= 0; i--) {
+			targetIndex[targets[i]] = i;
+		}
+		try {
+			for (int first = 0; first < sources.length; first += Long.SIZE) {
+				runBatch(sources, first, Math.min(sources.length, first + Long.SIZE), visitor);
+			}
+		} finally {
+			for (int target : targets) {
+				targetIndex[target] = -1;
+			}
+		}
+	}
+	
+	/**
+	 * Computes the eccentricity of every source within the targets: its distance to the
+	 * farthest target it reaches.
+	 *
+	 * @param sources the ids of the source nodes
+	 * @param targets the ids of the target nodes
+	 * @return the eccentricity of each source, or -1 if it reaches no target
+	 */
+	public int[] eccentricities(int[] sources, int[] targets) {
+		int[] eccentricities = new int[sources.length];
+		Arrays.fill(eccentricities, -1);
+		// Targets are reached in increasing distance, so the last distance is the farthest
+		run(sources, targets, (target, firstSource, bits, distance) -> {
+			for (long remaining = bits; remaining != 0; remaining &= remaining - 1) {
+				eccentricities[firstSource + Long.numberOfTrailingZeros(remaining)] = distance;
+			}
+		});
+		return eccentricities;
+	}
+	
+	private void runBatch(int[] sources, int first, int end, Visitor visitor) {
+		int[] current = active;
+		int[] upcoming = nextActive;
+		int activeCount = 0;
+		int reachedCount = 0;
+		for (int i = first; i < end; i++) {
+			int source = sources[i];
+			if (seen[source] == 0) {
+				current[activeCount++] = source;
+				reached[reachedCount++] = source;
+			}
+			long bit = 1L << (i - first);
+			seen[source] |= bit;
+			frontier[source] |= bit;
+		}
+		for (int i = 0; i < activeCount; i++) {
+			int source = current[i];
+			if (targetIndex[source] != -1) {
+				visitor.reached(targetIndex[source], first, frontier[source], 0);
+			}
+		}
+		
+		int distance = 0;
+		while (activeCount > 0) {
+			distance++;
+			
+			// Push the frontier of every active node to its neighbors, keeping only the new bits
+			int nextCount = 0;
+			for (int i = 0; i < activeCount; i++) {
+				int node = current[i];
+				long bits = frontier[node];
+				for (int e = graph.getFirstNeighbor(node); e < graph.getNeighborEnd(node); e++) {
+					int neighbor = graph.getNeighbor(e);
+					long fresh = bits & ~seen[neighbor];
+					if (fresh != 0) {
+						if (next[neighbor] == 0) {
+							upcoming[nextCount++] = neighbor;
+						}
+						next[neighbor] |= fresh;
+					}
+				}
+			}
+			for (int i = 0; i < activeCount; i++) {
+				frontier[current[i]] = 0;
+			}
+			
+			// The nodes reached at this level are the next active ones, with the bits that reached them
+			for (int i = 0; i < nextCount; i++) {
+				int node = upcoming[i];
+				long bits = next[node];
+				next[node] = 0;
+				if (seen[node] == 0) {
+					reached[reachedCount++] = node;
+				}
+				seen[node] |= bits;
+				frontier[node] = bits;
+				if (targetIndex[node] != -1) {
+					visitor.reached(targetIndex[node], first, bits, distance);
+				}
+			}
+			int[] swap = current;
+			current = upcoming;
+			upcoming = swap;
+			activeCount = nextCount;
+		}
+		
+		for (int i = 0; i < reachedCount; i++) {
+			seen[reached[i]] = 0;
+		}
+	}
+}
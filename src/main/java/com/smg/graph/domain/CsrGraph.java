@@ -0,0 +1,245 @@
+package com.smg.graph.domain;
+
+import com.smg.schemas.ir.SchemaIR;
+import com.smg.sqlparser.domain.sql.SymbolTable;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable undirected graph of the tables of a schema, joined by their foreign keys,
+ * in compressed sparse row (CSR) form.
+ * <p>
+ * Nodes are numbered from 0. The neighbors of node {@code n} are the entries
+ * {@link #getFirstNeighbor(int) getFirstNeighbor(n)} to {@link #getNeighborEnd(int) getNeighborEnd(n)}
+ * (excluded) of a single {@code int} array, in the order their edges were added, each
+ * listed once whatever the number of foreign keys between the two tables. A graph of
+ * {@code V} tables and {@code E} foreign keys takes {@code V + 1 + 2E} ints instead of a
+ * map entry, a list and a node object per table and a reference per edge, and is walked
+ * without hashing a name. It is built once by a {@link Builder}, from a schema with
+ * {@link #of(SchemaIR)} or from a {@link Graph} with {@link #of(Graph)}.
+ */
+public final class CsrGraph {
+	
+	/** Returned for a name that is not in the graph **/
+	public static final int NOT_FOUND = SymbolTable.NOT_FOUND;
+	
+	private final String[] names;
+	private final SymbolTable symbols;
+	private final int[] nodeBySymbol;
+	private final int[] neighborStart;
+	private final int[] neighbors;
+	
+	private CsrGraph(String[] names, SymbolTable symbols, int[] nodeBySymbol, int[] neighborStart, int[] neighbors) {
+		this.names = names;
+		this.symbols = symbols;
+		this.nodeBySymbol = nodeBySymbol;
+		this.neighborStart = neighborStart;
+		this.neighbors = neighbors;
+	}
+	
+	/**
+	 * Builds the graph of a schema: a node per table, with the id of the table, and an
+	 * edge per resolved foreign key between two different tables. Tables whose names
+	 * differ only in case or quotes stay separate nodes, as they are separate tables of
+	 * the schema.
+	 */
+	public static CsrGraph of(SchemaIR schema) {
+		Builder builder = new Builder(schema.getTableCount(), schema.getForeignKeyCount());
+		for (int table = 0; table < schema.getTableCount(); table++) {
+			builder.newNode(schema.getTableName(table));
+		}
+		for (int fk = 0; fk < schema.getForeignKeyCount(); fk++) {
+			int target = schema.getForeignKeyTargetTable(fk);
+			if (target != SchemaIR.NOT_FOUND) {
+				builder.edge(schema.getForeignKeySourceTable(fk), target);
+			}
+		}
+		return builder.build();
+	}
+	
+	/**
+	 * Builds the graph of an adjacency list, numbering its nodes in iteration order.
+	 */
+	public static CsrGraph of(Graph graph) {
+		Map<Node, List<Node>> adjacencyList = graph.getAdjacencyList();
+		Builder builder = new Builder(adjacencyList.size(), adjacencyList.size());
+		adjacencyList.keySet().forEach(node -> builder.node(node.getName()));
+		adjacencyList.forEach((node, neighbors) -> {
+			int from = builder.node(node.getName());
+			neighbors.forEach(neighbor -> builder.edge(from, builder.node(neighbor.getName())));
+		});
+		return builder.build();
+	}
+	
+	public int getNodeCount() {
+		return names.length;
+	}
+	
+	/**
+	 * @return The number of edges, each counted once.
+	 */
+	public int getEdgeCount() {
+		return neighbors.length / 2;
+	}
+	
+	/**
+	 * @return The id of a node by name, compared without case and quotes, or {@link #NOT_FOUND}.
+	 *         Of nodes whose names differ only in case or quotes, the first one is found.
+	 */
+	public int findNode(String name) {
+		int symbol = symbols.find(name);
+		return symbol == NOT_FOUND ? NOT_FOUND : nodeBySymbol[symbol];
+	}
+	
+	/**
+	 * @return The name of a node, as it was added.
+	 */
+	public String getName(int node) {
+		return names[node];
+	}
+	
+	public int getDegree(int node) {
+		return neighborStart[node + 1] - neighborStart[node];
+	}
+	
+	public int getFirstNeighbor(int node) {
+		return neighborStart[node];
+	}
+	
+	public int getNeighborEnd(int node) {
+		return neighborStart[node + 1];
+	}
+	
+	/**
+	 * @param index An index from {@link #getFirstNeighbor(int)} to {@link #getNeighborEnd(int)}, excluded.
+	 * @return The id of the neighbor.
+	 */
+	public int getNeighbor(int index) {
+		return neighbors[index];
+	}
+	
+	/**
+	 * Builds a {@link CsrGraph}. Nodes get their ids in the order they are added, edges
+	 * are buffered as pairs and laid out in rows by a counting sort when the graph is built.
+	 * The graph shares the names of the builder, so a builder builds a single graph.
+	 */
+	public static final class Builder {
+		
+		private final SymbolTable symbols = new SymbolTable();
+		private String[] names;
+		private int[] nodeBySymbol;
+		private int nodeCount;
+		private int[] edges;
+		private int edgeCount;
+		
+		public Builder() {
+			this(16, 16);
+		}
+		
+		/**
+		 * @param expectedNodes The number of nodes the graph is expected to have.
+		 * @param expectedEdges The number of edges the graph is expected to have.
+		 */
+		public Builder(int expectedNodes, int expectedEdges) {
+			this.names = new String[Math.max(expectedNodes, 1)];
+			this.nodeBySymbol = new int[names.length];
+			this.edges = new int[2 * Math.max(expectedEdges, 1)];
+		}
+		
+		/**
+		 * Adds a node, or finds it if a node of the same name was added.
+		 *
+		 * @return The id of the node.
+		 */
+		public int node(String name) {
+			return add(name, true);
+		}
+		
+		/**
+		 * Adds a node, even if a node of the same name was added. The name finds the
+		 * first of them.
+		 *
+		 * @return The id of the node.
+		 */
+		private int newNode(String name) {
+			return add(name, false);
+		}
+		
+		private int add(String name, boolean merge) {
+			int symbolCount = symbols.size();
+			int symbol = symbols.intern(name);
+			boolean added = symbol == symbolCount;
+			if (!added && merge) {
+				return nodeBySymbol[symbol];
+			}
+			if (nodeCount == names.length) {
+				names = Arrays.copyOf(names, names.length * 2);
+				nodeBySymbol = Arrays.copyOf(nodeBySymbol, names.length);
+			}
+			if (added) {
+				nodeBySymbol[symbol] = nodeCount;
+			}
+			names[nodeCount] = name;
+			return nodeCount++;
+		}
+		
+		/**
+		 * Adds an undirected edge. Loops are left out, and repeated edges kept once.
+		 */
+		public Builder edge(int from, int to) {
+			if (from == to) return this;
+			if (edgeCount * 2 == edges.length) {
+				edges = Arrays.copyOf(edges, edges.length * 2);
+			}
+			edges[edgeCount * 2] = from;
+			edges[edgeCount * 2 + 1] = to;
+			edgeCount++;
+			return this;
+		}
+		
+		public Builder edge(String from, String to) {
+			return edge(node(from), node(to));
+		}
+		
+		public CsrGraph build() {
+			int[] start = new int[nodeCount + 1];
+			for (int i = 0; i < edgeCount * 2; i++) {
+				start[edges[i] + 1]++;
+			}
+			for (int node = 0; node < nodeCount; node++) {
+				start[node + 1] += start[node];
+			}
+			
+			// Both ends of every edge, in the order the edges were added
+			int[] next = Arrays.copyOf(start, nodeCount);
+			int[] rows = new int[edgeCount * 2];
+			for (int i = 0; i < edgeCount; i++) {
+				int from = edges[i * 2];
+				int to = edges[i * 2 + 1];
+				rows[next[from]++] = to;
+				rows[next[to]++] = from;
+			}
+			
+			// Keep the first of repeated neighbors, marking each neighbor with the row it was last seen in
+			int[] seenIn = new int[nodeCount];
+			Arrays.fill(seenIn, -1);
+			int[] compactStart = new int[nodeCount + 1];
+			int size = 0;
+			for (int node = 0; node < nodeCount; node++) {
+				compactStart[node] = size;
+				for (int i = start[node]; i < start[node + 1]; i++) {
+					int neighbor = rows[i];
+					if (seenIn[neighbor] != node) {
+						seenIn[neighbor] = node;
+						rows[size++] = neighbor;
+					}
+				}
+			}
+			compactStart[nodeCount] = size;
+			
+			return new CsrGraph(Arrays.copyOf(names, nodeCount), symbols, Arrays.copyOf(nodeBySymbol, symbols.size()), compactStart, Arrays.copyOf(rows, size));
+		}
+	}
+}
@@ -16,6 +16,10 @@ public class SummaryLogger {
 	private final List<String> generatedFiles = new ArrayList<>();
 	private final List<String> failedFiles = new ArrayList<>();
 	private long totalBytesGenerated = 0;
+	private final List<String> transfers = new ArrayList<>();
+	private final List<String> caches = new ArrayList<>();
+	private final List<String> tableSources = new ArrayList<>();
+	private final List<String> schemaLoads = new ArrayList<>();
 	
 	/**
 	 * Logs a general summary message at the end of the process.
@@ -34,6 +38,18 @@ public class SummaryLogger {
 			LOGGER.info("- {}", file);
 		}
 		LOGGER.info("Total data size generated: {} bytes", totalBytesGenerated);
+		for (String transfer : transfers) {
+			LOGGER.info("Data received: {}", transfer);
+		}
+		for (String cache : caches) {
+			LOGGER.info("Cache: {}", cache);
+		}
+		for (String schemaLoad : schemaLoads) {
+			LOGGER.info("Schema: {}", schemaLoad);
+		}
+		for (String tableSource : tableSources) {
+			LOGGER.info("Table data: {}", tableSource);
+		}
 		LOGGER.info("-----------------------------");
 	}
 	
@@ -57,4 +73,46 @@ public class SummaryLogger {
 	public void logFailedFile(String fileName, String reason) {
 		this.failedFiles.add(fileName + " (Reason: " + reason + ")");
 	}
-}
\ No newline at end of file
+	
+	/**
+	 * Records the amount of data received from a remote source.
+	 *
+	 * @param source The source and how the data was transferred (e.g. format and compression).
+	 * @param bytesOnWire The number of bytes received on the wire.
+	 * @param bytesDecoded The number of bytes after decompression.
+	 */
+	public void logTransfer(String source, long bytesOnWire, long bytesDecoded) {
+		this.transfers.add(source + ": " + bytesOnWire + " bytes on the wire (" + bytesDecoded + " bytes decoded)");
+	}
+	
+	/**
+	 * Records the use of a cache.
+	 *
+	 * @param cache The name of the cache.
+	 * @param hits The number of lookups served from the cache.
+	 * @param misses The number of lookups not found in the cache.
+	 */
+	public void logCacheStats(String cache, long hits, long misses) {
+		this.caches.add(cache + ": " + hits + " hits, " + misses + " misses");
+	}
+	
+	/**
+	 * Records where the data of a table came from.
+	 *
+	 * @param table The name of the table.
+	 * @param source The generator(s) of its rows (e.g. "Mockaroo", or a split between Mockaroo and the local generator).
+	 */
+	public void logTableSource(String table, String source) {
+		this.tableSources.add(table + ": " + source);
+	}
+	
+	/**
+	 * Records how a schema was loaded.
+	 *
+	 * @param schema The name of the schema.
+	 * @param how How it was loaded and how long it took (e.g. "parsed in 85.2 ms").
+	 */
+	public void logSchemaLoad(String schema, String how) {
+		this.schemaLoads.add(schema + ": " + how);
+	}
+}
@@ -0,0 +1,131 @@
+package com.smg.mockaroo;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+
+/**
+ * Circuit breaker guarding the Mockaroo calls.
+ * <p>
+ * While closed, every call is allowed. After {@code failureThreshold} consecutive failed
+ * calls (errors that point at the service: network errors, timeouts, throttling, server
+ * errors, and calls slower than the latency budget) the circuit opens and calls are
+ * rejected at once instead of waiting for more timeouts. Once the open duration has
+ * elapsed a single trial call is let through (half open): its success closes the
+ * circuit, its failure opens it again.
+ */
+public class CircuitBreaker {
+	
+	private static final Logger LOGGER = LoggerFactory.getLogger(CircuitBreaker.class);
+	
+	/**
+	 * The states of the circuit.
+	 */
+	public enum State {
+		CLOSED,
+		OPEN,
+		HALF_OPEN
+	}
+	
+	private final int failureThreshold;
+	private final long openNanos;
+	private final long latencyBudgetNanos;
+	private State state = State.CLOSED;
+	private int consecutiveFailures;
+	private long openedAtNanos;
+	private boolean trialInFlight;
+	
+	/**
+	 * @param failureThreshold The number of consecutive failures that opens the circuit (0 or less to never open it).
+	 * @param openDuration How long the circuit stays open before a trial call.
+	 * @param latencyBudget The slowest call that still counts as a success (zero for no budget).
+	 */
+	public CircuitBreaker(int failureThreshold, Duration openDuration, Duration latencyBudget) {
+		this.failureThreshold = failureThreshold;
+		this.openNanos = openDuration.toNanos();
+		this.latencyBudgetNanos = latencyBudget.toNanos();
+	}
+	
+	/**
+	 * @return A breaker that never opens.
+	 */
+	public static CircuitBreaker disabled() {
+		return new CircuitBreaker(0, Duration.ZERO, Duration.ZERO);
+	}
+	
+	/**
+	 * Asks whether a call may be made now. A call allowed while half open is the trial
+	 * call, and its outcome must be recorded.
+	 *
+	 * @return true if the call may be made.
+	 */
+	public synchronized boolean allowRequest() {
+		switch (state) {
+			case OPEN:
+				if (System.nanoTime() - openedAtNanos < openNanos) {
+					return false;
+				}
+				state = State.HALF_OPEN;
+				trialInFlight = true;
+				return true;
+			case HALF_OPEN:
+				if (trialInFlight) {
+					return false;
+				}
+				trialInFlight = true;
+				return true;
+			default:
+				return true;
+		}
+	}
+	
+	/**
+	 * Tells whether calls are being rejected right now, without changing the state.
+	 *
+	 * @return true if the circuit is open and no trial call is due yet.
+	 */
+	public synchronized boolean isOpen() {
+		return state == State.OPEN && System.nanoTime() - openedAtNanos < openNanos;
+	}
+	
+	/**
+	 * Records a call that got a response.
+	 *
+	 * @param latencyNanos How long the call took; calls over the latency budget count as failures.
+	 */
+	public void recordSuccess(long latencyNanos) {
+		if (latencyBudgetNanos > 0 && latencyNanos > latencyBudgetNanos) {
+			recordFailure();
+			return;
+		}
+		synchronized (this) {
+			consecutiveFailures = 0;
+			trialInFlight = false;
+			if (state != State.CLOSED) {
+				LOGGER.info("Mockaroo circuit closed");
+				state = State.CLOSED;
+			}
+		}
+	}
+	
+	/**
+	 * Records a call that failed in a way that points at the service.
+	 */
+	public synchronized void recordFailure() {
+		consecutiveFailures++;
+		trialInFlight = false;
+		if (failureThreshold <= 0) {
+			return;
+		}
+		if (state == State.HALF_OPEN || (state == State.CLOSED && consecutiveFailures >= failureThreshold)) {
+			LOGGER.warn("Mockaroo circuit opened after {} consecutive failures", consecutiveFailures);
+			state = State.OPEN;
+			openedAtNanos = System.nanoTime();
+		}
+	}
+	
+	public synchronized State getState() {
+		return state;
+	}
+}
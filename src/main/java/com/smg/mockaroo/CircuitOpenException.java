@@ -0,0 +1,14 @@
+package com.smg.mockaroo;
+
+import java.io.IOException;
+
+/**
+ * Thrown when a Mockaroo request is rejected without being sent, because the
+ * {@link CircuitBreaker} is open. It is never retried.
+ */
+public class CircuitOpenException extends IOException {
+	
+	public CircuitOpenException(String message) {
+		super(message);
+	}
+}
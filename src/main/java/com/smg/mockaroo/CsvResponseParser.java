@@ -0,0 +1,257 @@
+package com.smg.mockaroo;
+
+import com.smg.fileio.ColumnKind;
+import com.smg.fileio.RowBatch;
+import com.smg.fileio.RowBatchConsumer;
+import com.smg.fileio.TableLayout;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Parses a Mockaroo CSV response ({@code generate.csv}) incrementally into row batches.
+ * <p>
+ * CSV rows are much smaller on the wire than JSON objects, since the field names are
+ * sent once in the header instead of in every row. The parser reads the body through
+ * a large char buffer and copies field contents in ranges rather than char by char.
+ * It handles quoted fields with embedded delimiters, doubled quotes and line breaks,
+ * and both LF and CRLF line endings.
+ * <p>
+ * The header maps the fields to the columns of the table layout by name. As CSV has
+ * no value types, the values of numeric and boolean columns are converted back from
+ * their text. An empty field is read as null, and a quoted empty field ({@code ""})
+ * as an empty string.
+ * <p>
+ * A blank line is a row only when the header has a single field: it is then a row
+ * whose value is null. Such rows are counted against the rows requested, so blank
+ * lines after the last of them are skipped, as are blank lines in a body of several
+ * fields, which cannot be rows.
+ */
+public class CsvResponseParser implements ResponseParser {
+	
+	private static final int BUFFER_SIZE = 64 * 1024;
+	
+	@Override
+	public int parse(InputStream input, TableLayout layout, int expectedRows, int batchCapacity, RowBatchConsumer consumer)
+		throws IOException {
+		CsvReader reader = new CsvReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+		List<String> fields = new ArrayList<>();
+		if (!reader.readRecord(fields)) {
+			return 0;
+		}
+		int[] fieldColumns = mapHeader(fields, layout);
+		boolean blankLinesAreRows = fieldColumns.length == 1;
+		
+		int delivered = 0;
+		RowBatch batch = new RowBatch(layout, batchCapacity);
+		while (reader.readRecord(fields)) {
+			boolean blankLine = fields.size() == 1 && fields.get(0) == null;
+			// A blank line is a null row of a single-field body, until the rows requested are all read
+			if (blankLine && !(blankLinesAreRows && delivered + batch.size() < expectedRows)) {
+				continue;
+			}
+			Object[] values = new Object[layout.getColumnCount()];
+			for (int i = 0; i < fields.size() && i < fieldColumns.length; i++) {
+				int col = fieldColumns[i];
+				if (col >= 0) {
+					values[col] = toValue(fields.get(i), layout.getColumnKind(col));
+				}
+			}
+			batch.addRow(values);
+			if (batch.isFull()) {
+				consumer.accept(batch);
+				delivered += batch.size();
+				batch = new RowBatch(layout, batchCapacity);
+			}
+		}
+		if (!batch.isEmpty()) {
+			consumer.accept(batch);
+			delivered += batch.size();
+		}
+		return delivered;
+	}
+	
+	/**
+	 * @return For each header field, the index of its column in the layout, or -1 if it has none.
+	 */
+	private int[] mapHeader(List<String> header, TableLayout layout) {
+		int[] fieldColumns = new int[header.size()];
+		Arrays.fill(fieldColumns, -1);
+		for (int i = 0; i < header.size(); i++) {
+			for (int col = 0; col < layout.getColumnCount(); col++) {
+				if (layout.getColumnName(col).equals(header.get(i))) {
+					fieldColumns[i] = col;
+					break;
+				}
+			}
+		}
+		return fieldColumns;
+	}
+	
+	private Object toValue(String text, ColumnKind kind) {
+		if (text == null) {
+			return null;
+		}
+		if (kind.isNumeric() && !text.isEmpty()) {
+			return toNumber(text);
+		}
+		if (kind == ColumnKind.BOOLEAN) {
+			if (text.equalsIgnoreCase("true")) {
+				return Boolean.TRUE;
+			} else if (text.equalsIgnoreCase("false")) {
+				return Boolean.FALSE;
+			}
+		}
+		return text;
+	}
+	
+	/**
+	 * Converts a numeric field to a Long, BigDecimal (for integers past the range of a
+	 * long) or Double, as the JSON parser would. Text that is not a number (e.g. a
+	 * formatted value) is kept as it is.
+	 */
+	private Object toNumber(String text) {
+		try {
+			boolean integral = true;
+			for (int i = 0; i < text.length() && integral; i++) {
+				char c = text.charAt(i);
+				integral = (c >= '0' && c <= '9') || (i == 0 && c == '-');
+			}
+			if (integral && text.length() < 19) {
+				return Long.parseLong(text);
+			} else if (integral) {
+				BigInteger value = new BigInteger(text);
+				if (value.bitLength() < Long.SIZE) {
+					return value.longValue();
+				}
+				return new BigDecimal(value);
+			}
+			return Double.parseDouble(text);
+		} catch (NumberFormatException e) {
+			return text;
+		}
+	}
+	
+	/**
+	 * Minimal RFC 4180 record reader over a buffered char stream.
+	 */
+	private static final class CsvReader {
+		
+		private final Reader reader;
+		private final char[] buffer = new char[BUFFER_SIZE];
+		private final StringBuilder field = new StringBuilder();
+		private int position;
+		private int limit;
+		
+		private CsvReader(Reader reader) {
+			this.reader = reader;
+		}
+		
+		/**
+		 * Reads the next record into the given list, with null for empty unquoted fields.
+		 *
+		 * @return false at the end of the input.
+		 */
+		private boolean readRecord(List<String> fields) throws IOException {
+			fields.clear();
+			if (!fill()) {
+				return false;
+			}
+			while (true) {
+				field.setLength(0);
+				boolean quoted = fill() && buffer[position] == '"';
+				int end = quoted ? readQuoted() : readUnquoted();
+				// Only a quoted field can hold an empty string; an empty unquoted field is a null
+				fields.add(quoted || field.length() > 0 ? field.toString() : null);
+				if (end != ',') {
+					return true;
+				}
+			}
+		}
+		
+		/**
+		 * Reads an unquoted field up to the next delimiter or line end, which is consumed.
+		 *
+		 * @return The character that ended the field: ',' or '\n' (also at the end of the input).
+		 */
+		private int readUnquoted() throws IOException {
+			while (fill()) {
+				int start = position;
+				while (position < limit) {
+					char c = buffer[position];
+					if (c == ',' || c == '\n') {
+						field.append(buffer, start, position - start);
+						position++;
+						if (c == '\n' && field.length() > 0 && field.charAt(field.length() - 1) == '\r') {
+							field.setLength(field.length() - 1);
+						}
+						return c;
+					}
+					position++;
+				}
+				field.append(buffer, start, position - start);
+			}
+			return '\n';
+		}
+		
+		/**
+		 * Reads a quoted field and what follows it up to the next delimiter or line end.
+		 *
+		 * @return The character that ended the field: ',' or '\n' (also at the end of the input).
+		 */
+		private int readQuoted() throws IOException {
+			// Opening quote
+			position++;
+			while (fill()) {
+				int start = position;
+				while (position < limit && buffer[position] != '"') {
+					position++;
+				}
+				field.append(buffer, start, position - start);
+				if (position == limit) {
+					continue;
+				}
+				// Closing quote, or the first half of a doubled quote
+				position++;
+				if (fill() && buffer[position] == '"') {
+					field.append('"');
+					position++;
+					continue;
+				}
+				// Skip anything between the closing quote and the delimiter
+				while (fill()) {
+					char c = buffer[position++];
+					if (c == ',' || c == '\n') {
+						return c;
+					}
+				}
+				return '\n';
+			}
+			throw new IOException("Unterminated quoted field in CSV response.");
+		}
+		
+		/**
+		 * @return true if at least one char is available in the buffer.
+		 */
+		private boolean fill() throws IOException {
+			if (position < limit) {
+				return true;
+			}
+			limit = reader.read(buffer, 0, buffer.length);
+			position = 0;
+			if (limit <= 0) {
+				limit = 0;
+				return false;
+			}
+			return true;
+		}
+	}
+}
@@ -0,0 +1,122 @@
+package com.smg.mockaroo;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.smg.fileio.RowBatch;
+import com.smg.fileio.RowBatchConsumer;
+import com.smg.fileio.TableLayout;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Parses a Mockaroo JSON response ({@code generate.json}) incrementally, straight from the response stream
+ * into row batches.
+ * <p>
+ * No tree of the whole response is built: each row object is read token by token,
+ * its fields are matched to the columns of the table layout by name and their values
+ * stored as typed Java values (the same ones {@link RowBatch#partition} produces).
+ * Every full batch is handed to the consumer before the next one is read, so the
+ * memory used by a response is bounded by the batch size rather than the response size.
+ */
+public class JsonResponseParser implements ResponseParser {
+	
+	private final JsonFactory jsonFactory;
+	
+	public JsonResponseParser(ObjectMapper objectMapper) {
+		this.jsonFactory = objectMapper.getFactory();
+	}
+	
+	/**
+	 * Reads the rows of a response. The response is either an array of row objects
+	 * or, when a single row was requested, one bare row object.
+	 */
+	@Override
+	public int parse(InputStream input, TableLayout layout, int expectedRows, int batchCapacity, RowBatchConsumer consumer)
+		throws IOException {
+		Map<String, Integer> columnIndexes = new HashMap<>();
+		for (int col = 0; col < layout.getColumnCount(); col++) {
+			columnIndexes.put(layout.getColumnName(col), col);
+		}
+		
+		int delivered = 0;
+		try (JsonParser parser = jsonFactory.createParser(input)) {
+			// The caller owns the stream and may still read from it (e.g. to cache the rest)
+			parser.disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+			JsonToken token = parser.nextToken();
+			boolean singleRow = token == JsonToken.START_OBJECT;
+			if (!singleRow && token != JsonToken.START_ARRAY) {
+				throw new IOException("Mockaroo API did not return a JSON array.");
+			}
+			
+			RowBatch batch = new RowBatch(layout, batchCapacity);
+			while (singleRow || (token = parser.nextToken()) == JsonToken.START_OBJECT) {
+				batch.addRow(readRow(parser, layout, columnIndexes));
+				if (batch.isFull()) {
+					consumer.accept(batch);
+					delivered += batch.size();
+					batch = new RowBatch(layout, batchCapacity);
+				}
+				if (singleRow) {
+					break;
+				}
+			}
+			if (!singleRow && token != JsonToken.END_ARRAY) {
+				throw new IOException("Unexpected token in Mockaroo response: " + token);
+			}
+			if (!batch.isEmpty()) {
+				consumer.accept(batch);
+				delivered += batch.size();
+			}
+		}
+		return delivered;
+	}
+	
+	/**
+	 * Reads one row object; the parser is positioned on its START_OBJECT token.
+	 * Fields that are not columns of the layout are skipped.
+	 */
+	private Object[] readRow(JsonParser parser, TableLayout layout, Map<String, Integer> columnIndexes) throws IOException {
+		Object[] values = new Object[layout.getColumnCount()];
+		String fieldName;
+		while ((fieldName = parser.nextFieldName()) != null) {
+			JsonToken valueToken = parser.nextToken();
+			Integer col = columnIndexes.get(fieldName);
+			if (col == null) {
+				parser.skipChildren();
+				continue;
+			}
+			values[col] = readValue(parser, valueToken);
+		}
+		return values;
+	}
+	
+	private Object readValue(JsonParser parser, JsonToken token) throws IOException {
+		switch (token) {
+			case VALUE_STRING:
+				return parser.getText();
+			case VALUE_NUMBER_INT:
+				if (parser.getNumberType() == JsonParser.NumberType.BIG_INTEGER) {
+					// Kept exact; a double would round the integers past 2^53
+					return new BigDecimal(parser.getBigIntegerValue());
+				}
+				return parser.getLongValue();
+			case VALUE_NUMBER_FLOAT:
+				return parser.getDoubleValue();
+			case VALUE_TRUE:
+				return Boolean.TRUE;
+			case VALUE_FALSE:
+				return Boolean.FALSE;
+			case VALUE_NULL:
+				return null;
+			default:
+				// Nested objects or arrays are kept as their JSON text
+				return parser.readValueAsTree().toString();
+		}
+	}
+}
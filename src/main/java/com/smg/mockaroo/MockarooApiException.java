@@ -0,0 +1,33 @@
+package com.smg.mockaroo;
+
+import java.io.IOException;
+
+/**
+ * Signals that the Mockaroo API answered a request with an error status.
+ */
+public class MockarooApiException extends IOException {
+	
+	private final int statusCode;
+	
+	public MockarooApiException(String message, int statusCode) {
+		super(message);
+		this.statusCode = statusCode;
+	}
+	
+	/**
+	 * @return The HTTP status code of the response.
+	 */
+	public int getStatusCode() {
+		return statusCode;
+	}
+	
+	/**
+	 * Tells whether sending the same request again may succeed. Client errors such as
+	 * an invalid key or schema will fail again, except for throttling (429).
+	 *
+	 * @return true for throttling and server errors.
+	 */
+	public boolean isRetryable() {
+		return statusCode == 429 || statusCode >= 500;
+	}
+}
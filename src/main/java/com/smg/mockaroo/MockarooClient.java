@@ -1,84 +1,808 @@
 package com.smg.mockaroo;
 
-import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.smg.config.SMGConfig;
+import com.smg.fileio.RowBatch;
+import com.smg.fileio.RowBatchConsumer;
+import com.smg.fileio.TableLayout;
 import com.smg.logging.ErrorLogger;
-import org.apache.hc.client5.http.classic.methods.HttpPost;
-import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
-import org.apache.hc.client5.http.impl.classic.CloseableHttpResponse;
-import org.apache.hc.client5.http.impl.classic.HttpClients;
-import org.apache.hc.core5.http.ContentType;
-import org.apache.hc.core5.http.HttpEntity;
-import org.apache.hc.core5.http.HttpStatus;
-import org.apache.hc.core5.http.io.entity.StringEntity;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.FilterInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
 
 /**
  * Client for interacting with the Mockaroo API to generate synthetic data.
+ * <p>
+ * A single {@link HttpClient} is kept for the lifetime of the client, so the
+ * connections (and their TLS sessions) are pooled and reused between tables instead
+ * of being set up again for every call. Requests are sent asynchronously; at most
+ * {@code concurrency} of them are in flight at the same time and new ones are
+ * started no faster than the {@link RateLimiter} allows. Requests are started in the
+ * order they were submitted.
+ * <p>
+ * Responses are not buffered: they are parsed as they are received and the rows
+ * are handed to a {@link RowBatchConsumer} batch by batch. The client can ask for
+ * gzip-compressed responses, and for the CSV format of the API instead of JSON;
+ * the bytes received on the wire and after decompression are counted. Responses can
+ * be kept in a {@link ResponseCache}, so re-running the same requests makes no HTTP calls.
+ * <p>
+ * The number of rows is sent as the {@code count} parameter of each request, so a
+ * large table is fetched as several chunks with the same schema. A chunk that fails
+ * with a network error, throttling or a server error is sent again on its own, up to
+ * the configured number of retries, after an exponential backoff with full jitter so
+ * that failed chunks do not all come back at the same time.
+ * <p>
+ * Every request has a timeout covering the whole exchange, from sending it to reading
+ * the last byte of the response. A {@link CircuitBreaker} watches the outcome and
+ * latency of the calls; while it is open, requests fail at once with a
+ * {@link CircuitOpenException} instead of waiting for the service.
  */
-public class MockarooClient {
+public class MockarooClient implements AutoCloseable {
 	
 	private static final Logger LOGGER = LoggerFactory.getLogger(MockarooClient.class);
-	private static final String API_ENDPOINT = "https://api.mockaroo.com/api/generate.json";
+	public static final String DEFAULT_ENDPOINT = "https://api.mockaroo.com/api/generate.json";
+	public static final int DEFAULT_CONCURRENCY = 4;
+	public static final int DEFAULT_RETRIES = 2;
+	public static final String FORMAT_JSON = "json";
+	public static final String FORMAT_CSV = "csv";
+	private static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(30);
+	private static final int DECODE_BUFFER_SIZE = 64 * 1024;
+	private static final Duration MAX_BACKOFF = Duration.ofSeconds(30);
 	
 	private final String mockApiKey;
+	private final URI endpoint;
+	private final String format;
+	private final boolean gzip;
 	private final ErrorLogger errorLogger;
 	private final ObjectMapper objectMapper;
+	private final HttpClient httpClient;
+	private final Semaphore inFlight;
+	private final RateLimiter rateLimiter;
+	private final int retries;
+	private final ExecutorService dispatcher;
+	private final ExecutorService readers;
+	private final ResponseParser responseParser;
+	private final AtomicLong bytesOnWire = new AtomicLong();
+	private final AtomicLong bytesDecoded = new AtomicLong();
+	private ResponseCache cache;
+	private String seed;
+	private Duration requestTimeout;
+	private Duration backoff = Duration.ZERO;
+	private CircuitBreaker circuitBreaker = CircuitBreaker.disabled();
 	
 	public MockarooClient(String mockApiKey, ErrorLogger errorLogger) {
+		this(mockApiKey, DEFAULT_ENDPOINT, FORMAT_JSON, true, DEFAULT_CONCURRENCY, RateLimiter.unlimited(), DEFAULT_RETRIES,
+			errorLogger);
+	}
+	
+	/**
+	 * Creates a client with the endpoint, response format, compression, concurrency, rate
+	 * limit and retries of the configuration.
+	 *
+	 * @param config The SMG configuration.
+	 * @param errorLogger The logger for errors.
+	 */
+	public MockarooClient(SMGConfig config, ErrorLogger errorLogger) {
+		this(config.getMockApiKey(),
+			config.getMockarooEndpoint(),
+			config.getMockarooFormat(),
+			config.isMockarooGzip(),
+			config.getMockarooConcurrency(),
+			new RateLimiter(config.getMockarooRequestsPerSecond(), config.getMockarooBurst()),
+			config.getMockarooRetries(),
+			errorLogger);
+		setRequestTimeout(Duration.ofSeconds(config.getMockarooTimeoutSeconds()));
+		setBackoff(Duration.ofMillis(config.getMockarooBackoffMillis()));
+		setCircuitBreaker(new CircuitBreaker(config.getMockarooCircuitFailures(),
+			Duration.ofSeconds(config.getMockarooCircuitOpenSeconds()),
+			Duration.ofMillis(config.getMockarooLatencyBudgetMillis())));
+		String cacheDirectory = config.getMockarooCacheDir();
+		if (cacheDirectory != null && !cacheDirectory.isBlank()) {
+			try {
+				setCache(new ResponseCache(Paths.get(cacheDirectory),
+					config.getMockarooCacheMaxSizeMb() * 1024L * 1024L,
+					Duration.ofHours(config.getMockarooCacheTtlHours())), config.getMockarooSeed());
+			} catch (IOException e) {
+				errorLogger.logError("Could not open the Mockaroo response cache: " + cacheDirectory, e);
+			}
+		}
+	}
+	
+	/**
+	 * @param mockApiKey The Mockaroo API key.
+	 * @param endpoint The URL of the Mockaroo generate endpoint.
+	 * @param format The response format: {@link #FORMAT_JSON} or {@link #FORMAT_CSV}.
+	 * @param gzip Whether to ask for gzip-compressed responses.
+	 * @param concurrency The maximum number of requests in flight at the same time.
+	 * @param rateLimiter The limiter that paces the start of the requests.
+	 * @param retries The number of times a failed request is sent again.
+	 * @param errorLogger The logger for errors.
+	 */
+	public MockarooClient(String mockApiKey, String endpoint, String format, boolean gzip, int concurrency,
+						  RateLimiter rateLimiter, int retries, ErrorLogger errorLogger) {
 		this.mockApiKey = mockApiKey;
+		this.format = FORMAT_CSV.equalsIgnoreCase(format) ? FORMAT_CSV : FORMAT_JSON;
+		this.gzip = gzip;
+		this.endpoint = resolveEndpoint(endpoint == null || endpoint.isBlank() ? DEFAULT_ENDPOINT : endpoint, this.format);
 		this.errorLogger = errorLogger;
 		this.objectMapper = new ObjectMapper();
+		this.httpClient = HttpClient.newBuilder()
+			.connectTimeout(CONNECT_TIMEOUT)
+			.build();
+		this.inFlight = new Semaphore(Math.max(1, concurrency), true);
+		this.rateLimiter = rateLimiter;
+		this.retries = Math.max(0, retries);
+		this.dispatcher = Executors.newSingleThreadExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "mockaroo-dispatcher");
+			thread.setDaemon(true);
+			return thread;
+		});
+		this.readers = Executors.newCachedThreadPool(runnable -> {
+			Thread thread = new Thread(runnable, "mockaroo-reader");
+			thread.setDaemon(true);
+			return thread;
+		});
+		this.responseParser = FORMAT_CSV.equals(this.format) ? new CsvResponseParser() : new JsonResponseParser(objectMapper);
+	}
+	
+	/**
+	 * Points the endpoint at the generate resource of the response format, e.g.
+	 * {@code generate.json} becomes {@code generate.csv}. Only the path changes; the
+	 * URI is rebuilt from its raw parts, so the host, query and fragment are kept as
+	 * they are even when they contain the path.
+	 */
+	static URI resolveEndpoint(String endpoint, String format) {
+		URI uri = URI.create(endpoint);
+		String path = uri.getRawPath();
+		if (path == null || !path.endsWith(".json") || FORMAT_JSON.equals(format) || uri.getRawAuthority() == null) {
+			return uri;
+		}
+		StringBuilder resolved = new StringBuilder(uri.getScheme()).append("://").append(uri.getRawAuthority())
+			.append(path, 0, path.length() - ".json".length()).append('.').append(format);
+		if (uri.getRawQuery() != null) {
+			resolved.append('?').append(uri.getRawQuery());
+		}
+		if (uri.getRawFragment() != null) {
+			resolved.append('#').append(uri.getRawFragment());
+		}
+		return URI.create(resolved.toString());
 	}
 	
 	/**
-	 * Sends a schema to the Mockaroo API and returns the generated data.
-	 * The return type is now ArrayNode to correctly handle the JSON response.
+	 * Serves the requests from a response cache when possible, and stores the responses
+	 * that are received in full in it.
+	 *
+	 * @param cache The cache, or null to disable caching.
+	 * @param seed The seed of the run, part of the cache keys.
+	 */
+	public void setCache(ResponseCache cache, String seed) {
+		this.cache = cache;
+		this.seed = seed;
+	}
+	
+	/**
+	 * @param requestTimeout The longest a request may take, response included (zero or null for no timeout).
+	 */
+	public void setRequestTimeout(Duration requestTimeout) {
+		this.requestTimeout = requestTimeout == null || requestTimeout.isZero() || requestTimeout.isNegative()
+			? null : requestTimeout;
+	}
+	
+	/**
+	 * @param backoff The base delay before a retry, doubled on every further retry.
+	 */
+	public void setBackoff(Duration backoff) {
+		this.backoff = backoff == null || backoff.isNegative() ? Duration.ZERO : backoff;
+	}
+	
+	/**
+	 * @param circuitBreaker The breaker that stops the calls while the service is failing.
+	 */
+	public void setCircuitBreaker(CircuitBreaker circuitBreaker) {
+		this.circuitBreaker = circuitBreaker == null ? CircuitBreaker.disabled() : circuitBreaker;
+	}
+	
+	/**
+	 * @return The breaker guarding the calls.
+	 */
+	public CircuitBreaker getCircuitBreaker() {
+		return circuitBreaker;
+	}
+	
+	/**
+	 * @return The response cache, or null if caching is disabled.
+	 */
+	public ResponseCache getCache() {
+		return cache;
+	}
+	
+	/**
+	 * @return The response format of the requests.
+	 */
+	public String getFormat() {
+		return format;
+	}
+	
+	/**
+	 * @return Whether the requests ask for gzip-compressed responses.
+	 */
+	public boolean isGzip() {
+		return gzip;
+	}
+	
+	/**
+	 * @return The number of response bytes received so far, as sent on the wire.
+	 */
+	public long getBytesOnWire() {
+		return bytesOnWire.get();
+	}
+	
+	/**
+	 * @return The number of response bytes received so far, after decompression.
+	 */
+	public long getBytesDecoded() {
+		return bytesDecoded.get();
+	}
+	
+	/**
+	 * Sends a schema to the Mockaroo API and streams the generated rows to a consumer.
 	 *
 	 * @param mockarooSchema The schema to use for data generation.
-	 * @return An ArrayNode containing the generated data.
+	 * @param count The number of rows to generate.
+	 * @param chunkIndex The index of the chunk within its table, part of the cache key.
+	 * @param layout The layout of the table the rows belong to.
+	 * @param consumer The receiver of the row batches.
+	 * @return The number of rows handed to the consumer.
 	 * @throws IOException If a network or I/O error occurs.
 	 * @throws InterruptedException If the operation is interrupted.
 	 */
-	public ArrayNode generateData(ArrayNode mockarooSchema) throws IOException, InterruptedException {
+	public int generateData(ArrayNode mockarooSchema, int count, int chunkIndex, TableLayout layout, RowBatchConsumer consumer)
+		throws IOException, InterruptedException {
+		return await(generateDataAsync(mockarooSchema, count, chunkIndex, layout, consumer));
+	}
+	
+	/**
+	 * Queues a schema to be sent to the Mockaroo API. The request is started as soon
+	 * as the concurrency and rate limits allow it, and the response is parsed while it
+	 * is being received: the rows reach the consumer batch by batch, on a client thread.
+	 * <p>
+	 * If the request fails after some rows were delivered, the retry only asks for the
+	 * rows still missing, so no row is delivered twice.
+	 * <p>
+	 * When a cache is set, a cached response is read from disk without any HTTP call
+	 * (and without waiting for the concurrency and rate limits).
+	 *
+	 * @param mockarooSchema The schema to use for data generation.
+	 * @param count The number of rows to generate.
+	 * @param chunkIndex The index of the chunk within its table, part of the cache key.
+	 * @param layout The layout of the table the rows belong to.
+	 * @param consumer The receiver of the row batches.
+	 * @return A future with the number of rows handed to the consumer, completed exceptionally
+	 *         with an {@link IOException} if the call still fails after the retries.
+	 */
+	public CompletableFuture<Integer> generateDataAsync(ArrayNode mockarooSchema, int count, int chunkIndex,
+														 TableLayout layout, RowBatchConsumer consumer) {
+		if (count <= 0) {
+			return CompletableFuture.completedFuture(0);
+		}
+		String cacheKey = cache == null
+			? null
+			: ResponseCache.key(endpoint.toString(), mockarooSchema.toString(), count, chunkIndex, seed, format);
+		Request request = new Request(buildPayload(mockarooSchema), count, cacheKey, layout, new CountingConsumer(consumer));
+		InputStream cached = cacheKey == null ? null : cache.open(cacheKey);
+		if (cached == null) {
+			return attempt(request, retries, 0);
+		}
+		return CompletableFuture.supplyAsync(() -> readCached(cached, request), readers)
+			.thenCompose(complete -> complete
+				? CompletableFuture.completedFuture(request.consumer().delivered)
+				: attempt(request, retries, 0));
+	}
+	
+	/**
+	 * Waits for the result of a request started with {@link #generateDataAsync}.
+	 *
+	 * @param result The pending result.
+	 * @return The result.
+	 * @throws IOException If the call failed.
+	 * @throws InterruptedException If the thread is interrupted while waiting.
+	 */
+	public static <T> T await(CompletableFuture<T> result) throws IOException, InterruptedException {
+		try {
+			return result.get();
+		} catch (ExecutionException e) {
+			throw toIOException(e.getCause());
+		}
+	}
+	
+	/**
+	 * Stops the dispatcher and the response readers. Requests that have not been
+	 * started yet are dropped.
+	 */
+	@Override
+	public void close() {
+		dispatcher.shutdownNow();
+		readers.shutdownNow();
+	}
+	
+	/**
+	 * Reads a cached response. A corrupt entry is dropped; the rows it could not
+	 * provide are then fetched from the API.
+	 *
+	 * @return true if all the rows were read from the cache.
+	 */
+	private boolean readCached(InputStream cached, Request request) {
+		try (InputStream body = cached) {
+			responseParser.parse(body, request.layout(), request.count(), RowBatch.DEFAULT_CAPACITY, request.consumer());
+			return true;
+		} catch (ConsumerException e) {
+			throw new CompletionException(e);
+		} catch (IOException e) {
+			LOGGER.warn("Dropping corrupt cache entry {}: {}", request.cacheKey(), e.getMessage());
+			cache.invalidate(request.cacheKey());
+			return false;
+		}
+	}
+	
+	/**
+	 * Sends a request for the rows not delivered yet once the delay is over and the
+	 * limits allow it, and sends it again while it fails with a retryable error and
+	 * there are retries left.
+	 */
+	private CompletableFuture<Integer> attempt(Request request, int retriesLeft, long delayMillis) {
+		CountingConsumer consumer = request.consumer();
+		Executor start = delayMillis > 0
+			? CompletableFuture.delayedExecutor(delayMillis, TimeUnit.MILLISECONDS, dispatcher)
+			: dispatcher;
+		CompletableFuture<Integer> result = CompletableFuture.runAsync(this::acquirePermit, start)
+			.thenCompose(ignored -> {
+				int remaining = request.count() - consumer.delivered;
+				// Only a response holding all the rows of the request can be cached
+				String cacheKey = remaining == request.count() ? request.cacheKey() : null;
+				return send(buildRequest(request.body(), remaining), remaining, request.layout(), consumer, cacheKey);
+			})
+			.thenApply(rows -> consumer.delivered);
+		if (retriesLeft <= 0) {
+			return result;
+		}
+		return result.exceptionallyCompose(error -> {
+			Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+			if (!isRetryable(cause)) {
+				return CompletableFuture.failedFuture(cause);
+			}
+			long nextDelayMillis = backoffMillis(retries - retriesLeft);
+			LOGGER.warn("Mockaroo request failed after {} of {} rows, retrying in {} ms ({} retries left): {}",
+				consumer.delivered, request.count(), nextDelayMillis, retriesLeft, cause.getMessage());
+			return attempt(request, retriesLeft - 1, nextDelayMillis);
+		});
+	}
+	
+	/**
+	 * Picks the delay before a retry: a random duration between zero and the base
+	 * backoff doubled for each previous retry, capped at {@link #MAX_BACKOFF}.
+	 *
+	 * @param retry The number of retries already made for the request.
+	 */
+	private long backoffMillis(int retry) {
+		if (backoff.isZero()) {
+			return 0;
+		}
+		long ceiling = Math.min(MAX_BACKOFF.toMillis(), backoff.toMillis() << Math.min(retry, 20));
+		return ThreadLocalRandom.current().nextLong(ceiling + 1);
+	}
+	
+	private static boolean isRetryable(Throwable cause) {
+		if (cause instanceof MockarooApiException apiException) {
+			return apiException.isRetryable();
+		}
+		return cause instanceof IOException && !(cause instanceof ConsumerException) && !(cause instanceof CircuitOpenException);
+	}
+	
+	private String buildPayload(ArrayNode mockarooSchema) {
 		// Create the JSON payload for the API request
 		ObjectNode payload = objectMapper.createObjectNode();
 		payload.set("schema", mockarooSchema);
 		payload.put("key", mockApiKey);
-		
-		HttpPost httpPost = new HttpPost(API_ENDPOINT);
-		httpPost.addHeader("Content-Type", ContentType.APPLICATION_JSON.getMimeType());
-		HttpEntity entity = new StringEntity(payload.toString(), StandardCharsets.UTF_8);
-		httpPost.setEntity(entity);
-		
-		try (CloseableHttpClient httpClient = HttpClients.createDefault();
-			 CloseableHttpResponse response = httpClient.execute(httpPost)) {
-			
-			int statusCode = response.getCode();
-			if (statusCode == HttpStatus.SC_OK) {
-				// Parse the response body as a JSON array
-				String responseBody = new String(response.getEntity().getContent().readAllBytes(), StandardCharsets.UTF_8);
-				JsonNode rootNode = objectMapper.readTree(responseBody);
-				if (rootNode.isArray()) {
-					return (ArrayNode) rootNode;
-				} else {
-					String errorMessage = "Mockaroo API did not return a JSON array.";
-					errorLogger.logError(errorMessage, null);
-					throw new IOException(errorMessage);
+		return payload.toString();
+	}
+	
+	private HttpRequest buildRequest(String body, int count) {
+		String separator = endpoint.getRawQuery() == null ? "?" : "&";
+		String query = "count=" + count + (FORMAT_CSV.equals(format) ? "&include_header=true" : "");
+		HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(endpoint + separator + query))
+			.header("Content-Type", "application/json")
+			.POST(HttpRequest.BodyPublishers.ofString(body, StandardCharsets.UTF_8));
+		if (requestTimeout != null) {
+			request.timeout(requestTimeout);
+		}
+		if (gzip) {
+			request.header("Accept-Encoding", "gzip");
+		}
+		return request.build();
+	}
+	
+	private void acquirePermit() {
+		// Do not wait for the limits when the request would be rejected anyway
+		if (circuitBreaker.isOpen()) {
+			throw new CompletionException(new CircuitOpenException("Mockaroo circuit is open, request not sent."));
+		}
+		try {
+			inFlight.acquire();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new CompletionException(e);
+		}
+		try {
+			rateLimiter.acquire();
+		} catch (InterruptedException e) {
+			inFlight.release();
+			Thread.currentThread().interrupt();
+			throw new CompletionException(e);
+		}
+		// Checked last, as the circuit may have opened while the request was waiting
+		if (!circuitBreaker.allowRequest()) {
+			inFlight.release();
+			throw new CompletionException(new CircuitOpenException("Mockaroo circuit is open, request not sent."));
+		}
+	}
+	
+	/**
+	 * Sends the request and parses the response on a reader thread. The request keeps
+	 * its permit until the reader is done with the response, so the requests in flight
+	 * never exceed the concurrency; the outcome and latency of the call are reported to
+	 * the circuit breaker.
+	 * <p>
+	 * When the request times out, the exchange is aborted and the response body closed,
+	 * so a reader blocked on a stalled body fails at once and frees its permit and its
+	 * connection. The rows still arriving are no longer passed on, so a retry can take
+	 * over from the rows delivered so far.
+	 */
+	private CompletableFuture<Integer> send(HttpRequest request, int count, TableLayout layout, CountingConsumer consumer,
+											String cacheKey) {
+		long startNanos = System.nanoTime();
+		AttemptConsumer attemptConsumer = new AttemptConsumer(consumer);
+		PendingResponse pending = new PendingResponse();
+		try {
+			CompletableFuture<HttpResponse<InputStream>> exchange =
+				httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofInputStream());
+			pending.setExchange(exchange);
+			CompletableFuture<Integer> reading = exchange
+				.thenApplyAsync(response -> readResponse(response, pending, count, layout, attemptConsumer, cacheKey), readers);
+			reading.whenComplete((rows, error) -> inFlight.release());
+			// A copy, so that the timeout does not complete the reading, which holds the permit
+			CompletableFuture<Integer> result = requestTimeout == null
+				? reading
+				: reading.copy().orTimeout(requestTimeout.toMillis(), TimeUnit.MILLISECONDS);
+			return result.handle((rows, error) -> {
+				Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+				if (cause instanceof TimeoutException) {
+					attemptConsumer.cancel();
+					pending.abort();
+					cause = new HttpTimeoutException("Mockaroo request timed out after " + requestTimeout.toMillis() + " ms");
 				}
+				recordOutcome(cause, System.nanoTime() - startNanos);
+				if (cause != null) {
+					throw new CompletionException(cause);
+				}
+				return rows;
+			});
+		} catch (RuntimeException e) {
+			inFlight.release();
+			circuitBreaker.recordFailure();
+			throw e;
+		}
+	}
+	
+	/**
+	 * Reports a call to the circuit breaker. Only the errors that point at the service
+	 * count as failures; a client error or a failure of the consumer means the service
+	 * did answer.
+	 */
+	private void recordOutcome(Throwable cause, long latencyNanos) {
+		if (cause != null && isRetryable(cause)) {
+			circuitBreaker.recordFailure();
+		} else {
+			circuitBreaker.recordSuccess(latencyNanos);
+		}
+	}
+	
+	/**
+	 * Parses a response. When a cache key is given, a successful response is also
+	 * copied to the cache as it is read.
+	 */
+	private int readResponse(HttpResponse<InputStream> response, PendingResponse pending, int count, TableLayout layout,
+							 RowBatchConsumer consumer, String cacheKey) {
+		try (InputStream body = decode(response, pending.attach(response.body()))) {
+			int statusCode = response.statusCode();
+			if (statusCode == 200 && cacheKey != null) {
+				return readAndCache(body, count, layout, consumer, cacheKey);
+			} else if (statusCode == 200) {
+				return responseParser.parse(body, layout, count, RowBatch.DEFAULT_CAPACITY, consumer);
 			} else {
 				String errorMessage = "Mockaroo API call failed with status code: " + statusCode;
-				String errorDetails = new String(response.getEntity().getContent().readAllBytes(), StandardCharsets.UTF_8);
+				String errorDetails = new String(body.readAllBytes(), StandardCharsets.UTF_8);
 				LOGGER.error(errorMessage + " - Details: " + errorDetails);
 				errorLogger.logError(errorMessage + " - Details: " + errorDetails, null);
-				throw new IOException(errorMessage);
+				throw new MockarooApiException(errorMessage + " - Details: " + errorDetails, statusCode);
+			}
+		} catch (IOException e) {
+			throw new CompletionException(e);
+		}
+	}
+	
+	private int readAndCache(InputStream body, int count, TableLayout layout, RowBatchConsumer consumer, String cacheKey)
+		throws IOException {
+		ResponseCache.EntryWriter entry;
+		try {
+			entry = cache.create(cacheKey);
+		} catch (IOException e) {
+			LOGGER.warn("Could not create cache entry {}: {}", cacheKey, e.getMessage());
+			return responseParser.parse(body, layout, count, RowBatch.DEFAULT_CAPACITY, consumer);
+		}
+		try (entry) {
+			TeeInputStream tee = new TeeInputStream(body, entry);
+			int rows = responseParser.parse(tee, layout, count, RowBatch.DEFAULT_CAPACITY, consumer);
+			// Keep whatever follows the last row, so the entry is the exact response
+			tee.transferTo(OutputStream.nullOutputStream());
+			if (tee.isComplete()) {
+				try {
+					entry.commit();
+				} catch (IOException e) {
+					LOGGER.warn("Could not store cache entry {}: {}", cacheKey, e.getMessage());
+				}
+			}
+			return rows;
+		}
+	}
+	
+	/**
+	 * Wraps the response body to count its bytes and to decompress it if the server
+	 * compressed it.
+	 */
+	private InputStream decode(HttpResponse<InputStream> response, InputStream raw) throws IOException {
+		InputStream body = new CountingInputStream(raw, bytesOnWire);
+		boolean compressed = response.headers().firstValue("Content-Encoding")
+			.map(encoding -> encoding.equalsIgnoreCase("gzip"))
+			.orElse(false);
+		if (compressed) {
+			body = new CountingInputStream(new GZIPInputStream(body, DECODE_BUFFER_SIZE), bytesDecoded);
+		} else {
+			body = new CountingInputStream(body, bytesDecoded);
+		}
+		return body;
+	}
+	
+	private static IOException toIOException(Throwable cause) throws InterruptedException {
+		if (cause instanceof CompletionException && cause.getCause() != null) {
+			cause = cause.getCause();
+		}
+		if (cause instanceof ConsumerException consumerException) {
+			return consumerException.getCause();
+		}
+		if (cause instanceof IOException ioException) {
+			return ioException;
+		}
+		if (cause instanceof InterruptedException interruptedException) {
+			throw interruptedException;
+		}
+		return new IOException("Mockaroo API call failed: " + cause.getMessage(), cause);
+	}
+	
+	/**
+	 * Counts the rows handed to the consumer across the attempts of a request, and
+	 * marks the failures of the consumer itself so they are not retried.
+	 */
+	private static final class CountingConsumer implements RowBatchConsumer {
+		
+		private final RowBatchConsumer delegate;
+		private volatile int delivered;
+		
+		private CountingConsumer(RowBatchConsumer delegate) {
+			this.delegate = delegate;
+		}
+		
+		@Override
+		public void accept(RowBatch batch) throws IOException {
+			try {
+				delegate.accept(batch);
+			} catch (IOException e) {
+				throw new ConsumerException(e);
 			}
+			delivered += batch.size();
+		}
+	}
+	
+	/**
+	 * Passes the rows of one attempt on until the attempt is cancelled. Cancelling waits
+	 * for a batch being passed on, so the count of delivered rows is final once it returns.
+	 */
+	private static final class AttemptConsumer implements RowBatchConsumer {
+		
+		private final RowBatchConsumer delegate;
+		private boolean cancelled;
+		
+		private AttemptConsumer(RowBatchConsumer delegate) {
+			this.delegate = delegate;
+		}
+		
+		@Override
+		public synchronized void accept(RowBatch batch) throws IOException {
+			if (cancelled) {
+				throw new IOException("Mockaroo request was cancelled.");
+			}
+			delegate.accept(batch);
+		}
+		
+		private synchronized void cancel() {
+			cancelled = true;
+		}
+	}
+	
+	/**
+	 * The exchange and response body of one attempt, aborted when the attempt times out.
+	 * A body received after the abort is closed as soon as it is attached.
+	 */
+	private static final class PendingResponse {
+		
+		private CompletableFuture<HttpResponse<InputStream>> exchange;
+		private InputStream body;
+		private boolean aborted;
+		
+		private synchronized void setExchange(CompletableFuture<HttpResponse<InputStream>> exchange) {
+			this.exchange = exchange;
+		}
+		
+		private InputStream attach(InputStream body) throws IOException {
+			synchronized (this) {
+				this.body = body;
+				if (!aborted) {
+					return body;
+				}
+			}
+			body.close();
+			throw new IOException("Mockaroo request was cancelled.");
+		}
+		
+		/**
+		 * Cancels the exchange if no response was received yet, and closes the body of the
+		 * response otherwise; a read blocked on the body then fails and the connection is dropped.
+		 */
+		private void abort() {
+			CompletableFuture<HttpResponse<InputStream>> pendingExchange;
+			InputStream pendingBody;
+			synchronized (this) {
+				aborted = true;
+				pendingExchange = exchange;
+				pendingBody = body;
+			}
+			if (pendingExchange != null) {
+				pendingExchange.cancel(true);
+			}
+			if (pendingBody != null) {
+				try {
+					pendingBody.close();
+				} catch (IOException e) {
+					LOGGER.debug("Could not close the response body: {}", e.getMessage());
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Adds the number of bytes read through the stream to a counter.
+	 */
+	private static final class CountingInputStream extends FilterInputStream {
+		
+		private final AtomicLong counter;
+		
+		private CountingInputStream(InputStream input, AtomicLong counter) {
+			super(input);
+			this.counter = counter;
+		}
+		
+		@Override
+		public int read() throws IOException {
+			int b = super.read();
+			if (b >= 0) {
+				counter.incrementAndGet();
+			}
+			return b;
+		}
+		
+		@Override
+		public int read(byte[] buffer, int offset, int length) throws IOException {
+			int n = super.read(buffer, offset, length);
+			if (n > 0) {
+				counter.addAndGet(n);
+			}
+			return n;
+		}
+	}
+	
+	/**
+	 * Copies the bytes read through the stream to a cache entry. A failure to write the
+	 * entry does not affect the reading; the entry is then just not committed.
+	 */
+	private static final class TeeInputStream extends FilterInputStream {
+		
+		private final ResponseCache.EntryWriter entry;
+		private boolean failed;
+		
+		private TeeInputStream(InputStream input, ResponseCache.EntryWriter entry) {
+			super(input);
+			this.entry = entry;
+		}
+		
+		@Override
+		public int read() throws IOException {
+			byte[] single = new byte[1];
+			int n = read(single, 0, 1);
+			return n < 0 ? -1 : single[0] & 0xFF;
+		}
+		
+		@Override
+		public int read(byte[] buffer, int offset, int length) throws IOException {
+			int n = super.read(buffer, offset, length);
+			if (n > 0 && !failed) {
+				try {
+					entry.write(buffer, offset, n);
+				} catch (IOException e) {
+					LOGGER.warn("Could not write cache entry: {}", e.getMessage());
+					failed = true;
+				}
+			}
+			return n;
+		}
+		
+		private boolean isComplete() {
+			return !failed;
+		}
+	}
+	
+	/**
+	 * A request for the rows of one chunk, shared by its attempts.
+	 */
+	private record Request(String body, int count, String cacheKey, TableLayout layout, CountingConsumer consumer) {
+	}
+	
+	/**
+	 * A failure of the consumer of the rows rather than of the Mockaroo call.
+	 */
+	private static final class ConsumerException extends IOException {
+		
+		private ConsumerException(IOException cause) {
+			super(cause.getMessage(), cause);
+		}
+		
+		@Override
+		public synchronized IOException getCause() {
+			return (IOException) super.getCause();
 		}
 	}
 }
@@ -3,8 +3,9 @@ package com.smg.mockaroo;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.smg.schemas.entities.Schema;
 import com.smg.schemas.entities.Table;
-import com.smg.schemas.entities.Column;
+import com.smg.schemas.ir.SchemaIR;
 
 /**
  * MockarooSchemaGenerator is responsible for converting a database Table object
@@ -16,26 +17,33 @@ public class MockarooSchemaGenerator {
 	
 	/**
 	 * Generates a JSON schema for the Mockaroo API based on a given table structure.
-	 * The schema is an array of field objects.
+	 * The schema is an array of field objects. The number of rows is not part of
+	 * the schema; it is sent with each request, so a large table can be fetched
+	 * in several chunks with the same schema.
 	 *
 	 * @param table The Table object to generate a schema for.
-	 * @param numRows The number of rows to generate.
 	 * @return A JSON ArrayNode representing the Mockaroo schema.
 	 */
-	public ArrayNode generateSchema(Table table, int numRows) {
+	public ArrayNode generateSchema(Table table) {
+		Schema schema = new Schema(table.getName());
+		schema.addTable(table);
+		return generateSchema(SchemaIR.of(schema), 0);
+	}
+	
+	/**
+	 * Generates a JSON schema for the Mockaroo API based on a table of a schema.
+	 *
+	 * @param schema The schema of the table.
+	 * @param table The id of the table to generate a schema for.
+	 * @return A JSON ArrayNode representing the Mockaroo schema.
+	 */
+	public ArrayNode generateSchema(SchemaIR schema, int table) {
 		ArrayNode mockarooSchema = objectMapper.createArrayNode();
 		
-		// Mockaroo requires the number of rows to be a part of the schema
-		ObjectNode numRowsNode = objectMapper.createObjectNode();
-		numRowsNode.put("name", "num_rows");
-		numRowsNode.put("type", "number");
-		numRowsNode.put("value", numRows);
-		mockarooSchema.add(numRowsNode);
-		
-		for (Column column : table.getColumns()) {
+		for (int column = schema.getFirstColumn(table); column < schema.getColumnEnd(table); column++) {
 			ObjectNode fieldNode = objectMapper.createObjectNode();
-			fieldNode.put("name", column.getName());
-			fieldNode.put("type", inferMockarooType(column.getDataType()));
+			fieldNode.put("name", schema.getColumnName(column));
+			fieldNode.put("type", inferMockarooType(schema.getColumnType(column)));
 			mockarooSchema.add(fieldNode);
 		}
 		
@@ -0,0 +1,98 @@
+package com.smg.mockaroo;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token bucket rate limiter used to keep the Mockaroo calls within the quota of the
+ * API plan.
+ * <p>
+ * The bucket holds up to {@code burst} tokens and is refilled at {@code permitsPerSecond}.
+ * Each call takes one token; when the bucket is empty the caller reserves the next
+ * token and sleeps until it is due, so waiting callers are served in arrival order.
+ * A rate of zero or less disables the limit.
+ */
+public class RateLimiter {
+	
+	private final double permitsPerSecond;
+	private final double capacity;
+	private double tokens;
+	private long lastRefillNanos;
+	
+	/**
+	 * @param permitsPerSecond The sustained number of calls per second (0 or less for no limit).
+	 * @param burst The number of calls that may be made back to back after an idle period.
+	 */
+	public RateLimiter(double permitsPerSecond, int burst) {
+		this.permitsPerSecond = permitsPerSecond;
+		this.capacity = Math.max(1, burst);
+		this.tokens = capacity;
+		this.lastRefillNanos = System.nanoTime();
+	}
+	
+	/**
+	 * @return A limiter that never waits.
+	 */
+	public static RateLimiter unlimited() {
+		return new RateLimiter(0, 1);
+	}
+	
+	/**
+	 * @return true if the limiter actually limits the call rate.
+	 */
+	public boolean isLimited() {
+		return permitsPerSecond > 0;
+	}
+	
+	/**
+	 * Takes one token, waiting until it is available.
+	 *
+	 * @throws InterruptedException if the thread is interrupted while waiting.
+	 */
+	public void acquire() throws InterruptedException {
+		long waitNanos = reserve();
+		if (waitNanos > 0) {
+			TimeUnit.NANOSECONDS.sleep(waitNanos);
+		}
+	}
+	
+	/**
+	 * Takes one token if it is available right now.
+	 *
+	 * @return true if a token was taken.
+	 */
+	public synchronized boolean tryAcquire() {
+		if (!isLimited()) {
+			return true;
+		}
+		refill();
+		if (tokens < 1) {
+			return false;
+		}
+		tokens -= 1;
+		return true;
+	}
+	
+	/**
+	 * Takes one token, letting the bucket go into debt when it is empty.
+	 *
+	 * @return How long the caller has to wait before using the token, in nanoseconds.
+	 */
+	private synchronized long reserve() {
+		if (!isLimited()) {
+			return 0;
+		}
+		refill();
+		tokens -= 1;
+		if (tokens >= 0) {
+			return 0;
+		}
+		return (long) (-tokens / permitsPerSecond * TimeUnit.SECONDS.toNanos(1));
+	}
+	
+	private void refill() {
+		long now = System.nanoTime();
+		double elapsedSeconds = (now - lastRefillNanos) / (double) TimeUnit.SECONDS.toNanos(1);
+		tokens = Math.min(capacity, tokens + elapsedSeconds * permitsPerSecond);
+		lastRefillNanos = now;
+	}
+}
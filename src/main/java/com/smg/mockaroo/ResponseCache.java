@@ -0,0 +1,338 @@
+package com.smg.mockaroo;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Content-addressed disk cache of Mockaroo response bodies.
+ * <p>
+ * Each entry is the decoded body of one request (one chunk of a table), stored
+ * gzip-compressed in a file named after the SHA-256 of everything that determines the
+ * response: the endpoint, the request schema, the row count, the chunk index, the seed
+ * and the format. Entries are written to a temporary file and moved into place once the whole
+ * response has been read, so a partial response is never cached. They are read back
+ * through a memory-mapped view of the file.
+ * <p>
+ * Entries older than the time to live are dropped. When the cache grows over its size
+ * cap, the least recently used entries are evicted first; recency survives between
+ * runs through the last access time of the files.
+ */
+public class ResponseCache {
+	
+	private static final Logger LOGGER = LoggerFactory.getLogger(ResponseCache.class);
+	private static final String ENTRY_SUFFIX = ".gz";
+	private static final int BUFFER_SIZE = 64 * 1024;
+	
+	private final Path directory;
+	private final long maxSizeBytes;
+	private final Duration timeToLive;
+	// Entries in least recently used first order
+	private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+	private long totalSizeBytes;
+	private long hits;
+	private long misses;
+	
+	/**
+	 * Opens the cache in a directory, creating it if needed, and indexes the entries already there.
+	 *
+	 * @param directory The cache directory.
+	 * @param maxSizeBytes The maximum total size of the entries (0 or less for no cap).
+	 * @param timeToLive How long an entry stays valid after it was written.
+	 * @throws IOException if the directory cannot be created or listed.
+	 */
+	public ResponseCache(Path directory, long maxSizeBytes, Duration timeToLive) throws IOException {
+		this.directory = directory;
+		this.maxSizeBytes = maxSizeBytes;
+		this.timeToLive = timeToLive;
+		Files.createDirectories(directory);
+		loadIndex();
+	}
+	
+	/**
+	 * Computes the key of a request.
+	 *
+	 * @param endpoint The URL the request is sent to, so that the responses of another
+	 *                 service (e.g. a stub) are not served for it.
+	 * @param schemaJson The request schema, as JSON text.
+	 * @param count The number of rows requested.
+	 * @param chunkIndex The index of the chunk within its table.
+	 * @param seed The seed of the run; changing it yields new data for the same requests.
+	 * @param format The response format.
+	 * @return The hex SHA-256 of the request.
+	 */
+	public static String key(String endpoint, String schemaJson, int count, int chunkIndex, String seed, String format) {
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			String material = endpoint + '\n' + schemaJson + '\n' + count + '\n' + chunkIndex + '\n'
+				+ (seed == null ? "" : seed) + '\n' + format;
+			return HexFormat.of().formatHex(digest.digest(material.getBytes(StandardCharsets.UTF_8)));
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 is not available", e);
+		}
+	}
+	
+	/**
+	 * Opens the cached body of a request, counting a hit or a miss.
+	 *
+	 * @param key The key of the request.
+	 * @return The decompressed body, or null if the request is not cached (or expired).
+	 */
+	public InputStream open(String key) {
+		Path file;
+		synchronized (this) {
+			Entry entry = entries.get(key);
+			if (entry != null && isExpired(entry)) {
+				remove(key);
+				entry = null;
+			}
+			if (entry == null) {
+				misses++;
+				return null;
+			}
+			hits++;
+			file = entry.file();
+		}
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			touch(file);
+			return new GZIPInputStream(new ByteBufferInputStream(mapped), BUFFER_SIZE);
+		} catch (IOException e) {
+			LOGGER.warn("Could not read cache entry {}: {}", file, e.getMessage());
+			invalidate(key);
+			synchronized (this) {
+				hits--;
+				misses++;
+			}
+			return null;
+		}
+	}
+	
+	/**
+	 * Removes an entry, e.g. one that turned out to be corrupt.
+	 *
+	 * @param key The key of the request.
+	 */
+	public synchronized void invalidate(String key) {
+		remove(key);
+	}
+	
+	/**
+	 * Starts writing the body of a request. Nothing is visible in the cache until the
+	 * returned writer is committed.
+	 *
+	 * @param key The key of the request.
+	 * @return The writer of the entry.
+	 * @throws IOException if the temporary file cannot be created.
+	 */
+	public EntryWriter create(String key) throws IOException {
+		Path temporary = Files.createTempFile(directory, key, ".tmp");
+		return new EntryWriter(key, temporary);
+	}
+	
+	public synchronized long getHits() {
+		return hits;
+	}
+	
+	public synchronized long getMisses() {
+		return misses;
+	}
+	
+	private void loadIndex() throws IOException {
+		List<Path> files;
+		try (Stream<Path> listing = Files.list(directory)) {
+			files = listing.filter(file -> file.getFileName().toString().endsWith(ENTRY_SUFFIX)).toList();
+		}
+		List<Map.Entry<Path, BasicFileAttributes>> found = new ArrayList<>();
+		for (Path file : files) {
+			try {
+				found.add(Map.entry(file, Files.readAttributes(file, BasicFileAttributes.class)));
+			} catch (IOException e) {
+				LOGGER.warn("Skipping unreadable cache entry {}", file);
+			}
+		}
+		found.sort(Comparator.comparing(file -> file.getValue().lastAccessTime()));
+		synchronized (this) {
+			for (Map.Entry<Path, BasicFileAttributes> file : found) {
+				String name = file.getKey().getFileName().toString();
+				String key = name.substring(0, name.length() - ENTRY_SUFFIX.length());
+				entries.put(key, new Entry(file.getKey(), file.getValue().size(), file.getValue().lastModifiedTime().toMillis()));
+				totalSizeBytes += file.getValue().size();
+			}
+			evict(null);
+		}
+	}
+	
+	private synchronized void commit(String key, Path temporary) throws IOException {
+		Path file = directory.resolve(key + ENTRY_SUFFIX);
+		Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		remove(key, false);
+		long size = Files.size(file);
+		entries.put(key, new Entry(file, size, System.currentTimeMillis()));
+		totalSizeBytes += size;
+		evict(key);
+	}
+	
+	/**
+	 * Drops the expired entries, then the least recently used ones while the cache is
+	 * over its size cap.
+	 *
+	 * @param keep A key that must not be evicted (the entry just written), or null.
+	 */
+	private void evict(String keep) {
+		Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+		while (iterator.hasNext()) {
+			Map.Entry<String, Entry> entry = iterator.next();
+			boolean overCap = maxSizeBytes > 0 && totalSizeBytes > maxSizeBytes;
+			if (entry.getKey().equals(keep) || (!overCap && !isExpired(entry.getValue()))) {
+				continue;
+			}
+			iterator.remove();
+			totalSizeBytes -= entry.getValue().size();
+			deleteQuietly(entry.getValue().file());
+		}
+	}
+	
+	private void remove(String key) {
+		remove(key, true);
+	}
+	
+	private void remove(String key, boolean deleteFile) {
+		Entry entry = entries.remove(key);
+		if (entry != null) {
+			totalSizeBytes -= entry.size();
+			if (deleteFile) {
+				deleteQuietly(entry.file());
+			}
+		}
+	}
+	
+	private boolean isExpired(Entry entry) {
+		return timeToLive != null && !timeToLive.isZero() && !timeToLive.isNegative()
+			&& System.currentTimeMillis() - entry.writtenMillis() > timeToLive.toMillis();
+	}
+	
+	private static void touch(Path file) {
+		try {
+			Files.setAttribute(file, "lastAccessTime", FileTime.fromMillis(System.currentTimeMillis()));
+		} catch (IOException | UnsupportedOperationException e) {
+			// Best effort: recency is still tracked in memory for this run
+		}
+	}
+	
+	private static void deleteQuietly(Path file) {
+		try {
+			Files.deleteIfExists(file);
+		} catch (IOException e) {
+			LOGGER.warn("Could not delete cache entry {}: {}", file, e.getMessage());
+		}
+	}
+	
+	private record Entry(Path file, long size, long writtenMillis) {
+	}
+	
+	/**
+	 * Writes the body of one request to a temporary file, compressing it.
+	 */
+	public final class EntryWriter implements AutoCloseable {
+		
+		private final String key;
+		private final Path temporary;
+		private final OutputStream output;
+		private boolean committed;
+		
+		private EntryWriter(String key, Path temporary) throws IOException {
+			this.key = key;
+			this.temporary = temporary;
+			this.output = new GZIPOutputStream(Files.newOutputStream(temporary), BUFFER_SIZE);
+		}
+		
+		public void write(byte[] buffer, int offset, int length) throws IOException {
+			output.write(buffer, offset, length);
+		}
+		
+		/**
+		 * Makes the entry visible in the cache.
+		 *
+		 * @throws IOException if the entry cannot be finished or moved into place.
+		 */
+		public void commit() throws IOException {
+			output.close();
+			ResponseCache.this.commit(key, temporary);
+			committed = true;
+		}
+		
+		/**
+		 * Drops the entry unless it was committed.
+		 */
+		@Override
+		public void close() {
+			if (!committed) {
+				try {
+					output.close();
+				} catch (IOException e) {
+					// The file is deleted anyway
+				}
+				deleteQuietly(temporary);
+			}
+		}
+	}
+	
+	/**
+	 * Reads a (memory-mapped) byte buffer as a stream.
+	 */
+	private static final class ByteBufferInputStream extends InputStream {
+		
+		private final ByteBuffer buffer;
+		
+		private ByteBufferInputStream(ByteBuffer buffer) {
+			this.buffer = buffer;
+		}
+		
+		@Override
+		public int read() {
+			return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+		}
+		
+		@Override
+		public int read(byte[] bytes, int offset, int length) {
+			if (!buffer.hasRemaining()) {
+				return -1;
+			}
+			int n = Math.min(length, buffer.remaining());
+			buffer.get(bytes, offset, n);
+			return n;
+		}
+		
+		@Override
+		public int available() {
+			return buffer.remaining();
+		}
+	}
+}
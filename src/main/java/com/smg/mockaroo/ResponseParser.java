@@ -0,0 +1,27 @@
+package com.smg.mockaroo;
+
+import com.smg.fileio.RowBatchConsumer;
+import com.smg.fileio.TableLayout;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Reads the rows of a Mockaroo response body, in one of the formats the API can
+ * return, and hands them to a consumer in row batches as they are parsed.
+ */
+public interface ResponseParser {
+	
+	/**
+	 * @param input The (already decompressed) response body.
+	 * @param layout The layout of the table the rows belong to.
+	 * @param expectedRows The number of rows requested. A CSV body needs it for tables of a
+	 *                     single column, whose null rows are blank lines.
+	 * @param batchCapacity The maximum number of rows per batch.
+	 * @param consumer The receiver of the batches.
+	 * @return The number of rows handed to the consumer.
+	 * @throws IOException if the response cannot be read or is malformed, or if the consumer fails.
+	 */
+	int parse(InputStream input, TableLayout layout, int expectedRows, int batchCapacity, RowBatchConsumer consumer)
+		throws IOException;
+}
@@ -0,0 +1,167 @@
+package com.smg.mockaroo.stub;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.UUID;
+
+/**
+ * Produces the values of one field of a Mockaroo schema, imitating the Mockaroo type
+ * it names. Only the types and options SMG asks for (and a handful of common ones) are
+ * imitated closely; any other type yields words.
+ * <p>
+ * Values are {@link String}, {@link Long}, {@link Double}, {@link Boolean} or null,
+ * which is how they are written to the JSON response.
+ */
+final class FieldValueGenerator {
+	
+	private static final String[] WORDS = {
+		"lorem", "ipsum", "dolor", "sit", "amet", "consectetur", "adipiscing", "elit", "sed", "do",
+		"eiusmod", "tempor", "incididunt", "ut", "labore", "et", "dolore", "magna", "aliqua", "enim",
+		"minim", "veniam", "quis", "nostrud", "exercitation", "ullamco", "laboris", "nisi", "aliquip", "commodo"
+	};
+	private static final String[] FIRST_NAMES = {
+		"Ada", "Alan", "Barbara", "Claude", "Donald", "Edsger", "Frances", "Grace", "John", "Ken",
+		"Leslie", "Linus", "Margaret", "Niklaus", "Radia", "Shafi", "Sophie", "Tim", "Whitfield", "Yukihiro"
+	};
+	private static final String[] LAST_NAMES = {
+		"Allen", "Backus", "Cerf", "Dijkstra", "Engelbart", "Floyd", "Goldberg", "Hamilton", "Hopper", "Knuth",
+		"Lamport", "Liskov", "Lovelace", "McCarthy", "Perlman", "Ritchie", "Shannon", "Thompson", "Turing", "Wirth"
+	};
+	private static final String[] STREETS = {"Main", "Oak", "Pine", "Maple", "Cedar", "Elm", "Lake", "Hill", "Park", "River"};
+	private static final String[] STREET_SUFFIXES = {"Street", "Avenue", "Road", "Lane", "Drive", "Court", "Way"};
+	private static final String[] CITIES = {"Lisbon", "Madrid", "Paris", "Berlin", "Rome", "Vienna", "Prague", "Dublin", "Oslo", "Warsaw"};
+	private static final String[] STATES = {"Alentejo", "Bavaria", "Brittany", "Catalonia", "Lombardy", "Ontario", "Texas", "Tyrol", "Victoria", "Yorkshire"};
+	private static final String[] COUNTRIES = {"Portugal", "Spain", "France", "Germany", "Italy", "Austria", "Czech Republic", "Ireland", "Norway", "Poland"};
+	private static final String[] DOMAINS = {"example.com", "example.org", "example.net", "mail.test"};
+	private static final String[] COMPANY_SUFFIXES = {"Inc", "Ltd", "Group", "Labs", "Systems", "Partners"};
+	private static final String[] JOB_TITLES = {"Engineer", "Analyst", "Manager", "Accountant", "Designer", "Consultant", "Clerk", "Director"};
+	private static final DateTimeFormatter DEFAULT_DATE_FORMAT = DateTimeFormatter.ofPattern("MM/dd/yyyy");
+	
+	private final String name;
+	private final String type;
+	private final JsonNode field;
+	private final double percentBlank;
+	private final List<String> listValues;
+	
+	FieldValueGenerator(JsonNode field) {
+		this.field = field;
+		this.name = field.path("name").asText();
+		this.type = field.path("type").asText("Words");
+		this.percentBlank = field.path("percentBlank").asDouble(0);
+		this.listValues = new ArrayList<>();
+		field.path("values").forEach(value -> listValues.add(value.asText()));
+	}
+	
+	String getName() {
+		return name;
+	}
+	
+	/**
+	 * @param rowNumber The 1-based number of the row within the response.
+	 * @param random The random source of the response.
+	 * @return The value of the field in that row.
+	 */
+	Object next(long rowNumber, SplittableRandom random) {
+		if (percentBlank > 0 && random.nextDouble() * 100 < percentBlank) {
+			return null;
+		}
+		switch (type) {
+			case "Row Number":
+				return rowNumber;
+			case "Number":
+				return number(random);
+			case "Boolean":
+				return random.nextBoolean();
+			case "Date":
+				return date(random);
+			case "GUID":
+				return new UUID(random.nextLong(), random.nextLong()).toString();
+			case "First Name":
+				return pick(FIRST_NAMES, random);
+			case "Last Name":
+				return pick(LAST_NAMES, random);
+			case "Full Name":
+				return pick(FIRST_NAMES, random) + " " + pick(LAST_NAMES, random);
+			case "Username":
+				return pick(FIRST_NAMES, random).toLowerCase().charAt(0) + pick(LAST_NAMES, random).toLowerCase() + random.nextInt(100);
+			case "Email Address":
+				return pick(FIRST_NAMES, random).toLowerCase() + "." + pick(LAST_NAMES, random).toLowerCase()
+					+ random.nextInt(100) + "@" + pick(DOMAINS, random);
+			case "Phone":
+				return String.format("%03d-%03d-%04d", random.nextInt(200, 1000), random.nextInt(1000), random.nextInt(10000));
+			case "Street Address":
+				return (random.nextInt(1, 10000)) + " " + pick(STREETS, random) + " " + pick(STREET_SUFFIXES, random);
+			case "City":
+				return pick(CITIES, random);
+			case "State":
+				return pick(STATES, random);
+			case "Country":
+				return pick(COUNTRIES, random);
+			case "Postal Code":
+				return String.format("%05d", random.nextInt(100000));
+			case "Company Name":
+				return pick(LAST_NAMES, random) + " " + pick(COMPANY_SUFFIXES, random);
+			case "Job Title":
+				return pick(JOB_TITLES, random);
+			case "Custom List":
+				return listValues.isEmpty() ? null : listValues.get(random.nextInt(listValues.size()));
+			case "Sentences":
+				return sentences(field.path("min").asInt(1), field.path("max").asInt(3), random);
+			case "Paragraphs":
+				return sentences(field.path("min").asInt(1), field.path("max").asInt(3) * 4, random);
+			case "Blank":
+				return null;
+			default:
+				return words(field.path("min").asInt(1), field.path("max").asInt(3), random);
+		}
+	}
+	
+	private Object number(SplittableRandom random) {
+		double min = field.path("min").asDouble(1);
+		double max = field.path("max").asDouble(100);
+		int decimals = field.path("decimals").asInt(0);
+		double value = min + random.nextDouble() * (max - min);
+		if (decimals <= 0) {
+			return Math.round(value);
+		}
+		double scale = Math.pow(10, decimals);
+		return Math.round(value * scale) / scale;
+	}
+	
+	private String date(SplittableRandom random) {
+		LocalDate first = LocalDate.now().minusYears(1);
+		LocalDate day = first.plusDays(random.nextInt(366));
+		return day.format(DEFAULT_DATE_FORMAT);
+	}
+	
+	private static String words(int min, int max, SplittableRandom random) {
+		int count = random.nextInt(Math.max(1, min), Math.max(min, max) + 1);
+		StringBuilder words = new StringBuilder(pick(WORDS, random));
+		for (int i = 1; i < count; i++) {
+			words.append(' ').append(pick(WORDS, random));
+		}
+		return words.toString();
+	}
+	
+	private static String sentences(int min, int max, SplittableRandom random) {
+		int count = random.nextInt(Math.max(1, min), Math.max(min, max) + 1);
+		StringBuilder sentences = new StringBuilder();
+		for (int i = 0; i < count; i++) {
+			String sentence = words(4, 12, random);
+			if (i > 0) {
+				sentences.append(' ');
+			}
+			sentences.append(Character.toUpperCase(sentence.charAt(0))).append(sentence, 1, sentence.length()).append('.');
+		}
+		return sentences.toString();
+	}
+	
+	private static String pick(String[] values, SplittableRandom random) {
+		return values[random.nextInt(values.length)];
+	}
+}
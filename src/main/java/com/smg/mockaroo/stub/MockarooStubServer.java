@@ -0,0 +1,459 @@
+package com.smg.mockaroo.stub;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.smg.mockaroo.RateLimiter;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Local stand-in for the Mockaroo API, used to benchmark and test the Mockaroo path
+ * of SMG without the real service, its quotas and its network variance.
+ * <p>
+ * The server implements the contract {@link com.smg.mockaroo.MockarooClient} relies on:
+ * a POST to {@code /api/generate.json} (or {@code generate.csv}) with the schema in the
+ * body and the number of rows in the {@code count} query parameter, answered with an
+ * array of row objects (a single object when one row is asked for) or CSV rows, gzip
+ * compressed when the client accepts it. Point the client at it with
+ * {@code mockaroo.endpoint=http://127.0.0.1:8089/api/generate.json}.
+ * <p>
+ * The {@link StubSettings} make the behavior repeatable but realistic: a log-normal
+ * latency before each response, a share of server errors, a per-request row cap
+ * (answered with 400), a request rate over which requests are throttled (429) and a
+ * bandwidth limit on the response bodies. A response body can also stall after some
+ * rows, to check that the client gives up on it. The server counts what it served, so
+ * a run can be checked against the requests it should have made.
+ * <p>
+ * Run it on its own with:
+ * {@code java -cp smg.jar com.smg.mockaroo.stub.MockarooStubServer [-option value...]}
+ */
+public class MockarooStubServer implements AutoCloseable {
+	
+	private static final Logger LOGGER = LoggerFactory.getLogger(MockarooStubServer.class);
+	private static final String CONTEXT = "/api/";
+	// z-score of the 99th percentile of the normal distribution
+	private static final double Z_99 = 2.326;
+	private static final int WRITE_BUFFER_SIZE = 16 * 1024;
+	private static final long STALL_PROBE_MILLIS = 20;
+	
+	private final StubSettings settings;
+	private final HttpServer server;
+	private final ExecutorService executor;
+	private final ObjectMapper objectMapper = new ObjectMapper();
+	private final RateLimiter rateLimiter;
+	private final SplittableRandom seeds;
+	private final AtomicLong requests = new AtomicLong();
+	private final AtomicLong rowsServed = new AtomicLong();
+	private final AtomicLong errors = new AtomicLong();
+	private final AtomicLong throttled = new AtomicLong();
+	private final AtomicLong rejected = new AtomicLong();
+	private final AtomicLong stalled = new AtomicLong();
+	
+	/**
+	 * Creates the server and binds it to the port of the settings (0 for any free port)
+	 * of the loopback interface.
+	 *
+	 * @param settings The behavior of the simulated service.
+	 * @throws IOException if the port cannot be bound.
+	 */
+	public MockarooStubServer(StubSettings settings) throws IOException {
+		this.settings = settings;
+		this.rateLimiter = new RateLimiter(settings.getRequestsPerSecond(), settings.getBurst());
+		this.seeds = new SplittableRandom(settings.getSeed());
+		this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), settings.getPort()), 0);
+		this.executor = Executors.newCachedThreadPool(runnable -> {
+			Thread thread = new Thread(runnable, "mockaroo-stub");
+			thread.setDaemon(true);
+			return thread;
+		});
+		server.setExecutor(executor);
+		server.createContext(CONTEXT, this::handle);
+	}
+	
+	public static void main(String[] args) throws IOException {
+		StubSettings settings = new StubSettings();
+		for (int i = 0; i + 1 < args.length; i += 2) {
+			String value = args[i + 1];
+			switch (args[i]) {
+				case "-port" -> settings.setPort(Integer.parseInt(value));
+				case "-latencyMedian" -> settings.setLatencyMedianMillis(Long.parseLong(value));
+				case "-latencyP99" -> settings.setLatencyP99Millis(Long.parseLong(value));
+				case "-errorRate" -> settings.setErrorRate(Double.parseDouble(value));
+				case "-maxRows" -> settings.setMaxRowsPerRequest(Integer.parseInt(value));
+				case "-rate" -> settings.setRequestsPerSecond(Double.parseDouble(value));
+				case "-burst" -> settings.setBurst(Integer.parseInt(value));
+				case "-bandwidth" -> settings.setBytesPerSecond(Long.parseLong(value));
+				case "-stallAfter" -> settings.setStallAfterRows(Integer.parseInt(value));
+				case "-seed" -> settings.setSeed(Long.parseLong(value));
+				default -> LOGGER.warn("Unknown argument: {}", args[i]);
+			}
+		}
+		MockarooStubServer stub = new MockarooStubServer(settings);
+		stub.start();
+		Runtime.getRuntime().addShutdownHook(new Thread(stub::close));
+		LOGGER.info("Mockaroo stub listening on {}", stub.getEndpoint());
+	}
+	
+	public void start() {
+		server.start();
+	}
+	
+	/**
+	 * Stops the server at once, dropping the requests being served.
+	 */
+	@Override
+	public void close() {
+		server.stop(0);
+		executor.shutdownNow();
+	}
+	
+	/**
+	 * @return The URL to configure as {@code mockaroo.endpoint}.
+	 */
+	public String getEndpoint() {
+		return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort() + CONTEXT + "generate.json";
+	}
+	
+	public int getPort() {
+		return server.getAddress().getPort();
+	}
+	
+	public long getRequests() {
+		return requests.get();
+	}
+	
+	public long getRowsServed() {
+		return rowsServed.get();
+	}
+	
+	public long getErrors() {
+		return errors.get();
+	}
+	
+	public long getThrottled() {
+		return throttled.get();
+	}
+	
+	public long getRejected() {
+		return rejected.get();
+	}
+	
+	/**
+	 * @return The number of responses stalled and still held open for their client.
+	 */
+	public long getStalled() {
+		return stalled.get();
+	}
+	
+	private void handle(HttpExchange exchange) throws IOException {
+		try (exchange) {
+			requests.incrementAndGet();
+			String path = exchange.getRequestURI().getPath();
+			boolean csv = path.endsWith("generate.csv");
+			if (!csv && !path.endsWith("generate.json")) {
+				sendError(exchange, 404, "Unknown resource: " + path);
+				return;
+			}
+			if (!"POST".equalsIgnoreCase(exchange.getRequestMethod())) {
+				sendError(exchange, 405, "Only POST is supported.");
+				return;
+			}
+			Map<String, String> query = parseQuery(exchange.getRequestURI());
+			JsonNode request = objectMapper.readTree(exchange.getRequestBody());
+			JsonNode schema = request == null ? null : request.get("schema");
+			int count = parseCount(query.get("count"));
+			
+			// Checked in the order the real service would fail
+			if (schema == null || !schema.isArray()) {
+				rejected.incrementAndGet();
+				sendError(exchange, 400, "The request has no schema.");
+				return;
+			}
+			if (count < 0 || count > settings.getMaxRowsPerRequest()) {
+				rejected.incrementAndGet();
+				sendError(exchange, 400, "count must be between 0 and " + settings.getMaxRowsPerRequest() + ".");
+				return;
+			}
+			if (!rateLimiter.tryAcquire()) {
+				throttled.incrementAndGet();
+				sendError(exchange, 429, "Too many requests.");
+				return;
+			}
+			SplittableRandom random;
+			synchronized (seeds) {
+				random = seeds.split();
+			}
+			sleep(nextLatencyMillis(random));
+			if (settings.getErrorRate() > 0 && random.nextDouble() < settings.getErrorRate()) {
+				errors.incrementAndGet();
+				sendError(exchange, 503, "Simulated server error.");
+				return;
+			}
+			
+			List<FieldValueGenerator> fields = new ArrayList<>();
+			schema.forEach(field -> fields.add(new FieldValueGenerator(field)));
+			boolean gzip = exchange.getRequestHeaders().getOrDefault("Accept-Encoding", List.of()).stream()
+				.anyMatch(encoding -> encoding.toLowerCase().contains("gzip"));
+			exchange.getResponseHeaders().set("Content-Type", csv ? "text/csv" : "application/json");
+			if (gzip) {
+				exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+			}
+			exchange.sendResponseHeaders(200, 0);
+			OutputStream body = new ThrottledOutputStream(exchange.getResponseBody(), settings.getBytesPerSecond());
+			if (gzip) {
+				body = new GZIPOutputStream(body, WRITE_BUFFER_SIZE);
+			}
+			try (OutputStream output = body) {
+				if (csv) {
+					writeCsv(output, fields, count, !"false".equals(query.get("include_header")), random);
+				} else {
+					writeJson(output, fields, count, random);
+				}
+				// Counted before the last bytes are flushed, so the count is final once the client has the rows
+				rowsServed.addAndGet(count);
+			}
+		} catch (IOException e) {
+			// The client went away or sent a malformed request
+			LOGGER.debug("Stub request failed: {}", e.getMessage());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+	
+	/**
+	 * Holds a stalled response open until the client closes the connection or the server
+	 * stops. A byte the parsers of the client skip (a space in JSON, an empty line at the
+	 * end of CSV) is sent now and then, since only a failed write tells that the client is gone.
+	 */
+	private void stall(OutputStream output, boolean csv) throws IOException, InterruptedException {
+		stalled.incrementAndGet();
+		try {
+			while (true) {
+				output.write(csv ? '\n' : ' ');
+				output.flush();
+				TimeUnit.MILLISECONDS.sleep(STALL_PROBE_MILLIS);
+			}
+		} finally {
+			stalled.decrementAndGet();
+		}
+	}
+	
+	/**
+	 * @return The number of rows written before the response stalls.
+	 */
+	private int rowsBeforeStall(int count) {
+		int stallAfterRows = settings.getStallAfterRows();
+		return stallAfterRows >= 0 ? Math.min(count, stallAfterRows) : count;
+	}
+	
+	private void writeJson(OutputStream output, List<FieldValueGenerator> fields, int count, SplittableRandom random)
+		throws IOException, InterruptedException {
+		try (JsonGenerator generator = objectMapper.getFactory().createGenerator(output)) {
+			// Like Mockaroo, a single row is sent as a bare object
+			if (count != 1) {
+				generator.writeStartArray();
+			}
+			int rows = rowsBeforeStall(count);
+			for (long row = 1; row <= rows; row++) {
+				generator.writeStartObject();
+				for (FieldValueGenerator field : fields) {
+					generator.writeFieldName(field.getName());
+					writeJsonValue(generator, field.next(row, random));
+				}
+				generator.writeEndObject();
+			}
+			if (rows < count) {
+				generator.flush();
+				stall(output, false);
+			}
+			if (count != 1) {
+				generator.writeEndArray();
+			}
+		}
+	}
+	
+	private static void writeJsonValue(JsonGenerator generator, Object value) throws IOException {
+		if (value == null) {
+			generator.writeNull();
+		} else if (value instanceof Long number) {
+			generator.writeNumber(number);
+		} else if (value instanceof Double number) {
+			generator.writeNumber(number);
+		} else if (value instanceof Boolean bool) {
+			generator.writeBoolean(bool);
+		} else {
+			generator.writeString(value.toString());
+		}
+	}
+	
+	private void writeCsv(OutputStream output, List<FieldValueGenerator> fields, int count, boolean header,
+						  SplittableRandom random) throws IOException, InterruptedException {
+		Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8), WRITE_BUFFER_SIZE);
+		if (header) {
+			for (int i = 0; i < fields.size(); i++) {
+				writer.write(i == 0 ? "" : ",");
+				writeCsvField(writer, fields.get(i).getName());
+			}
+			writer.write('\n');
+		}
+		int rows = rowsBeforeStall(count);
+		for (long row = 1; row <= rows; row++) {
+			for (int i = 0; i < fields.size(); i++) {
+				writer.write(i == 0 ? "" : ",");
+				Object value = fields.get(i).next(row, random);
+				if (value != null) {
+					writeCsvField(writer, value.toString());
+				}
+			}
+			writer.write('\n');
+		}
+		writer.flush();
+		if (rows < count) {
+			stall(output, true);
+		}
+	}
+	
+	private static void writeCsvField(Writer writer, String value) throws IOException {
+		boolean quote = value.isEmpty() || value.indexOf(',') >= 0 || value.indexOf('"') >= 0
+			|| value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0;
+		if (!quote) {
+			writer.write(value);
+			return;
+		}
+		writer.write('"');
+		writer.write(value.replace("\"", "\"\""));
+		writer.write('"');
+	}
+	
+	private void sendError(HttpExchange exchange, int statusCode, String message) throws IOException {
+		byte[] body = objectMapper.createObjectNode().put("error", message).toString().getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().set("Content-Type", "application/json");
+		exchange.sendResponseHeaders(statusCode, body.length);
+		exchange.getResponseBody().write(body);
+	}
+	
+	/**
+	 * Draws a latency from a log-normal distribution with the configured median and 99th
+	 * percentile, which has the long tail of real network calls.
+	 */
+	private long nextLatencyMillis(SplittableRandom random) {
+		long median = settings.getLatencyMedianMillis();
+		long p99 = settings.getLatencyP99Millis();
+		if (median <= 0 || p99 <= median) {
+			return Math.max(0, median);
+		}
+		double sigma = Math.log((double) p99 / median) / Z_99;
+		return Math.round(median * Math.exp(sigma * nextGaussian(random)));
+	}
+	
+	private static double nextGaussian(SplittableRandom random) {
+		// Box-Muller transform
+		double u = 1.0 - random.nextDouble();
+		double v = random.nextDouble();
+		return Math.sqrt(-2 * Math.log(u)) * Math.cos(2 * Math.PI * v);
+	}
+	
+	private static void sleep(long millis) throws InterruptedException {
+		if (millis > 0) {
+			TimeUnit.MILLISECONDS.sleep(millis);
+		}
+	}
+	
+	private static int parseCount(String count) {
+		if (count == null) {
+			return 1000;
+		}
+		try {
+			return Integer.parseInt(count);
+		} catch (NumberFormatException e) {
+			return -1;
+		}
+	}
+	
+	private static Map<String, String> parseQuery(URI uri) {
+		Map<String, String> query = new HashMap<>();
+		String rawQuery = uri.getRawQuery();
+		if (rawQuery == null) {
+			return query;
+		}
+		for (String parameter : rawQuery.split("&")) {
+			int separator = parameter.indexOf('=');
+			if (separator > 0) {
+				query.put(URLDecoder.decode(parameter.substring(0, separator), StandardCharsets.UTF_8),
+					URLDecoder.decode(parameter.substring(separator + 1), StandardCharsets.UTF_8));
+			}
+		}
+		return query;
+	}
+	
+	/**
+	 * Paces the bytes written through it to a bandwidth.
+	 */
+	private static final class ThrottledOutputStream extends FilterOutputStream {
+		
+		private static final int SLICE = 4096;
+		
+		private final long bytesPerSecond;
+		private final long startNanos = System.nanoTime();
+		private long written;
+		
+		private ThrottledOutputStream(OutputStream output, long bytesPerSecond) {
+			super(output);
+			this.bytesPerSecond = bytesPerSecond;
+		}
+		
+		@Override
+		public void write(int b) throws IOException {
+			write(new byte[] {(byte) b}, 0, 1);
+		}
+		
+		@Override
+		public void write(byte[] buffer, int offset, int length) throws IOException {
+			if (bytesPerSecond <= 0) {
+				out.write(buffer, offset, length);
+				return;
+			}
+			for (int sent = 0; sent < length; sent += SLICE) {
+				int slice = Math.min(SLICE, length - sent);
+				out.write(buffer, offset + sent, slice);
+				written += slice;
+				long dueNanos = startNanos + written * TimeUnit.SECONDS.toNanos(1) / bytesPerSecond;
+				long waitNanos = dueNanos - System.nanoTime();
+				if (waitNanos > 0) {
+					out.flush();
+					try {
+						TimeUnit.NANOSECONDS.sleep(waitNanos);
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+						throw new IOException("Interrupted while throttling the response.", e);
+					}
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,27 @@
+package com.smg.mockaroo.stub;
+
+import lombok.Data;
+
+/**
+ * StubSettings holds the behavior of the {@link MockarooStubServer}: how slow, how
+ * unreliable and how limited the simulated Mockaroo service is.
+ */
+@Data
+public class StubSettings {
+	private int port = 8089;
+	// Response latency, log-normally distributed; a p99 at or below the median gives a fixed latency
+	private long latencyMedianMillis;
+	private long latencyP99Millis;
+	// Share of the requests answered with a server error (0 to 1)
+	private double errorRate;
+	// Largest count accepted per request, like the per-request cap of a Mockaroo plan
+	private int maxRowsPerRequest = 1000;
+	// Requests per second over which the stub answers 429 (0 = no limit)
+	private double requestsPerSecond;
+	private int burst = 1;
+	// Bandwidth of the response bodies in bytes per second (0 = no limit)
+	private long bytesPerSecond;
+	// Rows of each response sent before its body stalls, the connection being kept open (-1 = never)
+	private int stallAfterRows = -1;
+	private long seed;
+}
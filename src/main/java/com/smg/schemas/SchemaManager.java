@@ -1,10 +1,16 @@
 package com.smg.schemas;
 
+import com.smg.schemas.entities.ForeignKey;
 import com.smg.schemas.entities.Schema;
 import com.smg.schemas.entities.Table;
+import com.smg.schemas.ir.SchemaIR;
+import com.smg.schemas.ir.SchemaProjection;
+import com.smg.schemas.snapshot.EntitySchemaCodec;
+import com.smg.schemas.snapshot.SchemaSnapshotCache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.nio.file.Path;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -18,12 +24,24 @@ public class SchemaManager {
 	private static final Logger LOGGER = LoggerFactory.getLogger(SchemaManager.class);
 	private final SchemaLoader schemaLoader;
 	private final SchemaParser schemaParser;
+	private final SchemaSnapshotCache<Schema> schemaCache;
 	private final Map<String, Schema> loadedSchemas;
+	private final Map<String, SchemaIR> loadedSchemaIRs;
 	
 	public SchemaManager() {
+		this(null);
+	}
+	
+	/**
+	 * @param snapshotDirectory The directory of the parsed schema snapshots, or null to parse the schemas on every load.
+	 */
+	public SchemaManager(Path snapshotDirectory) {
 		this.schemaLoader = new SchemaLoader();
 		this.schemaParser = new SchemaParser();
+		this.schemaCache = new SchemaSnapshotCache<>(snapshotDirectory, new EntitySchemaCodec(),
+			SchemaSnapshotCache.versionOf(SchemaParser.class));
 		this.loadedSchemas = new HashMap<>();
+		this.loadedSchemaIRs = new HashMap<>();
 	}
 	
 	/**
@@ -34,9 +52,10 @@ public class SchemaManager {
 		for (String modelName : modelNames) {
 			String sqlContent = schemaLoader.loadSqlContent(modelName);
 			if (sqlContent != null) {
-				Schema schema = schemaParser.parse(modelName, sqlContent);
+				Schema schema = schemaCache.load(modelName, sqlContent, ddl -> schemaParser.parse(modelName, ddl)).schema();
 				loadedSchemas.put(modelName.toUpperCase(), schema);
-				LOGGER.info("Schema '{}' loaded and parsed successfully.", modelName);
+				loadedSchemaIRs.put(modelName.toUpperCase(), SchemaIR.of(schema));
+				LOGGER.info("Schema '{}' loaded successfully.", modelName);
 			}
 		}
 	}
@@ -58,36 +77,34 @@ public class SchemaManager {
 		
 		LOGGER.info("Cleaning schema '{}' for selected tables: {}", modelName, selectedTables);
 		
-		// Convert the list of selected tables to a Set for efficient lookups
-		Set<String> selectedTableSet = selectedTables.stream()
-			.map(String::toUpperCase)
-			.collect(Collectors.toSet());
-		
-		// Create a new schema with only the selected tables
-		Schema cleanedSchema = new Schema(fullSchema.getName());
-		List<Table> tablesToKeep = fullSchema.getTables().stream()
-			.filter(table -> selectedTableSet.contains(table.getName().toUpperCase()))
+		// The projection of the selection tells which tables and foreign keys are kept
+		SchemaIR schemaIR = loadedSchemaIRs.get(modelName.toUpperCase());
+		List<String> knownTables = selectedTables.stream()
+			.filter(tableName -> schemaIR.findTable(tableName) != SchemaIR.NOT_FOUND)
 			.collect(Collectors.toList());
+		SchemaProjection projection = schemaIR.project(knownTables);
 		
-		// Process each table to remove foreign keys referencing unselected tables
-		for (Table table : tablesToKeep) {
+		// Create a new schema with only the selected tables, in schema order
+		Schema cleanedSchema = new Schema(fullSchema.getName());
+		for (int t = 0; t < schemaIR.getTableCount(); t++) {
+			if (!projection.isSelected(t)) {
+				continue;
+			}
+			Table table = fullSchema.getTables().get(t);
 			Table newTable = new Table(table.getName());
 			newTable.setColumns(new ArrayList<>(table.getColumns())); // Copy all columns
 			
-			// Filter foreign keys
-			List<String> foreignKeysRemoved = new ArrayList<>();
-			table.getForeignKeys().stream()
-				.filter(fk -> selectedTableSet.contains(fk.getReferencedTable().toUpperCase()))
-				.forEach(fk -> newTable.addForeignKey(fk));
-			
-			// Log which foreign keys were removed
-			table.getForeignKeys().stream()
-				.filter(fk -> !selectedTableSet.contains(fk.getReferencedTable().toUpperCase()))
-				.forEach(fk -> {
+			// Filter foreign keys, logging which ones are removed
+			int firstForeignKey = schemaIR.getFirstForeignKey(t);
+			for (int fk = firstForeignKey; fk < schemaIR.getForeignKeyEnd(t); fk++) {
+				ForeignKey foreignKey = table.getForeignKeys().get(fk - firstForeignKey);
+				if (projection.isForeignKeyKept(fk)) {
+					newTable.addForeignKey(foreignKey);
+				} else {
 					LOGGER.warn("Removing foreign key '{}' from table '{}' because it references non-selected table '{}'.",
-						fk.getName(), table.getName(), fk.getReferencedTable());
-					foreignKeysRemoved.add(fk.getName());
-				});
+						foreignKey.getName(), table.getName(), foreignKey.getReferencedTable());
+				}
+			}
 			
 			cleanedSchema.addTable(newTable);
 		}
@@ -104,4 +121,14 @@ public class SchemaManager {
 	public Schema getSchema(String name) {
 		return loadedSchemas.get(name.toUpperCase());
 	}
+	
+	/**
+	 * Retrieves the array-backed representation of a previously loaded schema, whose
+	 * projections are shared by everything generated for the same table selection.
+	 * @param name The name of the schema.
+	 * @return The SchemaIR object, or null if not found.
+	 */
+	public SchemaIR getSchemaIR(String name) {
+		return loadedSchemaIRs.get(name.toUpperCase());
+	}
 }
\ No newline at end of file
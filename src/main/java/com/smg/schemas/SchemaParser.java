@@ -4,32 +4,37 @@ import com.smg.schemas.entities.Column;
 import com.smg.schemas.entities.ForeignKey;
 import com.smg.schemas.entities.Schema;
 import com.smg.schemas.entities.Table;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import com.smg.sqlparser.parser.SQL99.CreateTableScanner;
+import com.smg.sqlparser.parser.SQL99.CreateTableScanner.ScannedColumn;
+import com.smg.sqlparser.parser.SQL99.CreateTableScanner.ScannedForeignKey;
+import com.smg.sqlparser.parser.SQL99.CreateTableScanner.ScannedTable;
+import com.smg.sqlparser.parser.SQL99.SqlStatementSplitter;
+import net.sf.jsqlparser.parser.CCJSqlParserUtil;
+import net.sf.jsqlparser.statement.Statement;
+import net.sf.jsqlparser.statement.create.table.ColDataType;
+import net.sf.jsqlparser.statement.create.table.ColumnDefinition;
+import net.sf.jsqlparser.statement.create.table.CreateTable;
+import net.sf.jsqlparser.statement.create.table.ForeignKeyIndex;
+import net.sf.jsqlparser.statement.create.table.Index;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.util.List;
 
 /**
  * SchemaParser is responsible for parsing SQL DDL statements to build a Schema object.
  * It identifies tables, columns, and foreign key constraints from the SQL file content.
+ * <p>
+ * The content is split into statements, and each CREATE TABLE statement is read in a
+ * single pass by the {@link CreateTableScanner}. Statements the scanner does not handle
+ * are parsed by JSqlParser instead; those neither can parse are skipped with a warning.
  */
 public class SchemaParser {
 	
-	// Regex para capturar la tabla, las columnas y las constraints
-	private static final Pattern CREATE_TABLE_PATTERN = Pattern.compile(
-		"CREATE\\s+TABLE\\s+\"?(\\w+)\"?\\s*\\((.*?)\\);",
-		Pattern.DOTALL | Pattern.CASE_INSENSITIVE
-	);
-	
-	// Regex para capturar columnas dentro de la tabla
-	private static final Pattern COLUMN_PATTERN = Pattern.compile(
-		"\"?(\\w+)\"?\\s+([a-zA-Z0-9_\\s]+?)(?:,|$)",
-		Pattern.CASE_INSENSITIVE
-	);
-	
-	// Regex para capturar constraints de clave foránea
-	private static final Pattern FOREIGN_KEY_PATTERN = Pattern.compile(
-		"CONSTRAINT\\s+\"?(\\w+)\"?\\s+FOREIGN\\s+KEY\\s+\\(\"?(\\w+)\"?\\)\\s+REFERENCES\\s+\"?(\\w+)\"?\\s*\\(\"?(\\w+)\"?\\)",
-		Pattern.CASE_INSENSITIVE
-	);
+	private static final Logger LOGGER = LoggerFactory.getLogger(SchemaParser.class);
 	
 	/**
 	 * Parses the SQL content of a given model and builds a Schema object.
@@ -40,36 +45,109 @@ public class SchemaParser {
 	 */
 	public Schema parse(String modelName, String sqlContent) {
 		Schema schema = new Schema(modelName);
-		Matcher tableMatcher = CREATE_TABLE_PATTERN.matcher(sqlContent);
+		try (SqlStatementSplitter splitter = new SqlStatementSplitter(new StringReader(sqlContent))) {
+			String sql;
+			while ((sql = splitter.nextStatement()) != null) {
+				if (!CreateTableScanner.isCreateTable(sql)) {
+					continue;
+				}
+				ScannedTable scanned = CreateTableScanner.scan(sql);
+				Table table = scanned != null ? toTable(scanned) : parseWithJSqlParser(sql);
+				if (table != null) {
+					schema.addTable(table);
+				}
+			}
+		} catch (IOException e) {
+			// A string reader does not fail
+			throw new UncheckedIOException(e);
+		}
+		return schema;
+	}
+	
+	private static Table toTable(ScannedTable scanned) {
+		Table table = new Table(unquote(scanned.name()));
+		for (ScannedColumn column : scanned.columns()) {
+			table.addColumn(new Column(unquote(column.name()), column.typeText()));
+			if (column.referencedTable() != null && column.referencedColumn() != null) {
+				addForeignKey(table, null, column.name(), column.referencedTable(), column.referencedColumn());
+			}
+		}
+		for (ScannedForeignKey foreignKey : scanned.foreignKeys()) {
+			addForeignKeys(table, foreignKey.name(), foreignKey.columns(), foreignKey.referencedTable(), foreignKey.referencedColumns());
+		}
+		return table;
+	}
+	
+	/**
+	 * Parses a CREATE TABLE statement the scanner does not handle.
+	 *
+	 * @return The table, or null if the statement cannot be parsed.
+	 */
+	private static Table parseWithJSqlParser(String sql) {
+		Statement statement;
+		try {
+			statement = CCJSqlParserUtil.newParser(sql).Statement();
+		} catch (Exception e) {
+			LOGGER.warn("Skipping a CREATE TABLE statement that cannot be parsed: {}", e.getMessage());
+			return null;
+		}
+		if (!(statement instanceof CreateTable createTable)) {
+			return null;
+		}
 		
-		while (tableMatcher.find()) {
-			String tableName = tableMatcher.group(1);
-			String tableContent = tableMatcher.group(2);
-			
-			Table table = new Table(tableName);
-			
-			// Parsear columnas
-			Matcher columnMatcher = COLUMN_PATTERN.matcher(tableContent);
-			while (columnMatcher.find()) {
-				String columnName = columnMatcher.group(1);
-				String dataType = columnMatcher.group(2).trim();
-				if (!dataType.toLowerCase().startsWith("constraint")) { // Ignorar las constraints al principio
-					table.addColumn(new Column(columnName, dataType));
+		Table table = new Table(unquote(createTable.getTable().getName()));
+		if (createTable.getColumnDefinitions() != null) {
+			for (ColumnDefinition definition : createTable.getColumnDefinitions()) {
+				table.addColumn(new Column(unquote(definition.getColumnName()), toTypeText(definition.getColDataType())));
+			}
+		}
+		if (createTable.getIndexes() != null) {
+			for (Index index : createTable.getIndexes()) {
+				if (index instanceof ForeignKeyIndex foreignKey) {
+					List<String> columns = foreignKey.getColumns().stream()
+						.map(Index.ColumnParams::getColumnName)
+						.toList();
+					addForeignKeys(table, foreignKey.getName(), columns, foreignKey.getTable().getName(), foreignKey.getReferencedColumnNames());
 				}
 			}
-			
-			// Parsear claves foráneas
-			Matcher fkMatcher = FOREIGN_KEY_PATTERN.matcher(tableContent);
-			while (fkMatcher.find()) {
-				String fkName = fkMatcher.group(1);
-				String columnName = fkMatcher.group(2);
-				String referencedTable = fkMatcher.group(3);
-				String referencedColumn = fkMatcher.group(4);
-				table.addForeignKey(new ForeignKey(fkName, columnName, referencedTable, referencedColumn));
+		}
+		return table;
+	}
+	
+	private static String toTypeText(ColDataType dataType) {
+		List<String> arguments = dataType.getArgumentsStringList();
+		return arguments == null || arguments.isEmpty()
+			? dataType.getDataType()
+			: dataType.getDataType() + "(" + String.join(",", arguments) + ")";
+	}
+	
+	/**
+	 * Adds a foreign key per column of a possibly composite key, as the model links single columns.
+	 */
+	private static void addForeignKeys(Table table, String name, List<String> columns, String referencedTable, List<String> referencedColumns) {
+		for (int i = 0; i < columns.size() && i < referencedColumns.size(); i++) {
+			addForeignKey(table, name, columns.get(i), referencedTable, referencedColumns.get(i));
+		}
+	}
+	
+	private static void addForeignKey(Table table, String name, String column, String referencedTable, String referencedColumn) {
+		String columnName = unquote(column);
+		// Unnamed keys get a name, like the generated constraint names of the DDL
+		String fkName = name != null ? unquote(name) : "FK_" + table.getName() + "_" + columnName;
+		table.addForeignKey(new ForeignKey(fkName, columnName, unquote(referencedTable), unquote(referencedColumn)));
+	}
+	
+	/**
+	 * Removes the quotes of a quoted identifier.
+	 */
+	private static String unquote(String name) {
+		if (name != null && name.length() >= 2) {
+			char first = name.charAt(0);
+			char last = name.charAt(name.length() - 1);
+			if ((first == '"' && last == '"') || (first == '`' && last == '`') || (first == '[' && last == ']')) {
+				return name.substring(1, name.length() - 1);
 			}
-			
-			schema.addTable(table);
 		}
-		return schema;
+		return name;
 	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,125 @@
+package com.smg.schemas.ir;
+
+import java.util.Arrays;
+
+/**
+ * The order in which the tables of a selection are created and loaded so that no
+ * foreign key is violated, as computed by the {@link LoadPlanner}.
+ * <p>
+ * The tables are grouped in waves: the tables of a wave only reference tables of
+ * earlier waves, so a loader can load all the tables of a wave in parallel once the
+ * previous wave is done. Tables are dropped and truncated in the reverse order.
+ * <p>
+ * Foreign keys that close a cycle cannot be satisfied by any order. Those whose columns
+ * are nullable, in a table with a primary key, are deferred: their columns are loaded
+ * as NULL and set by UPDATE statements once every wave is loaded, and their constraints
+ * are added after every table is created. The others are unresolved: the loader has to
+ * disable their constraints while loading.
+ */
+public final class LoadPlan {
+	
+	private final SchemaProjection projection;
+	private final int[] loadOrder;
+	private final int[] waveStart;
+	private final int[] deferredForeignKeys;
+	private final int[] unresolvedForeignKeys;
+	private final long[] deferredMask;
+	private final long[] unresolvedMask;
+	
+	LoadPlan(SchemaProjection projection, int[] loadOrder, int[] waveStart, int[] deferredForeignKeys, int[] unresolvedForeignKeys) {
+		this.projection = projection;
+		this.loadOrder = loadOrder;
+		this.waveStart = waveStart;
+		this.deferredForeignKeys = deferredForeignKeys;
+		this.unresolvedForeignKeys = unresolvedForeignKeys;
+		int foreignKeyCount = projection.getSchema().getForeignKeyCount();
+		this.deferredMask = new long[SchemaIR.maskLength(foreignKeyCount)];
+		this.unresolvedMask = new long[SchemaIR.maskLength(foreignKeyCount)];
+		for (int fk : deferredForeignKeys) {
+			SchemaIR.set(deferredMask, fk);
+		}
+		for (int fk : unresolvedForeignKeys) {
+			SchemaIR.set(unresolvedMask, fk);
+		}
+	}
+	
+	public SchemaProjection getProjection() {
+		return projection;
+	}
+	
+	/**
+	 * @return The number of tables of the plan, that is of the selection.
+	 */
+	public int getTableCount() {
+		return loadOrder.length;
+	}
+	
+	/**
+	 * @return The id of the {@code index}-th table to load.
+	 */
+	public int getLoadTable(int index) {
+		return loadOrder[index];
+	}
+	
+	/**
+	 * @return The id of the {@code index}-th table to drop or truncate, the reverse of the load order.
+	 */
+	public int getUnloadTable(int index) {
+		return loadOrder[loadOrder.length - 1 - index];
+	}
+	
+	public int getWaveCount() {
+		return waveStart.length - 1;
+	}
+	
+	/**
+	 * @return The index, in the load order, of the first table of a wave.
+	 */
+	public int getFirstWaveTable(int wave) {
+		return waveStart[wave];
+	}
+	
+	/**
+	 * @return The index, in the load order, after the last table of a wave.
+	 */
+	public int getWaveEnd(int wave) {
+		return waveStart[wave + 1];
+	}
+	
+	/**
+	 * @return The ids of the tables of a wave, in selection order.
+	 */
+	public int[] getWave(int wave) {
+		return Arrays.copyOfRange(loadOrder, waveStart[wave], waveStart[wave + 1]);
+	}
+	
+	/**
+	 * @return The ids of the foreign keys loaded as NULL and set once every wave is loaded, in load order.
+	 */
+	public int[] getDeferredForeignKeys() {
+		return deferredForeignKeys.clone();
+	}
+	
+	/**
+	 * @return The ids of the foreign keys of cycles that could not be deferred, in load order.
+	 */
+	public int[] getUnresolvedForeignKeys() {
+		return unresolvedForeignKeys.clone();
+	}
+	
+	public boolean isDeferred(int foreignKey) {
+		return SchemaIR.get(deferredMask, foreignKey);
+	}
+	
+	public boolean isUnresolved(int foreignKey) {
+		return SchemaIR.get(unresolvedMask, foreignKey);
+	}
+	
+	/**
+	 * @return true if the constraint of the foreign key is added once every table is created,
+	 *         because it is deferred or unresolved.
+	 */
+	public boolean isAddedAfterCreate(int foreignKey) {
+		return isDeferred(foreignKey) || isUnresolved(foreignKey);
+	}
+}
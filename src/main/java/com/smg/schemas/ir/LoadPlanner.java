@@ -0,0 +1,336 @@
+package com.smg.schemas.ir;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Computes the {@link LoadPlan} of a table selection from the foreign keys its
+ * {@link SchemaProjection} keeps.
+ * <p>
+ * The selected tables and the foreign keys between them form a graph where each table
+ * points to the tables it references. Planning takes three steps, each linear in the
+ * size of the graph except for the ordering of the tables of a cycle:
+ * <ol>
+ *   <li>The strongly connected components of the graph are found with Tarjan's algorithm.
+ *       Foreign keys between components never close a cycle and are always kept.</li>
+ *   <li>The tables of each component with more than one table are ordered by Kahn's
+ *       algorithm over the foreign keys that cannot be deferred, taking first the table
+ *       that references the fewest tables not placed yet. The foreign keys to tables
+ *       placed later are deferred, or unresolved if they cannot be.</li>
+ *   <li>What is left is acyclic, and each table goes in the wave after the last wave
+ *       of the tables it references.</li>
+ * </ol>
+ * A foreign key can be deferred when its columns are nullable and its table has a
+ * primary key the deferred UPDATE statements can find the rows by. A foreign key of a
+ * table to itself does not constrain the order and is left as is.
+ */
+public final class LoadPlanner {
+	
+	private static final Logger LOGGER = LoggerFactory.getLogger(LoadPlanner.class);
+	
+	private static final byte KEPT = 0;
+	private static final byte DEFERRED = 1;
+	private static final byte UNRESOLVED = 2;
+	
+	private LoadPlanner() {
+	}
+	
+	/**
+	 * Plans the load of a table selection. Prefer {@link SchemaProjection#getLoadPlan()},
+	 * which plans a selection once.
+	 *
+	 * @param projection the projection of the selected tables
+	 * @return the load plan of the selected tables
+	 */
+	public static LoadPlan plan(SchemaProjection projection) {
+		SchemaIR schema = projection.getSchema();
+		int n = projection.getTableCount();
+		int[] localOf = new int[schema.getTableCount()];
+		Arrays.fill(localOf, -1);
+		for (int i = 0; i < n; i++) {
+			localOf[projection.getTable(i)] = i;
+		}
+		
+		// One edge per kept foreign key, from the referencing table to the referenced one
+		int edgeCount = 0;
+		for (int i = 0; i < n; i++) {
+			int table = projection.getTable(i);
+			for (int fk = schema.getFirstForeignKey(table); fk < schema.getForeignKeyEnd(table); fk++) {
+				if (projection.isForeignKeyKept(fk) && schema.getForeignKeyTargetTable(fk) != table) edgeCount++;
+			}
+		}
+		int[] edgeChild = new int[edgeCount];
+		int[] edgeParent = new int[edgeCount];
+		int[] edgeForeignKey = new int[edgeCount];
+		boolean[] edgeDeferrable = new boolean[edgeCount];
+		for (int i = 0, edge = 0; i < n; i++) {
+			int table = projection.getTable(i);
+			boolean findable = hasKeptPrimaryKey(projection, table);
+			for (int fk = schema.getFirstForeignKey(table); fk < schema.getForeignKeyEnd(table); fk++) {
+				if (projection.isForeignKeyKept(fk) && schema.getForeignKeyTargetTable(fk) != table) {
+					edgeChild[edge] = i;
+					edgeParent[edge] = localOf[schema.getForeignKeyTargetTable(fk)];
+					edgeForeignKey[edge] = fk;
+					edgeDeferrable[edge] = findable && hasNullableColumns(schema, fk);
+					edge++;
+				}
+			}
+		}
+		int[] childStart = new int[n + 1];
+		int[] childEdges = groupEdges(edgeChild, n, childStart);
+		int[] parentStart = new int[n + 1];
+		int[] parentEdges = groupEdges(edgeParent, n, parentStart);
+		
+		// 1. Strongly connected components
+		int[] component = stronglyConnectedComponents(n, childStart, childEdges, edgeParent);
+		
+		// 2. Order the tables of each cycle, deferring the foreign keys to tables placed after theirs
+		byte[] edgeState = new byte[edgeCount];
+		int[] componentSize = new int[n];
+		for (int i = 0; i < n; i++) {
+			componentSize[component[i]]++;
+		}
+		boolean[] ordered = new boolean[n];
+		for (int i = 0; i < n; i++) {
+			if (!ordered[component[i]] && componentSize[component[i]] > 1) {
+				ordered[component[i]] = true;
+				breakCycles(i, component, childStart, childEdges, parentStart, parentEdges,
+					edgeChild, edgeParent, edgeDeferrable, edgeState);
+			}
+		}
+		
+		// 3. Waves over the kept foreign keys, now acyclic
+		int[] pending = new int[n];
+		for (int edge = 0; edge < edgeCount; edge++) {
+			if (edgeState[edge] == KEPT) pending[edgeChild[edge]]++;
+		}
+		int[] level = new int[n];
+		int[] queue = new int[n];
+		int head = 0;
+		int tail = 0;
+		for (int i = 0; i < n; i++) {
+			if (pending[i] == 0) queue[tail++] = i;
+		}
+		int waveCount = n == 0 ? 0 : 1;
+		while (head < tail) {
+			int parent = queue[head++];
+			for (int e = parentStart[parent]; e < parentStart[parent + 1]; e++) {
+				int edge = parentEdges[e];
+				if (edgeState[edge] != KEPT) continue;
+				int child = edgeChild[edge];
+				level[child] = Math.max(level[child], level[parent] + 1);
+				waveCount = Math.max(waveCount, level[child] + 1);
+				if (--pending[child] == 0) queue[tail++] = child;
+			}
+		}
+		if (tail != n) {
+			throw new IllegalStateException("Cycle left in the load plan of " + schema.getName());
+		}
+		
+		int[] waveStart = new int[waveCount + 1];
+		for (int i = 0; i < n; i++) {
+			waveStart[level[i] + 1]++;
+		}
+		for (int wave = 0; wave < waveCount; wave++) {
+			waveStart[wave + 1] += waveStart[wave];
+		}
+		int[] next = Arrays.copyOf(waveStart, waveCount);
+		int[] loadOrder = new int[n];
+		for (int i = 0; i < n; i++) {
+			loadOrder[next[level[i]]++] = projection.getTable(i);
+		}
+		
+		byte[] foreignKeyState = new byte[schema.getForeignKeyCount()];
+		for (int edge = 0; edge < edgeCount; edge++) {
+			foreignKeyState[edgeForeignKey[edge]] = edgeState[edge];
+		}
+		List<Integer> deferred = new ArrayList<>();
+		List<Integer> unresolved = new ArrayList<>();
+		for (int table : loadOrder) {
+			for (int fk = schema.getFirstForeignKey(table); fk < schema.getForeignKeyEnd(table); fk++) {
+				if (foreignKeyState[fk] == DEFERRED) deferred.add(fk);
+				if (foreignKeyState[fk] == UNRESOLVED) unresolved.add(fk);
+			}
+		}
+		if (!unresolved.isEmpty()) {
+			LOGGER.warn("Foreign keys {} close cycles of NOT NULL columns in '{}'; their constraints must be disabled while loading.",
+				unresolved.stream().map(fk -> describe(schema, fk)).toList(), schema.getName());
+		}
+		
+		return new LoadPlan(projection, loadOrder, waveStart,
+			deferred.stream().mapToInt(Integer::intValue).toArray(),
+			unresolved.stream().mapToInt(Integer::intValue).toArray());
+	}
+	
+	/**
+	 * Finds the strongly connected components with Tarjan's algorithm, without recursion
+	 * so that long chains of foreign keys do not overflow the stack.
+	 *
+	 * @return the component of each table
+	 */
+	static int[] stronglyConnectedComponents(int n, int[] childStart, int[] childEdges, int[] edgeParent) {
+		int[] index = new int[n];
+		int[] low = new int[n];
+		int[] component = new int[n];
+		boolean[] onStack = new boolean[n];
+		int[] stack = new int[n];
+		int[] callStack = new int[n];
+		int[] nextEdge = new int[n];
+		Arrays.fill(index, -1);
+		int counter = 0;
+		int componentCount = 0;
+		int stackSize = 0;
+		
+		for (int root = 0; root < n; root++) {
+			if (index[root] != -1) continue;
+			int calls = 0;
+			index[root] = low[root] = counter++;
+			stack[stackSize++] = root;
+			onStack[root] = true;
+			callStack[calls] = root;
+			nextEdge[calls++] = childStart[root];
+			
+			while (calls > 0) {
+				int v = callStack[calls - 1];
+				if (nextEdge[calls - 1] < childStart[v + 1]) {
+					int w = edgeParent[childEdges[nextEdge[calls - 1]++]];
+					if (index[w] == -1) {
+						index[w] = low[w] = counter++;
+						stack[stackSize++] = w;
+						onStack[w] = true;
+						callStack[calls] = w;
+						nextEdge[calls++] = childStart[w];
+					} else if (onStack[w]) {
+						low[v] = Math.min(low[v], index[w]);
+					}
+					continue;
+				}
+				
+				calls--;
+				if (calls > 0) {
+					int caller = callStack[calls - 1];
+					low[caller] = Math.min(low[caller], low[v]);
+				}
+				if (low[v] == index[v]) {
+					int w;
+					do {
+						w = stack[--stackSize];
+						onStack[w] = false;
+						component[w] = componentCount;
+					} while (w != v);
+					componentCount++;
+				}
+			}
+		}
+		return component;
+	}
+	
+	/**
+	 * Orders the tables of a cycle by Kahn's algorithm over the foreign keys that cannot
+	 * be deferred, taking the table with the fewest deferrable references to tables not
+	 * placed yet, then the first selected. When every table is waiting on a foreign key
+	 * that cannot be deferred, the one waiting on the fewest is taken and those are
+	 * unresolved. The references to tables placed later are deferred.
+	 */
+	private static void breakCycles(int first, int[] component, int[] childStart, int[] childEdges, int[] parentStart, int[] parentEdges,
+		int[] edgeChild, int[] edgeParent, boolean[] edgeDeferrable, byte[] edgeState) {
+		int id = component[first];
+		List<Integer> members = new ArrayList<>();
+		for (int i = first; i < component.length; i++) {
+			if (component[i] == id) members.add(i);
+		}
+		
+		int[] hardRemaining = new int[component.length];
+		int[] softRemaining = new int[component.length];
+		for (int member : members) {
+			for (int e = childStart[member]; e < childStart[member + 1]; e++) {
+				int edge = childEdges[e];
+				if (component[edgeParent[edge]] != id) continue;
+				if (edgeDeferrable[edge]) softRemaining[member]++;
+				else hardRemaining[member]++;
+			}
+		}
+		
+		boolean[] placed = new boolean[component.length];
+		for (int step = 0; step < members.size(); step++) {
+			int best = -1;
+			for (int member : members) {
+				if (!placed[member] && hardRemaining[member] == 0
+					&& (best == -1 || softRemaining[member] < softRemaining[best])) {
+					best = member;
+				}
+			}
+			if (best == -1) {
+				for (int member : members) {
+					if (!placed[member] && (best == -1 || hardRemaining[member] < hardRemaining[best])) {
+						best = member;
+					}
+				}
+			}
+			
+			placed[best] = true;
+			for (int e = childStart[best]; e < childStart[best + 1]; e++) {
+				int edge = childEdges[e];
+				int parent = edgeParent[edge];
+				if (component[parent] == id && !placed[parent]) {
+					edgeState[edge] = edgeDeferrable[edge] ? DEFERRED : UNRESOLVED;
+				}
+			}
+			for (int e = parentStart[best]; e < parentStart[best + 1]; e++) {
+				int edge = parentEdges[e];
+				int child = edgeChild[edge];
+				if (component[child] == id && !placed[child]) {
+					if (edgeDeferrable[edge]) softRemaining[child]--;
+					else hardRemaining[child]--;
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Groups the edges by one of their ends, as a counting sort.
+	 *
+	 * @param end   the end of each edge
+	 * @param n     the number of tables
+	 * @param start receives where the edges of each table start in the result
+	 * @return the edges, grouped by table
+	 */
+	private static int[] groupEdges(int[] end, int n, int[] start) {
+		for (int table : end) {
+			start[table + 1]++;
+		}
+		for (int i = 0; i < n; i++) {
+			start[i + 1] += start[i];
+		}
+		int[] next = Arrays.copyOf(start, n);
+		int[] edges = new int[end.length];
+		for (int edge = 0; edge < end.length; edge++) {
+			edges[next[end[edge]]++] = edge;
+		}
+		return edges;
+	}
+	
+	private static boolean hasKeptPrimaryKey(SchemaProjection projection, int table) {
+		SchemaIR schema = projection.getSchema();
+		if (schema.getPrimaryKeyColumnCount(table) == 0) return false;
+		for (int i = 0; i < schema.getPrimaryKeyColumnCount(table); i++) {
+			if (!projection.isColumnKept(schema.getPrimaryKeyColumn(table, i))) return false;
+		}
+		return true;
+	}
+	
+	private static boolean hasNullableColumns(SchemaIR schema, int fk) {
+		for (int i = 0; i < schema.getForeignKeyColumnCount(fk); i++) {
+			if (!schema.isNullable(schema.getForeignKeySourceColumn(fk, i))) return false;
+		}
+		return true;
+	}
+	
+	private static String describe(SchemaIR schema, int fk) {
+		return schema.getTableName(schema.getForeignKeySourceTable(fk)) + " -> " + schema.getForeignKeyTargetTableName(fk);
+	}
+}
@@ -0,0 +1,711 @@
+package com.smg.schemas.ir;
+
+import com.smg.fileio.ColumnKind;
+import com.smg.schemas.entities.Schema;
+import com.smg.sqlparser.domain.sql.SymbolTable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Immutable, array-backed representation of a schema, read by every subsystem that
+ * works on the tables once they are parsed: the data generator, the Mockaroo planner,
+ * the DDL writer and the diagrams.
+ * <p>
+ * Tables, columns, foreign keys and unique constraints are numbered from 0 and stored in
+ * flat arrays instead of object graphs:
+ * <ul>
+ *   <li>The columns of table {@code t} are the ids {@link #getFirstColumn(int) getFirstColumn(t)}
+ *       to {@link #getColumnEnd(int) getColumnEnd(t)} (excluded), in declaration order, and so
+ *       are its foreign keys and unique constraints.</li>
+ *   <li>The nullability, inline uniqueness, kind and declared length of a column are packed
+ *       in a single {@code long}.</li>
+ *   <li>The primary key and unique columns are bit masks over the column ids.</li>
+ *   <li>The foreign keys are resolved to table and column ids, and the foreign keys that
+ *       reference every table are precomputed, so the schema can be walked both ways.</li>
+ * </ul>
+ * Nothing is copied when the schema is read, and as it never changes after it is built,
+ * it can be shared between threads without locking.
+ * <p>
+ * A schema is built by a {@link Builder}, or from either of the parsed models with
+ * {@link #of(Schema)} and {@link #of(com.smg.sqlparser.domain.sql.Schema)}. The part of
+ * it a table selection keeps is given by {@link #project(Collection)}.
+ */
+public final class SchemaIR {
+	
+	/** Returned for a name that is not in the schema, and for unresolved references **/
+	public static final int NOT_FOUND = SymbolTable.NOT_FOUND;
+	
+	// Packed column attributes: flags in the low byte, the kind in the next one, the declared length in the high int
+	private static final long NULLABLE = 1;
+	private static final long DECLARED_UNIQUE = 1 << 1;
+	private static final long FOREIGN_KEY = 1 << 2;
+	private static final int KIND_SHIFT = 8;
+	private static final int LENGTH_SHIFT = 32;
+	private static final ColumnKind[] KINDS = ColumnKind.values();
+	private static final Pattern LENGTH = Pattern.compile("\\(\\s*(\\d+)");
+	// Selections whose projection is kept
+	private static final int MAX_PROJECTIONS = 32;
+	
+	private final String name;
+	
+	private final String[] tableNames;
+	private final SymbolTable tableSymbols;
+	private final SymbolTable[] columnSymbols;
+	// The table, and the column index within its table, of every symbol: names that differ only in case share a symbol
+	private final int[] tableBySymbol;
+	private final int[][] columnBySymbol;
+	private final int[] columnStart;
+	private final int[] foreignKeyStart;
+	private final int[] uniqueStart;
+	private final int[] primaryKeyStart;
+	private final int[] primaryKeyColumns;
+	private final int[] referencingStart;
+	private final int[] referencingForeignKeys;
+	
+	private final String[] columnNames;
+	private final String[] columnTypes;
+	private final long[] columnAttributes;
+	private final int[] columnTables;
+	private final int[] columnForeignKeys;
+	private final long[] primaryKeyMask;
+	private final long[] uniqueMask;
+	
+	private final String[] foreignKeyNames;
+	private final int[] foreignKeySourceTables;
+	private final int[] foreignKeyTargetTables;
+	private final String[] foreignKeyTargetTableNames;
+	private final int[] foreignKeyColumnStart;
+	private final int[] foreignKeySourceColumns;
+	private final int[] foreignKeyTargetColumns;
+	
+	private final String[] uniqueNames;
+	private final int[] uniqueColumnStart;
+	private final int[] uniqueColumns;
+	
+	// Projections of the recent selections, by key; derived from the arrays above, so sharing them is safe
+	private final Map<String, SchemaProjection> projections = Collections.synchronizedMap(
+		new LinkedHashMap<>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, SchemaProjection> eldest) {
+				return size() > MAX_PROJECTIONS;
+			}
+		});
+	
+	private SchemaIR(Builder builder) {
+		this.name = builder.name;
+		int tableCount = builder.tables.size();
+		
+		// Tables and columns
+		this.tableNames = new String[tableCount];
+		this.tableSymbols = new SymbolTable();
+		this.columnSymbols = new SymbolTable[tableCount];
+		this.columnBySymbol = new int[tableCount][];
+		this.columnStart = new int[tableCount + 1];
+		IntList tableSymbolList = new IntList();
+		int columnCount = 0;
+		for (int t = 0; t < tableCount; t++) {
+			TableDraft table = builder.tables.get(t);
+			tableNames[t] = table.name;
+			// A name already seen keeps resolving to its first table
+			if (tableSymbols.intern(table.name) == tableSymbolList.size) {
+				tableSymbolList.add(t);
+			}
+			columnStart[t] = columnCount;
+			columnCount += table.columns.size();
+		}
+		columnStart[tableCount] = columnCount;
+		this.tableBySymbol = tableSymbolList.toArray();
+		
+		this.columnNames = new String[columnCount];
+		this.columnTypes = new String[columnCount];
+		this.columnAttributes = new long[columnCount];
+		this.columnTables = new int[columnCount];
+		this.columnForeignKeys = new int[columnCount];
+		Arrays.fill(columnForeignKeys, NOT_FOUND);
+		this.primaryKeyMask = new long[maskLength(columnCount)];
+		this.uniqueMask = new long[primaryKeyMask.length];
+		for (int t = 0; t < tableCount; t++) {
+			TableDraft table = builder.tables.get(t);
+			columnSymbols[t] = new SymbolTable();
+			IntList columnSymbolList = new IntList();
+			for (int i = 0; i < table.columns.size(); i++) {
+				ColumnDraft column = table.columns.get(i);
+				int c = columnStart[t] + i;
+				if (columnSymbols[t].intern(column.name) == columnSymbolList.size) {
+					columnSymbolList.add(i);
+				}
+				columnNames[c] = column.name;
+				columnTypes[c] = column.type;
+				columnTables[c] = t;
+				columnAttributes[c] = (column.nullable ? NULLABLE : 0)
+					| (column.unique ? DECLARED_UNIQUE : 0)
+					| ((long) ColumnKind.fromSqlType(column.type).ordinal() << KIND_SHIFT)
+					| ((long) column.length << LENGTH_SHIFT);
+				if (column.primaryKey) {
+					set(primaryKeyMask, c);
+				}
+				if (column.unique) {
+					set(uniqueMask, c);
+				}
+			}
+			columnBySymbol[t] = columnSymbolList.toArray();
+		}
+		
+		// Primary keys, in key order
+		this.primaryKeyStart = new int[tableCount + 1];
+		IntList keyColumns = new IntList();
+		for (int t = 0; t < tableCount; t++) {
+			primaryKeyStart[t] = keyColumns.size;
+			List<String> names = builder.tables.get(t).primaryKey;
+			if (names == null) {
+				// The columns declared as keys, in column order
+				for (int c = columnStart[t]; c < columnStart[t + 1]; c++) {
+					if (get(primaryKeyMask, c)) {
+						keyColumns.add(c);
+					}
+				}
+				continue;
+			}
+			for (String columnName : names) {
+				int c = findColumn(t, columnName);
+				if (c != NOT_FOUND) {
+					keyColumns.add(c);
+					set(primaryKeyMask, c);
+				}
+			}
+		}
+		primaryKeyStart[tableCount] = keyColumns.size;
+		this.primaryKeyColumns = keyColumns.toArray();
+		
+		// Unique constraints
+		this.uniqueStart = new int[tableCount + 1];
+		List<String> uniqueNameList = new ArrayList<>();
+		IntList uniqueColumnStartList = new IntList();
+		IntList uniqueColumnList = new IntList();
+		for (int t = 0; t < tableCount; t++) {
+			uniqueStart[t] = uniqueNameList.size();
+			for (UniqueDraft unique : builder.tables.get(t).uniques) {
+				uniqueNameList.add(unique.name);
+				uniqueColumnStartList.add(uniqueColumnList.size);
+				for (String columnName : unique.columns) {
+					int c = findColumn(t, columnName);
+					if (c != NOT_FOUND) {
+						uniqueColumnList.add(c);
+						set(uniqueMask, c);
+					}
+				}
+			}
+		}
+		uniqueStart[tableCount] = uniqueNameList.size();
+		uniqueColumnStartList.add(uniqueColumnList.size);
+		this.uniqueNames = uniqueNameList.toArray(new String[0]);
+		this.uniqueColumnStart = uniqueColumnStartList.toArray();
+		this.uniqueColumns = uniqueColumnList.toArray();
+		
+		// Foreign keys, resolved once every table is known
+		this.foreignKeyStart = new int[tableCount + 1];
+		List<String> foreignKeyNameList = new ArrayList<>();
+		List<String> targetTableNameList = new ArrayList<>();
+		IntList sourceTableList = new IntList();
+		IntList targetTableList = new IntList();
+		IntList foreignKeyColumnStartList = new IntList();
+		IntList sourceColumnList = new IntList();
+		IntList targetColumnList = new IntList();
+		int[] referencingCounts = new int[tableCount + 1];
+		for (int t = 0; t < tableCount; t++) {
+			foreignKeyStart[t] = foreignKeyNameList.size();
+			for (ForeignKeyDraft foreignKey : builder.tables.get(t).foreignKeys) {
+				int f = foreignKeyNameList.size();
+				int target = findTable(foreignKey.targetTable);
+				foreignKeyNameList.add(foreignKey.name);
+				targetTableNameList.add(foreignKey.targetTable);
+				sourceTableList.add(t);
+				targetTableList.add(target);
+				foreignKeyColumnStartList.add(sourceColumnList.size);
+				for (int i = 0; i < foreignKey.sourceColumns.size(); i++) {
+					int source = findColumn(t, foreignKey.sourceColumns.get(i));
+					if (source == NOT_FOUND) {
+						continue;
+					}
+					String targetColumn = i < foreignKey.targetColumns.size() ? foreignKey.targetColumns.get(i) : null;
+					sourceColumnList.add(source);
+					targetColumnList.add(target == NOT_FOUND || targetColumn == null ? NOT_FOUND : findColumn(target, targetColumn));
+					columnAttributes[source] |= FOREIGN_KEY;
+					if (columnForeignKeys[source] == NOT_FOUND) {
+						columnForeignKeys[source] = f;
+					}
+				}
+				if (target != NOT_FOUND) {
+					referencingCounts[target + 1]++;
+				}
+			}
+		}
+		foreignKeyStart[tableCount] = foreignKeyNameList.size();
+		foreignKeyColumnStartList.add(sourceColumnList.size);
+		this.foreignKeyNames = foreignKeyNameList.toArray(new String[0]);
+		this.foreignKeyTargetTableNames = targetTableNameList.toArray(new String[0]);
+		this.foreignKeySourceTables = sourceTableList.toArray();
+		this.foreignKeyTargetTables = targetTableList.toArray();
+		this.foreignKeyColumnStart = foreignKeyColumnStartList.toArray();
+		this.foreignKeySourceColumns = sourceColumnList.toArray();
+		this.foreignKeyTargetColumns = targetColumnList.toArray();
+		
+		// The foreign keys referencing every table, by counting sort on their target
+		this.referencingStart = new int[tableCount + 1];
+		for (int t = 0; t < tableCount; t++) {
+			referencingStart[t + 1] = referencingStart[t] + referencingCounts[t + 1];
+		}
+		this.referencingForeignKeys = new int[referencingStart[tableCount]];
+		int[] next = Arrays.copyOf(referencingStart, tableCount);
+		for (int f = 0; f < foreignKeyTargetTables.length; f++) {
+			int target = foreignKeyTargetTables[f];
+			if (target != NOT_FOUND) {
+				referencingForeignKeys[next[target]++] = f;
+			}
+		}
+	}
+	
+	/**
+	 * Builds the representation of a schema parsed by the {@link com.smg.schemas.SchemaParser}.
+	 * The declared length of a column is read from its data type, as in {@code VARCHAR2(25)}.
+	 */
+	public static SchemaIR of(Schema schema) {
+		Builder builder = new Builder(schema.getName());
+		for (com.smg.schemas.entities.Table table : schema.getTables()) {
+			builder.table(table.getName());
+			for (com.smg.schemas.entities.Column column : table.getColumns()) {
+				builder.column(column.getName(), column.getDataType(), declaredLength(column.getDataType()), true, false, false);
+			}
+			for (com.smg.schemas.entities.ForeignKey foreignKey : table.getForeignKeys()) {
+				builder.foreignKey(foreignKey.getName(), List.of(foreignKey.getColumnName()),
+					foreignKey.getReferencedTable(), List.of(foreignKey.getReferencedColumn()));
+			}
+		}
+		return builder.build();
+	}
+	
+	/**
+	 * Builds the representation of a schema parsed by the {@link com.smg.sqlparser.parser.SQL99.SqlSchemaParser}.
+	 * The type of a column is written as in its {@code CREATE TABLE}, as {@code VARCHAR(25)}.
+	 */
+	public static SchemaIR of(com.smg.sqlparser.domain.sql.Schema schema) {
+		Builder builder = new Builder(schema.getName());
+		for (com.smg.sqlparser.domain.sql.Table table : schema.getTablesValues()) {
+			builder.table(table.getName());
+			for (com.smg.sqlparser.domain.sql.Column column : table.getColumns()) {
+				Long length = column.getLength();
+				String type = column.getType() + (length != null && length > 0 ? "(" + length + ")" : "");
+				builder.column(column.getName(), type, length != null && length > 0 && length <= Integer.MAX_VALUE ? length.intValue() : -1,
+					column.isNullable(), column.isPrimaryKey(), column.isUnique());
+			}
+			if (table.getPrimaryKey() != null) {
+				builder.primaryKey(table.getPrimaryKey().getColumns().stream()
+					.map(com.smg.sqlparser.domain.sql.Column::getName)
+					.toList());
+			}
+			table.getUniqueConstraints().forEach(unique -> builder.unique(unique.getName(), unique.getColumnNames()));
+			table.getForeignKeys().forEach(foreignKey -> builder.foreignKey(null,
+				foreignKey.getSourceColumns().stream().map(com.smg.sqlparser.domain.sql.Column::getName).toList(),
+				foreignKey.getTargetTable() != null ? foreignKey.getTargetTable().getName() : null,
+				foreignKey.getTargetColumns().stream().map(com.smg.sqlparser.domain.sql.Column::getName).toList()));
+		}
+		return builder.build();
+	}
+	
+	public String getName() {
+		return name;
+	}
+	
+	/**
+	 * Returns the projection of a table selection, computed on the first request and
+	 * then shared by every request for the same tables in the same order.
+	 *
+	 * @param tableNames The selected tables, compared without case and quotes; a table selected twice counts once.
+	 * @return The projection of the tables, in selection order.
+	 * @throws IllegalArgumentException if a table is not in the schema.
+	 */
+	public SchemaProjection project(Collection<String> tableNames) {
+		int[] tables = new int[tableNames.size()];
+		long[] seen = new long[maskLength(getTableCount())];
+		int count = 0;
+		for (String tableName : tableNames) {
+			int table = findTable(tableName);
+			if (table == NOT_FOUND) {
+				throw new IllegalArgumentException("Table not found in schema: " + tableName);
+			}
+			if (!get(seen, table)) {
+				set(seen, table);
+				tables[count++] = table;
+			}
+		}
+		return project(Arrays.copyOf(tables, count));
+	}
+	
+	/**
+	 * Returns the projection of every table of the schema, in table order.
+	 */
+	public SchemaProjection projectAll() {
+		int[] tables = new int[getTableCount()];
+		Arrays.setAll(tables, table -> table);
+		return project(tables);
+	}
+	
+	private SchemaProjection project(int[] tables) {
+		return projections.computeIfAbsent(SchemaProjection.key(tables), key -> new SchemaProjection(this, tables));
+	}
+	
+	// Tables
+	
+	public int getTableCount() {
+		return tableNames.length;
+	}
+	
+	public String getTableName(int table) {
+		return tableNames[table];
+	}
+	
+	/**
+	 * @return The id of a table, compared without case and quotes, or {@link #NOT_FOUND}.
+	 *         Of tables whose names differ only in case or quotes, the first one is found.
+	 */
+	public int findTable(String tableName) {
+		int symbol = tableSymbols.find(tableName);
+		return symbol == NOT_FOUND ? NOT_FOUND : tableBySymbol[symbol];
+	}
+	
+	// Columns
+	
+	public int getColumnCount() {
+		return columnNames.length;
+	}
+	
+	/**
+	 * @return The id of the first column of a table.
+	 */
+	public int getFirstColumn(int table) {
+		return columnStart[table];
+	}
+	
+	/**
+	 * @return The id after the last column of a table.
+	 */
+	public int getColumnEnd(int table) {
+		return columnStart[table + 1];
+	}
+	
+	public int getTableColumnCount(int table) {
+		return columnStart[table + 1] - columnStart[table];
+	}
+	
+	/**
+	 * @return The id of a column of a table, compared without case and quotes, or {@link #NOT_FOUND}.
+	 *         Of columns whose names differ only in case or quotes, the first one is found.
+	 */
+	public int findColumn(int table, String columnName) {
+		int symbol = columnSymbols[table].find(columnName);
+		return symbol == NOT_FOUND ? NOT_FOUND : columnStart[table] + columnBySymbol[table][symbol];
+	}
+	
+	public int getColumnTable(int column) {
+		return columnTables[column];
+	}
+	
+	public String getColumnName(int column) {
+		return columnNames[column];
+	}
+	
+	/**
+	 * @return The data type of a column as declared, with its length or precision.
+	 */
+	public String getColumnType(int column) {
+		return columnTypes[column];
+	}
+	
+	/**
+	 * @return The declared length of a column, or -1 if it has none.
+	 */
+	public int getColumnLength(int column) {
+		return (int) (columnAttributes[column] >> LENGTH_SHIFT);
+	}
+	
+	public ColumnKind getColumnKind(int column) {
+		return KINDS[(int) (columnAttributes[column] >>> KIND_SHIFT) & 0xFF];
+	}
+	
+	public boolean isNullable(int column) {
+		return (columnAttributes[column] & NULLABLE) != 0;
+	}
+	
+	/**
+	 * @return true if the column is declared {@code UNIQUE} in its definition.
+	 */
+	public boolean isDeclaredUnique(int column) {
+		return (columnAttributes[column] & DECLARED_UNIQUE) != 0;
+	}
+	
+	/**
+	 * @return true if the column is declared unique or is part of a unique constraint.
+	 */
+	public boolean isUnique(int column) {
+		return get(uniqueMask, column);
+	}
+	
+	public boolean isPrimaryKey(int column) {
+		return get(primaryKeyMask, column);
+	}
+	
+	public boolean isForeignKey(int column) {
+		return (columnAttributes[column] & FOREIGN_KEY) != 0;
+	}
+	
+	/**
+	 * @return The first foreign key the column is part of, or {@link #NOT_FOUND}.
+	 */
+	public int getColumnForeignKey(int column) {
+		return columnForeignKeys[column];
+	}
+	
+	// Primary keys
+	
+	public int getPrimaryKeyColumnCount(int table) {
+		return primaryKeyStart[table + 1] - primaryKeyStart[table];
+	}
+	
+	/**
+	 * @return The id of the {@code index}-th column of the primary key of a table, in key order.
+	 */
+	public int getPrimaryKeyColumn(int table, int index) {
+		return primaryKeyColumns[primaryKeyStart[table] + index];
+	}
+	
+	// Unique constraints
+	
+	public int getUniqueCount() {
+		return uniqueNames.length;
+	}
+	
+	public int getFirstUnique(int table) {
+		return uniqueStart[table];
+	}
+	
+	public int getUniqueEnd(int table) {
+		return uniqueStart[table + 1];
+	}
+	
+	/**
+	 * @return The name of a unique constraint, or null if it has none.
+	 */
+	public String getUniqueName(int unique) {
+		return uniqueNames[unique];
+	}
+	
+	public int getUniqueColumnCount(int unique) {
+		return uniqueColumnStart[unique + 1] - uniqueColumnStart[unique];
+	}
+	
+	public int getUniqueColumn(int unique, int index) {
+		return uniqueColumns[uniqueColumnStart[unique] + index];
+	}
+	
+	// Foreign keys
+	
+	public int getForeignKeyCount() {
+		return foreignKeyNames.length;
+	}
+	
+	public int getFirstForeignKey(int table) {
+		return foreignKeyStart[table];
+	}
+	
+	public int getForeignKeyEnd(int table) {
+		return foreignKeyStart[table + 1];
+	}
+	
+	/**
+	 * @return The name of a foreign key, or null if it has none.
+	 */
+	public String getForeignKeyName(int foreignKey) {
+		return foreignKeyNames[foreignKey];
+	}
+	
+	public int getForeignKeySourceTable(int foreignKey) {
+		return foreignKeySourceTables[foreignKey];
+	}
+	
+	/**
+	 * @return The referenced table, or {@link #NOT_FOUND} if it is not in the schema.
+	 */
+	public int getForeignKeyTargetTable(int foreignKey) {
+		return foreignKeyTargetTables[foreignKey];
+	}
+	
+	/**
+	 * @return The name of the referenced table as declared, even if it is not in the schema.
+	 */
+	public String getForeignKeyTargetTableName(int foreignKey) {
+		return foreignKeyTargetTableNames[foreignKey];
+	}
+	
+	public int getForeignKeyColumnCount(int foreignKey) {
+		return foreignKeyColumnStart[foreignKey + 1] - foreignKeyColumnStart[foreignKey];
+	}
+	
+	public int getForeignKeySourceColumn(int foreignKey, int index) {
+		return foreignKeySourceColumns[foreignKeyColumnStart[foreignKey] + index];
+	}
+	
+	/**
+	 * @return The referenced column, or {@link #NOT_FOUND} if it is not in the schema.
+	 */
+	public int getForeignKeyTargetColumn(int foreignKey, int index) {
+		return foreignKeyTargetColumns[foreignKeyColumnStart[foreignKey] + index];
+	}
+	
+	/**
+	 * @return The number of foreign keys that reference a table, its own included.
+	 */
+	public int getReferencingForeignKeyCount(int table) {
+		return referencingStart[table + 1] - referencingStart[table];
+	}
+	
+	/**
+	 * @return The {@code index}-th foreign key that references a table, in foreign key order.
+	 */
+	public int getReferencingForeignKey(int table, int index) {
+		return referencingForeignKeys[referencingStart[table] + index];
+	}
+	
+	private static int declaredLength(String dataType) {
+		if (dataType == null) {
+			return -1;
+		}
+		Matcher matcher = LENGTH.matcher(dataType);
+		if (!matcher.find()) {
+			return -1;
+		}
+		try {
+			return Integer.parseInt(matcher.group(1));
+		} catch (NumberFormatException e) {
+			return -1;
+		}
+	}
+	
+	static int maskLength(int bits) {
+		return (bits + 63) >>> 6;
+	}
+	
+	static void set(long[] mask, int bit) {
+		mask[bit >>> 6] |= 1L << bit;
+	}
+	
+	static void clear(long[] mask, int bit) {
+		mask[bit >>> 6] &= ~(1L << bit);
+	}
+	
+	static boolean get(long[] mask, int bit) {
+		return (mask[bit >>> 6] & (1L << bit)) != 0;
+	}
+	
+	/**
+	 * Collects the tables of a schema in declaration order. Columns, keys and constraints
+	 * are added to the last table; names are resolved when the schema is built, so foreign
+	 * keys may reference tables added later.
+	 */
+	public static final class Builder {
+		
+		private final String name;
+		private final List<TableDraft> tables = new ArrayList<>();
+		
+		public Builder(String name) {
+			this.name = name;
+		}
+		
+		public Builder table(String tableName) {
+			tables.add(new TableDraft(tableName));
+			return this;
+		}
+		
+		/**
+		 * @param length The declared length, or -1 if there is none.
+		 */
+		public Builder column(String columnName, String type, int length, boolean nullable, boolean primaryKey, boolean unique) {
+			current().columns.add(new ColumnDraft(columnName, type, length, nullable, primaryKey, unique));
+			return this;
+		}
+		
+		/**
+		 * Declares the primary key columns, in key order, instead of the columns declared as keys.
+		 */
+		public Builder primaryKey(List<String> columnNames) {
+			current().primaryKey = List.copyOf(columnNames);
+			return this;
+		}
+		
+		public Builder unique(String uniqueName, List<String> columnNames) {
+			current().uniques.add(new UniqueDraft(uniqueName, List.copyOf(columnNames)));
+			return this;
+		}
+		
+		public Builder foreignKey(String foreignKeyName, List<String> sourceColumns, String targetTable, List<String> targetColumns) {
+			current().foreignKeys.add(new ForeignKeyDraft(foreignKeyName, List.copyOf(sourceColumns), targetTable, List.copyOf(targetColumns)));
+			return this;
+		}
+		
+		public SchemaIR build() {
+			return new SchemaIR(this);
+		}
+		
+		private TableDraft current() {
+			if (tables.isEmpty()) {
+				throw new IllegalStateException("No table to add to");
+			}
+			return tables.get(tables.size() - 1);
+		}
+	}
+	
+	private static final class TableDraft {
+		private final String name;
+		private final List<ColumnDraft> columns = new ArrayList<>();
+		private final List<UniqueDraft> uniques = new ArrayList<>();
+		private final List<ForeignKeyDraft> foreignKeys = new ArrayList<>();
+		private List<String> primaryKey;
+		
+		private TableDraft(String name) {
+			this.name = name;
+		}
+	}
+	
+	private record ColumnDraft(String name, String type, int length, boolean nullable, boolean primaryKey, boolean unique) {
+	}
+	
+	private record UniqueDraft(String name, List<String> columns) {
+	}
+	
+	private record ForeignKeyDraft(String name, List<String> sourceColumns, String targetTable, List<String> targetColumns) {
+	}
+	
+	/** A growable list of ints, without boxing **/
+	private static final class IntList {
+		private int[] values = new int[16];
+		private int size;
+		
+		private void add(int value) {
+			if (size == values.length) {
+				values = Arrays.copyOf(values, size * 2);
+			}
+			values[size++] = value;
+		}
+		
+		private int[] toArray() {
+			return Arrays.copyOf(values, size);
+		}
+	}
+}
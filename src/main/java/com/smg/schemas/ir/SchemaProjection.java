@@ -0,0 +1,142 @@
+package com.smg.schemas.ir;
+
+/**
+ * The part of a {@link SchemaIR} a table selection keeps: the selected tables, in
+ * selection order, and the columns, foreign keys and unique constraints that still
+ * hold once the other tables are left out.
+ * <p>
+ * A foreign key is kept when its referenced table is selected. The columns of the
+ * other foreign keys are left out, and so is a unique constraint whose columns are
+ * all left out. Everything is computed once, as bit masks over the ids of the schema,
+ * so the DDL, the DML, the truncate and drop scripts and the diagrams of a selection
+ * share the same projection, and the same {@link #getLoadPlan() load plan}, and test
+ * it in constant time. Projections are obtained from
+ * {@link SchemaIR#project(java.util.Collection)}, which caches them by
+ * {@link #getKey() key}; like the schema, they never change.
+ */
+public final class SchemaProjection {
+	
+	private final SchemaIR schema;
+	private final String key;
+	private final int[] tables;
+	private final long[] selectedTables;
+	private final long[] keptColumns;
+	private final long[] keptForeignKeys;
+	private final long[] keptUniques;
+	private volatile LoadPlan loadPlan;
+	
+	SchemaProjection(SchemaIR schema, int[] tables) {
+		this.schema = schema;
+		this.key = key(tables);
+		this.tables = tables.clone();
+		this.selectedTables = new long[SchemaIR.maskLength(schema.getTableCount())];
+		this.keptColumns = new long[SchemaIR.maskLength(schema.getColumnCount())];
+		this.keptForeignKeys = new long[SchemaIR.maskLength(schema.getForeignKeyCount())];
+		this.keptUniques = new long[SchemaIR.maskLength(schema.getUniqueCount())];
+		for (int table : tables) {
+			SchemaIR.set(selectedTables, table);
+		}
+		
+		for (int table : tables) {
+			for (int column = schema.getFirstColumn(table); column < schema.getColumnEnd(table); column++) {
+				SchemaIR.set(keptColumns, column);
+			}
+			for (int fk = schema.getFirstForeignKey(table); fk < schema.getForeignKeyEnd(table); fk++) {
+				int target = schema.getForeignKeyTargetTable(fk);
+				if (target != SchemaIR.NOT_FOUND && SchemaIR.get(selectedTables, target)) {
+					SchemaIR.set(keptForeignKeys, fk);
+					continue;
+				}
+				for (int i = 0; i < schema.getForeignKeyColumnCount(fk); i++) {
+					SchemaIR.clear(keptColumns, schema.getForeignKeySourceColumn(fk, i));
+				}
+			}
+		}
+		
+		for (int table : tables) {
+			for (int unique = schema.getFirstUnique(table); unique < schema.getUniqueEnd(table); unique++) {
+				for (int i = 0; i < schema.getUniqueColumnCount(unique); i++) {
+					if (SchemaIR.get(keptColumns, schema.getUniqueColumn(unique, i))) {
+						SchemaIR.set(keptUniques, unique);
+						break;
+					}
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Computes the key of a selection, which is the same for the same tables in the same order.
+	 *
+	 * @param tables The ids of the selected tables.
+	 */
+	static String key(int[] tables) {
+		StringBuilder key = new StringBuilder(tables.length * 4);
+		for (int table : tables) {
+			key.append(table).append(',');
+		}
+		return key.toString();
+	}
+	
+	public SchemaIR getSchema() {
+		return schema;
+	}
+	
+	/**
+	 * @return The key of the selection, as cached by the schema.
+	 */
+	public String getKey() {
+		return key;
+	}
+	
+	/**
+	 * @return The number of selected tables.
+	 */
+	public int getTableCount() {
+		return tables.length;
+	}
+	
+	/**
+	 * @return The id of the {@code index}-th selected table, in selection order.
+	 */
+	public int getTable(int index) {
+		return tables[index];
+	}
+	
+	public boolean isSelected(int table) {
+		return SchemaIR.get(selectedTables, table);
+	}
+	
+	/**
+	 * @return true if the column belongs to a selected table and to no foreign key to a table that is not selected.
+	 */
+	public boolean isColumnKept(int column) {
+		return SchemaIR.get(keptColumns, column);
+	}
+	
+	/**
+	 * @return true if the foreign key belongs to a selected table and references a selected table.
+	 */
+	public boolean isForeignKeyKept(int foreignKey) {
+		return SchemaIR.get(keptForeignKeys, foreignKey);
+	}
+	
+	/**
+	 * @return true if the unique constraint belongs to a selected table and keeps any of its columns.
+	 */
+	public boolean isUniqueKept(int unique) {
+		return SchemaIR.get(keptUniques, unique);
+	}
+	
+	/**
+	 * @return The order in which the selected tables are created and loaded, planned on first use.
+	 */
+	public LoadPlan getLoadPlan() {
+		LoadPlan plan = loadPlan;
+		if (plan == null) {
+			plan = LoadPlanner.plan(this);
+			loadPlan = plan;
+		}
+		return plan;
+	}
+}
@@ -0,0 +1,66 @@
+package com.smg.schemas.snapshot;
+
+import com.smg.schemas.entities.Column;
+import com.smg.schemas.entities.ForeignKey;
+import com.smg.schemas.entities.Schema;
+import com.smg.schemas.entities.Table;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import static com.smg.schemas.snapshot.SchemaCodec.readCount;
+import static com.smg.schemas.snapshot.SchemaCodec.readString;
+import static com.smg.schemas.snapshot.SchemaCodec.writeString;
+
+/**
+ * Snapshot encoding of the {@link Schema} entities built by the {@link com.smg.schemas.SchemaParser}:
+ * the tables in order, with their columns and foreign keys.
+ */
+public class EntitySchemaCodec implements SchemaCodec<Schema> {
+	
+	@Override
+	public String getId() {
+		return "entities-1";
+	}
+	
+	@Override
+	public void write(Schema schema, DataOutput out) throws IOException {
+		writeString(out, schema.getName());
+		out.writeInt(schema.getTables().size());
+		for (Table table : schema.getTables()) {
+			writeString(out, table.getName());
+			out.writeInt(table.getColumns().size());
+			for (Column column : table.getColumns()) {
+				writeString(out, column.getName());
+				writeString(out, column.getDataType());
+			}
+			out.writeInt(table.getForeignKeys().size());
+			for (ForeignKey foreignKey : table.getForeignKeys()) {
+				writeString(out, foreignKey.getName());
+				writeString(out, foreignKey.getColumnName());
+				writeString(out, foreignKey.getReferencedTable());
+				writeString(out, foreignKey.getReferencedColumn());
+			}
+		}
+	}
+	
+	@Override
+	public Schema read(ByteBuffer in) {
+		Schema schema = new Schema(readString(in));
+		int tableCount = readCount(in);
+		for (int t = 0; t < tableCount; t++) {
+			Table table = new Table(readString(in));
+			int columnCount = readCount(in);
+			for (int c = 0; c < columnCount; c++) {
+				table.addColumn(new Column(readString(in), readString(in)));
+			}
+			int foreignKeyCount = readCount(in);
+			for (int f = 0; f < foreignKeyCount; f++) {
+				table.addForeignKey(new ForeignKey(readString(in), readString(in), readString(in), readString(in)));
+			}
+			schema.addTable(table);
+		}
+		return schema;
+	}
+}
@@ -0,0 +1,65 @@
+package com.smg.schemas.snapshot;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Encodes one schema model into the payload of a schema snapshot and decodes it back.
+ * <p>
+ * Payloads are written with a {@link DataOutput} and read from a (memory-mapped)
+ * {@link ByteBuffer}, both big-endian. The helpers below write strings as their
+ * UTF-8 length followed by their bytes, with a length of -1 for null.
+ *
+ * @param <S> The schema model.
+ */
+public interface SchemaCodec<S> {
+	
+	/**
+	 * @return The identifier of the encoding, stored in the snapshot. Change it when the payload layout changes.
+	 */
+	String getId();
+	
+	void write(S schema, DataOutput out) throws IOException;
+	
+	/**
+	 * @throws IllegalArgumentException if the payload is not valid.
+	 */
+	S read(ByteBuffer in);
+	
+	static void writeString(DataOutput out, String value) throws IOException {
+		if (value == null) {
+			out.writeInt(-1);
+			return;
+		}
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+	
+	static String readString(ByteBuffer in) {
+		int length = in.getInt();
+		if (length < 0) {
+			return null;
+		}
+		if (length > in.remaining()) {
+			throw new IllegalArgumentException("String length " + length + " exceeds the payload");
+		}
+		byte[] bytes = new byte[length];
+		in.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+	
+	/**
+	 * Reads a count, checking it against the remaining payload so that a damaged snapshot
+	 * cannot make the decoder allocate without bounds.
+	 */
+	static int readCount(ByteBuffer in) {
+		int count = in.getInt();
+		if (count < 0 || count > in.remaining()) {
+			throw new IllegalArgumentException("Invalid count " + count);
+		}
+		return count;
+	}
+}
@@ -0,0 +1,259 @@
+package com.smg.schemas.snapshot;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.CodeSource;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Locale;
+
+/**
+ * Disk cache of parsed schemas, so that an unchanged DDL is parsed only once.
+ * <p>
+ * The parsed schema is stored as a compact binary snapshot in a file named after the
+ * SHA-256 of the DDL content, the schema name, the encoding of the snapshot and the
+ * version of the parser, so that a new build never reads the schemas parsed by an older
+ * one. When
+ * the same DDL is loaded again the snapshot is read through a memory map and decoded,
+ * without parsing. Snapshots are written to a temporary file and moved into place, so
+ * a partial snapshot is never read; a snapshot that cannot be decoded is deleted and
+ * the DDL parsed again.
+ * <p>
+ * Without a directory the cache is disabled: the DDL is parsed on every load, and the
+ * parse time is still reported. Configured directories are resolved against the cache
+ * directory of the user (see {@link #resolveDirectory(String)}), not the working directory.
+ *
+ * @param <S> The schema model.
+ */
+public class SchemaSnapshotCache<S> {
+	
+	private static final Logger LOGGER = LoggerFactory.getLogger(SchemaSnapshotCache.class);
+	private static final int MAGIC = 0x534D4743; // "SMGC"
+	private static final int FORMAT_VERSION = 1;
+	private static final String SNAPSHOT_SUFFIX = ".smgschema";
+	
+	private final Path directory;
+	private final SchemaCodec<S> codec;
+	private final String parserVersion;
+	
+	/**
+	 * @param directory The cache directory, created on the first write, or null to disable the cache.
+	 * @param codec The encoding of the schema model.
+	 * @param parserVersion The version of the parser, see {@link #versionOf(Class)}.
+	 */
+	public SchemaSnapshotCache(Path directory, SchemaCodec<S> codec, String parserVersion) {
+		this.directory = directory;
+		this.codec = codec;
+		this.parserVersion = parserVersion;
+	}
+	
+	/**
+	 * Identifies the build of a parser. A release is identified by its implementation
+	 * version; as the version does not change between development builds, the time the
+	 * jar (or the class file of the parser) was built is added.
+	 *
+	 * @param parser The class of the parser.
+	 * @return The version of the parser.
+	 */
+	public static String versionOf(Class<?> parser) {
+		String version = parser.getPackage() == null ? null : parser.getPackage().getImplementationVersion();
+		long built = 0;
+		CodeSource source = parser.getProtectionDomain().getCodeSource();
+		URL location = source == null ? null : source.getLocation();
+		if (location != null) {
+			try {
+				Path file = Paths.get(location.toURI());
+				if (Files.isDirectory(file)) {
+					file = file.resolve(parser.getName().replace('.', '/') + ".class");
+				}
+				built = Files.getLastModifiedTime(file).toMillis();
+			} catch (URISyntaxException | IllegalArgumentException | IOException e) {
+				LOGGER.debug("Could not find when {} was built", parser.getName(), e);
+			}
+		}
+		return (version == null ? "dev" : version) + "@" + built;
+	}
+	
+	/**
+	 * Resolves a configured cache directory. A relative directory is resolved against
+	 * the cache directory of the user, so that every working directory shares it.
+	 *
+	 * @param directory The configured directory.
+	 * @return The directory, or null if none is configured (the cache is disabled).
+	 */
+	public static Path resolveDirectory(String directory) {
+		if (directory == null || directory.isBlank()) {
+			return null;
+		}
+		return userCacheDirectory().resolve(directory.trim());
+	}
+	
+	/**
+	 * @return The cache directory of the user for SMG: {@code %LOCALAPPDATA%\smg\cache} on
+	 *         Windows, {@code ~/Library/Caches/smg} on macOS and {@code $XDG_CACHE_HOME/smg}
+	 *         (by default {@code ~/.cache/smg}) elsewhere.
+	 */
+	public static Path userCacheDirectory() {
+		String home = System.getProperty("user.home");
+		String os = System.getProperty("os.name", "").toLowerCase(Locale.ROOT);
+		if (os.startsWith("windows")) {
+			String localAppData = System.getenv("LOCALAPPDATA");
+			return localAppData != null && !localAppData.isBlank()
+				? Paths.get(localAppData, "smg", "cache")
+				: Paths.get(home, "AppData", "Local", "smg", "cache");
+		}
+		if (os.startsWith("mac")) {
+			return Paths.get(home, "Library", "Caches", "smg");
+		}
+		String xdgCacheHome = System.getenv("XDG_CACHE_HOME");
+		return xdgCacheHome != null && Paths.get(xdgCacheHome).isAbsolute()
+			? Paths.get(xdgCacheHome, "smg")
+			: Paths.get(home, ".cache", "smg");
+	}
+	
+	/**
+	 * Parses a DDL, or loads its snapshot if it was already parsed.
+	 *
+	 * @param schemaName The name of the schema.
+	 * @param ddl The DDL content.
+	 * @param parser Parses the DDL when there is no snapshot of it.
+	 * @return The schema, with where it came from and how long it took.
+	 * @throws E if the DDL has to be parsed and cannot be.
+	 */
+	public <E extends Exception> LoadedSchema<S> load(String schemaName, String ddl, Parser<S, E> parser) throws E {
+		long start = System.nanoTime();
+		Path snapshot = directory == null ? null : directory.resolve(key(schemaName, ddl) + SNAPSHOT_SUFFIX);
+		if (snapshot != null && Files.isRegularFile(snapshot)) {
+			S schema = readSnapshot(snapshot);
+			if (schema != null) {
+				LoadedSchema<S> loaded = new LoadedSchema<>(schema, true, System.nanoTime() - start);
+				LOGGER.info("Schema '{}' {} ({}).", schemaName, loaded.describe(), snapshot);
+				return loaded;
+			}
+		}
+		
+		S schema = parser.parse(ddl);
+		LoadedSchema<S> loaded = new LoadedSchema<>(schema, false, System.nanoTime() - start);
+		LOGGER.info("Schema '{}' {}.", schemaName, loaded.describe());
+		if (snapshot != null) {
+			writeSnapshot(snapshot, schema);
+		}
+		return loaded;
+	}
+	
+	/**
+	 * Computes the key of a DDL.
+	 *
+	 * @return The hex SHA-256 of the DDL content, the schema name, the snapshot encoding and
+	 *         the parser version.
+	 */
+	String key(String schemaName, String ddl) {
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			digest.update((FORMAT_VERSION + "\n" + codec.getId() + "\n" + parserVersion + "\n" + schemaName + "\n")
+				.getBytes(StandardCharsets.UTF_8));
+			return HexFormat.of().formatHex(digest.digest(ddl.getBytes(StandardCharsets.UTF_8)));
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 is not available", e);
+		}
+	}
+	
+	/**
+	 * @return The decoded schema, or null if the snapshot cannot be read.
+	 */
+	private S readSnapshot(Path snapshot) {
+		try (FileChannel channel = FileChannel.open(snapshot, StandardOpenOption.READ)) {
+			ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION
+				|| !codec.getId().equals(SchemaCodec.readString(buffer))) {
+				throw new IllegalArgumentException("Not a snapshot of this format");
+			}
+			S schema = codec.read(buffer);
+			if (buffer.hasRemaining()) {
+				throw new IllegalArgumentException(buffer.remaining() + " bytes left after the schema");
+			}
+			return schema;
+		} catch (IOException e) {
+			LOGGER.warn("Could not read schema snapshot {}: {}", snapshot, e.getMessage());
+			return null;
+		} catch (IllegalArgumentException | BufferUnderflowException e) {
+			LOGGER.warn("Discarding invalid schema snapshot {}: {}", snapshot, e.getMessage());
+			deleteQuietly(snapshot);
+			return null;
+		}
+	}
+	
+	private void writeSnapshot(Path snapshot, S schema) {
+		Path temporary = null;
+		try {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			DataOutputStream out = new DataOutputStream(bytes);
+			out.writeInt(MAGIC);
+			out.writeInt(FORMAT_VERSION);
+			SchemaCodec.writeString(out, codec.getId());
+			codec.write(schema, out);
+			out.flush();
+			
+			Files.createDirectories(directory);
+			temporary = Files.createTempFile(directory, "schema", ".tmp");
+			Files.write(temporary, bytes.toByteArray());
+			Files.move(temporary, snapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			LOGGER.debug("Schema snapshot written to {} ({} bytes).", snapshot, bytes.size());
+		} catch (IOException e) {
+			// The schema is parsed again next time
+			LOGGER.warn("Could not write schema snapshot {}: {}", snapshot, e.getMessage());
+			if (temporary != null) {
+				deleteQuietly(temporary);
+			}
+		}
+	}
+	
+	private static void deleteQuietly(Path file) {
+		try {
+			Files.deleteIfExists(file);
+		} catch (IOException e) {
+			LOGGER.debug("Could not delete {}", file, e);
+		}
+	}
+	
+	/**
+	 * Parses a DDL into a schema.
+	 */
+	@FunctionalInterface
+	public interface Parser<S, E extends Exception> {
+		S parse(String ddl) throws E;
+	}
+	
+	/**
+	 * A loaded schema.
+	 *
+	 * @param schema The schema.
+	 * @param fromSnapshot true if it was decoded from a snapshot, false if the DDL was parsed.
+	 * @param nanos How long the load took.
+	 */
+	public record LoadedSchema<S>(S schema, boolean fromSnapshot, long nanos) {
+		
+		/**
+		 * @return How the schema was loaded, for the reports.
+		 */
+		public String describe() {
+			return (fromSnapshot ? "loaded from snapshot in " : "parsed in ") + String.format("%.1f ms", nanos / 1e6);
+		}
+	}
+}
@@ -0,0 +1,200 @@
+package com.smg.schemas.snapshot;
+
+import com.smg.sqlparser.domain.sql.Column;
+import com.smg.sqlparser.domain.sql.Schema;
+import com.smg.sqlparser.domain.sql.Table;
+import com.smg.sqlparser.domain.sql.constraints.ForeignKey;
+import com.smg.sqlparser.domain.sql.constraints.PrimaryKey;
+import com.smg.sqlparser.domain.sql.constraints.Unique;
+import com.smg.sqlparser.enums.DataType;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.smg.schemas.snapshot.SchemaCodec.readCount;
+import static com.smg.schemas.snapshot.SchemaCodec.readString;
+import static com.smg.schemas.snapshot.SchemaCodec.writeString;
+
+/**
+ * Snapshot encoding of the {@link Schema} built by the {@link com.smg.sqlparser.parser.SQL99.SqlSchemaParser}:
+ * tables, columns, primary keys, unique constraints and resolved foreign keys.
+ * <p>
+ * Columns and tables are referenced by index, so the decoded foreign keys and primary
+ * keys point to the same column objects as the tables, as after parsing. The foreign
+ * keys are written after all the tables, since they may reference tables declared later.
+ */
+public class SqlSchemaCodec implements SchemaCodec<Schema> {
+	
+	private static final int NULLABLE = 1;
+	private static final int PRIMARY_KEY = 2;
+	private static final int UNIQUE = 4;
+	private static final int HAS_LENGTH = 8;
+	
+	@Override
+	public String getId() {
+		return "sql99-1";
+	}
+	
+	@Override
+	public void write(Schema schema, DataOutput out) throws IOException {
+		List<Table> tables = new ArrayList<>(schema.getTables().values());
+		Map<Table, Integer> tableIndexes = new IdentityHashMap<>();
+		for (int t = 0; t < tables.size(); t++) {
+			tableIndexes.put(tables.get(t), t);
+		}
+		
+		writeString(out, schema.getName());
+		out.writeInt(tables.size());
+		for (Table table : tables) {
+			writeString(out, table.getName());
+			out.writeInt(table.getColumns().size());
+			for (Column column : table.getColumns()) {
+				writeString(out, column.getName());
+				writeString(out, column.getType() == null ? null : column.getType().name());
+				int flags = (column.isNullable() ? NULLABLE : 0) | (column.isPrimaryKey() ? PRIMARY_KEY : 0)
+					| (column.isUnique() ? UNIQUE : 0) | (column.getLength() != null ? HAS_LENGTH : 0);
+				out.writeByte(flags);
+				if (column.getLength() != null) {
+					out.writeLong(column.getLength());
+				}
+			}
+			
+			PrimaryKey primaryKey = table.getPrimaryKey();
+			if (primaryKey == null) {
+				out.writeInt(-1);
+			} else {
+				writeColumnIndexes(out, table, primaryKey.getColumns());
+			}
+			
+			out.writeInt(table.getUniqueConstraints().size());
+			for (Unique unique : table.getUniqueConstraints()) {
+				writeString(out, unique.getName());
+				out.writeInt(unique.getColumnNames().size());
+				for (String columnName : unique.getColumnNames()) {
+					writeString(out, columnName);
+				}
+			}
+		}
+		
+		for (Table table : tables) {
+			out.writeInt(table.getForeignKeys().size());
+			for (ForeignKey foreignKey : table.getForeignKeys()) {
+				Table targetTable = foreignKey.getTargetTable();
+				Integer targetIndex = targetTable == null ? null : tableIndexes.get(targetTable);
+				out.writeInt(targetIndex == null ? -1 : targetIndex);
+				writeColumnIndexes(out, table, foreignKey.getSourceColumns());
+				writeColumnIndexes(out, targetTable, foreignKey.getTargetColumns());
+			}
+		}
+	}
+	
+	@Override
+	public Schema read(ByteBuffer in) {
+		Schema schema = new Schema(readString(in));
+		int tableCount = readCount(in);
+		List<Table> tables = new ArrayList<>(tableCount);
+		for (int t = 0; t < tableCount; t++) {
+			Table table = new Table(readString(in));
+			int columnCount = readCount(in);
+			for (int c = 0; c < columnCount; c++) {
+				String name = readString(in);
+				String type = readString(in);
+				int flags = in.get();
+				Long length = (flags & HAS_LENGTH) != 0 ? in.getLong() : null;
+				table.addColumn(new Column(name, type == null ? null : DataType.valueOf(type), length,
+					(flags & NULLABLE) != 0, (flags & PRIMARY_KEY) != 0, (flags & UNIQUE) != 0));
+			}
+			
+			int primaryKeyColumns = in.getInt();
+			if (primaryKeyColumns >= 0) {
+				PrimaryKey primaryKey = new PrimaryKey();
+				primaryKey.setColumns(readColumns(in, table, primaryKeyColumns));
+				table.setPrimaryKey(primaryKey);
+			}
+			
+			int uniqueCount = readCount(in);
+			for (int u = 0; u < uniqueCount; u++) {
+				String name = readString(in);
+				int uniqueColumnCount = readCount(in);
+				List<String> columnNames = new ArrayList<>(uniqueColumnCount);
+				for (int c = 0; c < uniqueColumnCount; c++) {
+					columnNames.add(readString(in));
+				}
+				Unique unique = new Unique(columnNames);
+				unique.setName(name);
+				table.getUniqueConstraints().add(unique);
+			}
+			tables.add(table);
+			schema.addTable(table);
+		}
+		
+		for (Table table : tables) {
+			int foreignKeyCount = readCount(in);
+			for (int f = 0; f < foreignKeyCount; f++) {
+				int targetIndex = in.getInt();
+				if (targetIndex < -1 || targetIndex >= tables.size()) {
+					throw new IllegalArgumentException("Invalid table index " + targetIndex);
+				}
+				Table targetTable = targetIndex < 0 ? null : tables.get(targetIndex);
+				ForeignKey foreignKey = new ForeignKey();
+				foreignKey.setSourceTable(table);
+				foreignKey.setTargetTable(targetTable);
+				foreignKey.setSourceColumns(readColumns(in, table, in.getInt()));
+				foreignKey.setTargetColumns(readColumns(in, targetTable, in.getInt()));
+				table.addForeignKey(foreignKey);
+			}
+		}
+		return schema;
+	}
+	
+	/**
+	 * Writes columns as their indexes in a table; columns not found in it are left out.
+	 */
+	private static void writeColumnIndexes(DataOutput out, Table table, List<Column> columns) throws IOException {
+		List<Integer> indexes = new ArrayList<>(columns.size());
+		if (table != null) {
+			for (Column column : columns) {
+				int index = indexOf(table.getColumns(), column);
+				if (index >= 0) {
+					indexes.add(index);
+				}
+			}
+		}
+		out.writeInt(indexes.size());
+		for (int index : indexes) {
+			out.writeInt(index);
+		}
+	}
+	
+	private static List<Column> readColumns(ByteBuffer in, Table table, int count) {
+		if (count < 0 || count > in.remaining()) {
+			throw new IllegalArgumentException("Invalid count " + count);
+		}
+		List<Column> columns = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			int index = in.getInt();
+			if (table == null || index < 0 || index >= table.getColumns().size()) {
+				throw new IllegalArgumentException("Invalid column index " + index);
+			}
+			columns.add(table.getColumns().get(index));
+		}
+		return columns;
+	}
+	
+	/**
+	 * Finds a column by identity, as the columns of a table may be equal to each other.
+	 */
+	private static int indexOf(List<Column> columns, Column column) {
+		for (int i = 0; i < columns.size(); i++) {
+			if (columns.get(i) == column) {
+				return i;
+			}
+		}
+		return -1;
+	}
+}
@@ -0,0 +1,57 @@
+package com.smg.schemas.source;
+
+import com.smg.schemas.snapshot.SchemaSnapshotCache;
+import com.smg.schemas.snapshot.SchemaSnapshotCache.LoadedSchema;
+import com.smg.sqlparser.domain.sql.Schema;
+import com.smg.sqlparser.parser.SQL99.SqlSchemaParser;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads a schema from a DDL resource on the classpath, through the snapshot cache so
+ * that an unchanged DDL is parsed only once.
+ */
+public class DdlSchemaSource implements SchemaSource {
+	
+	private final String schemaName;
+	private final String resource;
+	private final SchemaSnapshotCache<Schema> cache;
+	private String description = "not loaded";
+	
+	/**
+	 * @param schemaName The name of the schema.
+	 * @param resource The classpath resource of the DDL.
+	 * @param cache The snapshot cache of the parsed schemas.
+	 */
+	public DdlSchemaSource(String schemaName, String resource, SchemaSnapshotCache<Schema> cache) {
+		this.schemaName = schemaName;
+		this.resource = resource;
+		this.cache = cache;
+	}
+	
+	@Override
+	public Schema load() throws Exception {
+		String ddl;
+		try (InputStream in = DdlSchemaSource.class.getClassLoader().getResourceAsStream(resource)) {
+			if (in == null) {
+				throw new IllegalStateException("Resource not found: " + resource);
+			}
+			ddl = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+		}
+		LoadedSchema<Schema> loaded = cache.load(schemaName, ddl,
+			content -> SqlSchemaParser.parseSchemaFromString(content, schemaName));
+		description = loaded.describe();
+		return loaded.schema();
+	}
+	
+	@Override
+	public String describe() {
+		return description;
+	}
+	
+	@Override
+	public String getKey() {
+		return "ddl:" + schemaName + ":" + resource;
+	}
+}
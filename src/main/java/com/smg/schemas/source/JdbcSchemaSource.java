@@ -0,0 +1,402 @@
+package com.smg.schemas.source;
+
+import com.smg.sqlparser.domain.sql.Column;
+import com.smg.sqlparser.domain.sql.Schema;
+import com.smg.sqlparser.domain.sql.Table;
+import com.smg.sqlparser.domain.sql.constraints.PrimaryKey;
+import com.smg.sqlparser.domain.sql.constraints.Unique;
+import com.smg.sqlparser.enums.DataType;
+import com.smg.sqlparser.parser.SQL99.TableParser;
+import com.smg.sqlparser.parser.SQL99.TableParser.ForeignKeyReference;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Reads the schema of a live database through the JDBC {@link DatabaseMetaData}:
+ * its tables, columns, primary keys, unique indexes and foreign keys, built into the
+ * same {@link Schema} model as a parsed DDL.
+ * <p>
+ * Metadata calls are round trips to the database, several per table, so they are
+ * made concurrently: the tables are listed once, then a few workers, each with its
+ * own connection, take the next table from a shared counter until none is left. The
+ * tables are added to the schema in the order they were listed and the foreign keys
+ * linked once every table is known, so the result does not depend on the workers.
+ * <p>
+ * Without a schema pattern the tables of every schema are read. When they come from
+ * more than one schema, tables are named after their schema, as in {@code HR.EMPLOYEES},
+ * and foreign keys find their target in the schema the database gives for it; tables
+ * of the same name in two schemas are then both kept.
+ * <p>
+ * The JDBC driver of the database must be on the classpath.
+ */
+public class JdbcSchemaSource implements SchemaSource {
+	
+	private static final Logger LOGGER = LoggerFactory.getLogger(JdbcSchemaSource.class);
+	// Most drivers call tables "TABLE", H2 2 follows the standard "BASE TABLE"
+	private static final String[] TABLE_TYPES = {"TABLE", "BASE TABLE"};
+	
+	private final String url;
+	private final String user;
+	private final String password;
+	private final String schemaPattern;
+	private final String schemaName;
+	private final int connections;
+	private String description = "not loaded";
+	
+	/**
+	 * @param url The JDBC URL of the database.
+	 * @param user The user, or null.
+	 * @param password The password, or null.
+	 * @param schemaPattern The database schema to read, or null for every schema the user sees,
+	 *                      their tables then named after their schema when there are several.
+	 * @param schemaName The name of the loaded schema.
+	 * @param connections The number of connections, and workers, reading the metadata.
+	 */
+	public JdbcSchemaSource(String url, String user, String password, String schemaPattern, String schemaName, int connections) {
+		if (connections < 1) {
+			throw new IllegalArgumentException("At least one connection is needed, got " + connections);
+		}
+		this.url = url;
+		this.user = user;
+		this.password = password;
+		this.schemaPattern = schemaPattern;
+		this.schemaName = schemaName;
+		this.connections = connections;
+	}
+	
+	@Override
+	public Schema load() throws SQLException, InterruptedException {
+		long start = System.nanoTime();
+		List<Connection> pool = new ArrayList<>();
+		try {
+			pool.add(connect());
+			List<TableName> tableNames = listTables(pool.get(0).getMetaData());
+			boolean qualified = tableNames.stream().map(TableName::qualifier).distinct().count() > 1;
+			int workers = Math.max(1, Math.min(connections, tableNames.size()));
+			while (pool.size() < workers) {
+				pool.add(connect());
+			}
+			
+			TableMetadata[] tables = readTables(pool, tableNames, qualified);
+			
+			Schema schema = new Schema(schemaName);
+			for (TableMetadata table : tables) {
+				schema.addTable(table.table());
+			}
+			for (TableMetadata table : tables) {
+				TableParser.linkForeignKeys(table.table(), table.foreignKeys(), schema);
+			}
+			
+			description = String.format("introspected %d tables over %d connections in %.1f ms",
+				tables.length, workers, (System.nanoTime() - start) / 1e6);
+			LOGGER.info("Schema '{}' {} ({}).", schemaName, description, url);
+			return schema;
+		} finally {
+			for (Connection connection : pool) {
+				try {
+					connection.close();
+				} catch (SQLException e) {
+					LOGGER.warn("Failed to close a metadata connection to {}.", url, e);
+				}
+			}
+		}
+	}
+	
+	@Override
+	public String describe() {
+		return description;
+	}
+	
+	@Override
+	public String getKey() {
+		return "jdbc:" + schemaName + ":" + user + "@" + url + "/" + schemaPattern;
+	}
+	
+	private Connection connect() throws SQLException {
+		Connection connection = DriverManager.getConnection(url, user, password);
+		connection.setReadOnly(true);
+		return connection;
+	}
+	
+	/**
+	 * Reads the metadata of every table, one worker per connection.
+	 *
+	 * @param qualified Whether tables are named after their schema.
+	 * @return The tables, in the order they were listed.
+	 */
+	private TableMetadata[] readTables(List<Connection> pool, List<TableName> tableNames, boolean qualified) throws SQLException, InterruptedException {
+		TableMetadata[] tables = new TableMetadata[tableNames.size()];
+		if (pool.size() == 1) {
+			DatabaseMetaData metaData = pool.get(0).getMetaData();
+			for (int i = 0; i < tables.length; i++) {
+				tables[i] = readTable(metaData, tableNames.get(i), qualified);
+			}
+			return tables;
+		}
+		
+		AtomicInteger next = new AtomicInteger();
+		ExecutorService executor = Executors.newFixedThreadPool(pool.size());
+		try {
+			List<Future<Void>> futures = new ArrayList<>();
+			for (Connection connection : pool) {
+				futures.add(executor.submit(() -> {
+					DatabaseMetaData metaData = connection.getMetaData();
+					for (int i = next.getAndIncrement(); i < tables.length; i = next.getAndIncrement()) {
+						tables[i] = readTable(metaData, tableNames.get(i), qualified);
+					}
+					return null;
+				}));
+			}
+			for (Future<Void> future : futures) {
+				future.get();
+			}
+			return tables;
+		} catch (ExecutionException e) {
+			// Stop the other workers at their next table
+			next.set(tables.length);
+			if (e.getCause() instanceof SQLException sqlException) {
+				throw sqlException;
+			}
+			throw new SQLException("Failed to read the metadata of " + url, e.getCause());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+	
+	private List<TableName> listTables(DatabaseMetaData metaData) throws SQLException {
+		List<TableName> tableNames = new ArrayList<>();
+		try (ResultSet rs = metaData.getTables(null, schemaPattern, "%", TABLE_TYPES)) {
+			while (rs.next()) {
+				tableNames.add(new TableName(rs.getString("TABLE_CAT"), rs.getString("TABLE_SCHEM"), rs.getString("TABLE_NAME")));
+			}
+		}
+		return tableNames;
+	}
+	
+	/**
+	 * Reads the columns, keys and unique indexes of a table. Only its foreign keys
+	 * are left unresolved, as their target tables may not be read yet.
+	 */
+	private TableMetadata readTable(DatabaseMetaData metaData, TableName tableName, boolean qualified) throws SQLException {
+		Table table = new Table(qualified ? qualify(tableName.qualifier(), tableName.name()) : tableName.name());
+		String escape = metaData.getSearchStringEscape();
+		try (ResultSet rs = metaData.getColumns(tableName.catalog(), escape(tableName.schema(), escape), escape(tableName.name(), escape), "%")) {
+			while (rs.next()) {
+				// Drivers that ignore the escape also return the tables the name matches as a pattern
+				if (tableName.name().equals(rs.getString("TABLE_NAME"))) {
+					table.addColumn(readColumn(rs));
+				}
+			}
+		}
+		
+		List<String> primaryKeyColumns = readPrimaryKey(metaData, tableName);
+		if (!primaryKeyColumns.isEmpty()) {
+			PrimaryKey primaryKey = new PrimaryKey();
+			for (String columnName : primaryKeyColumns) {
+				Column column = table.findColumn(columnName);
+				if (column != null) {
+					column.setNullable(false);
+					primaryKey.addColumn(column);
+				}
+			}
+			if (primaryKey.getColumns().size() == 1) {
+				primaryKey.getColumns().get(0).setPrimaryKey(true);
+			}
+			table.setPrimaryKey(primaryKey);
+		}
+		
+		for (Map.Entry<String, List<String>> index : readUniqueIndexes(metaData, tableName).entrySet()) {
+			List<String> columnNames = index.getValue();
+			if (columnNames.equals(primaryKeyColumns)) {
+				// The index of the primary key
+				continue;
+			}
+			if (columnNames.size() == 1) {
+				Column column = table.findColumn(columnNames.get(0));
+				if (column != null) column.setUnique(true);
+			} else {
+				Unique unique = new Unique(columnNames);
+				unique.setName(index.getKey());
+				table.getUniqueConstraints().add(unique);
+			}
+		}
+		
+		return new TableMetadata(table, readForeignKeys(metaData, tableName, qualified));
+	}
+	
+	/**
+	 * Names a table after its schema, or its catalog on databases without schemas.
+	 */
+	static String qualify(String qualifier, String name) {
+		return qualifier == null ? name : qualifier + "." + name;
+	}
+	
+	/**
+	 * Escapes the wildcards of a name passed as a metadata pattern, as in {@code JOB_HISTORY}.
+	 */
+	static String escape(String name, String escape) {
+		if (name == null || escape == null || escape.isEmpty()) return name;
+		return name.replace(escape, escape + escape).replace("_", escape + "_").replace("%", escape + "%");
+	}
+	
+	private Column readColumn(ResultSet rs) throws SQLException {
+		String name = rs.getString("COLUMN_NAME");
+		String typeName = rs.getString("TYPE_NAME");
+		DataType dataType = toDataType(rs.getInt("DATA_TYPE"), typeName);
+		if (dataType == null) {
+			LOGGER.warn("Column '{}' has type {}, which is not a SQL99 type; it is read as VARCHAR.", name, typeName);
+			dataType = DataType.VARCHAR;
+		}
+		
+		Long length = null;
+		int size = rs.getInt("COLUMN_SIZE");
+		boolean sized = !rs.wasNull() && size > 0;
+		int scale = rs.getInt("DECIMAL_DIGITS");
+		boolean scaled = !rs.wasNull() && scale > 0;
+		if (sized && dataType.getDefaultLength() != null) {
+			length = (long) size;
+		} else if (sized && !scaled && (dataType == DataType.NUMERIC || dataType == DataType.DECIMAL)) {
+			// A single type argument is the length, as in the DDL
+			length = (long) size;
+		}
+		
+		boolean nullable = rs.getInt("NULLABLE") != DatabaseMetaData.columnNoNulls;
+		return new Column(name, dataType, length, nullable, false, false);
+	}
+	
+	/**
+	 * Maps a JDBC type to its SQL99 type.
+	 *
+	 * @param jdbcType The {@link Types} code of the column.
+	 * @param typeName The type name given by the database.
+	 * @return The SQL99 type, or null if there is none.
+	 */
+	static DataType toDataType(int jdbcType, String typeName) {
+		return switch (jdbcType) {
+			case Types.CHAR, Types.NCHAR -> DataType.CHAR;
+			case Types.VARCHAR, Types.NVARCHAR, Types.LONGVARCHAR, Types.LONGNVARCHAR -> DataType.VARCHAR;
+			case Types.CLOB, Types.NCLOB -> DataType.CLOB;
+			case Types.BLOB, Types.BINARY, Types.VARBINARY, Types.LONGVARBINARY -> DataType.BLOB;
+			case Types.NUMERIC -> DataType.NUMERIC;
+			case Types.DECIMAL -> DataType.DECIMAL;
+			case Types.INTEGER -> DataType.INT;
+			case Types.SMALLINT, Types.TINYINT -> DataType.SMALLINT;
+			case Types.BIGINT -> DataType.BIGINT;
+			case Types.FLOAT -> DataType.FLOAT;
+			case Types.REAL -> DataType.REAL;
+			case Types.DOUBLE -> DataType.DOUBLE_PRECISION;
+			case Types.BOOLEAN, Types.BIT -> DataType.BOOLEAN;
+			case Types.DATE -> DataType.DATE;
+			case Types.TIME, Types.TIME_WITH_TIMEZONE -> DataType.TIME;
+			case Types.TIMESTAMP, Types.TIMESTAMP_WITH_TIMEZONE -> DataType.TIMESTAMP;
+			default -> typeName != null && typeName.toUpperCase().startsWith("INTERVAL") ? DataType.INTERVAL : null;
+		};
+	}
+	
+	/**
+	 * @return The columns of the primary key, in key order, or an empty list.
+	 */
+	private List<String> readPrimaryKey(DatabaseMetaData metaData, TableName tableName) throws SQLException {
+		List<KeyColumn> keyColumns = new ArrayList<>();
+		try (ResultSet rs = metaData.getPrimaryKeys(tableName.catalog(), tableName.schema(), tableName.name())) {
+			while (rs.next()) {
+				keyColumns.add(new KeyColumn(rs.getString("COLUMN_NAME"), rs.getShort("KEY_SEQ")));
+			}
+		}
+		keyColumns.sort(Comparator.comparingInt(KeyColumn::position));
+		return keyColumns.stream().map(KeyColumn::name).toList();
+	}
+	
+	/**
+	 * @return The columns of each unique index, by index name, in index order.
+	 */
+	private Map<String, List<String>> readUniqueIndexes(DatabaseMetaData metaData, TableName tableName) throws SQLException {
+		Map<String, List<KeyColumn>> indexes = new LinkedHashMap<>();
+		try (ResultSet rs = metaData.getIndexInfo(tableName.catalog(), tableName.schema(), tableName.name(), true, true)) {
+			while (rs.next()) {
+				String columnName = rs.getString("COLUMN_NAME");
+				if (rs.getShort("TYPE") == DatabaseMetaData.tableIndexStatistic || columnName == null) continue;
+				indexes.computeIfAbsent(rs.getString("INDEX_NAME"), name -> new ArrayList<>())
+					.add(new KeyColumn(columnName, rs.getShort("ORDINAL_POSITION")));
+			}
+		}
+		
+		Map<String, List<String>> uniqueIndexes = new LinkedHashMap<>();
+		indexes.forEach((name, keyColumns) -> {
+			keyColumns.sort(Comparator.comparingInt(KeyColumn::position));
+			uniqueIndexes.put(name, keyColumns.stream().map(KeyColumn::name).toList());
+		});
+		return uniqueIndexes;
+	}
+	
+	/**
+	 * Reads the foreign keys of a table. Their rows come ordered by target table, so
+	 * the columns of a key are grouped by its name, or by its target table when the
+	 * database does not name it.
+	 *
+	 * @param qualified Whether target tables are named after their schema.
+	 */
+	private List<ForeignKeyReference> readForeignKeys(DatabaseMetaData metaData, TableName tableName, boolean qualified) throws SQLException {
+		Map<String, List<ForeignKeyColumn>> foreignKeys = new LinkedHashMap<>();
+		try (ResultSet rs = metaData.getImportedKeys(tableName.catalog(), tableName.schema(), tableName.name())) {
+			while (rs.next()) {
+				String targetTable = rs.getString("PKTABLE_NAME");
+				if (qualified) {
+					String targetSchema = rs.getString("PKTABLE_SCHEM");
+					targetTable = qualify(targetSchema != null ? targetSchema : rs.getString("PKTABLE_CAT"), targetTable);
+				}
+				String name = rs.getString("FK_NAME");
+				foreignKeys.computeIfAbsent(name != null ? name : targetTable, key -> new ArrayList<>())
+					.add(new ForeignKeyColumn(targetTable, rs.getString("FKCOLUMN_NAME"), rs.getString("PKCOLUMN_NAME"), rs.getShort("KEY_SEQ")));
+			}
+		}
+		
+		List<ForeignKeyReference> references = new ArrayList<>();
+		for (List<ForeignKeyColumn> columns : foreignKeys.values()) {
+			columns.sort(Comparator.comparingInt(ForeignKeyColumn::position));
+			references.add(new ForeignKeyReference(
+				columns.get(0).targetTable(),
+				columns.stream().map(ForeignKeyColumn::sourceColumn).toList(),
+				columns.stream().map(ForeignKeyColumn::targetColumn).toList()));
+		}
+		return references;
+	}
+	
+	/** A table as listed by the database **/
+	private record TableName(String catalog, String schema, String name) {
+		
+		/** The schema of the table, or its catalog on databases without schemas **/
+		String qualifier() {
+			return schema != null ? schema : catalog;
+		}
+	}
+	
+	/** A table read by a worker, with its foreign keys still to be linked **/
+	private record TableMetadata(Table table, List<ForeignKeyReference> foreignKeys) {
+	}
+	
+	/** A column of a key or index, with its position in it **/
+	private record KeyColumn(String name, int position) {
+	}
+	
+	/** A column of a foreign key, with the column it references **/
+	private record ForeignKeyColumn(String targetTable, String sourceColumn, String targetColumn, int position) {
+	}
+}
@@ -0,0 +1,30 @@
+package com.smg.schemas.source;
+
+import com.smg.sqlparser.domain.sql.Schema;
+
+/**
+ * Where a {@link Schema} comes from: a DDL file parsed by SMG, or a live database
+ * read through JDBC. Every source builds the same model, so the generators do not
+ * know which one the schema was read from.
+ */
+public interface SchemaSource {
+	
+	/**
+	 * Reads the schema.
+	 *
+	 * @return The schema, with its foreign keys linked.
+	 * @throws Exception if the source cannot be read.
+	 */
+	Schema load() throws Exception;
+	
+	/**
+	 * @return How the schema was last loaded and how long it took, for the reports.
+	 */
+	String describe();
+	
+	/**
+	 * @return What the source reads, equal for two sources that load the same schema, so
+	 *         that a resident schema can be reused.
+	 */
+	String getKey();
+}
@@ -1,7 +1,9 @@
 package com.smg.sqlparser.domain.graph;
 
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
+import com.smg.sqlparser.domain.sql.SymbolTable;
 
 import java.util.*;
 
@@ -12,30 +14,45 @@ public class Graph {
 
 
     private Map<Node, List<Node>> adjacencyList = new HashMap<>();
+    // Nodes by normalized table name
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private final Map<String, Node> nodesByName = new HashMap<>();
 
     public void addNode(Node node) {
-        adjacencyList.putIfAbsent(node, new ArrayList<>());
+        if (adjacencyList.putIfAbsent(node, new ArrayList<>()) == null) {
+            nodesByName.put(node.getKey(), node);
+        }
     }
 
     public void addEdge(Node from, Node to) {
-        adjacencyList.putIfAbsent(from, new ArrayList<>());
+        addNode(from);
         adjacencyList.get(from).add(to);
 
-        adjacencyList.putIfAbsent(to, new ArrayList<>());
+        addNode(to);
         adjacencyList.get(to).add(from);
     }
 
+    public void setAdjacencyList(Map<Node, List<Node>> adjacencyList) {
+        this.adjacencyList = adjacencyList;
+        indexNodes();
+    }
+
+    private void indexNodes() {
+        nodesByName.clear();
+        adjacencyList.keySet().forEach(node -> nodesByName.put(node.getKey(), node));
+    }
+
     public List<Node> getNeighbors(Node node) {
         return adjacencyList.getOrDefault(node, Collections.emptyList());
     }
 
     public Node findNodeByName(String tableName) {
-        for (Node node : adjacencyList.keySet()) {
-            if (node.getTable().getName().equalsIgnoreCase(tableName)) {
-                return node;
-            }
+        if (nodesByName.size() != adjacencyList.size()) {
+            // Nodes were added to the adjacency list directly
+            indexNodes();
         }
-        return null;
+        return nodesByName.get(SymbolTable.normalize(tableName));
     }
 
     public Set<Node> getNodes() {
@@ -1,31 +1,37 @@
 package com.smg.sqlparser.domain.graph;
 
-import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.Setter;
+import com.smg.sqlparser.domain.sql.SymbolTable;
 import com.smg.sqlparser.domain.sql.Table;
 
 @Getter
 @Setter
-@AllArgsConstructor
 public class Node {
 
     private final Table table;
+    // The table name as compared, normalized once instead of on every hash
+    private final String key;
+
+    public Node(Table table) {
+        this.table = table;
+        this.key = SymbolTable.normalize(table.getName());
+    }
 
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
         if (!(o instanceof Node node)) return false;
-        return table.getName().equalsIgnoreCase(node.table.getName());
+        return key.equals(node.key);
     }
 
     @Override
     public int hashCode() {
-        return table.getName().toLowerCase().hashCode();
+        return key.hashCode();
     }
 
     @Override
     public String toString() {
         return table.getName();
     }
-}
\ No newline at end of file
+}
@@ -1,30 +1,104 @@
 package com.smg.sqlparser.domain.sql;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
-import lombok.AllArgsConstructor;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
 
+/**
+ * A parsed schema: its tables by name.
+ * <p>
+ * Every table gets an id in the schema {@link SymbolTable}, so tables are found by
+ * {@link #getTable(String)} in a single lookup and without case, whatever the case
+ * the DDL or the user wrote their names in.
+ */
 @Data
-@AllArgsConstructor
 public class Schema {
 
     private String name;
+    @Getter(AccessLevel.NONE)
     private Map<String, Table> tables = new HashMap<>();
     
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private final SymbolTable tableSymbols = new SymbolTable();
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private final List<Table> tablesById = new ArrayList<>();
+    
     public Schema(String name) {
         this.name = name;
     }
+    
+    public Schema(String name, Map<String, Table> tables) {
+        this.name = name;
+        setTables(tables);
+    }
 
     public void addTable(Table table) {
         tables.put(table.getName(), table);
+        indexTable(table);
+    }
+    
+    /** Replaces the tables with a copy of the given map and gives them their ids again **/
+    public void setTables(Map<String, Table> tables) {
+        this.tables = new HashMap<>(tables);
+        tableSymbols.clear();
+        tablesById.clear();
+        tables.values().forEach(this::indexTable);
+    }
+    
+    /** Gives a table its id; a table named as a previous one takes its place, as in the map **/
+    private void indexTable(Table table) {
+        int id = tableSymbols.intern(table.getName());
+        if (id == tablesById.size()) {
+            tablesById.add(table);
+        } else {
+            tablesById.set(id, table);
+        }
     }
 
+    /** Returns the tables by name; changes go through {@link #addTable} and {@link #setTables} **/
+    public Map<String, Table> getTables() {
+        return Collections.unmodifiableMap(tables);
+    }
+    
     public Collection<Table> getTablesValues() {
-        return tables.values();
+        return Collections.unmodifiableCollection(tables.values());
+    }
+    
+    /** Returns a table by name, compared without case and quotes, or null **/
+    public Table getTable(String tableName) {
+        int id = tableSymbols.find(tableName);
+        return id == SymbolTable.NOT_FOUND ? null : tablesById.get(id);
+    }
+    
+    /** Returns the id of a table, or {@link SymbolTable#NOT_FOUND} **/
+    public int getTableId(String tableName) {
+        return tableSymbols.find(tableName);
+    }
+    
+    /** Returns a table by id, as given by {@link #getTableId(String)} **/
+    public Table getTable(int id) {
+        return tablesById.get(id);
     }
     
+    /** Returns the number of table ids **/
+    public int getTableCount() {
+        return tablesById.size();
+    }
     
 }
@@ -0,0 +1,92 @@
+package com.smg.sqlparser.domain.sql;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Interned identifiers: every distinct name gets a stable int id, in the order the names
+ * are first seen, and is kept in a normalized form.
+ * <p>
+ * Names are compared as SQL compares unquoted identifiers: without case, and with the
+ * quotes of a quoted identifier removed, so {@code EMPLOYEES}, {@code employees} and
+ * {@code "Employees"} are the same symbol. A lookup normalizes the name once and costs
+ * a single hash lookup, instead of comparing it with every known name.
+ * <p>
+ * Not thread safe: a symbol table is filled by the thread that builds its schema or table.
+ */
+public final class SymbolTable {
+	
+	/** Returned by {@link #find(String)} for an unknown name **/
+	public static final int NOT_FOUND = -1;
+	
+	private final Map<String, Integer> ids = new HashMap<>();
+	private final List<String> names = new ArrayList<>();
+	
+	/**
+	 * Normalizes a name, as compared by the symbol tables.
+	 *
+	 * @return The name without its quotes and in lower case, or null for a null name.
+	 */
+	public static String normalize(String name) {
+		if (name == null) {
+			return null;
+		}
+		if (name.length() >= 2) {
+			char first = name.charAt(0);
+			char last = name.charAt(name.length() - 1);
+			if ((first == '"' && last == '"') || (first == '`' && last == '`') || (first == '[' && last == ']')) {
+				name = name.substring(1, name.length() - 1);
+			}
+		}
+		// Returns the same string when it is already in lower case
+		return name.toLowerCase(Locale.ROOT);
+	}
+	
+	/**
+	 * Returns the id of a name, giving it the next id if it is new.
+	 */
+	public int intern(String name) {
+		String symbol = normalize(name);
+		Integer id = ids.get(symbol);
+		if (id != null) {
+			return id;
+		}
+		int newId = names.size();
+		ids.put(symbol, newId);
+		names.add(symbol);
+		return newId;
+	}
+	
+	/**
+	 * Returns the id of a name, or {@link #NOT_FOUND} if it was never interned.
+	 */
+	public int find(String name) {
+		Integer id = ids.get(normalize(name));
+		return id != null ? id : NOT_FOUND;
+	}
+	
+	/**
+	 * Returns the normalized name of an id.
+	 */
+	public String name(int id) {
+		return names.get(id);
+	}
+	
+	/**
+	 * Returns the number of symbols, which are numbered from 0.
+	 */
+	public int size() {
+		return names.size();
+	}
+	
+	/**
+	 * Forgets every symbol.
+	 */
+	public void clear() {
+		ids.clear();
+		names.clear();
+	}
+}
@@ -1,12 +1,17 @@
 package com.smg.sqlparser.domain.sql;
 
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
 import lombok.ToString;
 import com.smg.sqlparser.domain.sql.constraints.ForeignKey;
 import com.smg.sqlparser.domain.sql.constraints.PrimaryKey;
 import com.smg.sqlparser.domain.sql.constraints.Unique;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Set;
 
@@ -14,6 +19,7 @@ import java.util.Set;
 public class Table {
     
     private String name;
+    @Getter(AccessLevel.NONE)
     private List<Column> columns = new ArrayList<>();
     private PrimaryKey primaryKey;
     @ToString.Exclude
@@ -21,12 +27,55 @@ public class Table {
     @ToString.Exclude
     private List<Unique> uniqueConstraints = new ArrayList<>();
     
+    // Column ids by name, and the column of each id; kept up to date by addColumn and setColumns
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private final SymbolTable columnSymbols = new SymbolTable();
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private final List<Column> columnsById = new ArrayList<>();
     public Table(String name) {
         this.name = name;
     }
     
+    /** Returns the columns, in order; changes go through {@link #addColumn} and {@link #setColumns} **/
+    public List<Column> getColumns() {
+        return Collections.unmodifiableList(columns);
+    }
+    
     public void addColumn(Column column) {
         columns.add(column);
+        indexColumn(column);
+    }
+    
+    /** Replaces the columns with a copy of the given list and gives them their ids again **/
+    public void setColumns(List<Column> columns) {
+        this.columns = new ArrayList<>(columns);
+        columnSymbols.clear();
+        columnsById.clear();
+        this.columns.forEach(this::indexColumn);
+    }
+    
+    /** Returns a column by name, compared without case and quotes, or null **/
+    public Column findColumn(String columnName) {
+        int id = getColumnId(columnName);
+        return id == SymbolTable.NOT_FOUND ? null : columnsById.get(id);
+    }
+    
+    /** Returns the id of a column in this table, or {@link SymbolTable#NOT_FOUND} **/
+    public int getColumnId(String columnName) {
+        return columnSymbols.find(columnName);
+    }
+    
+    /** Gives a column its id; the first column of a name keeps it **/
+    private void indexColumn(Column column) {
+        if (columnSymbols.intern(column.getName()) == columnsById.size()) {
+            columnsById.add(column);
+        }
     }
     
     public void addForeignKey(ForeignKey foreignKey) {
@@ -3,6 +3,7 @@ package com.smg.sqlparser.parser.SQL99;
 import net.sf.jsqlparser.statement.create.table.ColDataType;
 import net.sf.jsqlparser.statement.create.table.ColumnDefinition;
 import com.smg.sqlparser.domain.sql.Column;
+import com.smg.sqlparser.parser.SQL99.CreateTableScanner.ScannedColumn;
 import com.smg.sqlparser.enums.DataType;
 
 import java.util.List;
@@ -33,22 +34,44 @@ public final class ColumnParser {
                 .equalsIgnoreCase("PRIMARY KEY"));
     }
     
-    /** Removes length/precision from type and returns only base type */
+    /** Builds a column scanned by the {@link CreateTableScanner}, or returns null if its type is not a SQL99 type **/
+    public static Column parse(ScannedColumn scanned) {
+        DataType dataType = findDataType(scanned.typeName());
+        if (dataType == null) return null;
+        Long length = parseLength(scanned.typeArguments(), dataType);
+        
+        boolean primaryKey = scanned.primaryKey();
+        boolean nullable = !primaryKey && !scanned.notNull();
+        
+        return new Column(scanned.name(), dataType, length, nullable, primaryKey, scanned.unique());
+    }
+    
+    /** Returns only the base type, without length/precision */
     private static DataType parseDataType(ColumnDefinition colDef) {
         ColDataType colDataType = colDef.getColDataType();
-        String colType = colDataType.toString().replaceAll("\\(.*\\)", "");
-        colType = colType.trim();
-        return DataType.valueOf(colType);
+        return DataType.valueOf(colDataType.getDataType().trim());
+    }
+    
+    /** Returns the SQL99 type of the given name, or null if there is none */
+    private static DataType findDataType(String typeName) {
+        try {
+            return DataType.valueOf(typeName);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
     }
 
     /** Extracts the column length if present, otherwise returns default from SQL99 enum */
     private static Long parseLength(ColumnDefinition colDef, DataType dataType) {
-        String typeStr = colDef.getColDataType().toString();
-        String match = typeStr.replaceAll(".*\\((.*?)\\).*", "$1");
-
-        if (!match.equals(typeStr)) {
+        return parseLength(colDef.getColDataType().getArgumentsStringList(), dataType);
+    }
+    
+    /** Returns the single type argument as length, null for precision and scale, or the default if there are none */
+    private static Long parseLength(List<String> typeArguments, DataType dataType) {
+        if (typeArguments != null && !typeArguments.isEmpty()) {
+            if (typeArguments.size() > 1) return null;
             try {
-                return Long.parseLong(match.trim());
+                return Long.parseLong(typeArguments.get(0).trim());
             } catch (NumberFormatException e) {
                 return null;
             }
@@ -0,0 +1,485 @@
+package com.smg.sqlparser.parser.SQL99;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Single-pass scanner for the common shape of a {@code CREATE TABLE} statement.
+ * <p>
+ * The statement is read token by token, with no regular expression and no copy of
+ * the text but the names and type arguments it keeps. It covers column definitions
+ * with a type, optional numeric type arguments and the usual column constraints
+ * ({@code NOT NULL}, {@code PRIMARY KEY}, {@code UNIQUE}, {@code DEFAULT}, {@code CHECK},
+ * {@code REFERENCES}), and the table constraints ({@code PRIMARY KEY}, {@code UNIQUE},
+ * {@code CHECK}, {@code FOREIGN KEY}), optionally named with {@code CONSTRAINT}.
+ * <p>
+ * Any other syntax, such as multi-word types, {@code AS SELECT} or vendor specific
+ * column options, is not guessed at: {@link #scan} returns null and the statement is
+ * left to JSqlParser. Names are kept as written, quotes included, as JSqlParser does.
+ */
+public final class CreateTableScanner {
+	
+	/** A table as declared by a CREATE TABLE statement **/
+	public record ScannedTable(String name, List<ScannedColumn> columns, List<ScannedForeignKey> foreignKeys) {
+	}
+	
+	/** A column definition, with the referenced table and column of an inline REFERENCES, if any **/
+	public record ScannedColumn(String name, String typeName, List<String> typeArguments, boolean notNull,
+								boolean primaryKey, boolean unique, String referencedTable, String referencedColumn) {
+		
+		/**
+		 * @return The type as declared, e.g. {@code VARCHAR(25)} or {@code DECIMAL(10,2)}.
+		 */
+		public String typeText() {
+			return typeArguments.isEmpty() ? typeName : typeName + "(" + String.join(",", typeArguments) + ")";
+		}
+	}
+	
+	/** A table-level FOREIGN KEY constraint, with its name or null if it has none **/
+	public record ScannedForeignKey(String name, List<String> columns, String referencedTable, List<String> referencedColumns) {
+	}
+	
+	private static final int END = 0;
+	private static final int WORD = 1;
+	private static final int QUOTED = 2;
+	private static final int NUMBER = 3;
+	private static final int STRING = 4;
+	private static final int SYMBOL = 5;
+	
+	// Words a CREATE TABLE may have before TABLE, as in CREATE GLOBAL TEMPORARY TABLE
+	private static final int MAX_TABLE_KEYWORD_POSITION = 4;
+	
+	private static final Unsupported UNSUPPORTED = new Unsupported();
+	
+	private final String sql;
+	private int position;
+	private int tokenType;
+	private int tokenStart;
+	private int tokenEnd;
+	
+	private CreateTableScanner(String sql) {
+		this.sql = sql;
+		next();
+	}
+	
+	/**
+	 * Scans a CREATE TABLE statement.
+	 *
+	 * @param sql A single statement, without its terminating semicolon.
+	 * @return The table, or null if the statement uses syntax the scanner does not handle.
+	 */
+	public static ScannedTable scan(String sql) {
+		try {
+			return new CreateTableScanner(sql).scanTable();
+		} catch (Unsupported e) {
+			return null;
+		}
+	}
+	
+	/**
+	 * Tells a CREATE TABLE statement apart from the other statements of a script
+	 * by its first words, without scanning it. A statement whose first words cannot be
+	 * read, such as one with an unterminated quote, is taken for a CREATE TABLE, so that
+	 * JSqlParser reports the error.
+	 */
+	public static boolean isCreateTable(String sql) {
+		try {
+			CreateTableScanner scanner = new CreateTableScanner(sql);
+			if (!scanner.isKeyword("CREATE")) {
+				return false;
+			}
+			for (int i = 0; i < MAX_TABLE_KEYWORD_POSITION && scanner.tokenType == WORD; i++) {
+				scanner.next();
+				if (scanner.isKeyword("TABLE")) {
+					return true;
+				}
+			}
+			return false;
+		} catch (Unsupported e) {
+			return true;
+		}
+	}
+	
+	private ScannedTable scanTable() {
+		expectKeyword("CREATE");
+		while (!isKeyword("TABLE")) {
+			expect(WORD);
+		}
+		next();
+		if (acceptKeyword("IF")) {
+			expectKeyword("NOT");
+			expectKeyword("EXISTS");
+		}
+		String name = qualifiedName();
+		
+		List<ScannedColumn> columns = new ArrayList<>();
+		List<ScannedForeignKey> foreignKeys = new ArrayList<>();
+		expectSymbol('(');
+		do {
+			scanElement(columns, foreignKeys);
+		} while (acceptSymbol(','));
+		expectSymbol(')');
+		// Table options after the definitions do not change the model
+		return new ScannedTable(name, columns, foreignKeys);
+	}
+	
+	/**
+	 * Scans a column definition or a table constraint.
+	 */
+	private void scanElement(List<ScannedColumn> columns, List<ScannedForeignKey> foreignKeys) {
+		String constraintName = null;
+		if (acceptKeyword("CONSTRAINT")) {
+			constraintName = identifier();
+		}
+		if (isKeyword("FOREIGN") && nextIsKeyword("KEY")) {
+			next();
+			next();
+			List<String> sourceColumns = nameList();
+			expectKeyword("REFERENCES");
+			String referencedTable = qualifiedName();
+			List<String> referencedColumns = nameList();
+			skipReferentialActions();
+			foreignKeys.add(new ScannedForeignKey(constraintName, sourceColumns, referencedTable, referencedColumns));
+		} else if (constraintName != null
+			|| (isKeyword("PRIMARY") && nextIsKeyword("KEY"))
+			|| (isKeyword("UNIQUE") && (nextIsSymbol('(') || nextIsKeyword("KEY") || nextIsKeyword("INDEX")))
+			|| (isKeyword("CHECK") && nextIsSymbol('('))) {
+			// Table-level keys and checks are not part of the model
+			skipElement();
+		} else if (isKeyword("KEY") || isKeyword("INDEX") || isKeyword("LIKE") || isKeyword("PERIOD")) {
+			// Index definitions and copies of other tables, or a column with such a name
+			throw UNSUPPORTED;
+		} else {
+			columns.add(scanColumn());
+		}
+		if (!isSymbol(',') && !isSymbol(')')) {
+			throw UNSUPPORTED;
+		}
+	}
+	
+	private ScannedColumn scanColumn() {
+		String name = identifier();
+		if (tokenType != WORD) {
+			throw UNSUPPORTED;
+		}
+		String typeName = text();
+		next();
+		List<String> typeArguments = List.of();
+		if (acceptSymbol('(')) {
+			typeArguments = new ArrayList<>(2);
+			do {
+				if (tokenType != NUMBER) {
+					throw UNSUPPORTED;
+				}
+				typeArguments.add(text());
+				next();
+			} while (acceptSymbol(','));
+			expectSymbol(')');
+		}
+		
+		boolean notNull = false;
+		boolean primaryKey = false;
+		boolean unique = false;
+		String referencedTable = null;
+		String referencedColumn = null;
+		while (!isSymbol(',') && !isSymbol(')') && tokenType != END) {
+			if (acceptKeyword("NOT")) {
+				expectKeyword("NULL");
+				notNull = true;
+			} else if (acceptKeyword("NULL")) {
+				notNull = false;
+			} else if (acceptKeyword("PRIMARY")) {
+				expectKeyword("KEY");
+				primaryKey = true;
+			} else if (acceptKeyword("UNIQUE")) {
+				acceptKeyword("KEY");
+				unique = true;
+			} else if (acceptKeyword("DEFAULT")) {
+				skipOperand();
+			} else if (acceptKeyword("CHECK")) {
+				skipGroup();
+			} else if (acceptKeyword("CONSTRAINT")) {
+				identifier();
+			} else if (acceptKeyword("COLLATE")) {
+				identifier();
+			} else if (acceptKeyword("REFERENCES")) {
+				referencedTable = qualifiedName();
+				if (isSymbol('(')) {
+					List<String> referencedColumns = nameList();
+					if (referencedColumns.size() != 1) {
+						throw UNSUPPORTED;
+					}
+					referencedColumn = referencedColumns.get(0);
+				}
+				skipReferentialActions();
+			} else if (!acceptKeyword("AUTO_INCREMENT") && !acceptKeyword("AUTOINCREMENT")) {
+				throw UNSUPPORTED;
+			}
+		}
+		return new ScannedColumn(name, typeName, typeArguments, notNull, primaryKey, unique, referencedTable, referencedColumn);
+	}
+	
+	/**
+	 * Skips the ON DELETE / ON UPDATE actions and the deferral of a reference.
+	 */
+	private void skipReferentialActions() {
+		while (true) {
+			if (acceptKeyword("ON")) {
+				if (!acceptKeyword("DELETE") && !acceptKeyword("UPDATE")) {
+					throw UNSUPPORTED;
+				}
+				// CASCADE, RESTRICT, SET NULL, SET DEFAULT or NO ACTION
+				if (!acceptKeyword("SET")) {
+					acceptKeyword("NO");
+				}
+				expect(WORD);
+			} else if (acceptKeyword("MATCH")) {
+				expect(WORD);
+			} else if (isKeyword("NOT") && nextIsKeyword("DEFERRABLE")) {
+				next();
+				next();
+			} else if (acceptKeyword("DEFERRABLE")) {
+				continue;
+			} else if (acceptKeyword("INITIALLY")) {
+				expect(WORD);
+			} else {
+				return;
+			}
+		}
+	}
+	
+	/**
+	 * Skips a DEFAULT value: a literal or a name, optionally signed, called or parenthesized.
+	 */
+	private void skipOperand() {
+		if (isSymbol('-') || isSymbol('+')) {
+			next();
+		}
+		if (isSymbol('(')) {
+			skipGroup();
+			return;
+		}
+		if (tokenType == END || tokenType == SYMBOL) {
+			throw UNSUPPORTED;
+		}
+		boolean word = tokenType == WORD;
+		next();
+		if (word && isSymbol('(')) {
+			skipGroup();
+		}
+	}
+	
+	/**
+	 * Skips a parenthesized group, nested groups included.
+	 */
+	private void skipGroup() {
+		expectSymbol('(');
+		int depth = 1;
+		while (depth > 0) {
+			if (tokenType == END) {
+				throw UNSUPPORTED;
+			}
+			if (isSymbol('(')) {
+				depth++;
+			} else if (isSymbol(')')) {
+				depth--;
+			}
+			next();
+		}
+	}
+	
+	/**
+	 * Skips the rest of a table element, up to the comma or parenthesis that ends it.
+	 */
+	private void skipElement() {
+		int depth = 0;
+		while (tokenType != END && (depth > 0 || (!isSymbol(',') && !isSymbol(')')))) {
+			if (isSymbol('(')) {
+				depth++;
+			} else if (isSymbol(')')) {
+				depth--;
+			}
+			next();
+		}
+	}
+	
+	private List<String> nameList() {
+		List<String> names = new ArrayList<>(2);
+		expectSymbol('(');
+		do {
+			names.add(identifier());
+		} while (acceptSymbol(','));
+		expectSymbol(')');
+		return names;
+	}
+	
+	/**
+	 * @return The last part of a possibly qualified name, such as the table of {@code hr.employees}.
+	 */
+	private String qualifiedName() {
+		String name = identifier();
+		while (acceptSymbol('.')) {
+			name = identifier();
+		}
+		return name;
+	}
+	
+	private String identifier() {
+		if (tokenType != WORD && tokenType != QUOTED) {
+			throw UNSUPPORTED;
+		}
+		String name = text();
+		next();
+		return name;
+	}
+	
+	private String text() {
+		return sql.substring(tokenStart, tokenEnd);
+	}
+	
+	private boolean isKeyword(String keyword) {
+		return tokenType == WORD && tokenEnd - tokenStart == keyword.length()
+			&& sql.regionMatches(true, tokenStart, keyword, 0, keyword.length());
+	}
+	
+	private boolean isSymbol(char symbol) {
+		return tokenType == SYMBOL && sql.charAt(tokenStart) == symbol;
+	}
+	
+	private boolean acceptKeyword(String keyword) {
+		if (isKeyword(keyword)) {
+			next();
+			return true;
+		}
+		return false;
+	}
+	
+	private boolean acceptSymbol(char symbol) {
+		if (isSymbol(symbol)) {
+			next();
+			return true;
+		}
+		return false;
+	}
+	
+	private void expectKeyword(String keyword) {
+		if (!acceptKeyword(keyword)) {
+			throw UNSUPPORTED;
+		}
+	}
+	
+	private void expectSymbol(char symbol) {
+		if (!acceptSymbol(symbol)) {
+			throw UNSUPPORTED;
+		}
+	}
+	
+	private void expect(int type) {
+		if (tokenType != type) {
+			throw UNSUPPORTED;
+		}
+		next();
+	}
+	
+	private boolean nextIsKeyword(String keyword) {
+		return nextIs(keyword, '\0');
+	}
+	
+	private boolean nextIsSymbol(char symbol) {
+		return nextIs(null, symbol);
+	}
+	
+	/**
+	 * Looks at the token after the current one, which stays current.
+	 */
+	private boolean nextIs(String keyword, char symbol) {
+		int savedPosition = position;
+		int savedType = tokenType;
+		int savedStart = tokenStart;
+		int savedEnd = tokenEnd;
+		next();
+		boolean matches = keyword != null ? isKeyword(keyword) : isSymbol(symbol);
+		position = savedPosition;
+		tokenType = savedType;
+		tokenStart = savedStart;
+		tokenEnd = savedEnd;
+		return matches;
+	}
+	
+	/**
+	 * Reads the next token, skipping whitespace and comments.
+	 */
+	private void next() {
+		int length = sql.length();
+		while (position < length) {
+			char c = sql.charAt(position);
+			if (Character.isWhitespace(c)) {
+				position++;
+			} else if (c == '-' && position + 1 < length && sql.charAt(position + 1) == '-') {
+				int lineEnd = sql.indexOf('\n', position);
+				position = lineEnd < 0 ? length : lineEnd + 1;
+			} else if (c == '/' && position + 1 < length && sql.charAt(position + 1) == '*') {
+				int commentEnd = sql.indexOf("*/", position + 2);
+				position = commentEnd < 0 ? length : commentEnd + 2;
+			} else {
+				break;
+			}
+		}
+		tokenStart = position;
+		if (position >= length) {
+			tokenType = END;
+			tokenEnd = position;
+			return;
+		}
+		
+		char c = sql.charAt(position);
+		if (Character.isLetter(c) || c == '_') {
+			tokenType = WORD;
+			position++;
+			while (position < length && isWordPart(sql.charAt(position))) {
+				position++;
+			}
+		} else if (Character.isDigit(c)) {
+			tokenType = NUMBER;
+			position++;
+			while (position < length && (Character.isDigit(sql.charAt(position)) || sql.charAt(position) == '.')) {
+				position++;
+			}
+		} else if (c == '"' || c == '`' || c == '[') {
+			tokenType = QUOTED;
+			position = closingQuote(c == '[' ? ']' : c, position + 1) + 1;
+		} else if (c == '\'') {
+			tokenType = STRING;
+			position = closingQuote('\'', position + 1) + 1;
+			// A doubled quote continues the string
+			while (position < length && sql.charAt(position) == '\'') {
+				position = closingQuote('\'', position + 1) + 1;
+			}
+		} else {
+			tokenType = SYMBOL;
+			position++;
+		}
+		tokenEnd = position;
+	}
+	
+	private int closingQuote(char quote, int from) {
+		int index = sql.indexOf(quote, from);
+		if (index < 0) {
+			throw UNSUPPORTED;
+		}
+		return index;
+	}
+	
+	private static boolean isWordPart(char c) {
+		return Character.isLetterOrDigit(c) || c == '_' || c == '$' || c == '#';
+	}
+	
+	/**
+	 * Thrown, without a stack trace, at the first token the scanner does not handle.
+	 */
+	private static final class Unsupported extends RuntimeException {
+		private Unsupported() {
+			super(null, null, false, false);
+		}
+	}
+}
@@ -5,49 +5,136 @@ import net.sf.jsqlparser.statement.Statement;
 import net.sf.jsqlparser.statement.create.table.*;
 import com.smg.sqlparser.domain.sql.Schema;
 import com.smg.sqlparser.domain.sql.Table;
+import com.smg.sqlparser.parser.SQL99.CreateTableScanner.ScannedTable;
+import com.smg.sqlparser.parser.SQL99.TableParser.ForeignKeyReference;
 
 import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
 
+/**
+ * Parses the {@code CREATE TABLE} statements of a DDL script into a {@link Schema}.
+ * <p>
+ * The script is read incrementally by a {@link SqlStatementSplitter}, and every
+ * {@code CREATE TABLE} statement is parsed on a pool of workers while the next ones
+ * are read, by the {@link CreateTableScanner} or, for the syntax it does not handle,
+ * by JSqlParser. Other statements are skipped without being parsed. Only a bounded number
+ * of statements waits for a worker at any time, so the memory used by a schema dump
+ * does not grow with its size beyond the parsed tables. Foreign keys are resolved in
+ * a final linking pass, once every table is known, so tables may reference tables
+ * declared after them.
+ */
 public class SqlSchemaParser {
 	
+	private static final int PARSER_THREADS = Math.max(1, Runtime.getRuntime().availableProcessors());
+	// Statements read ahead of the workers
+	private static final int MAX_PENDING_STATEMENTS = PARSER_THREADS * 16;
+	
 	public static Schema parseSchemaFromFile(Path filePath, String schemaName) throws IOException, Exception {
-		String sqlContent = Files.readString(filePath);
-		return parseSchemaFromString(sqlContent, schemaName);
+		return parseSchema(Files.newBufferedReader(filePath, StandardCharsets.UTF_8), schemaName);
 	}
 	
 	public static Schema parseSchemaFromString(String sqlContent, String schemaName) throws Exception {
-		Schema schema = new Schema(schemaName);
-		String cleanSqlContent = cleanComments(sqlContent);
-		
-		List<Statement> statements = CCJSqlParserUtil.parseStatements(cleanSqlContent);
+		return parseSchema(new StringReader(sqlContent), schemaName);
+	}
+	
+	/**
+	 * Parses the tables of a DDL script read from a reader, which is closed afterwards.
+	 *
+	 * @param reader The DDL script.
+	 * @param schemaName The name of the schema.
+	 * @return The schema with its tables and their foreign keys.
+	 */
+	public static Schema parseSchema(Reader reader, String schemaName) throws Exception {
+		AtomicInteger threadCount = new AtomicInteger();
+		ExecutorService workers = Executors.newFixedThreadPool(PARSER_THREADS, runnable -> {
+			Thread thread = new Thread(runnable, "ddl-parser-" + threadCount.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+		Semaphore pending = new Semaphore(MAX_PENDING_STATEMENTS);
+		List<Future<ParsedTable>> parsedTables = new ArrayList<>();
 		
-		for (Statement stmt : statements) {
-			if (stmt instanceof CreateTable createTable) {
-				Table table = TableParser.parseTableWithoutForeignKeys(createTable);
-				schema.addTable(table);
+		try (SqlStatementSplitter splitter = new SqlStatementSplitter(reader)) {
+			String sql;
+			while ((sql = splitter.nextStatement()) != null) {
+				if (!CreateTableScanner.isCreateTable(sql)) {
+					continue;
+				}
+				pending.acquire();
+				String createTableSql = sql;
+				parsedTables.add(workers.submit(() -> {
+					try {
+						return parseTable(createTableSql);
+					} finally {
+						pending.release();
+					}
+				}));
 			}
-		}
-		
-		for (Statement stmt : statements) {
-			if (stmt instanceof CreateTable createTable) {
-				Table table = schema.getTables().get(createTable.getTable().getName());
-				TableParser.addForeignKeys(table, createTable, schema);
+			
+			Schema schema = new Schema(schemaName);
+			List<ParsedTable> tables = new ArrayList<>(parsedTables.size());
+			for (Future<ParsedTable> parsedTable : parsedTables) {
+				ParsedTable table = await(parsedTable);
+				if (table != null) {
+					schema.addTable(table.table());
+					tables.add(table);
+				}
+			}
+			
+			for (ParsedTable table : tables) {
+				TableParser.linkForeignKeys(table.table(), table.foreignKeys(), schema);
 			}
+			return schema;
+		} finally {
+			workers.shutdownNow();
 		}
-		
-		return schema;
 	}
 	
 	/**
-	 * Removes SQL comments from the provided SQL content.
+	 * Parses a single CREATE TABLE statement, keeping its foreign keys for the linking pass.
+	 * The statement is read by the {@link CreateTableScanner} when it can, and by JSqlParser otherwise.
 	 *
-	 * @param sqlContent SQL content as a string.
-	 * @return SQL content without comments.
+	 * @return The parsed table, or null if the statement turns out not to create a table.
 	 */
-	private static String cleanComments(String sqlContent) {
-		return sqlContent.replaceAll("(?m)^\\s*--.*(?:\\r?\\n)?", "");
+	private static ParsedTable parseTable(String sql) throws Exception {
+		ScannedTable scanned = CreateTableScanner.scan(sql);
+		Table scannedTable = scanned != null ? TableParser.parseScannedTable(scanned) : null;
+		if (scannedTable != null) {
+			return new ParsedTable(scannedTable, TableParser.parseForeignKeyReferences(scanned));
+		}
+		
+		Statement stmt = CCJSqlParserUtil.newParser(sql).Statement();
+		if (stmt instanceof CreateTable createTable) {
+			Table table = TableParser.parseTableWithoutForeignKeys(createTable);
+			return new ParsedTable(table, TableParser.parseForeignKeyReferences(createTable));
+		}
+		return null;
+	}
+	
+	private static ParsedTable await(Future<ParsedTable> parsedTable) throws Exception {
+		try {
+			return parsedTable.get();
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof Exception cause) {
+				throw cause;
+			}
+			throw e;
+		}
+	}
+	
+	/** A parsed table and its foreign keys, not yet linked to their target tables **/
+	private record ParsedTable(Table table, List<ForeignKeyReference> foreignKeys) {
 	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,209 @@
+package com.smg.sqlparser.parser.SQL99;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Splits a SQL script into statements while reading it, one statement at a time.
+ * <p>
+ * Only the statement being read is held in memory, so a schema dump of any size is
+ * split with a memory bound by its longest statement. A {@code ;} ends a statement
+ * unless it is inside a single-quoted string, a double-quoted or backquoted identifier,
+ * a dollar-quoted body ({@code $$ ... $$} or {@code $tag$ ... $tag$}) or a comment.
+ * Line ({@code --}) and block ({@code /* ... *}{@code /}) comments are left out of the
+ * statements. Quotes are doubled to be escaped; a backslash is an ordinary character.
+ */
+public class SqlStatementSplitter implements Closeable {
+	
+	private static final int BUFFER_SIZE = 64 * 1024;
+	
+	private final Reader reader;
+	private final char[] buffer = new char[BUFFER_SIZE];
+	private final StringBuilder statement = new StringBuilder();
+	private int position;
+	private int limit;
+	
+	public SqlStatementSplitter(Reader reader) {
+		this.reader = reader;
+	}
+	
+	/**
+	 * Reads the next statement of the script.
+	 *
+	 * @return The statement without its terminating {@code ;} and surrounding whitespace,
+	 * or null at the end of the script.
+	 */
+	public String nextStatement() throws IOException {
+		statement.setLength(0);
+		while (fill()) {
+			// Copy the run of ordinary characters at once
+			int start = position;
+			while (position < limit && !isSpecial(buffer[position])) {
+				position++;
+			}
+			statement.append(buffer, start, position - start);
+			if (position == limit) {
+				continue;
+			}
+			char c = buffer[position++];
+			switch (c) {
+				case ';' -> {
+					String text = statement.toString().strip();
+					statement.setLength(0);
+					if (!text.isEmpty()) {
+						return text;
+					}
+				}
+				case '\'', '"', '`' -> copyQuoted(c);
+				case '$' -> copyDollarQuoted();
+				case '-' -> {
+					if (peek() == '-') {
+						// The line break is kept and separates the tokens around the comment
+						skipLine();
+					} else {
+						statement.append('-');
+					}
+				}
+				case '/' -> {
+					if (peek() == '*') {
+						read();
+						skipBlockComment();
+						statement.append(' ');
+					} else {
+						statement.append('/');
+					}
+				}
+			}
+		}
+		String text = statement.toString().strip();
+		statement.setLength(0);
+		return text.isEmpty() ? null : text;
+	}
+	
+	/**
+	 * Copies a quoted string or identifier, whose opening quote has been read, up to its closing quote.
+	 * A doubled quote is copied as a closed quote followed by a new quoted run.
+	 */
+	private void copyQuoted(char quote) throws IOException {
+		statement.append(quote);
+		while (fill()) {
+			int start = position;
+			while (position < limit && buffer[position] != quote) {
+				position++;
+			}
+			statement.append(buffer, start, position - start);
+			if (position < limit) {
+				statement.append(quote);
+				position++;
+				return;
+			}
+		}
+	}
+	
+	/**
+	 * Copies a dollar-quoted body, whose opening {@code $} has been read, up to its closing tag.
+	 * A {@code $} that does not open a tag (inside an identifier such as {@code SYS$USERS},
+	 * or a parameter such as {@code $1}) is copied as an ordinary character.
+	 */
+	private void copyDollarQuoted() throws IOException {
+		int tagStart = statement.length();
+		boolean inIdentifier = tagStart > 0 && isIdentifierPart(statement.charAt(tagStart - 1));
+		statement.append('$');
+		if (inIdentifier || Character.isDigit(peek())) {
+			return;
+		}
+		while (peek() != -1 && isIdentifierPart((char) peek()) && peek() != '$') {
+			statement.append((char) read());
+		}
+		if (peek() != '$') {
+			return;
+		}
+		statement.append((char) read());
+		String tag = statement.substring(tagStart);
+		int c;
+		while ((c = read()) != -1) {
+			statement.append((char) c);
+			if (c == '$' && endsWithTag(tag, tagStart + tag.length())) {
+				return;
+			}
+		}
+	}
+	
+	/**
+	 * @return true if the statement ends with the tag, after the given index.
+	 */
+	private boolean endsWithTag(String tag, int bodyStart) {
+		int start = statement.length() - tag.length();
+		if (start < bodyStart) {
+			return false;
+		}
+		for (int i = 0; i < tag.length(); i++) {
+			if (statement.charAt(start + i) != tag.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	private void skipLine() throws IOException {
+		while (fill()) {
+			while (position < limit) {
+				if (buffer[position] == '\n') {
+					return;
+				}
+				position++;
+			}
+		}
+	}
+	
+	private void skipBlockComment() throws IOException {
+		int previous = -1;
+		int c;
+		while ((c = read()) != -1) {
+			if (previous == '*' && c == '/') {
+				return;
+			}
+			previous = c;
+		}
+	}
+	
+	private static boolean isSpecial(char c) {
+		return c == ';' || c == '\'' || c == '"' || c == '`' || c == '$' || c == '-' || c == '/';
+	}
+	
+	private static boolean isIdentifierPart(char c) {
+		return Character.isLetterOrDigit(c) || c == '_' || c == '$';
+	}
+	
+	private int read() throws IOException {
+		return fill() ? buffer[position++] : -1;
+	}
+	
+	private int peek() throws IOException {
+		return fill() ? buffer[position] : -1;
+	}
+	
+	/**
+	 * Makes sure the buffer has unread characters, refilling it from the reader when needed.
+	 *
+	 * @return false at the end of the input.
+	 */
+	private boolean fill() throws IOException {
+		if (position < limit) {
+			return true;
+		}
+		limit = reader.read(buffer, 0, buffer.length);
+		position = 0;
+		if (limit <= 0) {
+			limit = 0;
+			return false;
+		}
+		return true;
+	}
+	
+	@Override
+	public void close() throws IOException {
+		reader.close();
+	}
+}
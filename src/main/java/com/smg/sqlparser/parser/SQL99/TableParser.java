@@ -8,6 +8,8 @@ import com.smg.sqlparser.domain.sql.Schema;
 import com.smg.sqlparser.domain.sql.Table;
 import com.smg.sqlparser.domain.sql.constraints.ForeignKey;
 import com.smg.sqlparser.domain.sql.constraints.PrimaryKey;
+import com.smg.sqlparser.parser.SQL99.CreateTableScanner.ScannedColumn;
+import com.smg.sqlparser.parser.SQL99.CreateTableScanner.ScannedTable;
 
 import java.util.Collections;
 import java.util.List;
@@ -33,6 +35,19 @@ public class TableParser {
     }
     
     
+    /** Parses a table scanned by the {@link CreateTableScanner}, or returns null if a column needs the full parser **/
+    public static Table parseScannedTable(ScannedTable scanned) {
+        Table table = new Table(scanned.name());
+        
+        for (ScannedColumn scannedColumn : scanned.columns()) {
+            Column column = ColumnParser.parse(scannedColumn);
+            if (column == null) return null;
+            if (column.isPrimaryKey()) addPrimaryKey(table, column);
+            table.addColumn(column);
+        }
+        return table;
+    }
+    
     /** Set primary key to table **/
     private static void addPrimaryKey(Table table, Column column) {
         PrimaryKey pk = new PrimaryKey();
@@ -40,18 +55,42 @@ public class TableParser {
         table.setPrimaryKey(pk);
     }
     
+    /** A foreign key as declared, kept apart from the statement until every table is known **/
+    public record ForeignKeyReference(String targetTableName, List<String> sourceColumnNames, List<String> targetColumnNames) {
+    }
+    
     /** Add foreign keys to table **/
     public static void addForeignKeys(Table table, CreateTable createTable, Schema schema) {
-        List<ForeignKeyIndex> foreignKeys = getForeignIndexes(createTable.getIndexes());
-        
-        foreignKeys.forEach(fkStatement -> {
-            String targetTableName = fkStatement.getTable().getName();
-            Table targetTable = schema.getTables().get(targetTableName);
+        linkForeignKeys(table, parseForeignKeyReferences(createTable), schema);
+    }
+    
+    /** Return the foreign keys declared by a table, before their tables are resolved **/
+    public static List<ForeignKeyReference> parseForeignKeyReferences(CreateTable createTable) {
+        return getForeignIndexes(createTable.getIndexes()).stream()
+            .map(fkStatement -> new ForeignKeyReference(
+                fkStatement.getTable().getName(),
+                fkStatement.getColumns().stream()
+                    .map(Index.ColumnParams::getColumnName)
+                    .toList(),
+                List.copyOf(fkStatement.getReferencedColumnNames())))
+            .toList();
+    }
+    
+    /** Return the foreign keys declared by a scanned table, before their tables are resolved **/
+    public static List<ForeignKeyReference> parseForeignKeyReferences(ScannedTable scanned) {
+        return scanned.foreignKeys().stream()
+            .map(fk -> new ForeignKeyReference(fk.referencedTable(), fk.columns(), fk.referencedColumns()))
+            .toList();
+    }
+    
+    /** Add foreign keys to table, resolving their target tables in the schema **/
+    public static void linkForeignKeys(Table table, List<ForeignKeyReference> foreignKeys, Schema schema) {
+        foreignKeys.forEach(reference -> {
+            String targetTableName = reference.targetTableName();
+            Table targetTable = schema.getTable(targetTableName);
             
-            List<String> sourceColumnNames = fkStatement.getColumns().stream()
-                .map(Index.ColumnParams::getColumnName)
-                .toList();
-            List<String> targetColumnNames = fkStatement.getReferencedColumnNames();
+            List<String> sourceColumnNames = reference.sourceColumnNames();
+            List<String> targetColumnNames = reference.targetColumnNames();
             
             if (targetTable != null) {
                 ForeignKey fk = new ForeignKey();
@@ -60,18 +99,14 @@ public class TableParser {
                 
                 // Map source columns
                 sourceColumnNames.forEach(srcColName -> {
-                    table.getColumns().stream()
-                        .filter(c -> c.getName().equalsIgnoreCase(srcColName))
-                        .findFirst()
-                        .ifPresent(fk::addSourceColumn);
+                    Column column = table.findColumn(srcColName);
+                    if (column != null) fk.addSourceColumn(column);
                 });
                 
                 // Map target columns
                 targetColumnNames.forEach(tgtColName -> {
-                    targetTable.getColumns().stream()
-                        .filter(c -> c.getName().equalsIgnoreCase(tgtColName))
-                        .findFirst()
-                        .ifPresent(fk::addTargetColumn);
+                    Column column = targetTable.findColumn(tgtColName);
+                    if (column != null) fk.addTargetColumn(column);
                 });
                 
                 table.addForeignKey(fk);
@@ -1,12 +1,22 @@
 package com.smg.sqlparser.services;
 
 import com.smg.generation.DataGeneratorTmp;
+import com.smg.graph.Main;
+import com.smg.graph.domain.CsrGraph;
+import com.smg.schemas.ir.LoadPlan;
+import com.smg.schemas.ir.SchemaIR;
+import com.smg.schemas.ir.SchemaProjection;
 import com.smg.sqlparser.domain.sql.Column;
 import com.smg.sqlparser.domain.sql.Schema;
-import com.smg.sqlparser.domain.sql.Table;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.TreeSet;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 /**
  * Service responsible for generating SQL statements (DDL and DML)
@@ -16,6 +26,7 @@ import java.util.stream.Collectors;
  * <ul>
  *   <li>CREATE TABLE statements (with optional foreign key filtering)</li>
  *   <li>INSERT statements (synthetic/example data)</li>
+ *   <li>pre-data, data and post-data sections, loaded one after the other with the keys and indexes built last</li>
  *   <li>TRUNCATE TABLE statements</li>
  *   <li>DROP TABLE statements</li>
  * </ul>
@@ -33,12 +44,25 @@ import java.util.stream.Collectors;
  * String dropSql = generator.generateDropSql(selectedTables);
  * }</pre>
  *
+ * Every script follows the {@link LoadPlan} of the selection: tables are created and
+ * loaded so that no foreign key references a table that is not there yet, and
+ * truncated and dropped in the reverse order. The foreign keys of a cycle are added
+ * once every table is created and, when deferred, filled by UPDATE statements once
+ * every table is loaded.
+ * <p>
  * This design keeps all SQL generation logic centralized, making it
  * easy to extend and test independently from the application entry point.
  */
 public class SqlGeneratorService {
 	
+	/**
+	 * Rows set by each UPDATE statement of a deferred foreign key.
+	 */
+	private static final int DEFERRED_UPDATE_ROWS = 100;
+	
 	private final Schema schema;
+	private final SchemaIR schemaIR;
+	private CsrGraph graph;
 	
 	/**
 	 * Constructs a new {@code SqlGeneratorService}.
@@ -47,28 +71,118 @@ public class SqlGeneratorService {
 	 */
 	public SqlGeneratorService(Schema schema) {
 		this.schema = schema;
+		this.schemaIR = SchemaIR.of(schema);
 	}
 	
 	/**
 	 * Generates CREATE TABLE statements for the given set of tables.
 	 * <p>
 	 * Foreign keys referencing tables not included in {@code selectedTables}
-	 * will be ignored.
+	 * will be ignored. Tables are created in load order, and the foreign keys of
+	 * cycles are added by ALTER TABLE statements once every table is created.
 	 *
 	 * @param selectedTables a set of table names to generate CREATE statements for
 	 * @return a formatted SQL string containing CREATE TABLE statements
 	 */
 	public String generateCreateSql(Set<String> selectedTables) {
-		return selectedTables.stream()
-			.map(name -> {
-				Table table = schema.getTables().get(name);
-				if (table == null) {
-					throw new IllegalArgumentException("Table not found in schema: " + name);
-				}
-				Table filteredTable = table.getFilteredCopy(selectedTables);
-				return filteredTable.toCreateSql();
-			})
-			.collect(Collectors.joining("\n\n"));
+		LoadPlan plan = schemaIR.project(selectedTables).getLoadPlan();
+		List<String> statements = new ArrayList<>();
+		loadTables(plan).forEach(table -> statements.add(toCreateSql(plan, table)));
+		addedAfterCreate(plan).forEach(fk -> statements.add("ALTER TABLE " + schemaIR.getTableName(schemaIR.getForeignKeySourceTable(fk))
+			+ " ADD CONSTRAINT " + foreignKeyName(fk) + " " + toForeignKeySql(fk) + ";"));
+		return String.join("\n\n", statements);
+	}
+	
+	/**
+	 * Writes the CREATE TABLE statement of a selected table, read from the schema without copying it.
+	 * Columns of foreign keys to tables that are not selected are left out with their keys,
+	 * along with the primary key columns and unique constraints they belonged to. Foreign keys
+	 * added once every table is created are left out too.
+	 *
+	 * @param plan the load plan of the selected tables
+	 * @param table the id of the table
+	 * @return the CREATE TABLE statement
+	 */
+	private String toCreateSql(LoadPlan plan, int table) {
+		SchemaProjection projection = plan.getProjection();
+		List<String> columnDefs = new ArrayList<>();
+		for (int column = schemaIR.getFirstColumn(table); column < schemaIR.getColumnEnd(table); column++) {
+			if (!projection.isColumnKept(column)) {
+				continue;
+			}
+			StringBuilder colDef = new StringBuilder();
+			colDef.append(schemaIR.getColumnName(column)).append(" ").append(schemaIR.getColumnType(column));
+			if (!schemaIR.isNullable(column)) {
+				colDef.append(" NOT NULL");
+			}
+			if (schemaIR.isDeclaredUnique(column)) {
+				colDef.append(" UNIQUE");
+			}
+			columnDefs.add(colDef.toString());
+		}
+		
+		List<String> primaryKey = new ArrayList<>();
+		for (int i = 0; i < schemaIR.getPrimaryKeyColumnCount(table); i++) {
+			int column = schemaIR.getPrimaryKeyColumn(table, i);
+			if (projection.isColumnKept(column)) {
+				primaryKey.add(schemaIR.getColumnName(column));
+			}
+		}
+		if (!primaryKey.isEmpty()) {
+			columnDefs.add("PRIMARY KEY (" + String.join(", ", primaryKey) + ")");
+		}
+		
+		for (int unique = schemaIR.getFirstUnique(table); unique < schemaIR.getUniqueEnd(table); unique++) {
+			if (!projection.isUniqueKept(unique)) {
+				continue;
+			}
+			List<String> columns = new ArrayList<>();
+			for (int i = 0; i < schemaIR.getUniqueColumnCount(unique); i++) {
+				columns.add(schemaIR.getColumnName(schemaIR.getUniqueColumn(unique, i)));
+			}
+			String name = schemaIR.getUniqueName(unique);
+			String ucName = name != null && !name.isBlank()
+				? name
+				: "UQ_" + schemaIR.getTableName(table) + "_" + String.join("_", columns);
+			columnDefs.add("CONSTRAINT " + ucName + " UNIQUE (" + String.join(", ", columns) + ")");
+		}
+		
+		for (int fk = schemaIR.getFirstForeignKey(table); fk < schemaIR.getForeignKeyEnd(table); fk++) {
+			if (projection.isForeignKeyKept(fk) && !plan.isAddedAfterCreate(fk)) {
+				columnDefs.add(toForeignKeySql(fk));
+			}
+		}
+		
+		return "CREATE TABLE " + schemaIR.getTableName(table) + " (\n  " + String.join(",\n  ", columnDefs) + "\n);";
+	}
+	
+	private String toForeignKeySql(int fk) {
+		List<String> sourceCols = new ArrayList<>();
+		List<String> targetCols = new ArrayList<>();
+		for (int i = 0; i < schemaIR.getForeignKeyColumnCount(fk); i++) {
+			sourceCols.add(schemaIR.getColumnName(schemaIR.getForeignKeySourceColumn(fk, i)));
+			int targetColumn = schemaIR.getForeignKeyTargetColumn(fk, i);
+			if (targetColumn != SchemaIR.NOT_FOUND) {
+				targetCols.add(schemaIR.getColumnName(targetColumn));
+			}
+		}
+		return "FOREIGN KEY (" + String.join(", ", sourceCols) + ") REFERENCES "
+			+ schemaIR.getTableName(schemaIR.getForeignKeyTargetTable(fk)) + " (" + String.join(", ", targetCols) + ")";
+	}
+	
+	/**
+	 * @return The name of a foreign key constraint, generated like those of unique constraints when the schema has none.
+	 */
+	private String foreignKeyName(int fk) {
+		String name = schemaIR.getForeignKeyName(fk);
+		if (name != null && !name.isBlank()) {
+			return name;
+		}
+		List<String> columns = new ArrayList<>();
+		for (int i = 0; i < schemaIR.getForeignKeyColumnCount(fk); i++) {
+			columns.add(schemaIR.getColumnName(schemaIR.getForeignKeySourceColumn(fk, i)));
+		}
+		return "FK_" + schemaIR.getTableName(schemaIR.getForeignKeySourceTable(fk)) + "_" + String.join("_", columns);
 	}
 	
 	/**
@@ -76,59 +190,361 @@ public class SqlGeneratorService {
 	 * <p>
 	 * Currently, this method provides placeholders and should be extended
 	 * to generate real synthetic/example data.
+	 * <p>
+	 * Tables are loaded in load order. The columns of deferred foreign keys are inserted
+	 * as NULL and set by UPDATE statements, of up to {@value #DEFERRED_UPDATE_ROWS} rows
+	 * each, once every table is loaded.
 	 *
 	 * @param selectedTables a set of table names to generate INSERT statements for
 	 * @return a formatted SQL string containing INSERT statements
 	 */
 	public String generateInsertSql(Set<String> selectedTables, int rowsPerTable) {
-		return selectedTables.stream()
-			.map(name -> {
-				var table = schema.getTables().get(name).getFilteredCopy(selectedTables);
-				if (table == null) {
-					throw new IllegalArgumentException("Table not found: " + name);
+		return toInsertSql(schemaIR.project(selectedTables).getLoadPlan(), rowsPerTable, true);
+	}
+	
+	/**
+	 * Writes the INSERT statements of every selected table in load order.
+	 *
+	 * @param plan the load plan of the selected tables
+	 * @param rowsPerTable the number of rows inserted in each table
+	 * @param deferring whether the columns of deferred foreign keys are inserted as NULL and set afterwards,
+	 *                  or inserted with their values because no foreign key is enforced yet
+	 * @return the INSERT statements, followed by the UPDATE statements of the deferred foreign keys
+	 */
+	private String toInsertSql(LoadPlan plan, int rowsPerTable, boolean deferring) {
+		SchemaProjection projection = plan.getProjection();
+		List<String> scripts = new ArrayList<>();
+		loadTables(plan).forEach(table -> {
+			String name = schemaIR.getTableName(table);
+			Set<Integer> deferred = deferring ? deferredColumns(plan, table) : Set.of();
+			List<Column> columns = new ArrayList<>();
+			List<Boolean> nulls = new ArrayList<>();
+			for (int column = schemaIR.getFirstColumn(table); column < schemaIR.getColumnEnd(table); column++) {
+				if (projection.isColumnKept(column)) {
+					columns.add(toColumn(column));
+					nulls.add(deferred.contains(column));
+				}
+			}
+			String cols = columns.stream()
+				.map(Column::getName)
+				.collect(Collectors.joining(", "));
+			
+			StringBuilder sb = new StringBuilder();
+			for (int i = 0; i < rowsPerTable; i++) {
+				List<String> values = new ArrayList<>();
+				for (int c = 0; c < columns.size(); c++) {
+					values.add(nulls.get(c) ? "NULL" : DataGeneratorTmp.generateValue(columns.get(c), i));
 				}
 				
-				StringBuilder sb = new StringBuilder();
-				for (int i = 0; i < rowsPerTable; i++) {
-					int finalI = i;
-					String values = table.getColumns().stream()
-						.map(col -> DataGeneratorTmp.generateValue(col, finalI))
-						.collect(Collectors.joining(", "));
-					
-					String cols = table.getColumns().stream()
-						.map(Column::getName)
-						.collect(Collectors.joining(", "));
-					
-					sb.append("INSERT INTO ").append(name)
-						.append(" (").append(cols).append(") VALUES (")
-						.append(values).append(");\n");
+				sb.append("INSERT INTO ").append(name)
+					.append(" (").append(cols).append(") VALUES (")
+					.append(String.join(", ", values)).append(");\n");
+			}
+			scripts.add(sb.toString());
+		});
+		loadTables(plan)
+			.filter(table -> deferring && !deferredColumns(plan, table).isEmpty())
+			.forEach(table -> scripts.add(toDeferredUpdateSql(plan, table, rowsPerTable)));
+		return String.join("\n", scripts);
+	}
+	
+	/**
+	 * Writes the UPDATE statements that set the columns of the deferred foreign keys of a table,
+	 * finding each row by its primary key and giving each column the value it would have been inserted with.
+	 *
+	 * @param plan the load plan of the selected tables
+	 * @param table the id of the table
+	 * @param rowsPerTable the number of rows inserted in the table
+	 * @return the UPDATE statements
+	 */
+	private String toDeferredUpdateSql(LoadPlan plan, int table, int rowsPerTable) {
+		List<Integer> deferred = new ArrayList<>(deferredColumns(plan, table));
+		List<Column> key = new ArrayList<>();
+		for (int i = 0; i < schemaIR.getPrimaryKeyColumnCount(table); i++) {
+			key.add(toColumn(schemaIR.getPrimaryKeyColumn(table, i)));
+		}
+		
+		StringBuilder sb = new StringBuilder();
+		for (int first = 0; first < rowsPerTable; first += DEFERRED_UPDATE_ROWS) {
+			int end = Math.min(rowsPerTable, first + DEFERRED_UPDATE_ROWS);
+			List<String> rows = new ArrayList<>();
+			for (int i = first; i < end; i++) {
+				int row = i;
+				rows.add(key.size() == 1
+					? DataGeneratorTmp.generateValue(key.get(0), row)
+					: key.stream()
+						.map(col -> col.getName() + " = " + DataGeneratorTmp.generateValue(col, row))
+						.collect(Collectors.joining(" AND ", "(", ")")));
+			}
+			
+			List<String> assignments = new ArrayList<>();
+			for (int column : deferred) {
+				Column col = toColumn(column);
+				StringBuilder cases = new StringBuilder(col.getName()).append(" = CASE");
+				if (key.size() == 1) {
+					cases.append(" ").append(key.get(0).getName());
+				}
+				for (int i = first; i < end; i++) {
+					cases.append(" WHEN ").append(rows.get(i - first))
+						.append(" THEN ").append(DataGeneratorTmp.generateValue(col, i));
+				}
+				assignments.add(cases.append(" END").toString());
+			}
+			
+			sb.append("UPDATE ").append(schemaIR.getTableName(table))
+				.append(" SET ").append(String.join(", ", assignments))
+				.append(" WHERE ").append(key.size() == 1
+					? key.get(0).getName() + " IN (" + String.join(", ", rows) + ")"
+					: String.join(" OR ", rows))
+				.append(";\n");
+		}
+		return sb.toString();
+	}
+	
+	/**
+	 * Generates the pre-data section of a split load, in the manner of
+	 * {@code pg_dump --section}: the CREATE TABLE statements of the selected tables,
+	 * with their columns and NOT NULL constraints only.
+	 * <p>
+	 * Loading the data section into bare tables, then building the keys and indexes of the
+	 * post-data section once, is much faster than maintaining them row by row, and needs
+	 * no load order since no foreign key is checked during the load.
+	 *
+	 * @param selectedTables a set of table names to generate CREATE statements for
+	 * @return a formatted SQL string containing CREATE TABLE statements
+	 */
+	public String generatePreDataSql(Set<String> selectedTables) {
+		SchemaProjection projection = schemaIR.project(selectedTables);
+		return loadTables(projection.getLoadPlan())
+			.mapToObj(table -> {
+				List<String> columnDefs = new ArrayList<>();
+				for (int column = schemaIR.getFirstColumn(table); column < schemaIR.getColumnEnd(table); column++) {
+					if (projection.isColumnKept(column)) {
+						columnDefs.add(schemaIR.getColumnName(column) + " " + schemaIR.getColumnType(column)
+							+ (schemaIR.isNullable(column) ? "" : " NOT NULL"));
+					}
 				}
-				return sb.toString();
+				return "CREATE TABLE " + schemaIR.getTableName(table) + " (\n  " + String.join(",\n  ", columnDefs) + "\n);";
 			})
-			.collect(Collectors.joining("\n"));
+			.collect(Collectors.joining("\n\n"));
+	}
+	
+	/**
+	 * Generates the data section of a split load: the INSERT statements of the selected
+	 * tables, with every foreign key column set since no constraint exists yet.
+	 *
+	 * @param selectedTables a set of table names to generate INSERT statements for
+	 * @param rowsPerTable the number of rows inserted in each table
+	 * @return a formatted SQL string containing INSERT statements
+	 */
+	public String generateDataSql(Set<String> selectedTables, int rowsPerTable) {
+		return toInsertSql(schemaIR.project(selectedTables).getLoadPlan(), rowsPerTable, false);
+	}
+	
+	/**
+	 * Generates the post-data section of a split load: the primary keys and unique
+	 * constraints of the selected tables, an index on the columns of each foreign key
+	 * that no key already indexes, and then the foreign keys, all added by ALTER TABLE
+	 * and CREATE INDEX statements once the data is loaded.
+	 *
+	 * @param selectedTables a set of table names to generate the statements for
+	 * @return a formatted SQL string containing ALTER TABLE and CREATE INDEX statements
+	 */
+	public String generatePostDataSql(Set<String> selectedTables) {
+		LoadPlan plan = schemaIR.project(selectedTables).getLoadPlan();
+		SchemaProjection projection = plan.getProjection();
+		List<String> keys = new ArrayList<>();
+		List<String> indexes = new ArrayList<>();
+		List<String> foreignKeys = new ArrayList<>();
+		loadTables(plan).forEach(table -> {
+			String name = schemaIR.getTableName(table);
+			// Column lists already indexed by a key, which need no index of their own
+			Set<List<String>> indexed = new HashSet<>();
+			
+			List<String> primaryKey = new ArrayList<>();
+			for (int i = 0; i < schemaIR.getPrimaryKeyColumnCount(table); i++) {
+				int column = schemaIR.getPrimaryKeyColumn(table, i);
+				if (projection.isColumnKept(column)) {
+					primaryKey.add(schemaIR.getColumnName(column));
+				}
+			}
+			if (!primaryKey.isEmpty()) {
+				keys.add("ALTER TABLE " + name + " ADD PRIMARY KEY (" + String.join(", ", primaryKey) + ");");
+				for (int i = 1; i <= primaryKey.size(); i++) {
+					indexed.add(primaryKey.subList(0, i));
+				}
+			}
+			
+			for (int column = schemaIR.getFirstColumn(table); column < schemaIR.getColumnEnd(table); column++) {
+				if (projection.isColumnKept(column) && schemaIR.isDeclaredUnique(column)) {
+					keys.add("ALTER TABLE " + name + " ADD UNIQUE (" + schemaIR.getColumnName(column) + ");");
+					indexed.add(List.of(schemaIR.getColumnName(column)));
+				}
+			}
+			for (int unique = schemaIR.getFirstUnique(table); unique < schemaIR.getUniqueEnd(table); unique++) {
+				if (!projection.isUniqueKept(unique)) {
+					continue;
+				}
+				List<String> columns = new ArrayList<>();
+				for (int i = 0; i < schemaIR.getUniqueColumnCount(unique); i++) {
+					columns.add(schemaIR.getColumnName(schemaIR.getUniqueColumn(unique, i)));
+				}
+				String ucName = schemaIR.getUniqueName(unique);
+				ucName = ucName != null && !ucName.isBlank() ? ucName : "UQ_" + name + "_" + String.join("_", columns);
+				keys.add("ALTER TABLE " + name + " ADD CONSTRAINT " + ucName + " UNIQUE (" + String.join(", ", columns) + ");");
+				for (int i = 1; i <= columns.size(); i++) {
+					indexed.add(columns.subList(0, i));
+				}
+			}
+			
+			for (int fk = schemaIR.getFirstForeignKey(table); fk < schemaIR.getForeignKeyEnd(table); fk++) {
+				if (!projection.isForeignKeyKept(fk)) {
+					continue;
+				}
+				List<String> columns = new ArrayList<>();
+				for (int i = 0; i < schemaIR.getForeignKeyColumnCount(fk); i++) {
+					columns.add(schemaIR.getColumnName(schemaIR.getForeignKeySourceColumn(fk, i)));
+				}
+				if (indexed.add(columns)) {
+					indexes.add("CREATE INDEX IX_" + name + "_" + String.join("_", columns) + " ON " + name
+						+ " (" + String.join(", ", columns) + ");");
+				}
+				foreignKeys.add("ALTER TABLE " + name + " ADD CONSTRAINT " + foreignKeyName(fk) + " " + toForeignKeySql(fk) + ";");
+			}
+		});
+		List<String> statements = new ArrayList<>(keys);
+		statements.addAll(indexes);
+		statements.addAll(foreignKeys);
+		return String.join("\n", statements);
 	}
 	
 	/**
 	 * Generates TRUNCATE TABLE statements for the given set of tables.
 	 *
+	 * Tables are truncated in the reverse of the load order, once the columns of the
+	 * deferred foreign keys, which reference tables truncated earlier, are set to NULL.
+	 *
 	 * @param selectedTables a set of table names to generate TRUNCATE statements for
 	 * @return a formatted SQL string containing TRUNCATE TABLE statements
 	 */
 	public String generateTruncateSql(Set<String> selectedTables) {
-		return selectedTables.stream()
-			.map(name -> "TRUNCATE TABLE " + name + ";")
-			.collect(Collectors.joining("\n"));
+		LoadPlan plan = schemaIR.project(selectedTables).getLoadPlan();
+		List<String> statements = new ArrayList<>();
+		loadTables(plan).forEach(table -> {
+			Set<Integer> deferred = deferredColumns(plan, table);
+			if (!deferred.isEmpty()) {
+				statements.add("UPDATE " + schemaIR.getTableName(table) + " SET " + deferred.stream()
+					.map(column -> schemaIR.getColumnName(column) + " = NULL")
+					.collect(Collectors.joining(", ")) + ";");
+			}
+		});
+		unloadTables(plan).forEach(table -> statements.add("TRUNCATE TABLE " + schemaIR.getTableName(table) + ";"));
+		return String.join("\n", statements);
 	}
 	
 	/**
 	 * Generates DROP TABLE statements for the given set of tables.
 	 *
+	 * Tables are dropped in the reverse of the load order, once the foreign keys added
+	 * after they were created are dropped.
+	 *
 	 * @param selectedTables a set of table names to generate DROP statements for
 	 * @return a formatted SQL string containing DROP TABLE statements
 	 */
 	public String generateDropSql(Set<String> selectedTables) {
-		return selectedTables.stream()
-			.map(name -> "DROP TABLE " + name + ";")
-			.collect(Collectors.joining("\n"));
+		LoadPlan plan = schemaIR.project(selectedTables).getLoadPlan();
+		List<String> statements = new ArrayList<>();
+		addedAfterCreate(plan).forEach(fk -> statements.add("ALTER TABLE " + schemaIR.getTableName(schemaIR.getForeignKeySourceTable(fk))
+			+ " DROP CONSTRAINT " + foreignKeyName(fk) + ";"));
+		unloadTables(plan).forEach(table -> statements.add("DROP TABLE " + schemaIR.getTableName(table) + ";"));
+		return String.join("\n", statements);
+	}
+	
+	public Schema getSchema() {
+		return schema;
+	}
+	
+	/**
+	 * Returns the projection of a table selection, shared by every statement generated for it
+	 * and by the {@link com.smg.diagrams.DiagramGenerator}.
+	 *
+	 * @param selectedTables a set of table names
+	 * @return the projection of the selected tables
+	 */
+	public SchemaProjection getProjection(Set<String> selectedTables) {
+		return schemaIR.project(selectedTables);
+	}
+	
+	/**
+	 * Returns the load plan of a table selection, which every script generated for it follows.
+	 *
+	 * @param selectedTables a set of table names
+	 * @return the load plan of the selected tables
+	 */
+	public LoadPlan getLoadPlan(Set<String> selectedTables) {
+		return schemaIR.project(selectedTables).getLoadPlan();
+	}
+	
+	/**
+	 * Completes a table selection with the tables needed to keep it referentially
+	 * connected, so that the foreign keys between the selected tables are not lost.
+	 * The added tables are the fewest found by {@link Main#findConnectingSubgraph(CsrGraph, int[])}
+	 * on the foreign key graph of the schema, which is built on the first call.
+	 *
+	 * @param selectedTables a set of table names
+	 * @return the selected tables, in their order, followed by the added ones in schema order
+	 */
+	public Set<String> connectTables(Set<String> selectedTables) {
+		if (graph == null) {
+			graph = CsrGraph.of(schemaIR);
+		}
+		SchemaProjection projection = schemaIR.project(selectedTables);
+		Set<String> connected = new LinkedHashSet<>(selectedTables);
+		for (int table : Main.findConnectingSubgraph(graph, tables(projection).toArray())) {
+			if (!projection.isSelected(table)) {
+				connected.add(schemaIR.getTableName(table));
+			}
+		}
+		return connected;
+	}
+	
+	private static IntStream tables(SchemaProjection projection) {
+		return IntStream.range(0, projection.getTableCount()).map(projection::getTable);
+	}
+	
+	private static IntStream loadTables(LoadPlan plan) {
+		return IntStream.range(0, plan.getTableCount()).map(plan::getLoadTable);
+	}
+	
+	private static IntStream unloadTables(LoadPlan plan) {
+		return IntStream.range(0, plan.getTableCount()).map(plan::getUnloadTable);
+	}
+	
+	/**
+	 * @return The ids of the foreign keys whose constraints are added once every table is created, in load order.
+	 */
+	private IntStream addedAfterCreate(LoadPlan plan) {
+		return loadTables(plan).flatMap(table -> IntStream.range(schemaIR.getFirstForeignKey(table), schemaIR.getForeignKeyEnd(table))
+			.filter(plan::isAddedAfterCreate));
+	}
+	
+	/**
+	 * @return The ids of the columns of the deferred foreign keys of a table, in column order.
+	 */
+	private Set<Integer> deferredColumns(LoadPlan plan, int table) {
+		Set<Integer> columns = new TreeSet<>();
+		for (int fk = schemaIR.getFirstForeignKey(table); fk < schemaIR.getForeignKeyEnd(table); fk++) {
+			if (plan.isDeferred(fk)) {
+				for (int i = 0; i < schemaIR.getForeignKeyColumnCount(fk); i++) {
+					columns.add(schemaIR.getForeignKeySourceColumn(fk, i));
+				}
+			}
+		}
+		return columns;
+	}
+	
+	private Column toColumn(int column) {
+		int table = schemaIR.getColumnTable(column);
+		return schema.getTable(schemaIR.getTableName(table)).getColumns().get(column - schemaIR.getFirstColumn(table));
 	}
 }
@@ -0,0 +1,127 @@
+package com.smg.daemon;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.PosixFilePermissions;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for the {@link SmgDaemon} class, driven over HTTP.
+ * They verify that runs stream their SQL and exit status, that the schema stays resident
+ * between runs, that the daemon can be reloaded and shut down, and that requests without
+ * its token, from a web page, with another content type or from another working
+ * directory are refused.
+ */
+class SmgDaemonTest {
+	
+	private static final String RUN = "[\"-tables\", \"regions,countries\", \"-schemaCacheDir\", \"\"]";
+	
+	@TempDir
+	Path tokenDirectory;
+	
+	@Test
+	void testRunsReuseTheResidentSchema() throws Exception {
+		HttpClient client = HttpClient.newHttpClient();
+		try (SmgDaemon daemon = new SmgDaemon(0, tokenDirectory)) {
+			daemon.start();
+			String token = Files.readString(daemon.getTokenFile());
+			
+			for (int run = 0; run < 2; run++) {
+				HttpResponse<String> response = client.send(post(daemon, token, "run", RUN), HttpResponse.BodyHandlers.ofString());
+				assertEquals(200, response.statusCode());
+				assertTrue(response.body().contains("CREATE TABLE regions"));
+				assertTrue(response.body().endsWith(SmgDaemon.EXIT_PREFIX + "0\n"));
+			}
+			String status = client.send(get(daemon, token, "status"), HttpResponse.BodyHandlers.ofString()).body();
+			assertTrue(status.contains("\"runs\":2"));
+			assertTrue(status.contains("\"schemas\":1"), "The schema is parsed once");
+			
+			HttpResponse<String> failed = client.send(post(daemon, token, "run", "[\"-tables\", \"\"]"), HttpResponse.BodyHandlers.ofString());
+			assertTrue(failed.body().endsWith(SmgDaemon.EXIT_PREFIX + "1\n"));
+			assertEquals(400, client.send(post(daemon, token, "run", "{}"), HttpResponse.BodyHandlers.ofString()).statusCode());
+			
+			assertEquals(200, client.send(post(daemon, token, "reload", ""), HttpResponse.BodyHandlers.ofString()).statusCode());
+			assertTrue(client.send(get(daemon, token, "status"), HttpResponse.BodyHandlers.ofString()).body().contains("\"schemas\":0"));
+			
+			assertEquals(200, client.send(post(daemon, token, "shutdown", ""), HttpResponse.BodyHandlers.ofString()).statusCode());
+			daemon.awaitShutdown();
+		}
+	}
+	
+	@Test
+	void testUnauthorizedRequestsAreRefused() throws Exception {
+		HttpClient client = HttpClient.newHttpClient();
+		try (SmgDaemon daemon = new SmgDaemon(0, tokenDirectory)) {
+			daemon.start();
+			Path tokenFile = daemon.getTokenFile();
+			String token = Files.readString(tokenFile);
+			if (FileSystems.getDefault().supportedFileAttributeViews().contains("posix")) {
+				assertEquals("rw-------", PosixFilePermissions.toString(Files.getPosixFilePermissions(tokenFile)));
+			}
+			
+			assertEquals(401, client.send(post(daemon, null, "run", RUN), HttpResponse.BodyHandlers.ofString()).statusCode());
+			assertEquals(401, client.send(post(daemon, token + "x", "shutdown", ""), HttpResponse.BodyHandlers.ofString()).statusCode());
+			assertEquals(401, client.send(get(daemon, null, "status"), HttpResponse.BodyHandlers.ofString()).statusCode());
+			
+			HttpRequest fromPage = HttpRequest.newBuilder(URI.create(daemon.getUrl() + "run"))
+				.header("Origin", "https://example.com")
+				.header("Content-Type", "application/json")
+				.header(SmgDaemon.TOKEN_HEADER, token)
+				.POST(HttpRequest.BodyPublishers.ofString(RUN))
+				.build();
+			assertEquals(403, client.send(fromPage, HttpResponse.BodyHandlers.ofString()).statusCode());
+			
+			HttpRequest plainText = HttpRequest.newBuilder(URI.create(daemon.getUrl() + "run"))
+				.header("Content-Type", "text/plain")
+				.header(SmgDaemon.TOKEN_HEADER, token)
+				.POST(HttpRequest.BodyPublishers.ofString(RUN))
+				.build();
+			assertEquals(415, client.send(plainText, HttpResponse.BodyHandlers.ofString()).statusCode());
+			
+			// The outputs of the run would land in the directory of the daemon
+			HttpRequest elsewhere = HttpRequest.newBuilder(URI.create(daemon.getUrl() + "run"))
+				.header("Content-Type", "application/json")
+				.header(SmgDaemon.TOKEN_HEADER, token)
+				.header(SmgDaemon.CWD_HEADER, tokenDirectory.toString())
+				.POST(HttpRequest.BodyPublishers.ofString(RUN))
+				.build();
+			assertEquals(409, client.send(elsewhere, HttpResponse.BodyHandlers.ofString()).statusCode());
+			assertTrue(client.send(get(daemon, token, "status"), HttpResponse.BodyHandlers.ofString()).body()
+				.contains("\"cwd\":"), "The status tells where the runs are written");
+			assertEquals(0, daemon.getRuns());
+		}
+		try (var files = Files.list(tokenDirectory)) {
+			assertEquals(0, files.count(), "The token is deleted when the daemon stops");
+		}
+	}
+	
+	private static HttpRequest get(SmgDaemon daemon, String token, String resource) {
+		HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(daemon.getUrl() + resource));
+		if (token != null) {
+			request.header(SmgDaemon.TOKEN_HEADER, token);
+		}
+		return request.build();
+	}
+	
+	private static HttpRequest post(SmgDaemon daemon, String token, String resource, String body) {
+		HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(daemon.getUrl() + resource))
+			.header("Content-Type", "application/json")
+			.header(SmgDaemon.CWD_HEADER, Paths.get("").toAbsolutePath().toString())
+			.POST(HttpRequest.BodyPublishers.ofString(body));
+		if (token != null) {
+			request.header(SmgDaemon.TOKEN_HEADER, token);
+		}
+		return request.build();
+	}
+}
@@ -0,0 +1,191 @@
+package com.smg.fileio;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for the {@link FanOutExporter} class.
+ * They verify that every sink receives every operation in order, that a failing sink
+ * is closed and skipped while the others keep writing, and that a slow sink only
+ * blocks the producer once its own queue is full.
+ */
+class FanOutExporterTest {
+	
+	private static final TableLayout LAYOUT = new TableLayout("regions",
+		new String[]{"region_id"}, new ColumnKind[]{ColumnKind.INTEGER});
+	
+	@Test
+	void testFailingSinksAreSkipped() throws Exception {
+		RecordingExporter first = new RecordingExporter(-1, null);
+		RecordingExporter failing = new RecordingExporter(3, null);
+		RecordingExporter last = new RecordingExporter(-1, null);
+		FanOutExporter exporter = new FanOutExporter(2);
+		exporter.addSink("first.csv", first);
+		exporter.addSink("failing.json", failing);
+		exporter.addSink("last.sql", last);
+		
+		// Many more batches than the queues hold, so the producer keeps feeding the failed sink
+		export(exporter, 50);
+		
+		assertEquals(List.of("failing.json"), List.copyOf(exporter.getFailures().keySet()));
+		assertEquals("Batch 3 failed", exporter.getFailures().get("failing.json").getMessage());
+		for (RecordingExporter sink : List.of(first, last)) {
+			assertEquals(expectedEvents(50), sink.events);
+		}
+		assertEquals(List.of("open", "begin", "batch 0", "batch 1", "batch 2", "close"), failing.events,
+			"The failed sink is closed once and receives nothing more");
+	}
+	
+	@Test
+	void testAllSinksFailing() {
+		FanOutExporter exporter = new FanOutExporter(2);
+		exporter.addSink("a.csv", new RecordingExporter(0, null));
+		exporter.addSink("b.csv", new RecordingExporter(1, null));
+		
+		IOException failure = assertThrows(IOException.class, () -> export(exporter, 10));
+		assertTrue(failure.getMessage().startsWith("Batch "), failure.getMessage());
+		assertEquals(2, exporter.getFailures().size());
+	}
+	
+	@Test
+	void testSlowSinksOnlyBlockOnceTheirQueueIsFull() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+		RecordingExporter slow = new RecordingExporter(-1, release);
+		RecordingExporter fast = new RecordingExporter(-1, null);
+		FanOutExporter exporter = new FanOutExporter(2);
+		exporter.addSink("slow.csv", slow);
+		exporter.addSink("fast.csv", fast);
+		
+		AtomicInteger written = new AtomicInteger();
+		AtomicReference<Exception> producerFailure = new AtomicReference<>();
+		Thread producer = new Thread(() -> {
+			try {
+				exporter.open("ignored");
+				exporter.beginTable(LAYOUT);
+				for (int i = 0; i < 10; i++) {
+					exporter.writeBatch(batch(i));
+					written.incrementAndGet();
+				}
+				exporter.endTable();
+				exporter.close();
+			} catch (Exception e) {
+				producerFailure.set(e);
+			}
+		});
+		producer.start();
+		
+		// The slow sink holds batch 0 and queues two more: the producer waits on batch 3
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (fast.batches() < 3 && System.nanoTime() < deadline) {
+			TimeUnit.MILLISECONDS.sleep(10);
+		}
+		TimeUnit.MILLISECONDS.sleep(100);
+		assertEquals(3, written.get());
+		assertEquals(3, fast.batches(), "The fast sink received every batch the producer could submit");
+		assertEquals(1, slow.batches());
+		assertTrue(producer.isAlive());
+		
+		release.countDown();
+		producer.join(TimeUnit.SECONDS.toMillis(5));
+		assertNull(producerFailure.get());
+		assertEquals(expectedEvents(10), slow.events);
+		assertEquals(expectedEvents(10), fast.events);
+	}
+	
+	private static void export(FanOutExporter exporter, int batches) throws IOException {
+		exporter.open("ignored");
+		exporter.beginTable(LAYOUT);
+		for (int i = 0; i < batches; i++) {
+			exporter.writeBatch(batch(i));
+		}
+		exporter.endTable();
+		exporter.close();
+	}
+	
+	private static RowBatch batch(int id) {
+		RowBatch batch = new RowBatch(LAYOUT, 1);
+		batch.addRow(new Object[]{(long) id});
+		return batch;
+	}
+	
+	private static List<String> expectedEvents(int batches) {
+		List<String> events = new ArrayList<>(List.of("open", "begin"));
+		for (int i = 0; i < batches; i++) {
+			events.add("batch " + i);
+		}
+		events.addAll(List.of("end", "close"));
+		return events;
+	}
+	
+	/**
+	 * Records the operations it receives. It can fail on a given batch, and hold every
+	 * batch until a latch is released.
+	 */
+	private static final class RecordingExporter implements IBatchExporter {
+		
+		private final List<String> events = Collections.synchronizedList(new ArrayList<>());
+		private final int failingBatch;
+		private final CountDownLatch release;
+		
+		RecordingExporter(int failingBatch, CountDownLatch release) {
+			this.failingBatch = failingBatch;
+			this.release = release;
+		}
+		
+		int batches() {
+			synchronized (events) {
+				return (int) events.stream().filter(event -> event.startsWith("batch")).count();
+			}
+		}
+		
+		@Override
+		public void open(String outputFilePath) {
+			events.add("open");
+		}
+		
+		@Override
+		public void beginTable(TableLayout layout) {
+			events.add("begin");
+		}
+		
+		@Override
+		public void writeBatch(RowBatch batch) throws IOException {
+			long id = (Long) batch.get(0, 0);
+			if (id == failingBatch) {
+				throw new IOException("Batch " + id + " failed");
+			}
+			events.add("batch " + id);
+			if (release != null) {
+				try {
+					release.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new IOException(e);
+				}
+			}
+		}
+		
+		@Override
+		public void endTable() {
+			events.add("end");
+		}
+		
+		@Override
+		public void close() {
+			events.add("close");
+		}
+	}
+}
@@ -0,0 +1,148 @@
+package com.smg.fileio.exporters;
+
+import com.smg.fileio.ColumnKind;
+import com.smg.fileio.RowBatch;
+import com.smg.fileio.TableLayout;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Random;
+
+/**
+ * Micro-benchmark for {@link CSVEncoder} on a numeric-heavy table.
+ * <p>
+ * It encodes the same pre-generated batches over and over into a writer that
+ * discards its input, and compares the throughput with copying the already
+ * encoded text through the same 64K blocks with {@link System#arraycopy}, which
+ * is the upper bound for any encoder writing to the same sink. The previous
+ * quote-everything approach is measured too. Run it with {@code main}; it is
+ * not part of the unit tests.
+ */
+public class CSVEncoderBenchmark {
+	
+	private static final int ROWS_PER_BATCH = 1024;
+	private static final int BATCHES = 64;
+	private static final int ITERATIONS = 30;
+	
+	public static void main(String[] args) throws IOException {
+		TableLayout layout = new TableLayout("order_items",
+			new String[]{"order_id", "line_item_id", "product_id", "unit_price", "quantity", "discount", "note"},
+			new ColumnKind[]{ColumnKind.INTEGER, ColumnKind.INTEGER, ColumnKind.INTEGER, ColumnKind.DECIMAL,
+				ColumnKind.INTEGER, ColumnKind.DECIMAL, ColumnKind.TEXT});
+		
+		Random random = new Random(42);
+		RowBatch[] batches = new RowBatch[BATCHES];
+		for (int b = 0; b < BATCHES; b++) {
+			batches[b] = new RowBatch(layout, ROWS_PER_BATCH);
+			for (int r = 0; r < ROWS_PER_BATCH; r++) {
+				batches[b].addRow(new Object[]{
+					(long) random.nextInt(1_000_000), (long) r, (long) random.nextInt(10_000),
+					Math.round(random.nextDouble() * 100_000) / 100.0, (long) random.nextInt(500),
+					Math.round(random.nextDouble() * 100) / 100.0, r % 10 == 0 ? "gift, wrapped" : "std"});
+			}
+		}
+		
+		CountingWriter sink = new CountingWriter();
+		long bestEncodeNanos = Long.MAX_VALUE;
+		for (int i = 0; i < ITERATIONS; i++) {
+			sink.reset(false);
+			CSVEncoder encoder = new CSVEncoder(sink, ',', "", true);
+			long start = System.nanoTime();
+			encoder.beginTable(layout);
+			for (RowBatch batch : batches) {
+				encoder.writeBatch(batch);
+			}
+			encoder.flush();
+			bestEncodeNanos = Math.min(bestEncodeNanos, System.nanoTime() - start);
+		}
+		
+		// Capture the encoded text once, then time copying it through the same block size
+		sink.reset(true);
+		CSVEncoder capture = new CSVEncoder(sink, ',', "", true);
+		capture.beginTable(layout);
+		for (RowBatch batch : batches) {
+			capture.writeBatch(batch);
+		}
+		capture.flush();
+		char[] encoded = sink.captured.toString().toCharArray();
+		long chars = encoded.length;
+		
+		char[] block = new char[64 * 1024];
+		long bestCopyNanos = Long.MAX_VALUE;
+		for (int i = 0; i < ITERATIONS; i++) {
+			sink.reset(false);
+			long start = System.nanoTime();
+			for (int offset = 0; offset < encoded.length; offset += block.length) {
+				int length = Math.min(block.length, encoded.length - offset);
+				System.arraycopy(encoded, offset, block, 0, length);
+				sink.write(block, 0, length);
+			}
+			bestCopyNanos = Math.min(bestCopyNanos, System.nanoTime() - start);
+		}
+		
+		// The previous CSVExporter approach: every value quoted, one string per value
+		long bestLegacyNanos = Long.MAX_VALUE;
+		for (int i = 0; i < ITERATIONS; i++) {
+			sink.reset(false);
+			long start = System.nanoTime();
+			for (RowBatch batch : batches) {
+				for (int r = 0; r < batch.size(); r++) {
+					StringBuilder values = new StringBuilder();
+					for (int c = 0; c < layout.getColumnCount(); c++) {
+						Object value = batch.get(r, c);
+						values.append("\"").append(value instanceof String s ? s.replace("\"", "\"\"") : value.toString()).append("\"");
+						if (c < layout.getColumnCount() - 1) {
+							values.append(",");
+						}
+					}
+					sink.write(values.toString() + "\n");
+				}
+			}
+			bestLegacyNanos = Math.min(bestLegacyNanos, System.nanoTime() - start);
+		}
+		
+		double encodeRate = chars / (bestEncodeNanos / 1e9) / 1e6;
+		double copyRate = chars / (bestCopyNanos / 1e9) / 1e6;
+		System.out.printf("Rows: %d, characters: %d%n", (long) BATCHES * ROWS_PER_BATCH, chars);
+		System.out.printf("CSVEncoder:       %8.1f Mchars/s%n", encodeRate);
+		System.out.printf("Quote-everything: %8.1f Mchars/s (same rows, normalized to the encoder output size)%n",
+			chars / (bestLegacyNanos / 1e9) / 1e6);
+		System.out.printf("Block copy:       %8.1f Mchars/s%n", copyRate);
+		System.out.printf("Encoder vs copy:  %8.1f%%%n", 100.0 * encodeRate / copyRate);
+	}
+	
+	/** A writer that only counts the characters it receives, optionally keeping them. */
+	private static final class CountingWriter extends Writer {
+		private long count;
+		private StringBuilder captured;
+		
+		void reset(boolean capture) {
+			count = 0;
+			captured = capture ? new StringBuilder() : null;
+		}
+		
+		@Override
+		public void write(char[] buffer, int offset, int length) {
+			count += length;
+			if (captured != null) {
+				captured.append(buffer, offset, length);
+			}
+		}
+		
+		@Override
+		public void write(String str, int offset, int length) {
+			count += length;
+			if (captured != null) {
+				captured.append(str, offset, offset + length);
+			}
+		}
+		
+		@Override
+		public void flush() {
+		}
+		
+		@Override
+		public void close() {
+		}
+	}
+}
@@ -0,0 +1,99 @@
+package com.smg.fileio.exporters;
+
+import com.smg.fileio.ColumnKind;
+import com.smg.fileio.RowBatch;
+import com.smg.fileio.TableLayout;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Unit tests for the {@link CSVEncoder} class.
+ * They verify the per-column quoting plan: numeric and boolean columns are
+ * written bare, while text is only quoted when it would otherwise be ambiguous.
+ */
+class CSVEncoderTest {
+	
+	private static final TableLayout LAYOUT = new TableLayout("employees",
+		new String[]{"employee_id", "first_name", "salary", "active"},
+		new ColumnKind[]{ColumnKind.INTEGER, ColumnKind.TEXT, ColumnKind.DECIMAL, ColumnKind.BOOLEAN});
+	
+	/**
+	 * Encodes the given rows with the given format options and returns the text.
+	 */
+	private String encode(char delimiter, String nullToken, boolean header, Object[]... rows) throws IOException {
+		StringWriter out = new StringWriter();
+		CSVEncoder encoder = new CSVEncoder(out, delimiter, nullToken, header);
+		RowBatch batch = new RowBatch(LAYOUT, rows.length);
+		for (Object[] row : rows) {
+			batch.addRow(row);
+		}
+		encoder.beginTable(LAYOUT);
+		encoder.writeBatch(batch);
+		encoder.flush();
+		return out.toString();
+	}
+	
+	/**
+	 * Numbers and booleans must never be quoted, and plain text must not be quoted either.
+	 */
+	@Test
+	void writeBatch_shouldWriteNumbersAndPlainTextBare() throws IOException {
+		String csv = encode(',', "", true,
+			new Object[]{100L, "Steven", 24000.5, true},
+			new Object[]{-7L, "Neena", 17000L, false});
+		
+		assertEquals("employee_id,first_name,salary,active\n"
+			+ "100,Steven,24000.5,true\n"
+			+ "-7,Neena,17000,false\n", csv);
+	}
+	
+	/**
+	 * Text containing the delimiter, quotes or line breaks must be quoted, with
+	 * embedded quotes doubled.
+	 */
+	@Test
+	void writeBatch_shouldQuoteOnlyAmbiguousText() throws IOException {
+		String csv = encode(',', "", false,
+			new Object[]{1L, "De Haan, Lex", 1L, true},
+			new Object[]{2L, "say \"hi\"", 2L, true},
+			new Object[]{3L, "two\nlines", 3L, true});
+		
+		assertEquals("1,\"De Haan, Lex\",1,true\n"
+			+ "2,\"say \"\"hi\"\"\",2,true\n"
+			+ "3,\"two\nlines\",3,true\n", csv);
+	}
+	
+	/**
+	 * NULL values must be written as the null token, and text equal to the null
+	 * token must be quoted so that it is not loaded back as NULL.
+	 */
+	@Test
+	void writeBatch_shouldDistinguishNullFromEmptyText() throws IOException {
+		assertEquals("1,,,true\n2,\"\",5,false\n", encode(',', "", false,
+			new Object[]{1L, null, null, true},
+			new Object[]{2L, "", 5L, false}));
+		
+		assertEquals("1\t\\N\t\\N\ttrue\n", encode('\t', "\\N", false,
+			new Object[]{1L, null, null, true}));
+	}
+	
+	/**
+	 * Text in a numeric or boolean column is only written bare when it is a plain
+	 * number or boolean token; anything else is quoted like any other text.
+	 */
+	@Test
+	void writeBatch_shouldQuoteTextThatIsNotANumberInNumericColumns() throws IOException {
+		String csv = encode(',', "", false,
+			new Object[]{"42", "Steven", "-1.5e3", "TRUE"},
+			new Object[]{"1,000", "Neena", "12\"", "yes,no"},
+			new Object[]{"7\n8", "Lex", "", "."});
+		
+		assertEquals("42,Steven,-1.5e3,TRUE\n"
+			+ "\"1,000\",Neena,\"12\"\"\",\"yes,no\"\n"
+			+ "\"7\n8\",Lex,\"\",.\n", csv);
+	}
+}
@@ -0,0 +1,139 @@
+package com.smg.fileio.exporters;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.smg.fileio.ColumnKind;
+import com.smg.fileio.TableLayout;
+import com.smg.mockaroo.JsonResponseParser;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for the {@link StreamingJSONExporter} class.
+ * They verify that the array streamed for each table holds the same JSON, byte for byte
+ * once compacted, as the Mockaroo response the {@link JSONExporter} wrote for it, escaped
+ * strings included, that an empty table is an empty array, that text outside ASCII is
+ * written as UTF-8, and that the pretty-printed and NDJSON layouts hold the same rows.
+ */
+class StreamingJSONExporterTest {
+	
+	private static final ObjectMapper MAPPER = new ObjectMapper();
+	private static final TableLayout EMPLOYEES = new TableLayout("employees",
+		new String[]{"employee_id", "first_name", "salary", "active", "hire_date"},
+		new ColumnKind[]{ColumnKind.INTEGER, ColumnKind.TEXT, ColumnKind.DECIMAL, ColumnKind.BOOLEAN, ColumnKind.DATE});
+	private static final TableLayout JOBS = new TableLayout("jobs",
+		new String[]{"job_id", "job_title"},
+		new ColumnKind[]{ColumnKind.TEXT, ColumnKind.TEXT});
+	// A Mockaroo response, with every kind of string escape. The previous exporter wrote it
+	// in the platform charset, so text outside ASCII is only compared once parsed
+	private static final String EMPLOYEES_RESPONSE = """
+		[{"employee_id":1,"first_name":"Ada \\"The Countess\\" O'Brien","salary":2500.5,"active":true,"hire_date":"2024-01-31"},
+		{"employee_id":2,"first_name":"back\\\\slash and /slash","salary":17000.25,"active":false,"hire_date":null},
+		{"employee_id":3,"first_name":"line\\nbreak\\ttab\\rreturn","salary":null,"active":null,"hire_date":"1999-12-31"},
+		{"employee_id":4,"first_name":"control \\u0001\\u001f </script>","salary":-3.75,"active":true,"hire_date":"2000-02-29"}]""";
+	private static final String JOBS_RESPONSE = "[]";
+	
+	@TempDir
+	Path directory;
+	
+	@Test
+	void testStreamedTablesMatchThePreviousExporter() throws Exception {
+		Path employeesBefore = exportBefore(EMPLOYEES, EMPLOYEES_RESPONSE);
+		Path jobsBefore = exportBefore(JOBS, JOBS_RESPONSE);
+		
+		Path streamed = exportStreaming(new StreamingJSONExporter(), "data.json");
+		
+		String expected = "{\"employees\":" + compact(employeesBefore) + ",\"jobs\":" + compact(jobsBefore) + "}\n";
+		assertEquals(expected, Files.readString(streamed, StandardCharsets.UTF_8));
+		JsonNode document = MAPPER.readTree(streamed.toFile());
+		assertEquals(MAPPER.readTree(employeesBefore.toFile()), document.get("employees"));
+		assertEquals("Ada \"The Countess\" O'Brien", document.get("employees").get(0).get("first_name").asText());
+		assertEquals("line\nbreak\ttab\rreturn", document.get("employees").get(2).get("first_name").asText());
+		assertEquals("control \u0001\u001f </script>", document.get("employees").get(3).get("first_name").asText());
+		assertEquals("[]", document.get("jobs").toString(), "An empty table is an empty array");
+	}
+	
+	@Test
+	void testTextOutsideAsciiIsWrittenAsUtf8() throws Exception {
+		String response = "[{\"job_id\":\"ZOË\",\"job_title\":\"Zoë 日本語 😀\"}]";
+		Path output = directory.resolve("jobs.json");
+		try (StreamingJSONExporter exporter = new StreamingJSONExporter()) {
+			exporter.open(output.toString());
+			exporter.beginTable(JOBS);
+			new JsonResponseParser(MAPPER).parse(stream(response), JOBS, 1, 2, exporter::writeBatch);
+			exporter.endTable();
+		}
+		
+		String written = Files.readString(output, StandardCharsets.UTF_8);
+		assertTrue(written.contains("\"Zoë 日本語 "), written);
+		// Characters outside the BMP may be escaped as a surrogate pair, which reads back the same
+		assertEquals(MAPPER.readTree(response), MAPPER.readTree(written).get("jobs"));
+	}
+	
+	@Test
+	void testPrettyAndNdjsonLayoutsHoldTheSameRows() throws Exception {
+		JsonNode before = MAPPER.readTree(exportBefore(EMPLOYEES, EMPLOYEES_RESPONSE).toFile());
+		
+		Path pretty = exportStreaming(new StreamingJSONExporter(StreamingJSONExporter.Mode.TABLE_ARRAYS, true), "pretty.json");
+		JsonNode document = MAPPER.readTree(pretty.toFile());
+		assertEquals(before, document.get("employees"));
+		assertEquals(0, document.get("jobs").size());
+		
+		Path ndjson = exportStreaming(new StreamingJSONExporter(StreamingJSONExporter.Mode.NDJSON, false), "data.ndjson");
+		List<String> lines = Files.readAllLines(ndjson, StandardCharsets.UTF_8);
+		assertEquals(before.size(), lines.size(), "The empty table writes no line");
+		for (int row = 0; row < lines.size(); row++) {
+			ObjectNode expected = MAPPER.createObjectNode().put("_table", "employees");
+			expected.setAll((ObjectNode) before.get(row));
+			assertEquals(expected, MAPPER.readTree(lines.get(row)));
+		}
+	}
+	
+	/**
+	 * Writes a table as the data generator did before rows were streamed: the Mockaroo
+	 * response, as received, through the {@link JSONExporter}.
+	 */
+	private Path exportBefore(TableLayout layout, String response) throws IOException {
+		Path output = directory.resolve(layout.getTableName() + ".before.json");
+		new JSONExporter().export(output.toString(), layout.getTableName(), response);
+		return output;
+	}
+	
+	/**
+	 * Writes both tables through the given exporter, the rows of the Mockaroo responses
+	 * parsed into batches of two rows as the data generator receives them.
+	 */
+	private Path exportStreaming(StreamingJSONExporter exporter, String fileName) throws IOException {
+		Path output = directory.resolve(fileName);
+		JsonResponseParser parser = new JsonResponseParser(MAPPER);
+		try (exporter) {
+			exporter.open(output.toString());
+			exporter.beginTable(EMPLOYEES);
+			parser.parse(stream(EMPLOYEES_RESPONSE), EMPLOYEES, 4, 2, exporter::writeBatch);
+			exporter.endTable();
+			exporter.beginTable(JOBS);
+			parser.parse(stream(JOBS_RESPONSE), JOBS, 0, 2, exporter::writeBatch);
+			exporter.endTable();
+		}
+		return output;
+	}
+	
+	private static String compact(Path json) throws IOException {
+		return MAPPER.writeValueAsString(MAPPER.readTree(json.toFile()));
+	}
+	
+	private static ByteArrayInputStream stream(String text) {
+		return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+	}
+}
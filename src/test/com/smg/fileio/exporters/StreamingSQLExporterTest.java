@@ -0,0 +1,94 @@
+package com.smg.fileio.exporters;
+
+import com.smg.fileio.BufferedExporterAdapter;
+import com.smg.fileio.ColumnKind;
+import com.smg.fileio.IBatchExporter;
+import com.smg.fileio.RowBatch;
+import com.smg.fileio.TableLayout;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Unit tests for the {@link StreamingSQLExporter} class.
+ * They verify that the streamed statements are the ones the {@link SQLExporter} wrote
+ * through the {@link BufferedExporterAdapter}, that text is always written as a string
+ * literal unless it is a plain number in a numeric column, that decimals keep their
+ * scale, and that an empty table writes no statement.
+ */
+class StreamingSQLExporterTest {
+	
+	private static final TableLayout EMPLOYEES = new TableLayout("employees",
+		new String[]{"employee_id", "last_name", "salary", "active", "hire_date"},
+		new ColumnKind[]{ColumnKind.INTEGER, ColumnKind.TEXT, ColumnKind.DECIMAL, ColumnKind.BOOLEAN, ColumnKind.DATE});
+	private static final TableLayout JOBS = new TableLayout("jobs",
+		new String[]{"job_id"},
+		new ColumnKind[]{ColumnKind.TEXT});
+	
+	@TempDir
+	Path directory;
+	
+	@Test
+	void testStatementsMatchThePreviousExporter() throws Exception {
+		List<Object[]> rows = List.of(
+			new Object[]{100L, "King", 24000.5, true, "2003-06-17"},
+			new Object[]{101, "O'Connell", new BigDecimal("2500.25"), false, null},
+			new Object[]{102L, "", 17000L, null, "1999-12-31"},
+			new Object[]{103L, "line\nbreak", -3.75, true, "2000-02-29"});
+		
+		String before = export(new BufferedExporterAdapter(new SQLExporter()), "before.sql", rows);
+		String streamed = export(new StreamingSQLExporter(StandardCharsets.UTF_8), "streamed.sql", rows);
+		
+		assertEquals(before, streamed);
+		assertEquals("INSERT INTO employees (employee_id, last_name, salary, active, hire_date) "
+			+ "VALUES (101, 'O''Connell', 2500.25, false, NULL);", streamed.split("\n")[1]);
+	}
+	
+	@Test
+	void testTextIsOnlyBareWhenItIsAPlainNumber() throws Exception {
+		String streamed = export(new StreamingSQLExporter(StandardCharsets.UTF_8), "data.sql", List.of(
+			new Object[]{"42", "7", "-1.5e3", "TRUE", "2024-01-31"},
+			new Object[]{"1); DROP TABLE employees; --", "Zoë", "12'", "yes", Double.NaN},
+			new Object[]{7L, null, new BigDecimal("0.10"), false, null}));
+		
+		String[] statements = streamed.split("\n");
+		assertEquals("INSERT INTO employees (employee_id, last_name, salary, active, hire_date) "
+			+ "VALUES (42, '7', -1.5e3, TRUE, '2024-01-31');", statements[0]);
+		assertEquals("INSERT INTO employees (employee_id, last_name, salary, active, hire_date) "
+			+ "VALUES ('1); DROP TABLE employees; --', 'Zoë', '12''', 'yes', 'NaN');", statements[1]);
+		// The previous exporter read decimals back as doubles, which dropped their scale
+		assertEquals("INSERT INTO employees (employee_id, last_name, salary, active, hire_date) "
+			+ "VALUES (7, NULL, 0.10, false, NULL);", statements[2]);
+	}
+	
+	/**
+	 * Writes the employees with the given rows, in batches of two rows, then an empty
+	 * table, and returns the written file.
+	 */
+	private String export(IBatchExporter exporter, String fileName, List<Object[]> rows) throws IOException {
+		Path output = directory.resolve(fileName);
+		try (exporter) {
+			exporter.open(output.toString());
+			exporter.beginTable(EMPLOYEES);
+			for (int first = 0; first < rows.size(); first += 2) {
+				RowBatch batch = new RowBatch(EMPLOYEES, 2);
+				rows.subList(first, Math.min(first + 2, rows.size())).forEach(batch::addRow);
+				exporter.writeBatch(batch);
+			}
+			exporter.endTable();
+			exporter.beginTable(JOBS);
+			exporter.endTable();
+		}
+		String written = Files.readString(output, StandardCharsets.UTF_8);
+		assertEquals(rows.size(), written.split(";\n", -1).length - 1, "The empty table writes no statement");
+		return written;
+	}
+}
@@ -0,0 +1,207 @@
+package com.smg.fileio.snapshot;
+
+import com.smg.fileio.ColumnKind;
+import com.smg.fileio.RowBatch;
+import com.smg.fileio.TableLayout;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for the {@link SnapshotWriter} and {@link SnapshotReader} classes.
+ * They verify that every column tag and the null bitmaps restore the written values
+ * exactly, that tables keep their blocks in order, and that truncated or corrupted
+ * snapshots are refused with an {@link IOException}.
+ */
+class SnapshotReaderTest {
+	
+	private static final TableLayout EMPLOYEES = new TableLayout("employees",
+		new String[]{"employee_id", "salary", "commission_pct", "active", "first_name", "manager_id", "code"},
+		new ColumnKind[]{ColumnKind.INTEGER, ColumnKind.DECIMAL, ColumnKind.DECIMAL, ColumnKind.BOOLEAN,
+			ColumnKind.TEXT, ColumnKind.INTEGER, ColumnKind.TEXT});
+	private static final TableLayout REGIONS = new TableLayout("regions",
+		new String[]{"region_id", "region_name"},
+		new ColumnKind[]{ColumnKind.INTEGER, ColumnKind.TEXT});
+	
+	@TempDir
+	Path directory;
+	
+	@Test
+	void testEveryColumnTagRoundTrips() throws Exception {
+		// LONG, DOUBLE (longs and doubles mixed), DECIMAL, BOOLEAN, TEXT, NULL and TEXT (mixed types)
+		List<Object[]> rows = List.of(
+			new Object[]{1L, 2400.5, new BigDecimal("0.10"), true, "Steven", null, 7L},
+			new Object[]{2, 17000L, new BigDecimal("-12345678901234567890.000001"), false, "Zoë \"Z\"\n", null, "B7"},
+			new Object[]{Long.MIN_VALUE, -0.25, new BigDecimal("1E+3"), true, "", null, 1.5},
+			new Object[]{Long.MAX_VALUE, 1e300, new BigDecimal("3"), false, "日本語", null, "x"});
+		Path snapshot = write(List.of(EMPLOYEES), List.of(List.of(rows)));
+		
+		try (SnapshotReader reader = SnapshotReader.open(snapshot)) {
+			List<Object[]> read = readRows(reader, 0);
+			assertEquals(4, read.size());
+			assertRow(read.get(0), 1L, 2400.5, new BigDecimal("0.10"), true, "Steven", null, "7");
+			assertRow(read.get(1), 2L, 17000.0, new BigDecimal("-12345678901234567890.000001"), false, "Zoë \"Z\"\n", null, "B7");
+			assertRow(read.get(2), Long.MIN_VALUE, -0.25, new BigDecimal("1E+3"), true, "", null, "1.5");
+			assertRow(read.get(3), Long.MAX_VALUE, 1e300, new BigDecimal("3"), false, "日本語", null, "x");
+		}
+	}
+	
+	@Test
+	void testNullBitmapsCrossByteBoundaries() throws Exception {
+		// 19 rows take three bitmap bytes, the last one partly used
+		List<Object[]> rows = new ArrayList<>();
+		for (int row = 0; row < 19; row++) {
+			boolean isNull = row == 0 || row == 7 || row == 8 || row == 15 || row == 18;
+			rows.add(new Object[]{
+				isNull ? null : (long) row, isNull ? null : row / 4.0, isNull ? null : BigDecimal.valueOf(row, 2),
+				isNull ? null : row % 2 == 0, isNull ? null : "name" + row, null, row % 3 == 0 ? null : "c" + row});
+		}
+		Path snapshot = write(List.of(EMPLOYEES), List.of(List.of(rows)));
+		
+		try (SnapshotReader reader = SnapshotReader.open(snapshot)) {
+			List<Object[]> read = readRows(reader, 0);
+			assertEquals(rows.size(), read.size());
+			for (int row = 0; row < rows.size(); row++) {
+				Object[] expected = rows.get(row).clone();
+				expected[1] = expected[1] == null ? null : ((Number) expected[1]).doubleValue();
+				assertRow(read.get(row), expected);
+			}
+		}
+	}
+	
+	@Test
+	void testTablesKeepTheirBlocksInOrder() throws Exception {
+		List<Object[]> first = List.of(new Object[]{1L, "Europe"}, new Object[]{2L, "Americas"});
+		List<Object[]> second = List.<Object[]>of(new Object[]{3L, "Asia"});
+		List<Object[]> third = List.of(new Object[]{4L, null}, new Object[]{5L, "Oceania"}, new Object[]{6L, "Antarctica"});
+		Path snapshot = write(List.of(REGIONS, EMPLOYEES, REGIONS),
+			List.of(List.of(first, List.of(), second, third), List.of(), List.of(second)));
+		
+		try (SnapshotReader reader = SnapshotReader.open(snapshot)) {
+			assertEquals(3, reader.getTables().size());
+			assertEquals(EMPLOYEES.getColumnNames(), reader.getTables().get(1).getColumnNames());
+			assertEquals(ColumnKind.DECIMAL, reader.getTables().get(1).getColumnKind(1));
+			assertEquals(6, reader.getRowCount(0));
+			assertEquals(0, reader.getRowCount(1));
+			assertEquals(1, reader.getRowCount(2));
+			
+			List<Integer> blockSizes = new ArrayList<>();
+			reader.readTable(0, batch -> blockSizes.add(batch.size()));
+			assertEquals(List.of(2, 1, 3), blockSizes, "Empty batches are not written");
+			List<Object[]> read = readRows(reader, 0);
+			for (int row = 0; row < 6; row++) {
+				assertEquals((long) row + 1, read.get(row)[0]);
+			}
+			assertRow(read.get(3), 4L, null);
+			assertEquals(0, readRows(reader, 1).size());
+			assertRow(readRows(reader, 2).get(0), 3L, "Asia");
+		}
+	}
+	
+	@Test
+	void testTruncatedSnapshotsAreRefused() throws Exception {
+		Path snapshot = write(List.of(REGIONS), List.of(List.of(List.<Object[]>of(new Object[]{1L, "Europe"}))));
+		byte[] bytes = Files.readAllBytes(snapshot);
+		
+		// Cut in the footer, as an interrupted export leaves it
+		Files.write(snapshot, Arrays.copyOf(bytes, bytes.length - 5));
+		IOException trailer = assertThrows(IOException.class, () -> SnapshotReader.open(snapshot));
+		assertTrue(trailer.getMessage().contains("Corrupted"), trailer.getMessage());
+		
+		Files.write(snapshot, Arrays.copyOf(bytes, 10));
+		assertThrows(IOException.class, () -> SnapshotReader.open(snapshot));
+		
+		byte[] notSnapshot = bytes.clone();
+		notSnapshot[0] = 'X';
+		Files.write(snapshot, notSnapshot);
+		IOException magic = assertThrows(IOException.class, () -> SnapshotReader.open(snapshot));
+		assertTrue(magic.getMessage().contains("bad magic number"), magic.getMessage());
+	}
+	
+	@Test
+	void testCorruptedSnapshotsAreRefused() throws Exception {
+		Path snapshot = write(List.of(REGIONS), List.of(List.of(List.<Object[]>of(new Object[]{1L, "Europe"}))));
+		byte[] bytes = Files.readAllBytes(snapshot);
+		long footerOffset = ByteBuffer.wrap(bytes, bytes.length - 12, 8).order(ByteOrder.LITTLE_ENDIAN).getLong();
+		
+		// An unknown column tag: the first column block starts after the row count
+		byte[] tag = bytes.clone();
+		tag[SnapshotFormat.HEADER_SIZE + 4] = 42;
+		Files.write(snapshot, tag);
+		try (SnapshotReader reader = SnapshotReader.open(snapshot)) {
+			assertThrows(IOException.class, () -> reader.readTable(0, batch -> { }));
+		}
+		
+		// A text offset pointing past the block
+		byte[] offsets = bytes.clone();
+		int textOffsets = SnapshotFormat.HEADER_SIZE + 4 + (1 + 1 + 8) + (1 + 1);
+		ByteBuffer.wrap(offsets).order(ByteOrder.LITTLE_ENDIAN).putInt(textOffsets + 4, 1000);
+		Files.write(snapshot, offsets);
+		try (SnapshotReader reader = SnapshotReader.open(snapshot)) {
+			assertThrows(IOException.class, () -> reader.readTable(0, batch -> { }));
+		}
+		
+		// A footer with more tables than it holds
+		byte[] footer = bytes.clone();
+		ByteBuffer.wrap(footer).order(ByteOrder.LITTLE_ENDIAN).putInt((int) footerOffset, 1000);
+		Files.write(snapshot, footer);
+		assertThrows(IOException.class, () -> SnapshotReader.open(snapshot));
+		
+		// A block outside of the data section: the block index ends right before the trailer
+		byte[] block = bytes.clone();
+		ByteBuffer.wrap(block).order(ByteOrder.LITTLE_ENDIAN).putLong(bytes.length - 12 - 16, footerOffset + 4);
+		Files.write(snapshot, block);
+		assertThrows(IOException.class, () -> SnapshotReader.open(snapshot));
+	}
+	
+	/**
+	 * Writes the tables with their batches (each a list of rows) to a new snapshot.
+	 */
+	private Path write(List<TableLayout> layouts, List<List<List<Object[]>>> batches) throws IOException {
+		Path snapshot = directory.resolve("data." + SnapshotWriter.EXTENSION);
+		try (SnapshotWriter writer = new SnapshotWriter()) {
+			writer.open(snapshot.toString());
+			for (int table = 0; table < layouts.size(); table++) {
+				writer.beginTable(layouts.get(table));
+				for (List<Object[]> rows : batches.get(table)) {
+					RowBatch batch = new RowBatch(layouts.get(table), Math.max(1, rows.size()));
+					rows.forEach(batch::addRow);
+					writer.writeBatch(batch);
+				}
+				writer.endTable();
+			}
+		}
+		return snapshot;
+	}
+	
+	private static List<Object[]> readRows(SnapshotReader reader, int table) throws IOException {
+		List<Object[]> rows = new ArrayList<>();
+		reader.readTable(table, batch -> {
+			for (int row = 0; row < batch.size(); row++) {
+				Object[] values = new Object[batch.getLayout().getColumnCount()];
+				for (int col = 0; col < values.length; col++) {
+					values[col] = batch.get(row, col);
+				}
+				rows.add(values);
+			}
+		});
+		return rows;
+	}
+	
+	private static void assertRow(Object[] actual, Object... expected) {
+		assertEquals(Arrays.asList(expected), Arrays.asList(actual));
+	}
+}
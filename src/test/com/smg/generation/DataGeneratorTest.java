@@ -0,0 +1,157 @@
+package com.smg.generation;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.smg.config.SMGConfig;
+import com.smg.logging.ErrorLogger;
+import com.smg.logging.SummaryLogger;
+import com.smg.schemas.ir.SchemaIR;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for the {@link DataGenerator} class.
+ * They verify that every table is split into chunks of at most the rows of a request,
+ * the last one holding the remainder, and that the chunks are written in table and row
+ * order even when Mockaroo answers their requests in another order.
+ */
+class DataGeneratorTest {
+	
+	private static final ObjectMapper MAPPER = new ObjectMapper();
+	private static final int CHUNK_ROWS = 50;
+	
+	@TempDir
+	Path directory;
+	
+	@Test
+	void testTablesAreSplitIntoChunks() {
+		SMGConfig config = new SMGConfig();
+		config.setMockarooMaxRowsPerRequest(1000);
+		config.setSyntheticGenerate(Map.of("employees", 2500, "regions", 2000, "jobs", 10));
+		SchemaIR schema = new SchemaIR.Builder("HR")
+			.table("employees")
+			.column("employee_id", "NUMBER(6)", 6, false, true, false)
+			.column("email", "VARCHAR2(25)", 25, false, false, true)
+			.table("regions")
+			.column("region_id", "NUMBER", -1, false, true, false)
+			.table("jobs")
+			.column("job_title", "VARCHAR2(35)", 35, false, false, false)
+			.table("countries")
+			.column("country_id", "CHAR(2)", 2, false, true, false)
+			.build();
+		
+		List<DataGenerator.Chunk> chunks = new DataGenerator(config, new ErrorLogger(), new SummaryLogger()).planChunks(schema);
+		
+		List<String> planned = chunks.stream()
+			.map(chunk -> chunk.plan().getLayout().getTableName() + " #" + chunk.index() + " " + chunk.firstRow()
+				+ "+" + chunk.rowCount() + (chunk.last() ? " last" : ""))
+			.toList();
+		assertEquals(List.of(
+			"employees #0 0+1000", "employees #1 1000+1000", "employees #2 2000+500 last",
+			"regions #0 0+1000", "regions #1 1000+1000 last",
+			"jobs #0 0+10 last",
+			"countries #0 0+100 last"), planned, "The remainder is the last chunk; a small table is a single chunk");
+		assertTrue(chunks.stream().filter(chunk -> chunk.plan().getLayout().getTableName().equals("employees"))
+			.allMatch(chunk -> chunk.plan() == chunks.get(0).plan()), "The chunks of a table share its plan");
+	}
+	
+	@Test
+	void testChunksAreWrittenInOrderWhateverOrderTheyArriveIn() throws Exception {
+		int rowCount = 6 * CHUNK_ROWS;
+		AtomicInteger arrivals = new AtomicInteger();
+		List<Integer> answered = Collections.synchronizedList(new ArrayList<>());
+		// The first request is only answered once three later ones were
+		CountDownLatch laterAnswered = new CountDownLatch(3);
+		
+		HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		ExecutorService handlers = Executors.newFixedThreadPool(8);
+		server.setExecutor(handlers);
+		server.createContext("/api/generate.json", exchange -> {
+			int arrival = arrivals.getAndIncrement();
+			int count = Integer.parseInt(exchange.getRequestURI().getQuery().replaceAll(".*count=(\\d+).*", "$1"));
+			JsonNode fields = MAPPER.readTree(exchange.getRequestBody()).get("schema");
+			if (arrival == 0) {
+				try {
+					laterAnswered.await(5, TimeUnit.SECONDS);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+			
+			ArrayNode rows = MAPPER.createArrayNode();
+			for (int row = 0; row < count; row++) {
+				ObjectNode values = rows.addObject();
+				for (JsonNode field : fields) {
+					values.put(field.get("name").asText(), "r" + arrival + "-" + row + "@example.com");
+				}
+			}
+			byte[] body = MAPPER.writeValueAsBytes(rows);
+			answered.add(arrival);
+			exchange.getResponseHeaders().add("Content-Type", "application/json");
+			exchange.sendResponseHeaders(200, body.length);
+			try (OutputStream output = exchange.getResponseBody()) {
+				output.write(body);
+			}
+			if (arrival != 0) {
+				laterAnswered.countDown();
+			}
+		});
+		server.start();
+		
+		Path output = directory.resolve("employees.csv");
+		try {
+			SMGConfig config = new SMGConfig();
+			config.setMockApiKey("key");
+			config.setMockarooEndpoint("http://127.0.0.1:" + server.getAddress().getPort() + "/api/generate.json");
+			config.setMockarooGzip(false);
+			config.setMockarooConcurrency(4);
+			config.setMockarooMaxRowsPerRequest(CHUNK_ROWS);
+			config.setMockarooRetries(0);
+			config.setMockarooFallback(false);
+			config.setDataOutput(output.toString());
+			config.setSyntheticGenerate(Map.of("employees", rowCount));
+			SchemaIR schema = new SchemaIR.Builder("HR")
+				.table("employees")
+				.column("employee_id", "NUMBER(6)", 6, false, true, false)
+				.column("email", "VARCHAR2(25)", 25, false, false, true)
+				.build();
+			
+			new DataGenerator(config, new ErrorLogger(), new SummaryLogger()).generate(schema);
+		} finally {
+			server.stop(0);
+			handlers.shutdownNow();
+		}
+		
+		assertEquals(6, answered.size());
+		assertTrue(answered.indexOf(0) >= 3, "The first request is answered after later ones: " + answered);
+		List<String> lines = Files.readAllLines(output);
+		assertEquals(rowCount + 1, lines.size());
+		for (int row = 0; row < rowCount; row++) {
+			String[] values = lines.get(row + 1).split(",");
+			assertEquals(String.valueOf(row + 1), values[0], "Rows are written in order");
+			// Every row of a chunk comes from the response to its own request
+			String chunkFirst = lines.get(row - row % CHUNK_ROWS + 1).split(",")[1];
+			assertEquals(chunkFirst.replace("-0@", "-" + row % CHUNK_ROWS + "@"), values[1]);
+		}
+	}
+}
@@ -0,0 +1,143 @@
+package com.smg.generation;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.smg.fileio.RowBatch;
+import com.smg.fileio.TableLayout;
+import com.smg.schemas.entities.Column;
+import com.smg.schemas.entities.ForeignKey;
+import com.smg.schemas.entities.Table;
+import com.smg.schemas.ir.SchemaIR;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for the {@link HybridGenerationPlanner} class.
+ * They verify that only the semantic text columns are sent to Mockaroo, with a fitting
+ * type, that the local columns are merged into the received rows in place, and that
+ * generated keys fit the length of their column.
+ */
+class HybridGenerationPlannerTest {
+	
+	private final HybridGenerationPlanner planner = new HybridGenerationPlanner(Map.of("EMPLOYEES", 50, "DEPARTMENTS", 5));
+	
+	@Test
+	void testOnlySemanticColumnsGoToMockaroo() {
+		GenerationPlan plan = planner.plan(employees());
+		
+		assertEquals(ColumnSource.ROW_NUMBER, plan.getSource(0));
+		assertEquals(ColumnSource.MOCKAROO, plan.getSource(1));
+		assertEquals(ColumnSource.MOCKAROO, plan.getSource(2));
+		assertEquals(ColumnSource.LOCAL, plan.getSource(3));
+		assertEquals(ColumnSource.CODE, plan.getSource(4));
+		assertEquals(ColumnSource.REFERENCE, plan.getSource(5));
+		assertEquals(5, plan.getBound(5));
+		
+		JsonNode schema = plan.getMockarooSchema();
+		assertEquals(2, schema.size());
+		assertEquals("First Name", schema.get(0).get("type").asText());
+		assertEquals("Email Address", schema.get(1).get("type").asText());
+		assertFalse(schema.get(1).has("options"), "Options are written next to the type, and only when set");
+		assertEquals(2, schema.get(1).size(), "A field without options has only a name and a type");
+	}
+	
+	@Test
+	void testTableWithoutSemanticColumnsMakesNoCall() {
+		Table regions = new Table("REGIONS");
+		regions.addColumn(new Column("REGION_ID", "NUMBER"));
+		regions.addColumn(new Column("ACTIVE", "CHAR(1)"));
+		
+		GenerationPlan plan = planner.plan(regions);
+		
+		assertFalse(plan.hasRemoteColumns());
+		assertNull(plan.getMockarooSchema());
+	}
+	
+	@Test
+	void testLocalColumnsAreMergedIntoRemoteRows() throws Exception {
+		GenerationPlan plan = planner.plan(employees());
+		List<RowBatch> merged = new ArrayList<>();
+		LocalRowGenerator generator = new LocalRowGenerator("seed");
+		
+		TableLayout remoteLayout = plan.getRemoteLayout();
+		RowBatch remote = new RowBatch(remoteLayout, 2);
+		remote.addRow(new Object[] {"Ada", "ada@example.com"});
+		remote.addRow(new Object[] {"Alan", "alan@example.com"});
+		generator.merging(plan, 10, merged::add).accept(remote);
+		
+		RowBatch batch = merged.get(0);
+		assertEquals(2, batch.size());
+		assertEquals(11L, batch.get(0, 0), "Row numbers continue from the first row of the chunk");
+		assertEquals("Ada", batch.get(0, 1));
+		assertEquals("alan@example.com", batch.get(1, 2));
+		assertEquals(1, ((String) batch.get(0, 4)).length());
+		long departmentId = (Long) batch.get(1, 5);
+		assertTrue(departmentId >= 1 && departmentId <= 5, "Foreign keys stay within the referenced rows");
+	}
+	
+	@Test
+	void testTextKeysFitTheirLength() throws Exception {
+		SchemaIR schema = new SchemaIR.Builder("HR")
+			.table("countries")
+			.column("country_code", "CHAR(2)", 2, false, true, false)
+			.column("country_id", "NUMBER", -1, false, false, false)
+			.table("locations")
+			.column("location_id", "NUMBER(4)", 4, false, true, false)
+			.column("country_code", "CHAR(2)", 2, true, false, false)
+			.foreignKey("loc_c_fk", List.of("country_code"), "countries", List.of("country_code"))
+			.table("flags")
+			.column("flag", "CHAR(1)", 1, false, true, false)
+			.build();
+		HybridGenerationPlanner hr = new HybridGenerationPlanner(Map.of("countries", 150, "locations", 20, "flags", 50));
+		
+		GenerationPlan countries = hr.plan(schema, 0);
+		assertEquals(ColumnSource.ROW_NUMBER, countries.getSource(0), "The declared primary key is the surrogate key");
+		assertEquals(36, countries.getKeyRadix(0), "150 rows do not fit two digits");
+		assertEquals(ColumnSource.LOCAL, countries.getSource(1), "A key-like name is not a key when the primary key is declared");
+		
+		GenerationPlan locations = hr.plan(schema, 1);
+		assertEquals(10, locations.getKeyRadix(0));
+		assertEquals(ColumnSource.REFERENCE, locations.getSource(1));
+		assertEquals(36, locations.getKeyRadix(1), "References are written like the key they point at");
+		
+		List<RowBatch> rows = new ArrayList<>();
+		LocalRowGenerator generator = new LocalRowGenerator("seed");
+		generator.generate(countries, 0, 150, 150, rows::add);
+		generator.generate(locations, 0, 20, 20, rows::add);
+		Set<Object> codes = new HashSet<>();
+		for (int row = 0; row < 150; row++) {
+			String code = (String) rows.get(0).get(row, 0);
+			assertTrue(code.length() <= 2, "Key " + code + " overflows CHAR(2)");
+			codes.add(code);
+		}
+		assertEquals(150, codes.size(), "Keys stay unique");
+		for (int row = 0; row < 20; row++) {
+			assertTrue(codes.contains(rows.get(1).get(row, 1)), "References point at generated keys");
+		}
+		
+		GenerationPlan flags = hr.plan(schema, 2);
+		assertEquals(ColumnSource.MOCKAROO, flags.getSource(0), "50 rows cannot fit CHAR(1), even in base 36");
+		assertEquals("flag", flags.getMockarooSchema().get(0).get("name").asText());
+	}
+	
+	private static Table employees() {
+		Table table = new Table("EMPLOYEES");
+		table.addColumn(new Column("EMPLOYEE_ID", "NUMBER(6)"));
+		table.addColumn(new Column("FIRST_NAME", "VARCHAR2(20)"));
+		table.addColumn(new Column("EMAIL", "VARCHAR2(25)"));
+		table.addColumn(new Column("SALARY", "NUMBER(8,2)"));
+		table.addColumn(new Column("STATUS", "CHAR(1)"));
+		table.addColumn(new Column("DEPARTMENT_ID", "NUMBER(4)"));
+		table.addForeignKey(new ForeignKey("EMP_DEPT_FK", "DEPARTMENT_ID", "DEPARTMENTS", "DEPARTMENT_ID"));
+		return table;
+	}
+}
@@ -0,0 +1,61 @@
+package com.smg.graph;
+
+import com.smg.graph.domain.CsrGraph;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Unit tests for the {@link MultiSourceBfs} class and the component searches built on it.
+ * They verify that distances are right across batches of 64 sources, and that the
+ * components and their extremes are found in selection order.
+ */
+class MultiSourceBfsTest {
+	
+	@Test
+	void testEccentricitiesAcrossBatches() {
+		// A path of 100 nodes, searched from all of them in two batches
+		CsrGraph.Builder builder = new CsrGraph.Builder();
+		for (int node = 1; node < 100; node++) {
+			builder.edge("n" + (node - 1), "n" + node);
+		}
+		CsrGraph path = builder.build();
+		int[] all = new int[100];
+		int[] expected = new int[100];
+		for (int node = 0; node < 100; node++) {
+			all[node] = path.findNode("n" + node);
+			expected[node] = Math.max(node, 99 - node);
+		}
+		
+		MultiSourceBfs bfs = new MultiSourceBfs(path);
+		assertArrayEquals(expected, bfs.eccentricities(all, all));
+		assertArrayEquals(new int[]{70, 69}, bfs.eccentricities(new int[]{all[70], all[30]}, new int[]{all[0], all[99], all[40]}),
+			"The instance is reused");
+	}
+	
+	@Test
+	void testExtremesAreFoundPerComponent() {
+		CsrGraph graph = new CsrGraph.Builder()
+			.edge("a", "b").edge("b", "c").edge("c", "d")
+			.edge("x", "y")
+			.build();
+		int a = graph.findNode("a");
+		int c = graph.findNode("c");
+		int d = graph.findNode("d");
+		int x = graph.findNode("x");
+		int y = graph.findNode("y");
+		
+		int[] component = Main.connectedComponents(graph);
+		assertEquals(component[a], component[d]);
+		assertEquals(component[x], component[y]);
+		
+		List<int[]> extremes = Main.findFarthestExtremesByComponent(graph, new int[]{y, c, a, d, x});
+		assertEquals(2, extremes.size());
+		assertArrayEquals(new int[]{y, x}, extremes.get(0));
+		assertArrayEquals(new int[]{a, d}, extremes.get(1));
+		assertArrayEquals(new int[]{c}, Main.findFarthestExtremesByComponent(graph, new int[]{c, c}).get(0));
+	}
+}
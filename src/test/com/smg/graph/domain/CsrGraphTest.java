@@ -0,0 +1,125 @@
+package com.smg.graph.domain;
+
+import com.smg.graph.Main;
+import com.smg.schemas.SchemaLoader;
+import com.smg.schemas.SchemaParser;
+import com.smg.schemas.ir.SchemaIR;
+import com.smg.sqlparser.parser.SQL99.SqlSchemaParser;
+import com.smg.sqlparser.services.SqlGeneratorService;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Unit tests for the {@link CsrGraph} class and the searches of {@link Main} that run on it.
+ * They verify that every edge is listed once in both rows whatever the number of foreign
+ * keys it stands for, that the shortest paths and extremes are found over node ids, and
+ * that a selection is connected through the fewest intermediate nodes, and that tables
+ * whose names differ only in case stay separate nodes.
+ */
+class CsrGraphTest {
+	
+	@Test
+	void testEdgesAreListedOnceInBothRows() {
+		CsrGraph graph = new CsrGraph.Builder()
+			.edge("employees", "departments")
+			.edge("employees", "jobs")
+			.edge("DEPARTMENTS", "Employees")
+			.edge("employees", "employees")
+			.build();
+		
+		assertEquals(3, graph.getNodeCount());
+		assertEquals(2, graph.getEdgeCount(), "Repeated edges and loops are left out");
+		int employees = graph.findNode("\"EMPLOYEES\"");
+		assertEquals("employees", graph.getName(employees));
+		assertEquals(CsrGraph.NOT_FOUND, graph.findNode("locations"));
+		assertArrayEquals(new int[]{graph.findNode("departments"), graph.findNode("jobs")}, neighbors(graph, employees));
+		assertArrayEquals(new int[]{employees}, neighbors(graph, graph.findNode("jobs")));
+	}
+	
+	@Test
+	void testSchemaGraphIsSearchedOverIds() {
+		SchemaIR schema = SchemaIR.of(new SchemaParser().parse("HR", new SchemaLoader().loadSqlContent("HR")));
+		CsrGraph graph = CsrGraph.of(schema);
+		
+		assertEquals(schema.getTableCount(), graph.getNodeCount());
+		int regions = graph.findNode("regions");
+		int jobs = graph.findNode("jobs");
+		assertEquals(schema.findTable("regions"), regions);
+		
+		// regions <- countries <- locations <- departments <- employees -> jobs
+		int[] path = Main.bfsShortestPath(graph, regions, jobs);
+		assertEquals(List.of("regions", "countries", "locations", "departments", "employees", "jobs"),
+			Arrays.stream(path).mapToObj(graph::getName).map(String::toLowerCase).toList());
+		
+		int countries = graph.findNode("countries");
+		List<int[]> extremes = Main.findFarthestExtremesByComponent(graph, new int[]{countries, jobs, regions});
+		assertEquals(1, extremes.size());
+		assertArrayEquals(new int[]{jobs, regions}, extremes.get(0), "The first farthest pair in selection order");
+		
+		CsrGraph disconnected = new CsrGraph.Builder().edge("a", "b").edge("c", "d").build();
+		assertNull(Main.bfsShortestPath(disconnected, 0, 2));
+		assertEquals(2, Main.findFarthestExtremesByComponent(disconnected, new int[]{0, 2}).size());
+	}
+	
+	@Test
+	void testTablesDifferingInCaseAreSeparateNodes() {
+		SchemaIR schema = new SchemaIR.Builder("HR")
+			.table("\"Foo\"")
+			.column("id", "NUMBER", -1, false, true, false)
+			.table("FOO")
+			.column("id", "NUMBER", -1, false, true, false)
+			.column("bar_id", "NUMBER", -1, true, false, false)
+			.foreignKey("foo_bar_fk", List.of("bar_id"), "bar", List.of("id"))
+			.table("bar")
+			.column("id", "NUMBER", -1, false, true, false)
+			.build();
+		CsrGraph graph = CsrGraph.of(schema);
+		
+		assertEquals(3, graph.getNodeCount());
+		assertEquals("FOO", graph.getName(1));
+		assertEquals("bar", graph.getName(2));
+		assertArrayEquals(new int[]{2}, neighbors(graph, 1), "The edge is on the ids of the schema");
+		assertArrayEquals(new int[]{}, neighbors(graph, 0));
+		assertEquals(0, graph.findNode("foo"), "The first of the case variants is found");
+	}
+	
+	@Test
+	void testSelectionIsConnectedByTheFewestTables() throws Exception {
+		// Two ways from a to d: through b and c, or through e alone
+		CsrGraph graph = new CsrGraph.Builder()
+			.edge("a", "b").edge("b", "c").edge("c", "d")
+			.edge("a", "e").edge("e", "d")
+			.edge("d", "f").edge("x", "y")
+			.build();
+		int a = graph.findNode("a");
+		int d = graph.findNode("d");
+		int e = graph.findNode("e");
+		int f = graph.findNode("f");
+		int x = graph.findNode("x");
+		
+		assertArrayEquals(new int[]{a, d, e, f}, Main.findConnectingSubgraph(graph, new int[]{f, a, a}));
+		assertArrayEquals(new int[]{a, d, e, x}, Main.findConnectingSubgraph(graph, new int[]{a, d, x}),
+			"Nodes of other components stay apart");
+		assertArrayEquals(new int[]{d}, Main.findConnectingSubgraph(graph, new int[]{d}));
+		
+		SqlGeneratorService service = new SqlGeneratorService(SqlSchemaParser.parseSchemaFromString(
+			new SchemaLoader().loadSqlContent("HR"), "HR"));
+		assertEquals(List.of("locations", "regions", "countries"),
+			List.copyOf(service.connectTables(new LinkedHashSet<>(List.of("locations", "regions")))));
+	}
+	
+	private static int[] neighbors(CsrGraph graph, int node) {
+		int[] neighbors = new int[graph.getDegree(node)];
+		for (int i = graph.getFirstNeighbor(node); i < graph.getNeighborEnd(node); i++) {
+			neighbors[i - graph.getFirstNeighbor(node)] = graph.getNeighbor(i);
+		}
+		return neighbors;
+	}
+}
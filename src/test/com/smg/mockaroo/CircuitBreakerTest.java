@@ -0,0 +1,76 @@
+package com.smg.mockaroo;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for the {@link CircuitBreaker} class.
+ * They verify that consecutive failures and slow calls open the circuit, that a
+ * single trial call is allowed once the open duration is over, and that its outcome
+ * closes or reopens the circuit.
+ */
+class CircuitBreakerTest {
+	
+	@Test
+	void testOpensAfterConsecutiveFailures() {
+		CircuitBreaker circuitBreaker = new CircuitBreaker(3, Duration.ofMinutes(1), Duration.ZERO);
+		
+		circuitBreaker.recordFailure();
+		circuitBreaker.recordFailure();
+		circuitBreaker.recordSuccess(0);
+		circuitBreaker.recordFailure();
+		circuitBreaker.recordFailure();
+		assertTrue(circuitBreaker.allowRequest(), "A success should reset the failure count");
+		
+		circuitBreaker.recordFailure();
+		assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+		assertTrue(circuitBreaker.isOpen());
+		assertFalse(circuitBreaker.allowRequest());
+	}
+	
+	@Test
+	void testSlowCallsCountAsFailures() {
+		CircuitBreaker circuitBreaker = new CircuitBreaker(2, Duration.ofMinutes(1), Duration.ofMillis(100));
+		
+		circuitBreaker.recordSuccess(Duration.ofMillis(50).toNanos());
+		assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+		circuitBreaker.recordSuccess(Duration.ofMillis(500).toNanos());
+		circuitBreaker.recordSuccess(Duration.ofMillis(500).toNanos());
+		assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+	}
+	
+	@Test
+	void testTrialCallClosesOrReopensTheCircuit() throws InterruptedException {
+		CircuitBreaker circuitBreaker = new CircuitBreaker(1, Duration.ofMillis(50), Duration.ZERO);
+		
+		circuitBreaker.recordFailure();
+		assertFalse(circuitBreaker.allowRequest());
+		Thread.sleep(80);
+		
+		assertTrue(circuitBreaker.allowRequest(), "The trial call should be allowed");
+		assertFalse(circuitBreaker.allowRequest(), "Only one trial call at a time");
+		circuitBreaker.recordFailure();
+		assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+		Thread.sleep(80);
+		
+		assertTrue(circuitBreaker.allowRequest());
+		circuitBreaker.recordSuccess(0);
+		assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+		assertTrue(circuitBreaker.allowRequest());
+	}
+	
+	@Test
+	void testDisabledNeverOpens() {
+		CircuitBreaker circuitBreaker = CircuitBreaker.disabled();
+		
+		for (int i = 0; i < 100; i++) {
+			circuitBreaker.recordFailure();
+		}
+		assertTrue(circuitBreaker.allowRequest());
+	}
+}
@@ -0,0 +1,97 @@
+package com.smg.mockaroo;
+
+import com.smg.fileio.ColumnKind;
+import com.smg.fileio.RowBatch;
+import com.smg.fileio.TableLayout;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Unit tests for the {@link CsvResponseParser} class.
+ * They verify that quoted fields, CRLF line ends and typed values are read back
+ * the same way the JSON response would have produced them.
+ */
+class CsvResponseParserTest {
+	
+	private static final TableLayout LAYOUT = new TableLayout("employees",
+		new String[]{"employee_id", "first_name", "salary", "active"},
+		new ColumnKind[]{ColumnKind.INTEGER, ColumnKind.TEXT, ColumnKind.DECIMAL, ColumnKind.BOOLEAN});
+	
+	/**
+	 * Parses the given CSV text in batches of two rows and returns the batches.
+	 */
+	private List<RowBatch> parse(String csv) throws IOException {
+		return parse(csv, LAYOUT, 10);
+	}
+	
+	private List<RowBatch> parse(String csv, TableLayout layout, int expectedRows) throws IOException {
+		List<RowBatch> batches = new ArrayList<>();
+		new CsvResponseParser().parse(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), layout, expectedRows, 2,
+			batches::add);
+		return batches;
+	}
+	
+	@Test
+	void testQuotedFieldsAndLineEnds() throws IOException {
+		List<RowBatch> batches = parse("first_name,employee_id\r\n"
+			+ "\"Smith, John\",1\r\n"
+			+ "\"He said \"\"hi\"\"\",2\r\n"
+			+ "\"two\nlines\",3\r\n");
+		
+		assertEquals(2, batches.size());
+		assertEquals("Smith, John", batches.get(0).get(0, 1));
+		assertEquals("He said \"hi\"", batches.get(0).get(1, 1));
+		assertEquals("two\nlines", batches.get(1).get(0, 1));
+		assertEquals(3L, batches.get(1).get(0, 0));
+	}
+	
+	@Test
+	void testTypedValuesAndNulls() throws IOException {
+		List<RowBatch> batches = parse("employee_id,first_name,salary,active,unknown\n"
+			+ "7,,2500.5,true,x\n"
+			+ "8,\"\",,false,y");
+		
+		RowBatch batch = batches.get(0);
+		assertEquals(7L, batch.get(0, 0));
+		assertNull(batch.get(0, 1), "An empty field should be null");
+		assertEquals(2500.5, batch.get(0, 2));
+		assertEquals(Boolean.TRUE, batch.get(0, 3));
+		assertEquals("", batch.get(1, 1), "A quoted empty field should be an empty string");
+		assertNull(batch.get(1, 2));
+		assertEquals(Boolean.FALSE, batch.get(1, 3));
+	}
+	
+	@Test
+	void testLargeIntegersStayExact() throws IOException {
+		List<RowBatch> batches = parse("employee_id\n123456789012345678901234567890\n9223372036854775807\n");
+		
+		assertEquals(new BigDecimal("123456789012345678901234567890"), batches.get(0).get(0, 0));
+		assertEquals(Long.MAX_VALUE, batches.get(0).get(1, 0));
+	}
+	
+	@Test
+	void testBlankLinesOfSingleColumnTablesAreNullRows() throws IOException {
+		TableLayout emails = new TableLayout("emails", new String[]{"email"}, new ColumnKind[]{ColumnKind.TEXT});
+		List<RowBatch> batches = parse("email\n\na@example.com\n\n\n\n", emails, 4);
+		
+		assertEquals(2, batches.size());
+		assertNull(batches.get(0).get(0, 0));
+		assertEquals("a@example.com", batches.get(0).get(1, 0));
+		assertNull(batches.get(1).get(0, 0));
+		assertNull(batches.get(1).get(1, 0));
+		assertEquals(2, batches.get(1).size(), "Blank lines past the rows requested are skipped");
+		
+		List<RowBatch> severalFields = parse("employee_id,first_name\n1,Ada\n\n2,Alan\n\n", LAYOUT, 3);
+		assertEquals(2, severalFields.get(0).size(), "Blank lines are not rows when the header has several fields");
+		assertEquals(1, severalFields.size());
+	}
+}
@@ -0,0 +1,95 @@
+package com.smg.mockaroo;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.smg.fileio.ColumnKind;
+import com.smg.fileio.RowBatch;
+import com.smg.fileio.TableLayout;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Unit tests for the {@link JsonResponseParser} class.
+ * They verify that rows are matched to the columns by name and delivered batch by
+ * batch, that a single row may come as a bare object, that integers too large for a
+ * long stay exact, and that a malformed or truncated response is rejected.
+ */
+class JsonResponseParserTest {
+	
+	private static final TableLayout LAYOUT = new TableLayout("employees",
+		new String[]{"employee_id", "first_name", "salary", "active"},
+		new ColumnKind[]{ColumnKind.INTEGER, ColumnKind.TEXT, ColumnKind.DECIMAL, ColumnKind.BOOLEAN});
+	
+	/**
+	 * Parses the given JSON text in batches of two rows and returns the batches.
+	 */
+	private List<RowBatch> parse(String json) throws IOException {
+		List<RowBatch> batches = new ArrayList<>();
+		int rows = new JsonResponseParser(new ObjectMapper()).parse(stream(json), LAYOUT, 10, 2, batches::add);
+		assertEquals(rows, batches.stream().mapToInt(RowBatch::size).sum());
+		return batches;
+	}
+	
+	private static InputStream stream(String text) {
+		return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+	}
+	
+	@Test
+	void testRowsAreMatchedByNameAndBatched() throws IOException {
+		List<RowBatch> batches = parse("""
+			[{"first_name": "Ada", "employee_id": 1, "salary": 2500.5, "active": true, "unknown": {"a": [1, 2]}},
+			 {"employee_id": 2, "first_name": null, "active": false},
+			 {"employee_id": 3, "first_name": "Grace", "salary": 10, "active": true}]""");
+		
+		assertEquals(2, batches.size());
+		assertEquals(2, batches.get(0).size());
+		RowBatch first = batches.get(0);
+		assertEquals(1L, first.get(0, 0));
+		assertEquals("Ada", first.get(0, 1));
+		assertEquals(2500.5, first.get(0, 2));
+		assertEquals(Boolean.TRUE, first.get(0, 3));
+		assertNull(first.get(1, 1), "A null value should be null");
+		assertNull(first.get(1, 2), "A missing field should be null");
+		assertEquals(Boolean.FALSE, first.get(1, 3));
+		assertEquals(10L, batches.get(1).get(0, 2));
+	}
+	
+	@Test
+	void testSingleRowAndEmptyResponses() throws IOException {
+		List<RowBatch> single = parse("{\"employee_id\": 7, \"first_name\": \"Alan\"}");
+		assertEquals(1, single.size());
+		assertEquals(7L, single.get(0).get(0, 0));
+		
+		assertEquals(0, parse("[]").size());
+	}
+	
+	@Test
+	void testLargeIntegersStayExact() throws IOException {
+		List<RowBatch> batches = parse("[{\"employee_id\": 123456789012345678901234567890, \"salary\": 9007199254740993}]");
+		
+		assertEquals(new BigDecimal("123456789012345678901234567890"), batches.get(0).get(0, 0));
+		assertEquals(9007199254740993L, batches.get(0).get(0, 2));
+	}
+	
+	@Test
+	void testMalformedResponsesAreRejected() {
+		JsonResponseParser parser = new JsonResponseParser(new ObjectMapper());
+		List<RowBatch> batches = new ArrayList<>();
+		
+		assertThrows(IOException.class, () -> parser.parse(stream("\"error\""), LAYOUT, 10, 2, batches::add));
+		assertThrows(IOException.class, () -> parser.parse(stream("[{\"employee_id\": 1}, 2]"), LAYOUT, 10, 2, batches::add));
+		assertThrows(IOException.class, () -> parser.parse(stream("[{\"employee_id\": 1}, {\"employee_id\": 2}, {\"emp"),
+			LAYOUT, 10, 2, batches::add));
+		assertEquals(1, batches.size(), "The full batch read before the truncation is delivered");
+	}
+}
@@ -0,0 +1,48 @@
+package com.smg.mockaroo;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for the {@link RateLimiter} class.
+ * They verify that the burst is available at once, that an empty bucket makes
+ * callers wait for the refill, and that a zero rate disables the limit.
+ */
+class RateLimiterTest {
+	
+	@Test
+	void testBurstIsAvailableImmediately() {
+		RateLimiter rateLimiter = new RateLimiter(0.5, 3);
+		
+		assertTrue(rateLimiter.tryAcquire());
+		assertTrue(rateLimiter.tryAcquire());
+		assertTrue(rateLimiter.tryAcquire());
+		assertFalse(rateLimiter.tryAcquire(), "The bucket should be empty after the burst");
+	}
+	
+	@Test
+	void testAcquireWaitsForRefill() throws InterruptedException {
+		RateLimiter rateLimiter = new RateLimiter(20, 1);
+		
+		long start = System.nanoTime();
+		for (int i = 0; i < 5; i++) {
+			rateLimiter.acquire();
+		}
+		long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+		
+		// One token from the bucket, then four more at 20 per second
+		assertTrue(elapsedMillis >= 180, "Expected to wait about 200 ms, waited " + elapsedMillis);
+	}
+	
+	@Test
+	void testZeroRateIsUnlimited() {
+		RateLimiter rateLimiter = RateLimiter.unlimited();
+		
+		assertFalse(rateLimiter.isLimited());
+		for (int i = 0; i < 1000; i++) {
+			assertTrue(rateLimiter.tryAcquire());
+		}
+	}
+}
@@ -0,0 +1,229 @@
+package com.smg.mockaroo;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.smg.fileio.ColumnKind;
+import com.smg.fileio.TableLayout;
+import com.smg.logging.ErrorLogger;
+import com.smg.mockaroo.stub.MockarooStubServer;
+import com.smg.mockaroo.stub.StubSettings;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.http.HttpTimeoutException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests for the {@link ResponseCache} class, on its own and behind a {@link MockarooClient}
+ * talking to a {@link MockarooStubServer}.
+ * They verify that entries are evicted least recently used first and dropped once
+ * expired, that corrupt or truncated entries are detected, and that the client caches
+ * only the responses it read in full and serves them again without an HTTP call.
+ */
+class ResponseCacheTest {
+	
+	private static final int ENTRY_BYTES = 1000;
+	private static final TableLayout LAYOUT = new TableLayout("EMPLOYEES",
+		new String[] {"EMPLOYEE_ID", "EMAIL"},
+		new ColumnKind[] {ColumnKind.INTEGER, ColumnKind.TEXT});
+	
+	@TempDir
+	Path directory;
+	
+	@Test
+	void testLeastRecentlyUsedEntriesAreEvictedFirst() throws Exception {
+		// Random bytes do not compress, so every entry takes a bit more than ENTRY_BYTES
+		ResponseCache cache = new ResponseCache(directory, 5 * ENTRY_BYTES / 2, null);
+		byte[] a = put(cache, "a");
+		put(cache, "b");
+		read(cache, "a");
+		put(cache, "c");
+		
+		assertNull(cache.open("b"), "The least recently used entry is evicted");
+		assertArrayEquals(a, read(cache, "a"));
+		assertNotNull(cache.open("c"));
+		
+		// Recency survives a restart through the access time of the files
+		ResponseCache reopened = new ResponseCache(directory, 5 * ENTRY_BYTES / 2, null);
+		assertArrayEquals(a, read(reopened, "a"));
+		assertEquals(1, reopened.getHits());
+	}
+	
+	@Test
+	void testExpiredEntriesAreDropped() throws Exception {
+		ResponseCache cache = new ResponseCache(directory, 0, Duration.ofMillis(20));
+		put(cache, "a");
+		TimeUnit.MILLISECONDS.sleep(50);
+		
+		assertNull(cache.open("a"));
+		assertEquals(0, cache.getHits());
+		assertEquals(1, cache.getMisses());
+		assertEquals(0, entryFiles().size(), "The expired entry is deleted");
+		
+		put(cache, "b");
+		TimeUnit.MILLISECONDS.sleep(50);
+		new ResponseCache(directory, 0, Duration.ofMillis(20));
+		assertEquals(0, entryFiles().size(), "Expired entries are dropped when the cache is opened");
+	}
+	
+	@Test
+	void testCorruptAndTruncatedEntriesAreDetected() throws Exception {
+		ResponseCache cache = new ResponseCache(directory, 0, null);
+		put(cache, "a");
+		put(cache, "b");
+		Files.write(directory.resolve("a.gz"), "not gzip".getBytes());
+		Path b = directory.resolve("b.gz");
+		byte[] compressed = Files.readAllBytes(b);
+		Files.write(b, Arrays.copyOf(compressed, compressed.length / 2));
+		
+		// A corrupt header is detected when the entry is opened and counts as a miss
+		assertNull(cache.open("a"));
+		assertEquals(0, cache.getHits());
+		assertEquals(1, cache.getMisses());
+		
+		// A truncated body only fails while it is read, so the reader invalidates it
+		assertThrows(IOException.class, () -> read(cache, "b"));
+		cache.invalidate("b");
+		assertNull(cache.open("b"));
+		assertEquals(0, entryFiles().size(), "Both entries are deleted");
+	}
+	
+	@Test
+	void testUncommittedEntriesAreNotVisible() throws Exception {
+		ResponseCache cache = new ResponseCache(directory, 0, null);
+		try (ResponseCache.EntryWriter entry = cache.create("a")) {
+			entry.write(new byte[] {1, 2, 3}, 0, 3);
+		}
+		
+		assertNull(cache.open("a"));
+		assertEquals(0, fileCount(), "The temporary file is deleted");
+	}
+	
+	@Test
+	void testKeysDependOnTheEndpoint() {
+		String key = ResponseCache.key("https://api.mockaroo.com/api/generate.json", "[]", 10, 0, "", "json");
+		
+		assertEquals(key, ResponseCache.key("https://api.mockaroo.com/api/generate.json", "[]", 10, 0, "", "json"));
+		assertNotEquals(key, ResponseCache.key("http://localhost:8089/api/generate.json", "[]", 10, 0, "", "json"));
+	}
+	
+	@Test
+	void testClientCachesFullResponsesOnly() throws Exception {
+		StubSettings settings = new StubSettings();
+		settings.setPort(0);
+		try (MockarooStubServer stub = new MockarooStubServer(settings);
+			 MockarooClient client = new MockarooClient("key", stub.getEndpoint(), MockarooClient.FORMAT_JSON, true, 1,
+				 RateLimiter.unlimited(), 0, new ErrorLogger())) {
+			stub.start();
+			ResponseCache cache = new ResponseCache(directory, 0, null);
+			client.setCache(cache, "seed");
+			
+			// The response is copied to the cache while it is parsed
+			List<Object> fetched = rows(client, 250);
+			List<Object> replayed = rows(client, 250);
+			assertEquals(1, stub.getRequests(), "The second run is served from the cache");
+			assertEquals(fetched, replayed);
+			assertEquals(1, cache.getHits());
+			
+			// A corrupt entry is dropped and fetched again
+			try (Stream<Path> files = Files.list(directory)) {
+				Files.write(files.findFirst().orElseThrow(), "not gzip".getBytes());
+			}
+			List<Object> refetched = rows(client, 250);
+			assertEquals(2, stub.getRequests());
+			assertEquals(refetched, rows(client, 250));
+			assertEquals(2, stub.getRequests(), "The entry fetched again is cached");
+		}
+	}
+	
+	@Test
+	void testTimedOutResponsesAreNotCached() throws Exception {
+		StubSettings settings = new StubSettings();
+		settings.setPort(0);
+		settings.setStallAfterRows(100);
+		try (MockarooStubServer stub = new MockarooStubServer(settings);
+			 MockarooClient client = new MockarooClient("key", stub.getEndpoint(), MockarooClient.FORMAT_JSON, false, 1,
+				 RateLimiter.unlimited(), 0, new ErrorLogger())) {
+			stub.start();
+			client.setCache(new ResponseCache(directory, 0, null), "seed");
+			client.setRequestTimeout(Duration.ofMillis(300));
+			
+			ExecutionException timeout = assertThrows(ExecutionException.class,
+				() -> client.generateDataAsync(schema(), 250, 0, LAYOUT, batch -> { }).get());
+			assertInstanceOf(HttpTimeoutException.class, timeout.getCause());
+			
+			// The reader of the dropped body fails and deletes its temporary file
+			long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+			while (fileCount() > 0 && System.nanoTime() < deadline) {
+				TimeUnit.MILLISECONDS.sleep(10);
+			}
+			assertEquals(0, fileCount(), "Neither an entry nor its temporary file is left");
+		}
+	}
+	
+	private static byte[] put(ResponseCache cache, String key) throws IOException {
+		byte[] body = new byte[ENTRY_BYTES];
+		new Random(key.hashCode()).nextBytes(body);
+		try (ResponseCache.EntryWriter entry = cache.create(key)) {
+			entry.write(body, 0, body.length);
+			entry.commit();
+		}
+		return body;
+	}
+	
+	private static byte[] read(ResponseCache cache, String key) throws IOException {
+		try (InputStream body = cache.open(key)) {
+			assertNotNull(body, "Entry " + key);
+			return body.readAllBytes();
+		}
+	}
+	
+	private List<Path> entryFiles() throws IOException {
+		try (Stream<Path> files = Files.list(directory)) {
+			return files.filter(file -> file.toString().endsWith(".gz")).toList();
+		}
+	}
+	
+	private long fileCount() throws IOException {
+		try (Stream<Path> files = Files.list(directory)) {
+			return files.count();
+		}
+	}
+	
+	private static List<Object> rows(MockarooClient client, int count) throws Exception {
+		List<Object> values = new ArrayList<>();
+		client.generateData(schema(), count, 0, LAYOUT, batch -> {
+			for (int row = 0; row < batch.size(); row++) {
+				values.add(List.of(batch.get(row, 0), batch.get(row, 1)));
+			}
+		});
+		assertEquals(count, values.size());
+		return values;
+	}
+	
+	private static ArrayNode schema() {
+		ArrayNode schema = new ObjectMapper().createArrayNode();
+		schema.addObject().put("name", "EMPLOYEE_ID").put("type", "Row Number");
+		schema.addObject().put("name", "EMAIL").put("type", "Email Address");
+		return schema;
+	}
+}
@@ -0,0 +1,121 @@
+package com.smg.mockaroo.stub;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.smg.fileio.ColumnKind;
+import com.smg.fileio.RowBatch;
+import com.smg.fileio.TableLayout;
+import com.smg.logging.ErrorLogger;
+import com.smg.mockaroo.MockarooApiException;
+import com.smg.mockaroo.MockarooClient;
+import com.smg.mockaroo.RateLimiter;
+import org.junit.jupiter.api.Test;
+
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests for the {@link MockarooStubServer} class, driven through a real {@link MockarooClient}.
+ * They verify that both response formats are served with typed values, that simulated
+ * errors and the row cap are answered with the status codes of the real service, and
+ * that the client closes the bodies that stall once its requests time out.
+ */
+class MockarooStubServerTest {
+	
+	private static final TableLayout LAYOUT = new TableLayout("EMPLOYEES",
+		new String[] {"EMPLOYEE_ID", "EMAIL", "SALARY"},
+		new ColumnKind[] {ColumnKind.INTEGER, ColumnKind.TEXT, ColumnKind.DECIMAL});
+	
+	@Test
+	void testServesJsonAndCsvRows() throws Exception {
+		try (MockarooStubServer stub = startStub(new StubSettings())) {
+			for (String format : List.of(MockarooClient.FORMAT_JSON, MockarooClient.FORMAT_CSV)) {
+				List<RowBatch> batches = new ArrayList<>();
+				try (MockarooClient client = new MockarooClient("key", stub.getEndpoint(), format, true, 2,
+					RateLimiter.unlimited(), 0, new ErrorLogger())) {
+					int rows = client.generateData(schema(), 250, 0, LAYOUT, batches::add);
+					
+					assertEquals(250, rows, "Rows delivered in " + format);
+				}
+				RowBatch first = batches.get(0);
+				assertEquals(1L, first.get(0, 0), "Row numbers start at 1");
+				assertInstanceOf(String.class, first.get(0, 1));
+				assertInstanceOf(Double.class, first.get(0, 2));
+			}
+			assertEquals(500, stub.getRowsServed());
+		}
+	}
+	
+	@Test
+	void testSimulatedErrorsAndRowCap() throws Exception {
+		StubSettings settings = new StubSettings();
+		settings.setErrorRate(1.0);
+		settings.setMaxRowsPerRequest(100);
+		try (MockarooStubServer stub = startStub(settings);
+			 MockarooClient client = new MockarooClient("key", stub.getEndpoint(), MockarooClient.FORMAT_JSON, false, 1,
+				 RateLimiter.unlimited(), 0, new ErrorLogger())) {
+			MockarooApiException serverError = assertThrows(MockarooApiException.class,
+				() -> client.generateData(schema(), 10, 0, LAYOUT, batch -> { }));
+			assertEquals(503, serverError.getStatusCode());
+			
+			MockarooApiException overCap = assertThrows(MockarooApiException.class,
+				() -> client.generateData(schema(), 101, 0, LAYOUT, batch -> { }));
+			assertEquals(400, overCap.getStatusCode());
+			assertFalse(overCap.isRetryable());
+			assertEquals(1, stub.getErrors());
+			assertEquals(1, stub.getRejected());
+		}
+	}
+	
+	@Test
+	void testStalledBodiesAreClosedOnTimeout() throws Exception {
+		StubSettings settings = new StubSettings();
+		settings.setStallAfterRows(10);
+		try (MockarooStubServer stub = startStub(settings);
+			 MockarooClient client = new MockarooClient("key", stub.getEndpoint(), MockarooClient.FORMAT_JSON, false, 1,
+				 RateLimiter.unlimited(), 0, new ErrorLogger())) {
+			client.setRequestTimeout(Duration.ofMillis(300));
+			List<CompletableFuture<Integer>> results = new ArrayList<>();
+			for (int chunk = 0; chunk < 3; chunk++) {
+				results.add(client.generateDataAsync(schema(), 500, chunk, LAYOUT, batch -> { }));
+			}
+			for (CompletableFuture<Integer> result : results) {
+				ExecutionException timeout = assertThrows(ExecutionException.class, result::get);
+				assertInstanceOf(HttpTimeoutException.class, timeout.getCause());
+			}
+			
+			// The client dropped every stalled body, so the stub gives up on them
+			long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+			while (stub.getStalled() > 0 && System.nanoTime() < deadline) {
+				TimeUnit.MILLISECONDS.sleep(10);
+			}
+			assertEquals(0, stub.getStalled(), "Stalled responses still open");
+			assertEquals(3, stub.getRequests());
+		}
+	}
+	
+	private static MockarooStubServer startStub(StubSettings settings) throws Exception {
+		settings.setPort(0);
+		MockarooStubServer stub = new MockarooStubServer(settings);
+		stub.start();
+		return stub;
+	}
+	
+	private static ArrayNode schema() {
+		ArrayNode schema = new ObjectMapper().createArrayNode();
+		schema.addObject().put("name", "EMPLOYEE_ID").put("type", "Row Number");
+		schema.addObject().put("name", "EMAIL").put("type", "Email Address");
+		schema.addObject().put("name", "SALARY").put("type", "Number").put("min", 1000).put("max", 9000).put("decimals", 2);
+		return schema;
+	}
+}
@@ -0,0 +1,41 @@
+package com.smg.schemas;
+
+import com.smg.schemas.entities.ForeignKey;
+import com.smg.schemas.entities.Schema;
+import com.smg.schemas.entities.Table;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Unit tests for the {@link SchemaParser} class on the predefined HR model.
+ * They verify that every column is read with its declared type, constraints aside,
+ * and that unnamed foreign keys are read and named.
+ */
+class SchemaParserTest {
+	
+	@Test
+	void testParsesHrModel() {
+		String sqlContent = new SchemaLoader().loadSqlContent("HR");
+		Schema schema = new SchemaParser().parse("HR", sqlContent);
+		
+		assertEquals(7, schema.getTables().size());
+		Table employees = schema.getTables().stream()
+			.filter(table -> table.getName().equals("employees"))
+			.findFirst()
+			.orElseThrow();
+		assertEquals(11, employees.getColumns().size());
+		assertEquals("email", employees.getColumns().get(3).getName());
+		assertEquals("VARCHAR(25)", employees.getColumns().get(3).getDataType());
+		assertEquals("DECIMAL(10,2)", employees.getColumns().get(7).getDataType());
+		
+		List<ForeignKey> foreignKeys = employees.getForeignKeys();
+		assertEquals(3, foreignKeys.size());
+		assertEquals("FK_employees_job_id", foreignKeys.get(0).getName());
+		assertEquals("job_id", foreignKeys.get(0).getColumnName());
+		assertEquals("jobs", foreignKeys.get(0).getReferencedTable());
+		assertEquals("job_id", foreignKeys.get(0).getReferencedColumn());
+	}
+}
@@ -0,0 +1,118 @@
+package com.smg.schemas.ir;
+
+import com.smg.schemas.SchemaLoader;
+import com.smg.sqlparser.parser.SQL99.SqlSchemaParser;
+import com.smg.sqlparser.services.SqlGeneratorService;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for the {@link LoadPlanner} class and the scripts that follow its plans.
+ * They verify that tables are grouped in waves after the tables they reference, that
+ * cycles are broken on their nullable foreign keys, and that tables are dropped and
+ * truncated in the reverse order.
+ */
+class LoadPlannerTest {
+	
+	@Test
+	void testCyclesAreBrokenOnNullableForeignKeys() {
+		// a -> b -> c are NOT NULL, c -> a is nullable and closes the cycle
+		SchemaIR schema = new SchemaIR.Builder("S")
+			.table("a")
+			.column("id", "INT", -1, false, true, false)
+			.column("b_id", "INT", -1, false, false, false)
+			.foreignKey("a_b_fk", List.of("b_id"), "b", List.of("id"))
+			.table("b")
+			.column("id", "INT", -1, false, true, false)
+			.column("c_id", "INT", -1, false, false, false)
+			.foreignKey("b_c_fk", List.of("c_id"), "c", List.of("id"))
+			.table("c")
+			.column("id", "INT", -1, false, true, false)
+			.column("a_id", "INT", -1, true, false, false)
+			.column("parent_id", "INT", -1, true, false, false)
+			.foreignKey("c_a_fk", List.of("a_id"), "a", List.of("id"))
+			.foreignKey("c_parent_fk", List.of("parent_id"), "c", List.of("id"))
+			.table("d")
+			.column("id", "INT", -1, false, true, false)
+			.build();
+		
+		SchemaProjection projection = schema.project(List.of("a", "b", "c", "d"));
+		LoadPlan plan = projection.getLoadPlan();
+		assertSame(plan, projection.getLoadPlan());
+		assertEquals(3, plan.getWaveCount());
+		assertArrayEquals(new int[]{2, 3}, plan.getWave(0));
+		assertArrayEquals(new int[]{1}, plan.getWave(1));
+		assertArrayEquals(new int[]{0}, plan.getWave(2));
+		assertEquals(0, plan.getUnloadTable(0));
+		assertArrayEquals(new int[]{2}, plan.getDeferredForeignKeys());
+		assertFalse(plan.isAddedAfterCreate(3), "A foreign key of a table to itself does not constrain the order");
+		assertEquals(0, plan.getUnresolvedForeignKeys().length);
+	}
+	
+	@Test
+	void testCyclesOfNotNullColumnsAreUnresolved() {
+		SchemaIR schema = new SchemaIR.Builder("S")
+			.table("a")
+			.column("id", "INT", -1, false, true, false)
+			.column("b_id", "INT", -1, false, false, false)
+			.foreignKey("a_b_fk", List.of("b_id"), "b", List.of("id"))
+			.table("b")
+			.column("id", "INT", -1, false, true, false)
+			.column("a_id", "INT", -1, false, false, false)
+			.foreignKey("b_a_fk", List.of("a_id"), "a", List.of("id"))
+			.build();
+		
+		LoadPlan plan = schema.projectAll().getLoadPlan();
+		assertArrayEquals(new int[]{0}, plan.getWave(0));
+		assertArrayEquals(new int[]{1}, plan.getWave(1));
+		assertTrue(plan.isUnresolved(0));
+		assertTrue(plan.isAddedAfterCreate(0));
+		assertEquals(0, plan.getDeferredForeignKeys().length);
+	}
+	
+	@Test
+	void testScriptsFollowThePlan() throws Exception {
+		SqlGeneratorService service = new SqlGeneratorService(SqlSchemaParser.parseSchemaFromString(
+			new SchemaLoader().loadSqlContent("HR"), "HR"));
+		Set<String> selection = new LinkedHashSet<>(List.of("departments", "employees", "locations", "countries", "regions"));
+		
+		// employees <-> departments is a cycle, broken on the first selected: departments.manager_id
+		LoadPlan plan = service.getLoadPlan(selection);
+		SchemaIR schema = plan.getProjection().getSchema();
+		assertEquals(List.of("regions", "countries", "locations", "departments", "employees"),
+			IntStream.range(0, plan.getTableCount()).mapToObj(i -> schema.getTableName(plan.getLoadTable(i))).toList());
+		assertEquals(1, plan.getDeferredForeignKeys().length);
+		
+		String create = service.generateCreateSql(selection);
+		assertTrue(create.indexOf("CREATE TABLE regions") < create.indexOf("CREATE TABLE countries"));
+		assertTrue(create.endsWith("ALTER TABLE departments ADD CONSTRAINT FK_departments_manager_id "
+			+ "FOREIGN KEY (manager_id) REFERENCES employees (employee_id);"));
+		
+		String insert = service.generateInsertSql(selection, 2);
+		assertTrue(insert.contains("INSERT INTO departments (department_id, department_name, manager_id, location_id) VALUES (1, 'department_name_1', NULL, 1);"));
+		assertTrue(insert.endsWith("UPDATE departments SET manager_id = CASE department_id WHEN 1 THEN 1 WHEN 2 THEN 2 END "
+			+ "WHERE department_id IN (1, 2);\n"));
+		
+		assertEquals("""
+			UPDATE departments SET manager_id = NULL;
+			TRUNCATE TABLE employees;
+			TRUNCATE TABLE departments;
+			TRUNCATE TABLE locations;
+			TRUNCATE TABLE countries;
+			TRUNCATE TABLE regions;""", service.generateTruncateSql(selection));
+		assertTrue(service.generateDropSql(selection).startsWith("""
+			ALTER TABLE departments DROP CONSTRAINT FK_departments_manager_id;
+			DROP TABLE employees;
+			DROP TABLE departments;"""));
+	}
+}
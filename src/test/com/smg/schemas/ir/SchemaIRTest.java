@@ -0,0 +1,124 @@
+package com.smg.schemas.ir;
+
+import com.smg.fileio.ColumnKind;
+import com.smg.schemas.SchemaLoader;
+import com.smg.schemas.SchemaParser;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for the {@link SchemaIR} class.
+ * They verify that tables and columns are numbered in declaration order, that the
+ * column attributes and key masks are read back as declared, and that foreign keys
+ * are resolved both ways, including the ones declared before their target table.
+ */
+class SchemaIRTest {
+	
+	@Test
+	void testTablesColumnsAndKeysAreIndexed() {
+		SchemaIR schema = new SchemaIR.Builder("HR")
+			.table("employees")
+			.column("employee_id", "INT", -1, false, true, false)
+			.column("email", "VARCHAR(25)", 25, false, false, true)
+			.column("department_id", "INT", -1, true, false, false)
+			.foreignKey("emp_dept_fk", List.of("DEPARTMENT_ID"), "Departments", List.of("department_id"))
+			.table("departments")
+			.column("department_id", "INT", -1, false, false, false)
+			.column("name", "VARCHAR(30)", 30, false, false, false)
+			.primaryKey(List.of("department_id"))
+			.unique("dept_name_uq", List.of("name"))
+			.build();
+		
+		assertEquals(2, schema.getTableCount());
+		assertEquals(1, schema.findTable("\"DEPARTMENTS\""));
+		assertEquals(SchemaIR.NOT_FOUND, schema.findTable("jobs"));
+		assertEquals(3, schema.getFirstColumn(1));
+		assertEquals(5, schema.getColumnEnd(1));
+		assertEquals(1, schema.getColumnTable(4));
+		
+		int email = schema.findColumn(0, "Email");
+		assertEquals(1, email);
+		assertEquals("VARCHAR(25)", schema.getColumnType(email));
+		assertEquals(25, schema.getColumnLength(email));
+		assertEquals(ColumnKind.TEXT, schema.getColumnKind(email));
+		assertFalse(schema.isNullable(email));
+		assertTrue(schema.isDeclaredUnique(email));
+		assertTrue(schema.isUnique(email));
+		assertEquals(-1, schema.getColumnLength(0));
+		assertEquals(ColumnKind.INTEGER, schema.getColumnKind(0));
+		assertTrue(schema.isPrimaryKey(0));
+		
+		assertEquals(1, schema.getPrimaryKeyColumnCount(1));
+		assertEquals(3, schema.getPrimaryKeyColumn(1, 0));
+		assertTrue(schema.isPrimaryKey(3));
+		assertFalse(schema.isDeclaredUnique(4));
+		assertTrue(schema.isUnique(4), "Columns of unique constraints are in the unique mask");
+		assertEquals("dept_name_uq", schema.getUniqueName(schema.getFirstUnique(1)));
+		
+		int foreignKey = schema.getColumnForeignKey(2);
+		assertEquals(0, foreignKey);
+		assertTrue(schema.isForeignKey(2));
+		assertFalse(schema.isForeignKey(3));
+		assertEquals(1, schema.getForeignKeyTargetTable(foreignKey));
+		assertEquals(3, schema.getForeignKeyTargetColumn(foreignKey, 0));
+		assertEquals(1, schema.getReferencingForeignKeyCount(1));
+		assertEquals(foreignKey, schema.getReferencingForeignKey(1, 0));
+		assertEquals(0, schema.getReferencingForeignKeyCount(0));
+	}
+	
+	@Test
+	void testParsedModelIsReadInPlace() {
+		SchemaIR schema = SchemaIR.of(new SchemaParser().parse("HR", new SchemaLoader().loadSqlContent("HR")));
+		
+		assertEquals(7, schema.getTableCount());
+		int employees = schema.findTable("EMPLOYEES");
+		assertEquals(11, schema.getTableColumnCount(employees));
+		assertEquals(3, schema.getForeignKeyEnd(employees) - schema.getFirstForeignKey(employees));
+		
+		int salary = schema.findColumn(employees, "salary");
+		assertEquals(ColumnKind.DECIMAL, schema.getColumnKind(salary));
+		assertEquals(10, schema.getColumnLength(salary));
+		
+		// The manager of an employee is an employee
+		int manager = schema.getColumnForeignKey(schema.findColumn(employees, "manager_id"));
+		assertEquals(employees, schema.getForeignKeyTargetTable(manager));
+		assertEquals(schema.findColumn(employees, "employee_id"), schema.getForeignKeyTargetColumn(manager, 0));
+		boolean referenced = false;
+		for (int i = 0; i < schema.getReferencingForeignKeyCount(employees); i++) {
+			referenced |= schema.getReferencingForeignKey(employees, i) == manager;
+		}
+		assertTrue(referenced);
+	}
+	
+	@Test
+	void testNamesDifferingOnlyInCaseKeepTheirIds() {
+		// "Foo" and "FOO" are two tables of the parsed schema, but the same symbol
+		SchemaIR schema = new SchemaIR.Builder("S")
+			.table("Foo")
+			.column("id", "INT", -1, false, true, false)
+			.column("ID", "INT", -1, true, false, false)
+			.column("name", "VARCHAR(10)", 10, true, false, false)
+			.table("FOO")
+			.column("id", "INT", -1, false, true, false)
+			.table("bar")
+			.column("foo_id", "INT", -1, true, false, false)
+			.column("name", "VARCHAR(20)", 20, true, false, false)
+			.foreignKey("bar_foo_fk", List.of("foo_id"), "foo", List.of("id"))
+			.build();
+		
+		assertEquals(3, schema.getTableCount());
+		assertEquals(0, schema.findTable("FOO"), "The first table of a name is found");
+		assertEquals(2, schema.findTable("bar"), "Tables after a repeated name keep their ids");
+		assertEquals("FOO", schema.getTableName(1));
+		assertEquals(2, schema.findColumn(0, "name"), "Columns after a repeated name keep their ids");
+		assertEquals(0, schema.findColumn(0, "Id"));
+		assertEquals(schema.getFirstColumn(2) + 1, schema.findColumn(2, "NAME"));
+		assertEquals(0, schema.getForeignKeyTargetTable(schema.getFirstForeignKey(2)));
+		assertEquals(0, schema.getForeignKeyTargetColumn(schema.getFirstForeignKey(2), 0));
+	}
+}
@@ -0,0 +1,86 @@
+package com.smg.schemas.ir;
+
+import com.smg.schemas.SchemaManager;
+import com.smg.schemas.entities.Schema;
+import com.smg.schemas.entities.Table;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for the {@link SchemaProjection} class.
+ * They verify that a selection keeps the foreign keys between its tables and leaves
+ * out the others with their columns, and that it is computed once per selection.
+ */
+class SchemaProjectionTest {
+	
+	private final SchemaIR schema = new SchemaIR.Builder("HR")
+		.table("departments")
+		.column("department_id", "INT", -1, false, true, false)
+		.column("location_id", "INT", -1, true, false, false)
+		.unique("dept_location_uq", List.of("location_id"))
+		.foreignKey("dept_loc_fk", List.of("location_id"), "locations", List.of("location_id"))
+		.table("employees")
+		.column("employee_id", "INT", -1, false, true, false)
+		.column("department_id", "INT", -1, true, false, false)
+		.foreignKey("emp_dept_fk", List.of("department_id"), "departments", List.of("department_id"))
+		.table("locations")
+		.column("location_id", "INT", -1, false, true, false)
+		.build();
+	
+	@Test
+	void testSelectionKeepsTheKeysBetweenItsTables() {
+		SchemaProjection projection = schema.project(List.of("EMPLOYEES", "departments", "Employees"));
+		
+		assertEquals(2, projection.getTableCount(), "A table selected twice counts once");
+		assertEquals(1, projection.getTable(0));
+		assertEquals(0, projection.getTable(1));
+		assertTrue(projection.isSelected(0));
+		assertFalse(projection.isSelected(2));
+		
+		// The key to the departments is kept, the key to the locations is not
+		assertTrue(projection.isForeignKeyKept(1));
+		assertTrue(projection.isColumnKept(schema.findColumn(1, "department_id")));
+		assertFalse(projection.isForeignKeyKept(0));
+		assertFalse(projection.isColumnKept(schema.findColumn(0, "location_id")));
+		assertFalse(projection.isUniqueKept(0), "A unique constraint without columns left is left out");
+		assertFalse(projection.isColumnKept(schema.findColumn(2, "location_id")));
+		
+		assertTrue(schema.projectAll().isForeignKeyKept(0));
+		assertTrue(schema.projectAll().isUniqueKept(0));
+	}
+	
+	@Test
+	void testProjectionIsComputedOncePerSelection() {
+		SchemaProjection projection = schema.project(List.of("employees", "departments"));
+		
+		assertSame(projection, schema.project(List.of("Employees", "DEPARTMENTS")));
+		assertEquals(projection.getKey(), schema.project(List.of("employees", "departments")).getKey());
+		SchemaProjection reversed = schema.project(List.of("departments", "employees"));
+		assertNotSame(projection, reversed, "The order of the selection is kept");
+		assertEquals(0, reversed.getTable(0));
+		assertThrows(IllegalArgumentException.class, () -> schema.project(List.of("jobs")));
+	}
+	
+	@Test
+	void testCleanedSchemaKeepsOnlyTheKeysBetweenSelectedTables() {
+		SchemaManager schemaManager = new SchemaManager();
+		schemaManager.loadSchemas();
+		
+		Schema cleaned = schemaManager.cleanSchema("HR", List.of("employees", "JOBS", "unknown"));
+		
+		assertEquals(List.of("jobs", "employees"), cleaned.getTables().stream().map(Table::getName).toList());
+		Table employees = cleaned.getTables().get(1);
+		assertEquals(11, employees.getColumns().size());
+		assertEquals(List.of("jobs", "employees"), employees.getForeignKeys().stream()
+			.map(foreignKey -> foreignKey.getReferencedTable())
+			.toList());
+	}
+}
@@ -0,0 +1,122 @@
+package com.smg.schemas.snapshot;
+
+import com.smg.schemas.snapshot.SchemaSnapshotCache.LoadedSchema;
+import com.smg.sqlparser.domain.sql.Schema;
+import com.smg.sqlparser.domain.sql.Table;
+import com.smg.sqlparser.domain.sql.constraints.ForeignKey;
+import com.smg.sqlparser.parser.SQL99.SqlSchemaParser;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for the {@link SchemaSnapshotCache} class with the {@link SqlSchemaCodec}.
+ * They verify that an unchanged DDL is loaded from its snapshot without parsing, with
+ * the same tables, keys and foreign keys, and that a changed DDL or a damaged snapshot
+ * is parsed again.
+ */
+class SchemaSnapshotCacheTest {
+	
+	private static final String DDL = """
+		CREATE TABLE departments (
+		    department_id INT PRIMARY KEY,
+		    name VARCHAR(30) NOT NULL UNIQUE,
+		    manager_id INT,
+		    FOREIGN KEY (manager_id) REFERENCES employees(employee_id)
+		);
+		CREATE TABLE employees (
+		    employee_id INT PRIMARY KEY,
+		    salary DECIMAL(10,2),
+		    department_id INT,
+		    FOREIGN KEY (department_id) REFERENCES departments(department_id)
+		);""";
+	
+	private static final String VERSION = "1.0.0@1";
+	
+	@TempDir
+	Path directory;
+	
+	@Test
+	void testUnchangedDdlIsLoadedFromSnapshot() throws Exception {
+		SchemaSnapshotCache<Schema> cache = new SchemaSnapshotCache<>(directory, new SqlSchemaCodec(), VERSION);
+		AtomicInteger parses = new AtomicInteger();
+		
+		LoadedSchema<Schema> parsed = cache.load("HR", DDL, ddl -> parse(ddl, parses));
+		LoadedSchema<Schema> loaded = cache.load("HR", DDL, ddl -> parse(ddl, parses));
+		
+		assertFalse(parsed.fromSnapshot());
+		assertTrue(loaded.fromSnapshot());
+		assertEquals(1, parses.get(), "The second load does not parse");
+		
+		Schema schema = loaded.schema();
+		assertEquals("HR", schema.getName());
+		for (Table table : parsed.schema().getTablesValues()) {
+			assertEquals(table.toCreateSql(), schema.getTables().get(table.getName()).toCreateSql());
+		}
+		Table employees = schema.getTables().get("employees");
+		ForeignKey foreignKey = employees.getForeignKeys().get(0);
+		assertSame(schema.getTables().get("departments"), foreignKey.getTargetTable(), "Foreign keys point to the loaded tables");
+		assertSame(employees.getColumns().get(2), foreignKey.getSourceColumns().get(0));
+		assertSame(employees.getColumns().get(0), employees.getPrimaryKey().getColumns().get(0));
+	}
+	
+	@Test
+	void testChangedDdlOrDamagedSnapshotIsParsedAgain() throws Exception {
+		SchemaSnapshotCache<Schema> cache = new SchemaSnapshotCache<>(directory, new SqlSchemaCodec(), VERSION);
+		AtomicInteger parses = new AtomicInteger();
+		cache.load("HR", DDL, ddl -> parse(ddl, parses));
+		
+		LoadedSchema<Schema> changed = cache.load("HR", DDL + "\nCREATE TABLE jobs (job_id INT);", ddl -> parse(ddl, parses));
+		assertFalse(changed.fromSnapshot());
+		assertEquals(3, changed.schema().getTables().size());
+		
+		try (Stream<Path> snapshots = Files.list(directory)) {
+			for (Path snapshot : snapshots.toList()) {
+				Files.write(snapshot, new byte[] {1, 2, 3});
+			}
+		}
+		LoadedSchema<Schema> reparsed = cache.load("HR", DDL, ddl -> parse(ddl, parses));
+		assertFalse(reparsed.fromSnapshot());
+		assertEquals(2, reparsed.schema().getTables().size());
+		assertEquals(3, parses.get());
+		assertTrue(cache.load("HR", DDL, ddl -> parse(ddl, parses)).fromSnapshot(), "The damaged snapshot is replaced");
+	}
+	
+	@Test
+	void testSnapshotsOfAnotherParserVersionAreNotRead() throws Exception {
+		AtomicInteger parses = new AtomicInteger();
+		new SchemaSnapshotCache<>(directory, new SqlSchemaCodec(), VERSION).load("HR", DDL, ddl -> parse(ddl, parses));
+		
+		SchemaSnapshotCache<Schema> upgraded = new SchemaSnapshotCache<>(directory, new SqlSchemaCodec(), "1.0.0@2");
+		assertFalse(upgraded.load("HR", DDL, ddl -> parse(ddl, parses)).fromSnapshot());
+		assertTrue(upgraded.load("HR", DDL, ddl -> parse(ddl, parses)).fromSnapshot());
+		assertEquals(2, parses.get());
+	}
+	
+	@Test
+	void testDirectoriesAreResolvedAgainstTheUserCache() {
+		Path userCache = SchemaSnapshotCache.userCacheDirectory();
+		assertTrue(userCache.isAbsolute());
+		assertEquals(userCache.resolve("schemas"), SchemaSnapshotCache.resolveDirectory("schemas"));
+		assertEquals(directory, SchemaSnapshotCache.resolveDirectory(directory.toString()), "Absolute directories are kept");
+		assertNull(SchemaSnapshotCache.resolveDirectory(" "));
+		
+		String version = SchemaSnapshotCache.versionOf(SqlSchemaParser.class);
+		assertFalse(version.endsWith("@0"), "The build time of the parser is part of its version: " + version);
+	}
+	
+	private static Schema parse(String ddl, AtomicInteger parses) throws Exception {
+		parses.incrementAndGet();
+		return SqlSchemaParser.parseSchemaFromString(ddl, "HR");
+	}
+}
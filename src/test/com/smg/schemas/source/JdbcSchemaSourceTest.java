@@ -0,0 +1,153 @@
+package com.smg.schemas.source;
+
+import com.smg.sqlparser.domain.sql.Column;
+import com.smg.sqlparser.domain.sql.Schema;
+import com.smg.sqlparser.domain.sql.Table;
+import com.smg.sqlparser.domain.sql.constraints.ForeignKey;
+import com.smg.sqlparser.enums.DataType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for the {@link JdbcSchemaSource} class, against an in-memory H2 database.
+ * They verify that tables, columns, keys and unique indexes are read into the same
+ * model as a parsed DDL, that the foreign keys are linked whatever worker read
+ * their tables, and that tables of several schemas are named after their schema.
+ */
+class JdbcSchemaSourceTest {
+	
+	private static final String URL = "jdbc:h2:mem:smg_hr;DB_CLOSE_DELAY=-1";
+	
+	private Connection connection;
+	
+	@BeforeEach
+	void createDatabase() throws SQLException {
+		connection = DriverManager.getConnection(URL, "sa", "");
+		try (Statement statement = connection.createStatement()) {
+			statement.execute("""
+				CREATE TABLE regions (region_id INT PRIMARY KEY, region_name VARCHAR(25));
+				CREATE TABLE countries (
+				    country_id CHAR(2) NOT NULL,
+				    country_name VARCHAR(40) UNIQUE,
+				    region_id INT,
+				    PRIMARY KEY (country_id),
+				    FOREIGN KEY (region_id) REFERENCES regions (region_id)
+				);
+				CREATE TABLE job_history (
+				    employee_id INT NOT NULL,
+				    start_date DATE NOT NULL,
+				    end_date DATE,
+				    salary DECIMAL(8, 2),
+				    country_id CHAR(2),
+				    PRIMARY KEY (employee_id, start_date),
+				    CONSTRAINT jhist_end_uq UNIQUE (employee_id, end_date),
+				    CONSTRAINT jhist_ctry_fk FOREIGN KEY (country_id) REFERENCES countries (country_id)
+				);
+				CREATE TABLE jobxhistory (id INT);
+				""");
+		}
+	}
+	
+	@AfterEach
+	void dropDatabase() throws SQLException {
+		try (Statement statement = connection.createStatement()) {
+			statement.execute("DROP ALL OBJECTS");
+		}
+		connection.close();
+	}
+	
+	@Test
+	void testTablesColumnsAndKeysAreRead() throws Exception {
+		JdbcSchemaSource source = new JdbcSchemaSource(URL, "sa", "", "PUBLIC", "HR", 3);
+		Schema schema = source.load();
+		
+		assertEquals("HR", schema.getName());
+		assertEquals(4, schema.getTables().size());
+		assertTrue(source.describe().startsWith("introspected 4 tables over 3 connections"));
+		
+		Table countries = schema.getTable("countries");
+		Column countryId = countries.findColumn("country_id");
+		assertEquals(DataType.CHAR, countryId.getType());
+		assertEquals(2L, countryId.getLength());
+		assertFalse(countryId.isNullable());
+		assertTrue(countryId.isPrimaryKey());
+		assertEquals(List.of(countryId), countries.getPrimaryKey().getColumns());
+		assertTrue(countries.findColumn("country_name").isUnique(), "A single column unique index is a unique column");
+		assertEquals(40L, countries.findColumn("country_name").getLength());
+		assertNull(countries.findColumn("region_id").getLength());
+		
+		Table jobHistory = schema.getTable("JOB_HISTORY");
+		assertEquals(5, jobHistory.getColumns().size(), "The name is not read as a pattern");
+		assertEquals(2, jobHistory.getPrimaryKey().getColumns().size());
+		assertFalse(jobHistory.findColumn("employee_id").isPrimaryKey());
+		assertEquals(DataType.DECIMAL, jobHistory.findColumn("salary").getType());
+		assertNull(jobHistory.findColumn("salary").getLength(), "A precision and scale are not a length");
+		assertEquals(1, jobHistory.getUniqueConstraints().size(), "The primary key index is not a unique constraint");
+		assertEquals(List.of("EMPLOYEE_ID", "END_DATE"), jobHistory.getUniqueConstraints().get(0).getColumnNames());
+	}
+	
+	@Test
+	void testForeignKeysAreLinkedAcrossWorkers() throws Exception {
+		Schema schema = new JdbcSchemaSource(URL, "sa", "", "PUBLIC", "HR", 4).load();
+		Schema sequential = new JdbcSchemaSource(URL, "sa", "", "PUBLIC", "HR", 1).load();
+		
+		Table jobHistory = schema.getTable("job_history");
+		assertEquals(1, jobHistory.getForeignKeys().size());
+		ForeignKey foreignKey = jobHistory.getForeignKeys().get(0);
+		assertSame(schema.getTable("countries"), foreignKey.getTargetTable());
+		assertSame(jobHistory.findColumn("country_id"), foreignKey.getSourceColumns().get(0));
+		assertSame(schema.getTable("countries").findColumn("country_id"), foreignKey.getTargetColumns().get(0));
+		assertNotNull(schema.getTable("countries").getForeignKeys().get(0).getTargetTable());
+		
+		for (Table table : schema.getTables().values()) {
+			assertEquals(sequential.getTable(table.getName()).toCreateSql(), table.toCreateSql());
+		}
+	}
+	
+	@Test
+	void testTablesOfSeveralSchemasAreQualified() throws Exception {
+		try (Statement statement = connection.createStatement()) {
+			statement.execute("""
+				CREATE SCHEMA sales;
+				CREATE TABLE sales.regions (region_code CHAR(3) PRIMARY KEY);
+				CREATE TABLE sales.orders (
+				    order_id INT PRIMARY KEY,
+				    region_code CHAR(3),
+				    region_id INT,
+				    FOREIGN KEY (region_code) REFERENCES sales.regions (region_code),
+				    FOREIGN KEY (region_id) REFERENCES public.regions (region_id)
+				);
+				""");
+		}
+		
+		Schema schema = new JdbcSchemaSource(URL, "sa", "", null, "HR", 2).load();
+		
+		Table publicRegions = schema.getTable("PUBLIC.REGIONS");
+		Table salesRegions = schema.getTable("sales.regions");
+		assertNotNull(publicRegions.findColumn("region_name"));
+		assertNotNull(salesRegions.findColumn("region_code"), "Tables of the same name are both kept");
+		assertNull(schema.getTable("regions"));
+		
+		Table orders = schema.getTable("SALES.ORDERS");
+		assertEquals(2, orders.getForeignKeys().size());
+		for (ForeignKey foreignKey : orders.getForeignKeys()) {
+			Table expected = foreignKey.getSourceColumns().get(0).getName().equals("REGION_CODE") ? salesRegions : publicRegions;
+			assertSame(expected, foreignKey.getTargetTable(), "The target is found in its own schema");
+		}
+		assertSame(schema.getTable("public.regions"), schema.getTable("PUBLIC.COUNTRIES").getForeignKeys().get(0).getTargetTable());
+	}
+}
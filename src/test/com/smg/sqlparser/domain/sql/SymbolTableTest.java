@@ -0,0 +1,112 @@
+package com.smg.sqlparser.domain.sql;
+
+import com.smg.sqlparser.domain.graph.Graph;
+import com.smg.sqlparser.domain.graph.Node;
+import com.smg.sqlparser.domain.sql.constraints.ForeignKey;
+import com.smg.sqlparser.enums.DataType;
+import com.smg.sqlparser.parser.SQL99.SqlSchemaParser;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Unit tests for the {@link SymbolTable} class and the name lookups built on it.
+ * They verify that names get stable ids and are found without case or quotes in the
+ * schemas, tables and graphs, that the lookups follow every change of the tables and
+ * columns, and that foreign keys are linked through them.
+ */
+class SymbolTableTest {
+	
+	@Test
+	void testNamesAreInternedWithoutCaseOrQuotes() {
+		SymbolTable symbols = new SymbolTable();
+		
+		assertEquals(0, symbols.intern("Employees"));
+		assertEquals(1, symbols.intern("departments"));
+		assertEquals(0, symbols.intern("\"EMPLOYEES\""), "A known name keeps its id");
+		assertEquals(1, symbols.find("`Departments`"));
+		assertEquals(SymbolTable.NOT_FOUND, symbols.find("jobs"));
+		assertEquals("employees", symbols.name(0));
+		assertEquals(2, symbols.size());
+	}
+	
+	@Test
+	void testTablesAndColumnsAreFoundByName() {
+		Schema schema = new Schema("HR");
+		Table employees = new Table("Employees");
+		employees.addColumn(new Column("EMPLOYEE_ID", DataType.INT, null, false, true, false));
+		schema.addTable(employees);
+		// Columns added after the table are found too
+		Column email = new Column("email", DataType.VARCHAR, 25L, false, false, true);
+		employees.addColumn(email);
+		
+		assertSame(employees, schema.getTable("EMPLOYEES"));
+		assertSame(employees, schema.getTable(schema.getTableId("employees")));
+		assertNull(schema.getTable("jobs"));
+		assertSame(email, employees.findColumn("\"Email\""));
+		assertEquals(1, employees.getColumnId("EMAIL"));
+		assertNull(employees.findColumn("salary"));
+		
+		Graph graph = new Graph();
+		graph.addEdge(new Node(employees), new Node(new Table("departments")));
+		assertSame(employees, graph.findNodeByName("employees").getTable());
+		assertEquals(new Node(new Table("EMPLOYEES")), graph.findNodeByName("Employees"));
+	}
+	
+	@Test
+	void testLookupsFollowReplacedTablesAndColumns() {
+		Schema schema = new Schema("HR");
+		schema.addTable(new Table("employees"));
+		assertThrows(UnsupportedOperationException.class, () -> schema.getTables().put("jobs", new Table("jobs")));
+		assertThrows(UnsupportedOperationException.class, () -> schema.getTablesValues().clear());
+		
+		Table jobs = new Table("jobs");
+		Map<String, Table> tables = new HashMap<>(Map.of("jobs", jobs));
+		schema.setTables(tables);
+		tables.put("regions", new Table("regions"));
+		assertSame(jobs, schema.getTable("JOBS"));
+		assertNull(schema.getTable("employees"));
+		assertNull(schema.getTable("regions"), "The schema keeps its own copy of the map");
+		assertEquals(1, schema.getTables().size());
+		
+		Column jobId = new Column("job_id", DataType.VARCHAR, 10L, false, true, false);
+		jobs.addColumn(jobId);
+		assertThrows(UnsupportedOperationException.class, () -> jobs.getColumns().add(jobId));
+		
+		// A list of the same size still gives its columns their ids again
+		Column jobTitle = new Column("job_title", DataType.VARCHAR, 35L, false, false, false);
+		List<Column> columns = new ArrayList<>(List.of(jobTitle));
+		jobs.setColumns(columns);
+		columns.add(jobId);
+		assertSame(jobTitle, jobs.findColumn("JOB_TITLE"));
+		assertEquals(0, jobs.getColumnId("job_title"));
+		assertNull(jobs.findColumn("job_id"), "The table keeps its own copy of the list");
+	}
+	
+	@Test
+	void testForeignKeysAreLinkedWhateverTheCaseOfTheirNames() throws Exception {
+		Schema schema = SqlSchemaParser.parseSchemaFromString("""
+			CREATE TABLE Departments (Department_Id INT PRIMARY KEY, name VARCHAR(30));
+			CREATE TABLE employees (
+			    employee_id INT PRIMARY KEY,
+			    department_id INT,
+			    FOREIGN KEY (DEPARTMENT_ID) REFERENCES DEPARTMENTS (department_id)
+			);
+			""", "HR");
+		
+		Table employees = schema.getTable("employees");
+		assertEquals(1, employees.getForeignKeys().size());
+		ForeignKey foreignKey = employees.getForeignKeys().get(0);
+		assertSame(schema.getTable("departments"), foreignKey.getTargetTable());
+		assertSame(employees.findColumn("department_id"), foreignKey.getSourceColumns().get(0));
+		assertSame(schema.getTable("departments").findColumn("department_id"), foreignKey.getTargetColumns().get(0));
+	}
+}
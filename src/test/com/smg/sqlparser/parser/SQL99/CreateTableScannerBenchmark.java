@@ -0,0 +1,143 @@
+package com.smg.sqlparser.parser.SQL99;
+
+import net.sf.jsqlparser.parser.CCJSqlParserUtil;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Micro-benchmark of {@code CREATE TABLE} parsing on a multi-MB DDL script.
+ * <p>
+ * It compares the single-pass {@link CreateTableScanner}, the regular expressions the
+ * previous {@code SchemaParser} ran over the whole script, and JSqlParser on the same
+ * statements. Every parser runs on one thread, and the statement splitting is timed
+ * with the scanner and JSqlParser, which both need it. Run it with {@code main}; it is
+ * not part of the unit tests.
+ */
+public class CreateTableScannerBenchmark {
+	
+	private static final int TABLES = 4_000;
+	private static final int COLUMNS_PER_TABLE = 24;
+	private static final int ITERATIONS = 5;
+	
+	// The patterns of the previous regex SchemaParser
+	private static final Pattern CREATE_TABLE_PATTERN = Pattern.compile(
+		"CREATE\\s+TABLE\\s+\"?(\\w+)\"?\\s*\\((.*?)\\);",
+		Pattern.DOTALL | Pattern.CASE_INSENSITIVE
+	);
+	private static final Pattern COLUMN_PATTERN = Pattern.compile(
+		"\"?(\\w+)\"?\\s+([a-zA-Z0-9_\\s]+?)(?:,|$)",
+		Pattern.CASE_INSENSITIVE
+	);
+	private static final Pattern FOREIGN_KEY_PATTERN = Pattern.compile(
+		"CONSTRAINT\\s+\"?(\\w+)\"?\\s+FOREIGN\\s+KEY\\s+\\(\"?(\\w+)\"?\\)\\s+REFERENCES\\s+\"?(\\w+)\"?\\s*\\(\"?(\\w+)\"?\\)",
+		Pattern.CASE_INSENSITIVE
+	);
+	
+	public static void main(String[] args) throws Exception {
+		String ddl = generateDdl();
+		System.out.printf("Tables: %d, characters: %d%n", TABLES, ddl.length());
+		
+		long bestScannerNanos = Long.MAX_VALUE;
+		for (int i = 0; i < ITERATIONS; i++) {
+			long start = System.nanoTime();
+			int tables = 0;
+			try (SqlStatementSplitter splitter = new SqlStatementSplitter(new StringReader(ddl))) {
+				String sql;
+				while ((sql = splitter.nextStatement()) != null) {
+					if (CreateTableScanner.isCreateTable(sql) && CreateTableScanner.scan(sql) != null) {
+						tables++;
+					}
+				}
+			}
+			bestScannerNanos = Math.min(bestScannerNanos, System.nanoTime() - start);
+			check(tables, "scanner");
+		}
+		
+		long bestRegexNanos = Long.MAX_VALUE;
+		for (int i = 0; i < ITERATIONS; i++) {
+			long start = System.nanoTime();
+			int tables = 0;
+			Matcher tableMatcher = CREATE_TABLE_PATTERN.matcher(ddl);
+			while (tableMatcher.find()) {
+				String tableContent = tableMatcher.group(2);
+				Matcher columnMatcher = COLUMN_PATTERN.matcher(tableContent);
+				while (columnMatcher.find()) {
+					columnMatcher.group(2).trim();
+				}
+				Matcher fkMatcher = FOREIGN_KEY_PATTERN.matcher(tableContent);
+				while (fkMatcher.find()) {
+					fkMatcher.group(3);
+				}
+				tables++;
+			}
+			bestRegexNanos = Math.min(bestRegexNanos, System.nanoTime() - start);
+			check(tables, "regex");
+		}
+		
+		long bestJSqlParserNanos = Long.MAX_VALUE;
+		for (int i = 0; i < ITERATIONS; i++) {
+			long start = System.nanoTime();
+			int tables = 0;
+			try (SqlStatementSplitter splitter = new SqlStatementSplitter(new StringReader(ddl))) {
+				String sql;
+				while ((sql = splitter.nextStatement()) != null) {
+					if (CreateTableScanner.isCreateTable(sql) && CCJSqlParserUtil.newParser(sql).Statement() != null) {
+						tables++;
+					}
+				}
+			}
+			bestJSqlParserNanos = Math.min(bestJSqlParserNanos, System.nanoTime() - start);
+			check(tables, "JSqlParser");
+		}
+		
+		System.out.printf("CreateTableScanner: %8.1f MB/s%n", rate(ddl, bestScannerNanos));
+		System.out.printf("Regex SchemaParser: %8.1f MB/s%n", rate(ddl, bestRegexNanos));
+		System.out.printf("JSqlParser:         %8.1f MB/s%n", rate(ddl, bestJSqlParserNanos));
+	}
+	
+	/**
+	 * Builds a script of tables with typed columns, a named and an unnamed foreign key,
+	 * a check and an index per table, with comments between the statements.
+	 */
+	private static String generateDdl() {
+		String[] types = {"INT", "VARCHAR(40)", "DECIMAL(10,2)", "DATE", "CHAR(1)", "BIGINT"};
+		StringBuilder ddl = new StringBuilder();
+		for (int t = 0; t < TABLES; t++) {
+			ddl.append("-- TABLE: table_").append(t).append('\n');
+			ddl.append("CREATE TABLE table_").append(t).append(" (\n");
+			ddl.append("    id INT PRIMARY KEY,\n");
+			for (int c = 1; c < COLUMNS_PER_TABLE; c++) {
+				ddl.append("    column_").append(c).append(' ').append(types[c % types.length]);
+				if (c % 3 == 0) {
+					ddl.append(" NOT NULL");
+				}
+				if (c % 7 == 0) {
+					ddl.append(" DEFAULT 'n/a'");
+				}
+				ddl.append(",\n");
+			}
+			ddl.append("    parent_id INT,\n");
+			ddl.append("    CHECK (column_1 > 0),\n");
+			ddl.append("    CONSTRAINT fk_").append(t).append("_self FOREIGN KEY (parent_id) REFERENCES table_").append(t).append(" (id)");
+			if (t > 0) {
+				ddl.append(",\n    FOREIGN KEY (column_1) REFERENCES table_").append(t - 1).append(" (id)");
+			}
+			ddl.append("\n);\n");
+			ddl.append("CREATE INDEX idx_").append(t).append(" ON table_").append(t).append(" (column_2);\n\n");
+		}
+		return ddl.toString();
+	}
+	
+	private static double rate(String ddl, long nanos) {
+		return ddl.length() / (nanos / 1e9) / 1e6;
+	}
+	
+	private static void check(int tables, String parser) throws IOException {
+		if (tables != TABLES) {
+			throw new IOException(parser + " found " + tables + " tables out of " + TABLES);
+		}
+	}
+}
@@ -0,0 +1,93 @@
+package com.smg.sqlparser.parser.SQL99;
+
+import com.smg.sqlparser.parser.SQL99.CreateTableScanner.ScannedColumn;
+import com.smg.sqlparser.parser.SQL99.CreateTableScanner.ScannedForeignKey;
+import com.smg.sqlparser.parser.SQL99.CreateTableScanner.ScannedTable;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for the {@link CreateTableScanner} class.
+ * They verify that columns, their constraints and foreign keys are scanned from the
+ * common CREATE TABLE syntax, and that any other syntax is left to JSqlParser.
+ */
+class CreateTableScannerTest {
+	
+	@Test
+	void testScansColumnsAndForeignKeys() {
+		ScannedTable table = CreateTableScanner.scan("""
+			CREATE TABLE IF NOT EXISTS hr.job_history (
+			    employee_id     INT NOT NULL,
+			    start_date      DATE NOT NULL DEFAULT CURRENT_DATE,
+			    job_id          VARCHAR(10) NOT NULL UNIQUE,
+			    salary          DECIMAL(10,2) CHECK (salary > 0),
+			    department_id   INT REFERENCES departments(department_id) ON DELETE SET NULL,
+			    PRIMARY KEY (employee_id, start_date),
+			    CHECK (start_date < CURRENT_DATE),
+			    CONSTRAINT jhist_emp_fk FOREIGN KEY (employee_id) REFERENCES employees (employee_id) ON DELETE CASCADE,
+			    FOREIGN KEY (job_id) REFERENCES jobs(job_id)
+			)""");
+		
+		assertNotNull(table);
+		assertEquals("job_history", table.name(), "The schema of a qualified name is left out");
+		assertEquals(5, table.columns().size());
+		
+		ScannedColumn jobId = table.columns().get(2);
+		assertEquals("job_id", jobId.name());
+		assertEquals("VARCHAR(10)", jobId.typeText());
+		assertTrue(jobId.notNull());
+		assertTrue(jobId.unique());
+		assertFalse(jobId.primaryKey());
+		assertEquals(List.of("10", "2"), table.columns().get(3).typeArguments());
+		assertEquals("departments", table.columns().get(4).referencedTable());
+		
+		List<ScannedForeignKey> foreignKeys = table.foreignKeys();
+		assertEquals(2, foreignKeys.size());
+		assertEquals("jhist_emp_fk", foreignKeys.get(0).name());
+		assertEquals("employees", foreignKeys.get(0).referencedTable());
+		assertNull(foreignKeys.get(1).name());
+		assertEquals(List.of("job_id"), foreignKeys.get(1).referencedColumns());
+	}
+	
+	@Test
+	void testKeepsQuotedNamesAsWritten() {
+		ScannedTable table = CreateTableScanner.scan("CREATE TABLE \"Regions\" (\"Region Id\" INT PRIMARY KEY, name VARCHAR(25))");
+		
+		assertNotNull(table);
+		assertEquals("\"Regions\"", table.name());
+		assertEquals("\"Region Id\"", table.columns().get(0).name());
+		assertTrue(table.columns().get(0).primaryKey());
+	}
+	
+	@Test
+	void testLeavesOtherSyntaxToJSqlParser() {
+		assertNull(CreateTableScanner.scan("CREATE TABLE t (amount DOUBLE PRECISION)"), "Multi-word types");
+		assertNull(CreateTableScanner.scan("CREATE TABLE t (id INT UNSIGNED)"), "Vendor column options");
+		assertNull(CreateTableScanner.scan("CREATE TABLE t (name VARCHAR(MAX))"), "Non-numeric type arguments");
+		assertNull(CreateTableScanner.scan("CREATE TABLE t AS SELECT * FROM s"), "Tables created from a query");
+		assertNull(CreateTableScanner.scan("CREATE TABLE t (id INT, KEY idx_id (id))"), "Index definitions");
+	}
+	
+	@Test
+	void testRecognizesCreateTableStatements() {
+		assertTrue(CreateTableScanner.isCreateTable("create table t (id int)"));
+		assertTrue(CreateTableScanner.isCreateTable("CREATE GLOBAL TEMPORARY TABLE t (id INT)"));
+		assertFalse(CreateTableScanner.isCreateTable("CREATE INDEX idx ON t (id)"));
+		assertFalse(CreateTableScanner.isCreateTable("ALTER TABLE t ADD FOREIGN KEY (id) REFERENCES s(id)"));
+	}
+	
+	@Test
+	void testUnreadableStatementsAreLeftToJSqlParser() {
+		assertTrue(CreateTableScanner.isCreateTable("CREATE \"TABLE t (id INT)"), "Unterminated quote");
+		assertTrue(CreateTableScanner.isCreateTable("CREATE [TABLE t (id INT)"), "Unterminated bracket");
+		assertTrue(CreateTableScanner.isCreateTable("'unterminated"));
+		assertNull(CreateTableScanner.scan("CREATE TABLE \"t (id INT)"));
+	}
+}
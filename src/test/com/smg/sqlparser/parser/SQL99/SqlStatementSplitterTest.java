@@ -0,0 +1,74 @@
+package com.smg.sqlparser.parser.SQL99;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for the {@link SqlStatementSplitter} class.
+ * They verify that statements end only at the semicolons outside quotes, comments and
+ * dollar-quoted bodies, and that comments are left out of the statements.
+ */
+class SqlStatementSplitterTest {
+	
+	@Test
+	void testSplitsStatementsAndDropsComments() throws IOException {
+		List<String> statements = split("""
+			-- Regions of the world; one per row
+			CREATE TABLE regions (
+			    region_id INT PRIMARY KEY, -- surrogate key; generated
+			    name VARCHAR(25) /* display; name */
+			);
+			
+			;
+			DROP TABLE regions""");
+		
+		assertEquals(2, statements.size());
+		assertTrue(statements.get(0).startsWith("CREATE TABLE regions ("));
+		assertFalse(statements.get(0).contains("surrogate"), "Line comments are dropped");
+		assertFalse(statements.get(0).contains("display"), "Block comments are dropped");
+		assertEquals("DROP TABLE regions", statements.get(1), "The last statement needs no semicolon");
+	}
+	
+	@Test
+	void testSemicolonsInsideQuotesDoNotSplit() throws IOException {
+		List<String> statements = split("""
+			INSERT INTO t VALUES ('a;b', 'it''s; here', "odd;name", `x;y`);
+			SELECT '-- not a comment' FROM t;""");
+		
+		assertEquals(2, statements.size());
+		assertEquals("INSERT INTO t VALUES ('a;b', 'it''s; here', \"odd;name\", `x;y`)", statements.get(0));
+		assertEquals("SELECT '-- not a comment' FROM t", statements.get(1));
+	}
+	
+	@Test
+	void testDollarQuotedBodiesAndDollarIdentifiers() throws IOException {
+		List<String> statements = split("""
+			CREATE FUNCTION f() RETURNS int AS $body$ BEGIN RETURN 1; END; $body$ LANGUAGE plpgsql;
+			DO $$ BEGIN PERFORM 1; END $$;
+			SELECT SYS$USERS.a, $1 FROM SYS$USERS;""");
+		
+		assertEquals(3, statements.size());
+		assertTrue(statements.get(0).endsWith("$body$ LANGUAGE plpgsql"));
+		assertEquals("DO $$ BEGIN PERFORM 1; END $$", statements.get(1));
+		assertEquals("SELECT SYS$USERS.a, $1 FROM SYS$USERS", statements.get(2));
+	}
+	
+	private static List<String> split(String sql) throws IOException {
+		List<String> statements = new ArrayList<>();
+		try (SqlStatementSplitter splitter = new SqlStatementSplitter(new StringReader(sql))) {
+			String statement;
+			while ((statement = splitter.nextStatement()) != null) {
+				statements.add(statement);
+			}
+		}
+		return statements;
+	}
+}
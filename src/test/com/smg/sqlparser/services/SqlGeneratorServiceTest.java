@@ -0,0 +1,47 @@
+package com.smg.sqlparser.services;
+
+import com.smg.schemas.SchemaLoader;
+import com.smg.sqlparser.parser.SQL99.SqlSchemaParser;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for the pre-data, data and post-data sections of the {@link SqlGeneratorService}.
+ * They verify that tables are created bare, that rows are inserted with every foreign key
+ * column set, and that keys, foreign key indexes and foreign keys are added afterwards.
+ */
+class SqlGeneratorServiceTest {
+	
+	@Test
+	void testSectionsBuildKeysAfterTheData() throws Exception {
+		SqlGeneratorService service = new SqlGeneratorService(SqlSchemaParser.parseSchemaFromString(
+			new SchemaLoader().loadSqlContent("HR"), "HR"));
+		Set<String> selection = new LinkedHashSet<>(List.of("departments", "employees", "locations"));
+		
+		String preData = service.generatePreDataSql(selection);
+		assertTrue(preData.contains("CREATE TABLE departments (\n  department_id INT NOT NULL,"));
+		assertFalse(preData.contains("KEY"));
+		assertFalse(preData.contains("UNIQUE"));
+		
+		String data = service.generateDataSql(selection, 2);
+		assertTrue(data.contains("INSERT INTO departments (department_id, department_name, manager_id, location_id) VALUES (1, 'department_name_1', 1, 1);"),
+			"Deferred foreign keys are inserted with their values");
+		assertFalse(data.contains("UPDATE"));
+		
+		List<String> postData = service.generatePostDataSql(selection).lines().toList();
+		assertTrue(postData.contains("ALTER TABLE departments ADD PRIMARY KEY (department_id);"));
+		assertTrue(postData.contains("CREATE INDEX IX_employees_department_id ON employees (department_id);"));
+		assertFalse(postData.contains("CREATE INDEX IX_departments_department_id ON departments (department_id);"));
+		assertTrue(postData.indexOf("ALTER TABLE employees ADD PRIMARY KEY (employee_id);")
+			< postData.indexOf("ALTER TABLE employees ADD CONSTRAINT FK_employees_department_id "
+			+ "FOREIGN KEY (department_id) REFERENCES departments (department_id);"), "Foreign keys come last");
+		assertEquals(4, postData.stream().filter(line -> line.contains("FOREIGN KEY")).count());
+	}
+}